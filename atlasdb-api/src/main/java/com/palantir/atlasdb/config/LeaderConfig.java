@@ -98,6 +98,22 @@ public abstract class LeaderConfig {
         return Duration.ofMillis(leaderPingResponseWaitMs());
     }
 
+    /**
+     * How long a leader may serve requests after verifying its leadership before it has to verify it again; zero
+     * disables leader leases. All nodes in the cluster must be configured with the same value.
+     */
+    @Value.Default
+    long leaderLeaseMs() {
+        return 0L;
+    }
+
+    @JsonIgnore
+    @Value.Derived
+    @Value.Auxiliary
+    public Duration leaderLease() {
+        return Duration.ofMillis(leaderLeaseMs());
+    }
+
     @JsonIgnore
     @Value.Default
     public Duration leaderAddressCacheTtl() {
@@ -111,6 +127,8 @@ public abstract class LeaderConfig {
         Preconditions.checkState(leaders().size() >= quorumSize(),
                 "The quorumSize '%s' must be less than or equal to the amount of leader entries %s.",
                 quorumSize(), leaders());
+        Preconditions.checkState(leaderLeaseMs() >= 0,
+                "The leaderLeaseMs '%s' must not be negative.", leaderLeaseMs());
 
         Preconditions.checkArgument(leaders().contains(localServer()),
                 "The localServer '%s' must included in the leader entries %s.", localServer(), leaders());
@@ -37,6 +37,40 @@ public interface AsyncKeyValueService extends AutoCloseable {
     @Timed
     ListenableFuture<Map<Cell, Value>> getAsync(TableReference tableRef, Map<Cell, Long> timestampByCell);
 
+    /**
+     * Asynchronously gets the values of the given rows from the key-value store when the store allows it. In other
+     * cases it just wraps the result in an immediate future.
+     *
+     * @param tableRef        the name of the table to retrieve values from.
+     * @param rows            set containing the rows to retrieve values for.
+     * @param columnSelection specifies the set of columns to fetch.
+     * @param timestamp       specifies the maximum timestamp (exclusive) at which to retrieve each row's value.
+     * @return listenable future containing map of retrieved values. Values which do not exist (either because they were
+     * deleted or never created in the first place) are simply not returned.
+     */
+    @Idempotent
+    @Timed
+    ListenableFuture<Map<Cell, Value>> getRowsAsync(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnSelection columnSelection,
+            long timestamp);
+
+    /**
+     * Asynchronously puts values into the key-value store at the given timestamp when the store allows it. In other
+     * cases it performs the put synchronously and returns an immediate future. As with
+     * {@link KeyValueService#multiPut(Map, long)}, this does not guarantee atomicity across cells.
+     *
+     * @param valuesByTable map containing the key-value entries to put by table.
+     * @param timestamp     must be non-negative and not equal to {@link Long#MAX_VALUE}
+     * @return listenable future which completes once all values have been written.
+     */
+    @Idempotent
+    @Timed
+    ListenableFuture<Void> multiPutAsync(
+            Map<TableReference, ? extends Map<Cell, byte[]>> valuesByTable,
+            long timestamp);
+
     @Override
     void close();
 }
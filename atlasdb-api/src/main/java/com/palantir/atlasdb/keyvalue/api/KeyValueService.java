@@ -21,6 +21,8 @@ import java.util.Map;
 import java.util.Set;
 
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.palantir.atlasdb.metrics.Timed;
 import com.palantir.atlasdb.transaction.api.TransactionManager;
 import com.palantir.common.annotation.Idempotent;
@@ -632,6 +634,33 @@ public interface KeyValueService extends AutoCloseable, AsyncKeyValueService {
     @Timed
     ClusterAvailabilityStatus getClusterAvailabilityStatus();
 
+    /**
+     * Key value services that cannot read rows asynchronously perform {@link #getRows} synchronously and wrap the
+     * result in an immediate future.
+     */
+    @Override
+    @DoDelegate
+    default ListenableFuture<Map<Cell, Value>> getRowsAsync(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnSelection columnSelection,
+            long timestamp) {
+        return Futures.immediateFuture(getRows(tableRef, rows, columnSelection, timestamp));
+    }
+
+    /**
+     * Key value services that cannot write asynchronously perform {@link #multiPut} synchronously and return an
+     * immediate future.
+     */
+    @Override
+    @DoDelegate
+    default ListenableFuture<Void> multiPutAsync(
+            Map<TableReference, ? extends Map<Cell, byte[]>> valuesByTable,
+            long timestamp) {
+        multiPut(valuesByTable, timestamp);
+        return Futures.immediateFuture(null);
+    }
+
     ////////////////////////////////////////////////////////////
     // SPECIAL CASING SOME KVSs
     ////////////////////////////////////////////////////////////
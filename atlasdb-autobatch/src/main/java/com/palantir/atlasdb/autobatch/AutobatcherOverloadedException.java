@@ -0,0 +1,34 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.autobatch;
+
+import com.palantir.common.remoting.ServiceNotAvailableException;
+
+/**
+ * Thrown (inside the returned future) when an autobatcher refuses a request because it is overloaded: either there
+ * was no space in its buffer before the caller's deadline, or the request waited in the buffer for longer than the
+ * configured maximum queueing delay. The request was not processed, so it is safe to retry; as a
+ * {@link ServiceNotAvailableException}, it is reported to remote callers as a retryable unavailability.
+ */
+public class AutobatcherOverloadedException extends ServiceNotAvailableException {
+    private static final long serialVersionUID = 1L;
+
+    public AutobatcherOverloadedException(String message) {
+        super(message);
+    }
+}
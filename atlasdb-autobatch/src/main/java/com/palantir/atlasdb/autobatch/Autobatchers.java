@@ -16,18 +16,24 @@
 
 package com.palantir.atlasdb.autobatch;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import javax.annotation.Nullable;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.errorprone.annotations.CompileTimeConstant;
+import com.lmax.disruptor.BlockingWaitStrategy;
 import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.WaitStrategy;
 import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
 import com.palantir.tracing.Observability;
 
 public final class Autobatchers {
@@ -91,6 +97,9 @@ public final class Autobatchers {
 
         private Observability observability = Observability.UNDECIDED;
         @Nullable private String purpose;
+        @Nullable private Duration maxQueueingDelay;
+        private int bufferSize = DEFAULT_BUFFER_SIZE;
+        private Supplier<WaitStrategy> waitStrategyFactory = BlockingWaitStrategy::new;
 
         private AutobatcherBuilder(Function<Integer, EventHandler<BatchElement<I, O>>> handlerFactory) {
             this.handlerFactory = handlerFactory;
@@ -111,17 +120,90 @@ public final class Autobatchers {
             return this;
         }
 
+        /**
+         * Requests that have waited for longer than {@code maxQueueingDelayParam} before the autobatcher gets to them
+         * are failed with an {@link AutobatcherOverloadedException} instead of being processed. By default, requests
+         * wait for as long as it takes.
+         */
+        public AutobatcherBuilder<I, O> maxQueueingDelay(Duration maxQueueingDelayParam) {
+            Preconditions.checkArgument(!maxQueueingDelayParam.isNegative(), "maxQueueingDelay must not be negative");
+            this.maxQueueingDelay = maxQueueingDelayParam;
+            return this;
+        }
+
+        /**
+         * Size of the ring buffer, which bounds both the number of outstanding requests and the size of a batch.
+         * Must be a power of two.
+         */
+        public AutobatcherBuilder<I, O> bufferSize(int bufferSizeParam) {
+            Preconditions.checkArgument(bufferSizeParam > 0 && Integer.bitCount(bufferSizeParam) == 1,
+                    "bufferSize must be a positive power of two",
+                    SafeArg.of("bufferSize", bufferSizeParam));
+            this.bufferSize = bufferSizeParam;
+            return this;
+        }
+
+        /**
+         * Creates the strategy the handler thread uses to wait for new requests. Defaults to a
+         * {@link BlockingWaitStrategy}, which trades a little latency for not burning a core per autobatcher.
+         *
+         * Wait strategies may hold state tied to a single ring buffer, so the factory is called once per ring buffer
+         * and must return a new instance each time.
+         */
+        public AutobatcherBuilder<I, O> waitStrategy(Supplier<WaitStrategy> waitStrategyFactoryParam) {
+            this.waitStrategyFactory = waitStrategyFactoryParam;
+            return this;
+        }
+
         public DisruptorAutobatcher<I, O> build() {
             Preconditions.checkArgument(purpose != null, "purpose must be provided");
-            EventHandler<BatchElement<I, O>> handler = this.handlerFactory.apply(DEFAULT_BUFFER_SIZE);
+            return buildAutobatcher(safeTags.build());
+        }
+
+        /**
+         * Builds an autobatcher with {@code numShards} independent ring buffers, each processed by its own handler
+         * thread. Requests are routed to a shard by the hash of {@code shardKeyFunction} applied to the argument, so
+         * requests with the same shard key are batched together and processed in submission order, while requests
+         * with different shard keys may be processed in parallel. Each shard gets its own wait strategy from the
+         * {@link #waitStrategy(Supplier) wait strategy factory}.
+         *
+         * @param numShards number of ring buffers (and handler threads) to create
+         * @param shardKeyFunction extracts the key used to pick a shard, e.g. a namespace or table; must map equal
+         * arguments to equal keys
+         * @return sharded autobatcher
+         */
+        public ShardedDisruptorAutobatcher<I, O> buildSharded(int numShards, Function<? super I, ?> shardKeyFunction) {
+            Preconditions.checkArgument(purpose != null, "purpose must be provided");
+            Preconditions.checkArgument(numShards > 0, "numShards must be positive",
+                    SafeArg.of("numShards", numShards));
+            Map<String, String> tags = safeTags.build();
+            List<DisruptorAutobatcher<I, O>> shards = IntStream.range(0, numShards)
+                    .mapToObj(shard -> buildAutobatcher(ImmutableMap.<String, String>builder()
+                            .putAll(tags)
+                            .put("shard", Integer.toString(shard))
+                            .build()))
+                    .collect(Collectors.toList());
+            return new ShardedDisruptorAutobatcher<>(shards, shardKeyFunction);
+        }
+
+        private DisruptorAutobatcher<I, O> buildAutobatcher(Map<String, String> tags) {
+            EventHandler<BatchElement<I, O>> handler = this.handlerFactory.apply(bufferSize);
 
             EventHandler<BatchElement<I, O>> tracingHandler =
-                    new TracingEventHandler<>(handler, DEFAULT_BUFFER_SIZE);
+                    new TracingEventHandler<>(handler, bufferSize);
+
+            QueueingRecorder queueingRecorder = QueueingRecorder.create(purpose, tags);
+
+            EventHandler<BatchElement<I, O>> sheddingHandler = maxQueueingDelay == null
+                    ? tracingHandler
+                    : new LoadSheddingEventHandler<>(
+                            tracingHandler, purpose, queueingRecorder, maxQueueingDelay, bufferSize);
 
             EventHandler<BatchElement<I, O>> profiledHandler =
-                    new ProfilingEventHandler<>(tracingHandler, purpose, safeTags.build());
+                    new ProfilingEventHandler<>(sheddingHandler, purpose, tags, queueingRecorder);
 
-            return DisruptorAutobatcher.create(profiledHandler, DEFAULT_BUFFER_SIZE, purpose);
+            return DisruptorAutobatcher.create(
+                    profiledHandler, bufferSize, waitStrategyFactory.get(), purpose, queueingRecorder);
         }
 
     }
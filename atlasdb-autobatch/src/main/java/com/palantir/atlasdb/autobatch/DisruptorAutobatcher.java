@@ -17,9 +17,11 @@
 package com.palantir.atlasdb.autobatch;
 
 import java.io.Closeable;
+import java.time.Duration;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Function;
 
 import javax.annotation.Nullable;
@@ -34,12 +36,16 @@ import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.EventTranslatorTwoArg;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.TimeoutException;
+import com.lmax.disruptor.WaitStrategy;
 import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
 import com.palantir.common.concurrent.NamedThreadFactory;
 import com.palantir.logsafe.Preconditions;
 import com.palantir.tracing.DetachedSpan;
+import com.palantir.tracing.Tracer;
 
 /**
  * While this class is public, it shouldn't be used as API outside of AtlasDB because we
@@ -49,6 +55,7 @@ public final class DisruptorAutobatcher<T, R>
         implements AsyncFunction<T, R>, Function<T, ListenableFuture<R>>, Closeable {
 
     private static final Logger log = LoggerFactory.getLogger(DisruptorAutobatcher.class);
+    private static final long PUBLISH_RETRY_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
 
     /*
         By memoizing thread factories per loggable purpose, the thread names are numbered uniquely for multiple
@@ -67,25 +74,52 @@ public final class DisruptorAutobatcher<T, R>
     private final Disruptor<DefaultBatchElement<T, R>> disruptor;
     private final RingBuffer<DefaultBatchElement<T, R>> buffer;
     private final String safeLoggablePurpose;
+    private final QueueingRecorder queueingRecorder;
+    private final EventTranslatorTwoArg<DefaultBatchElement<T, R>, T, DisruptorFuture<R>> translator =
+            DisruptorAutobatcher::translate;
     private volatile boolean closed = false;
 
     DisruptorAutobatcher(
             Disruptor<DefaultBatchElement<T, R>> disruptor,
             RingBuffer<DefaultBatchElement<T, R>> buffer,
-            String safeLoggablePurpose) {
+            String safeLoggablePurpose,
+            QueueingRecorder queueingRecorder) {
         this.disruptor = disruptor;
         this.buffer = buffer;
         this.safeLoggablePurpose = safeLoggablePurpose;
+        this.queueingRecorder = queueingRecorder;
     }
 
+    /**
+     * Submits a request to be processed in a batch. If the buffer is full, this blocks until there is space for the
+     * request; use {@link #tryApply(Object, Duration)} to bound how long the caller may be blocked.
+     */
     @Override
     public ListenableFuture<R> apply(T argument) {
         Preconditions.checkState(!closed, "Autobatcher is already shut down");
         DisruptorFuture<R> result = new DisruptorFuture<R>(safeLoggablePurpose);
-        buffer.publishEvent((refresh, sequence) -> {
-            refresh.result = result;
-            refresh.argument = argument;
-        });
+        buffer.publishEvent(translator, argument, result);
+        return result;
+    }
+
+    /**
+     * Submits a request to be processed in a batch, waiting at most {@code timeout} for space in the buffer. If there
+     * is still no space once the timeout has elapsed, the returned future fails with an
+     * {@link AutobatcherOverloadedException}, and the request is not processed.
+     */
+    public ListenableFuture<R> tryApply(T argument, Duration timeout) {
+        Preconditions.checkState(!closed, "Autobatcher is already shut down");
+        DisruptorFuture<R> result = new DisruptorFuture<R>(safeLoggablePurpose);
+        long deadline = result.submittedNanos() + timeout.toNanos();
+        while (!buffer.tryPublishEvent(translator, argument, result)) {
+            if (System.nanoTime() - deadline >= 0) {
+                queueingRecorder.markRejected();
+                result.setException(new AutobatcherOverloadedException(safeLoggablePurpose
+                        + " autobatcher buffer remained full for " + timeout));
+                return result;
+            }
+            LockSupport.parkNanos(PUBLISH_RETRY_BACKOFF_NANOS);
+        }
         return result;
     }
 
@@ -97,9 +131,17 @@ public final class DisruptorAutobatcher<T, R>
         } catch (TimeoutException e) {
             log.warn("Disruptor took more than 10 seconds to shutdown. "
                     + "Ensure that handlers aren't uninterruptibly blocking and ensure that they are closed.", e);
+        } finally {
+            queueingRecorder.unregisterQueueDepth();
         }
     }
 
+    private static <T, R> void translate(
+            DefaultBatchElement<T, R> element, long sequence, T argument, DisruptorFuture<R> result) {
+        element.argument = argument;
+        element.result = result;
+    }
+
     private static final class DefaultBatchElement<T, R> implements BatchElement<T, R> {
         private T argument;
         private DisruptorFuture<R> result;
@@ -115,29 +157,51 @@ public final class DisruptorAutobatcher<T, R>
         }
     }
 
+    /**
+     * Spans are only created if the submitting thread is part of an observable (sampled) trace, so that unsampled
+     * requests, which are the vast majority, don't pay for span objects, their names and the listener completing them.
+     */
     public static final class DisruptorFuture<R> extends AbstractFuture<R> {
 
+        private final long submittedNanos = System.nanoTime();
+
+        @Nullable
         private final DetachedSpan parent;
+
+        @Nullable
         private final DetachedSpan waitingSpan;
 
         @Nullable
         private DetachedSpan runningSpan = null;
 
         public DisruptorFuture(String safeLoggablePurpose) {
-            this.parent = DetachedSpan.start(safeLoggablePurpose + " disruptor task");
-            this.waitingSpan = parent.childDetachedSpan("task waiting to be run");
-            this.addListener(() -> {
-                waitingSpan.complete();
-                if (runningSpan != null) {
-                    runningSpan.complete();
-                }
-                parent.complete();
-            }, MoreExecutors.directExecutor());
+            if (Tracer.isTraceObservable()) {
+                this.parent = DetachedSpan.start(safeLoggablePurpose + " disruptor task");
+                this.waitingSpan = parent.childDetachedSpan("task waiting to be run");
+                this.addListener(this::completeSpans, MoreExecutors.directExecutor());
+            } else {
+                this.parent = null;
+                this.waitingSpan = null;
+            }
+        }
+
+        long submittedNanos() {
+            return submittedNanos;
         }
 
         void running() {
+            if (parent != null) {
+                waitingSpan.complete();
+                runningSpan = parent.childDetachedSpan("running task");
+            }
+        }
+
+        private void completeSpans() {
             waitingSpan.complete();
-            runningSpan = parent.childDetachedSpan("running task");
+            if (runningSpan != null) {
+                runningSpan.complete();
+            }
+            parent.complete();
         }
 
         @Override
@@ -159,11 +223,19 @@ public final class DisruptorAutobatcher<T, R>
     static <T, R> DisruptorAutobatcher<T, R> create(
             EventHandler<BatchElement<T, R>> eventHandler,
             int bufferSize,
-            String safeLoggablePurpose) {
-        Disruptor<DefaultBatchElement<T, R>> disruptor =
-                new Disruptor<>(DefaultBatchElement::new, bufferSize, threadFactory(safeLoggablePurpose));
+            WaitStrategy waitStrategy,
+            String safeLoggablePurpose,
+            QueueingRecorder queueingRecorder) {
+        Disruptor<DefaultBatchElement<T, R>> disruptor = new Disruptor<>(
+                DefaultBatchElement::new,
+                bufferSize,
+                threadFactory(safeLoggablePurpose),
+                ProducerType.MULTI,
+                waitStrategy);
         disruptor.handleEventsWith(eventHandler);
         disruptor.start();
-        return new DisruptorAutobatcher<>(disruptor, disruptor.getRingBuffer(), safeLoggablePurpose);
+        RingBuffer<DefaultBatchElement<T, R>> buffer = disruptor.getRingBuffer();
+        queueingRecorder.registerQueueDepth(() -> bufferSize - buffer.remainingCapacity());
+        return new DisruptorAutobatcher<>(disruptor, buffer, safeLoggablePurpose, queueingRecorder);
     }
 }
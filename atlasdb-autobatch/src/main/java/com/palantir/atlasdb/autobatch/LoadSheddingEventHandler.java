@@ -0,0 +1,76 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.autobatch;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.lmax.disruptor.EventHandler;
+
+/**
+ * Fails requests that have waited for longer than {@code maxQueueingDelay} before being picked up, instead of
+ * passing them on to the delegate. When the delegate is slow, this bounds the latency callers observe and sheds load
+ * from the delegate, rather than letting an ever-growing backlog of stale requests build up.
+ */
+final class LoadSheddingEventHandler<T, R> implements EventHandler<BatchElement<T, R>> {
+    private final EventHandler<BatchElement<T, R>> delegate;
+    private final String safeLoggablePurpose;
+    private final QueueingRecorder queueingRecorder;
+    private final long maxQueueingDelayNanos;
+    private final List<BatchElement<T, R>> pending;
+
+    LoadSheddingEventHandler(
+            EventHandler<BatchElement<T, R>> delegate,
+            String safeLoggablePurpose,
+            QueueingRecorder queueingRecorder,
+            Duration maxQueueingDelay,
+            int bufferSize) {
+        this.delegate = delegate;
+        this.safeLoggablePurpose = safeLoggablePurpose;
+        this.queueingRecorder = queueingRecorder;
+        this.maxQueueingDelayNanos = maxQueueingDelay.toNanos();
+        this.pending = new ArrayList<>(bufferSize);
+    }
+
+    @Override
+    public void onEvent(BatchElement<T, R> event, long sequence, boolean endOfBatch) throws Exception {
+        long waitedNanos = System.nanoTime() - event.result().submittedNanos();
+        if (waitedNanos > maxQueueingDelayNanos) {
+            queueingRecorder.markRejected();
+            event.result().setException(new AutobatcherOverloadedException(safeLoggablePurpose
+                    + " autobatcher rejected a request that waited " + waitedNanos + " ns to be processed"));
+        } else {
+            pending.add(event);
+        }
+
+        if (endOfBatch) {
+            flush(sequence);
+        }
+    }
+
+    private void flush(long sequence) throws Exception {
+        try {
+            for (int i = 0; i < pending.size(); i++) {
+                delegate.onEvent(pending.get(i), sequence, i == pending.size() - 1);
+            }
+        } finally {
+            pending.clear();
+        }
+    }
+}
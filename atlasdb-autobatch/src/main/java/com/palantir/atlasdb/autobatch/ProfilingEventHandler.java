@@ -24,19 +24,27 @@ final class ProfilingEventHandler<T, R> implements EventHandler<BatchElement<T,
 
     private final EventHandler<BatchElement<T, R>> delegateHandler;
     private final BatchSizeRecorder batchSizeRecorder;
+    private final QueueingRecorder queueingRecorder;
 
     private int elementsSeenSoFar;
 
     ProfilingEventHandler(
             EventHandler<BatchElement<T, R>> delegateHandler,
             String safeIdentifier,
-            Map<String, String> tags) {
+            Map<String, String> tags,
+            QueueingRecorder queueingRecorder) {
         this.delegateHandler = delegateHandler;
         this.batchSizeRecorder = BatchSizeRecorder.create(safeIdentifier, tags);
+        this.queueingRecorder = queueingRecorder;
     }
 
     @Override
     public void onEvent(BatchElement<T, R> event, long sequence, boolean endOfBatch) throws Exception {
+        if (elementsSeenSoFar == 0) {
+            // Only the first element of each batch is timed, to keep the timer off the per-element path; it is the
+            // oldest element in the batch, so this records the longest wait of each batch.
+            queueingRecorder.markWaitTime(System.nanoTime() - event.result().submittedNanos());
+        }
         elementsSeenSoFar++;
         delegateHandler.onEvent(event, sequence, endOfBatch);
 
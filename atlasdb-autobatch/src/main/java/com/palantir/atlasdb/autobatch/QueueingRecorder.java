@@ -0,0 +1,95 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.autobatch;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.palantir.tritium.metrics.registry.MetricName;
+import com.palantir.tritium.metrics.registry.SharedTaggedMetricRegistries;
+import com.palantir.tritium.metrics.registry.TaggedMetricRegistry;
+
+/**
+ * Records how long requests wait before an autobatcher starts processing them, how many requests are queued, and how
+ * many requests were rejected because the autobatcher was overloaded.
+ *
+ * Each recorder belongs to a single ring buffer, so its queue depth gauge is tagged with an instance id, and removed
+ * again when the autobatcher is closed.
+ */
+public final class QueueingRecorder {
+    static final String AUTOBATCHER_WAIT_TIME = "atlasdb.autobatcherWaitTime";
+    static final String AUTOBATCHER_QUEUE_DEPTH = "atlasdb.autobatcherQueueDepth";
+    static final String AUTOBATCHER_REJECTED = "atlasdb.autobatcherRejected";
+
+    private static final AtomicLong INSTANCE_IDS = new AtomicLong();
+
+    private final TaggedMetricRegistry registry;
+    private final Timer waitTime;
+    private final Meter rejected;
+    private final MetricName queueDepthName;
+
+    private QueueingRecorder(TaggedMetricRegistry registry, String safeLoggerIdentifier, Map<String, String> tags) {
+        this.registry = registry;
+        this.waitTime = registry.timer(metricName(AUTOBATCHER_WAIT_TIME, safeLoggerIdentifier, tags));
+        this.rejected = registry.meter(metricName(AUTOBATCHER_REJECTED, safeLoggerIdentifier, tags));
+        this.queueDepthName = MetricName.builder()
+                .safeName(AUTOBATCHER_QUEUE_DEPTH)
+                .putSafeTags("identifier", safeLoggerIdentifier)
+                .putAllSafeTags(tags)
+                .putSafeTags("instance", Long.toString(INSTANCE_IDS.incrementAndGet()))
+                .build();
+    }
+
+    public static QueueingRecorder create(String safeLoggerIdentifier, Map<String, String> tags) {
+        return new QueueingRecorder(SharedTaggedMetricRegistries.getSingleton(), safeLoggerIdentifier, tags);
+    }
+
+    public void markWaitTime(long waitTimeNanos) {
+        waitTime.update(waitTimeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void markRejected() {
+        rejected.mark();
+    }
+
+    /**
+     * Registers a gauge for the number of requests that have been submitted but not yet picked up by the handler.
+     */
+    public void registerQueueDepth(Gauge<Long> queueDepth) {
+        registry.gauge(queueDepthName, queueDepth);
+    }
+
+    /**
+     * Removes the queue depth gauge, so that it neither reports nor keeps alive a closed ring buffer.
+     */
+    public void unregisterQueueDepth() {
+        registry.remove(queueDepthName);
+    }
+
+    private static MetricName metricName(String name, String safeLoggerIdentifier, Map<String, String> tags) {
+        return MetricName.builder()
+                .safeName(name)
+                .putSafeTags("identifier", safeLoggerIdentifier)
+                .putAllSafeTags(tags)
+                .build();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.autobatch;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.palantir.logsafe.Preconditions;
+
+/**
+ * Spreads requests over several {@link DisruptorAutobatcher}s, each with its own ring buffer and handler thread.
+ * Requests are routed by the hash of a shard key extracted from the argument, so all requests sharing a shard key
+ * are processed by the same handler, in the order they were submitted.
+ *
+ * The shard key function must be consistent with {@link Object#equals(Object)} on the argument: equal arguments must
+ * map to equal shard keys, otherwise coalescing handlers will no longer coalesce identical requests.
+ *
+ * While this class is public, it shouldn't be used as API outside of AtlasDB because we
+ * don't guarantee we won't break it.
+ */
+public final class ShardedDisruptorAutobatcher<T, R>
+        implements AsyncFunction<T, R>, Function<T, ListenableFuture<R>>, Closeable {
+
+    private final List<DisruptorAutobatcher<T, R>> shards;
+    private final Function<? super T, ?> shardKeyFunction;
+
+    ShardedDisruptorAutobatcher(List<DisruptorAutobatcher<T, R>> shards, Function<? super T, ?> shardKeyFunction) {
+        Preconditions.checkArgument(!shards.isEmpty(), "At least one shard is required");
+        this.shards = ImmutableList.copyOf(shards);
+        this.shardKeyFunction = shardKeyFunction;
+    }
+
+    @Override
+    public ListenableFuture<R> apply(T argument) {
+        return shards.get(shardFor(argument)).apply(argument);
+    }
+
+    /**
+     * See {@link DisruptorAutobatcher#tryApply(Object, Duration)}.
+     */
+    public ListenableFuture<R> tryApply(T argument, Duration timeout) {
+        return shards.get(shardFor(argument)).tryApply(argument, timeout);
+    }
+
+    @Override
+    public void close() {
+        shards.forEach(DisruptorAutobatcher::close);
+    }
+
+    public int numShards() {
+        return shards.size();
+    }
+
+    @VisibleForTesting
+    int shardFor(T argument) {
+        int hash = Objects.hashCode(shardKeyFunction.apply(argument));
+        // spread the high bits down, as HashMap does, so that keys differing only in their high bits are spread out
+        return Math.floorMod(hash ^ (hash >>> 16), shards.size());
+    }
+}
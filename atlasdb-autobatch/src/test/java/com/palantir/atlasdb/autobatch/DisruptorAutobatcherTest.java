@@ -0,0 +1,102 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.autobatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.palantir.common.remoting.ServiceNotAvailableException;
+import com.palantir.tritium.metrics.registry.SharedTaggedMetricRegistries;
+
+public class DisruptorAutobatcherTest {
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private final DisruptorAutobatcher<Integer, Integer> autobatcher = Autobatchers
+            .<Integer, Integer>independent(batch -> {
+                Uninterruptibles.awaitUninterruptibly(latch);
+                batch.forEach(element -> element.result().set(element.argument()));
+            })
+            .safeLoggablePurpose("disruptor-autobatcher-test")
+            .build();
+
+    @After
+    public void after() {
+        latch.countDown();
+        autobatcher.close();
+    }
+
+    @Test
+    public void tryApplyRejectsRequestsOnceBufferIsFull() throws Exception {
+        List<ListenableFuture<Integer>> accepted = new ArrayList<>();
+        ListenableFuture<Integer> rejected = null;
+        for (int i = 0; i < 10_000 && rejected == null; i++) {
+            ListenableFuture<Integer> future = autobatcher.tryApply(i, Duration.ofMillis(1));
+            if (future.isDone()) {
+                rejected = future;
+            } else {
+                accepted.add(future);
+            }
+        }
+
+        assertThat(rejected).as("buffer eventually fills up while the handler is blocked").isNotNull();
+        assertThatThrownBy(rejected::get)
+                .hasCauseInstanceOf(AutobatcherOverloadedException.class)
+                .hasCauseInstanceOf(ServiceNotAvailableException.class);
+
+        latch.countDown();
+        for (int i = 0; i < accepted.size(); i++) {
+            assertThat(accepted.get(i).get()).isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void registersQueueDepthPerInstanceUntilClosed() {
+        DisruptorAutobatcher<Integer, Integer> first = queueDepthTestAutobatcher();
+        DisruptorAutobatcher<Integer, Integer> second = queueDepthTestAutobatcher();
+        assertThat(queueDepthGauges()).isEqualTo(2);
+
+        first.close();
+        assertThat(queueDepthGauges()).isEqualTo(1);
+
+        second.close();
+        assertThat(queueDepthGauges()).isZero();
+    }
+
+    private static DisruptorAutobatcher<Integer, Integer> queueDepthTestAutobatcher() {
+        return Autobatchers.<Integer, Integer>independent(
+                batch -> batch.forEach(element -> element.result().set(element.argument())))
+                .safeLoggablePurpose("queue-depth-test")
+                .build();
+    }
+
+    private static long queueDepthGauges() {
+        return SharedTaggedMetricRegistries.getSingleton().getMetrics().keySet().stream()
+                .filter(name -> name.safeName().equals(QueueingRecorder.AUTOBATCHER_QUEUE_DEPTH))
+                .filter(name -> "queue-depth-test".equals(name.safeTags().get("identifier")))
+                .count();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.autobatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.palantir.atlasdb.autobatch.DisruptorAutobatcher.DisruptorFuture;
+import com.palantir.tracing.Tracer;
+import com.palantir.tracing.api.Span;
+
+public class DisruptorFutureTest {
+    private static final String OBSERVER_NAME = DisruptorFutureTest.class.getName();
+
+    private final List<Span> spans = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void before() {
+        Tracer.subscribe(OBSERVER_NAME, spans::add);
+    }
+
+    @After
+    public void after() {
+        Tracer.unsubscribe(OBSERVER_NAME);
+    }
+
+    @Test
+    public void createsSpansForObservableTraces() {
+        Tracer.initTrace(Optional.of(true), "sampled");
+        DisruptorFuture<Integer> future = new DisruptorFuture<>("test");
+        future.running();
+        future.set(1);
+
+        assertThat(spans).extracting(Span::getOperation)
+                .containsExactlyInAnyOrder("task waiting to be run", "running task", "test disruptor task");
+    }
+
+    @Test
+    public void doesNotCreateSpansForUnobservableTraces() {
+        Tracer.initTrace(Optional.of(false), "unsampled");
+        DisruptorFuture<Integer> future = new DisruptorFuture<>("test");
+        future.running();
+        future.set(1);
+
+        assertThat(spans).isEmpty();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.autobatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.lmax.disruptor.EventHandler;
+import com.palantir.atlasdb.autobatch.DisruptorAutobatcher.DisruptorFuture;
+
+public class LoadSheddingEventHandlerTest {
+    private final RecordingEventHandler delegate = new RecordingEventHandler();
+
+    @Test
+    public void passesThroughFreshRequests() throws Exception {
+        LoadSheddingEventHandler<Integer, Long> handler = createHandler(Duration.ofMinutes(1));
+        TestBatchElement first = new TestBatchElement(1);
+        TestBatchElement second = new TestBatchElement(2);
+
+        handler.onEvent(first, 0, false);
+        handler.onEvent(second, 1, true);
+
+        assertThat(delegate.seen).containsExactly(first, second);
+        assertThat(delegate.endOfBatchFlags).containsExactly(false, true);
+    }
+
+    @Test
+    public void failsRequestsThatWaitedTooLong() throws Exception {
+        LoadSheddingEventHandler<Integer, Long> handler = createHandler(Duration.ofMillis(1));
+        TestBatchElement first = new TestBatchElement(1);
+        TestBatchElement second = new TestBatchElement(2);
+        Uninterruptibles.sleepUninterruptibly(10, TimeUnit.MILLISECONDS);
+
+        handler.onEvent(first, 0, false);
+        handler.onEvent(second, 1, true);
+
+        assertThat(delegate.seen).isEmpty();
+        assertThatThrownBy(first.result()::get).hasCauseInstanceOf(AutobatcherOverloadedException.class);
+        assertThatThrownBy(second.result()::get).hasCauseInstanceOf(AutobatcherOverloadedException.class);
+    }
+
+    @Test
+    public void lastSurvivingRequestIsMarkedAsEndOfBatch() throws Exception {
+        LoadSheddingEventHandler<Integer, Long> handler = createHandler(Duration.ofMillis(500));
+        TestBatchElement stale = new TestBatchElement(1);
+        Uninterruptibles.sleepUninterruptibly(1, TimeUnit.SECONDS);
+        TestBatchElement fresh = new TestBatchElement(2);
+
+        handler.onEvent(fresh, 0, false);
+        handler.onEvent(stale, 1, true);
+
+        assertThat(delegate.seen).containsExactly(fresh);
+        assertThat(delegate.endOfBatchFlags).containsExactly(true);
+        assertThatThrownBy(stale.result()::get).hasCauseInstanceOf(AutobatcherOverloadedException.class);
+    }
+
+    private LoadSheddingEventHandler<Integer, Long> createHandler(Duration maxQueueingDelay) {
+        return new LoadSheddingEventHandler<>(
+                delegate,
+                "test",
+                QueueingRecorder.create("test", ImmutableMap.of()),
+                maxQueueingDelay,
+                10);
+    }
+
+    private static final class TestBatchElement implements BatchElement<Integer, Long> {
+        private final int argument;
+        private final DisruptorFuture<Long> future = new DisruptorFuture<>("test");
+
+        private TestBatchElement(int argument) {
+            this.argument = argument;
+        }
+
+        @Override
+        public Integer argument() {
+            return argument;
+        }
+
+        @Override
+        public DisruptorFuture<Long> result() {
+            return future;
+        }
+    }
+
+    private static final class RecordingEventHandler implements EventHandler<BatchElement<Integer, Long>> {
+        private final List<BatchElement<Integer, Long>> seen = new ArrayList<>();
+        private final List<Boolean> endOfBatchFlags = new ArrayList<>();
+
+        @Override
+        public void onEvent(BatchElement<Integer, Long> event, long sequence, boolean endOfBatch) {
+            seen.add(event);
+            endOfBatchFlags.add(endOfBatch);
+        }
+    }
+}
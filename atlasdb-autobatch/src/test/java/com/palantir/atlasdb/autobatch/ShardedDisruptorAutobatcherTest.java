@@ -0,0 +1,158 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.autobatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+
+public class ShardedDisruptorAutobatcherTest {
+    private static final int NUM_SHARDS = 4;
+    private static final int NUM_KEYS = 16;
+
+    private final Map<Integer, List<Integer>> processedByKey = new ConcurrentHashMap<>();
+    private final Map<Integer, String> threadByKey = new ConcurrentHashMap<>();
+
+    private final ShardedDisruptorAutobatcher<Integer, Integer> autobatcher = Autobatchers
+            .<Integer, Integer>independent(this::process)
+            .safeLoggablePurpose("sharded-test")
+            .buildSharded(NUM_SHARDS, value -> value % NUM_KEYS);
+
+    @After
+    public void after() {
+        autobatcher.close();
+    }
+
+    @Test
+    public void resolvesEveryRequest() {
+        List<ListenableFuture<Integer>> futures = IntStream.range(0, 1000)
+                .mapToObj(autobatcher::apply)
+                .collect(Collectors.toList());
+
+        assertThat(Futures.getUnchecked(Futures.allAsList(futures)))
+                .isEqualTo(IntStream.range(0, 1000).map(value -> -value).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void requestsWithSameKeyAreProcessedInOrderOnOneThread() {
+        List<ListenableFuture<Integer>> futures = IntStream.range(0, 1000)
+                .mapToObj(autobatcher::apply)
+                .collect(Collectors.toList());
+        Futures.getUnchecked(Futures.allAsList(futures));
+
+        assertThat(processedByKey).hasSize(NUM_KEYS);
+        processedByKey.forEach((key, values) -> assertThat(values).isSorted());
+        assertThat(threadByKey.values()).hasSizeLessThanOrEqualTo(NUM_SHARDS);
+    }
+
+    @Test
+    public void shardIsStableForKey() {
+        assertThat(autobatcher.numShards()).isEqualTo(NUM_SHARDS);
+        assertThat(autobatcher.shardFor(3)).isEqualTo(autobatcher.shardFor(3 + NUM_KEYS));
+        assertThat(IntStream.range(0, NUM_KEYS).map(autobatcher::shardFor).distinct().count())
+                .isGreaterThan(1);
+    }
+
+    @Test
+    public void eachShardHasItsOwnWaitStrategy() {
+        Set<WaitStrategy> waitStrategies = Collections.newSetFromMap(new IdentityHashMap<>());
+        ShardedDisruptorAutobatcher<Integer, Integer> sharded = Autobatchers
+                .<Integer, Integer>independent(this::process)
+                .safeLoggablePurpose("sharded-test")
+                .waitStrategy(() -> {
+                    WaitStrategy waitStrategy = new BlockingWaitStrategy();
+                    waitStrategies.add(waitStrategy);
+                    return waitStrategy;
+                })
+                .buildSharded(NUM_SHARDS, value -> value % NUM_KEYS);
+        sharded.close();
+
+        assertThat(waitStrategies).hasSize(NUM_SHARDS);
+    }
+
+    @Test
+    public void tryApplyShedsLoadPerShard() throws Exception {
+        CountDownLatch released = new CountDownLatch(1);
+        ShardedDisruptorAutobatcher<Integer, Integer> blocked = Autobatchers
+                .<Integer, Integer>independent(batch -> {
+                    Uninterruptibles.awaitUninterruptibly(released);
+                    batch.forEach(element -> element.result().set(element.argument()));
+                })
+                .safeLoggablePurpose("sharded-test")
+                .buildSharded(NUM_SHARDS, value -> value % NUM_KEYS);
+        int otherShardKey = IntStream.range(1, NUM_KEYS)
+                .filter(key -> blocked.shardFor(key) != blocked.shardFor(0))
+                .findFirst()
+                .getAsInt();
+        try {
+            ListenableFuture<Integer> rejected = null;
+            for (int i = 0; i < 10_000 && rejected == null; i++) {
+                ListenableFuture<Integer> future = blocked.tryApply(i * NUM_KEYS, Duration.ofMillis(1));
+                if (future.isDone()) {
+                    rejected = future;
+                }
+            }
+
+            assertThat(rejected).as("the shard's buffer eventually fills up while its handler is blocked").isNotNull();
+            assertThatThrownBy(rejected::get).hasCauseInstanceOf(AutobatcherOverloadedException.class);
+            ListenableFuture<Integer> otherShard = blocked.tryApply(otherShardKey, Duration.ofMillis(1));
+            released.countDown();
+            assertThat(otherShard.get()).isEqualTo(otherShardKey);
+        } finally {
+            released.countDown();
+            blocked.close();
+        }
+    }
+
+    @Test
+    public void numberOfShardsMustBePositive() {
+        assertThatThrownBy(() -> Autobatchers.<Integer, Integer>independent(this::process)
+                .safeLoggablePurpose("sharded-test")
+                .buildSharded(0, value -> value))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void process(List<BatchElement<Integer, Integer>> batch) {
+        for (BatchElement<Integer, Integer> element : batch) {
+            int key = element.argument() % NUM_KEYS;
+            String thread = Thread.currentThread().getName();
+            assertThat(threadByKey.computeIfAbsent(key, unused -> thread)).isEqualTo(thread);
+            processedByKey.computeIfAbsent(key, unused -> new CopyOnWriteArrayList<>()).add(element.argument());
+            element.result().set(-element.argument());
+        }
+    }
+}
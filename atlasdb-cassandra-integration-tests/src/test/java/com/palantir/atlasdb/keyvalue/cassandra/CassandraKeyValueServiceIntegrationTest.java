@@ -16,6 +16,7 @@
 package com.palantir.atlasdb.keyvalue.cassandra;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -72,6 +73,7 @@ import com.palantir.atlasdb.encoding.PtBytes;
 import com.palantir.atlasdb.futures.AtlasFutures;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.api.TimestampRangeDelete;
@@ -296,6 +298,30 @@ public class CassandraKeyValueServiceIntegrationTest extends AbstractKeyValueSer
         assertThat(contents).isEqualTo(PtBytes.EMPTY_BYTE_ARRAY);
     }
 
+    @Test
+    public void putUnlessExistsReportsExistingCellsFromAllRows() {
+        TableReference tableReference =
+                TableReference.createFromFullyQualifiedName("test." + RandomStringUtils.randomAlphanumeric(16));
+        keyValueService.createTable(tableReference, AtlasDbConstants.GENERIC_TABLE_METADATA);
+        Cell firstExisting = Cell.create(PtBytes.toBytes("row1"), PtBytes.toBytes("col"));
+        Cell secondExisting = Cell.create(PtBytes.toBytes("row2"), PtBytes.toBytes("col"));
+        Cell fresh = Cell.create(PtBytes.toBytes("row3"), PtBytes.toBytes("col"));
+        byte[] data = PtBytes.toBytes("data");
+
+        keyValueService.putUnlessExists(tableReference, ImmutableMap.of(firstExisting, data, secondExisting, data));
+
+        assertThatThrownBy(() -> keyValueService.putUnlessExists(tableReference,
+                ImmutableMap.of(firstExisting, data, secondExisting, data, fresh, data)))
+                .isInstanceOf(KeyAlreadyExistsException.class)
+                .satisfies(exception -> {
+                    KeyAlreadyExistsException keyAlreadyExists = (KeyAlreadyExistsException) exception;
+                    assertThat(keyAlreadyExists.getExistingKeys())
+                            .containsExactlyInAnyOrder(firstExisting, secondExisting);
+                    assertThat(keyAlreadyExists.getKnownSuccessfullyCommittedKeys()).containsExactly(fresh);
+                });
+        assertThat(keyValueService.get(tableReference, ImmutableMap.of(fresh, Long.MAX_VALUE))).containsKey(fresh);
+    }
+
     @Test
     public void deletionTakesPlaceAtFreshTimestamp() throws Exception {
         TableReference tableReference =
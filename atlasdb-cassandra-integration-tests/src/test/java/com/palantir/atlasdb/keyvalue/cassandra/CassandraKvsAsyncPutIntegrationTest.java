@@ -0,0 +1,112 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.palantir.atlasdb.AtlasDbConstants;
+import com.palantir.atlasdb.cassandra.CassandraKeyValueServiceConfig;
+import com.palantir.atlasdb.cassandra.ImmutableCassandraKeyValueServiceConfig;
+import com.palantir.atlasdb.containers.CassandraResource;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.api.Value;
+
+/**
+ * Checks that values written through CQL are read back identically through Thrift, and vice versa.
+ */
+public class CassandraKvsAsyncPutIntegrationTest {
+    private static final TableReference TEST_TABLE = TableReference.createFromFullyQualifiedName("ns.pt_kvs_async");
+    private static final byte[] ROW = PtBytes.toBytes("row");
+    private static final Cell CELL_1 = Cell.create(ROW, PtBytes.toBytes("column1"));
+    private static final Cell CELL_2 = Cell.create(ROW, PtBytes.toBytes("column2"));
+    private static final Cell CELL_3 = Cell.create(ROW, PtBytes.toBytes("column3"));
+    private static final long TIMESTAMP = 10L;
+    private static final long READ_TIMESTAMP = TIMESTAMP + 1;
+    private static final Map<Cell, byte[]> VALUES = ImmutableMap.of(
+            CELL_1, PtBytes.toBytes("value1"),
+            CELL_2, PtBytes.toBytes("value2"),
+            CELL_3, PtBytes.toBytes("value3"));
+
+    @ClassRule
+    public static final CassandraResource CASSANDRA_RESOURCE = new CassandraResource();
+
+    private KeyValueService keyValueService;
+
+    @Before
+    @SuppressWarnings("deprecation")
+    public void setUp() {
+        // smaller than the row, so that the CQL write is split into several batches
+        CassandraKeyValueServiceConfig config = ImmutableCassandraKeyValueServiceConfig.builder()
+                .from(CASSANDRA_RESOURCE.getConfig())
+                .mutationBatchCount(2)
+                .build();
+        keyValueService = CassandraKeyValueServiceImpl.createForTesting(config);
+        keyValueService.createTable(TEST_TABLE, AtlasDbConstants.GENERIC_TABLE_METADATA);
+    }
+
+    @After
+    public void tearDown() {
+        keyValueService.truncateTables(ImmutableSet.of(TEST_TABLE));
+        CASSANDRA_RESOURCE.registerKvs(keyValueService);
+    }
+
+    @Test
+    public void valuesWrittenThroughCqlAreReadableThroughThrift() throws Exception {
+        keyValueService.multiPutAsync(ImmutableMap.of(TEST_TABLE, VALUES), TIMESTAMP).get();
+
+        assertMatchesValues(keyValueService.get(TEST_TABLE, readTimestamps()));
+        assertMatchesValues(keyValueService.getRows(
+                TEST_TABLE, ImmutableList.of(ROW), ColumnSelection.all(), READ_TIMESTAMP));
+        assertThat(keyValueService.get(TEST_TABLE, ImmutableMap.of(CELL_1, TIMESTAMP))).isEmpty();
+    }
+
+    @Test
+    public void valuesWrittenThroughThriftAreReadableThroughCql() throws Exception {
+        keyValueService.put(TEST_TABLE, VALUES, TIMESTAMP);
+
+        assertMatchesValues(keyValueService.getAsync(TEST_TABLE, readTimestamps()).get());
+        assertMatchesValues(keyValueService.getRowsAsync(
+                TEST_TABLE, ImmutableList.of(ROW), ColumnSelection.all(), READ_TIMESTAMP).get());
+        assertThat(keyValueService.getAsync(TEST_TABLE, ImmutableMap.of(CELL_1, TIMESTAMP)).get()).isEmpty();
+    }
+
+    private static Map<Cell, Long> readTimestamps() {
+        return ImmutableMap.of(CELL_1, READ_TIMESTAMP, CELL_2, READ_TIMESTAMP, CELL_3, READ_TIMESTAMP);
+    }
+
+    private static void assertMatchesValues(Map<Cell, Value> result) {
+        assertThat(result).containsOnlyKeys(VALUES.keySet());
+        result.forEach((cell, value) -> {
+            assertThat(value.getContents()).isEqualTo(VALUES.get(cell));
+            assertThat(value.getTimestamp()).isEqualTo(TIMESTAMP);
+        });
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.cassandra;
+
+import org.immutables.value.Value;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.base.Preconditions;
+
+/**
+ * Configures hedged reads against an underlying Cassandra key-value service.
+ *
+ * When enabled, an idempotent read that has not completed on its chosen host within the configured percentile of
+ * that host's recent read latency is additionally sent to another host in the background. The caller still waits
+ * for the chosen host, but if that host fails, the response of the other host is used instead of retrying. The
+ * number of hedged requests is limited globally, so that a cluster-wide slowdown does not double the load on an
+ * already struggling cluster. Read latencies are only recorded while hedging is enabled.
+ */
+@JsonSerialize(as = ImmutableCassandraHedgedReadConfig.class)
+@JsonDeserialize(as = ImmutableCassandraHedgedReadConfig.class)
+@Value.Immutable
+public abstract class CassandraHedgedReadConfig {
+    @Value.Default
+    public boolean enabled() {
+        return false;
+    }
+
+    /**
+     * The percentile of the chosen host's recent request latencies after which a hedged request is sent.
+     */
+    @Value.Default
+    public double latencyPercentile() {
+        return 99.0;
+    }
+
+    /**
+     * Hedged requests are never sent sooner than this after the original request.
+     */
+    @Value.Default
+    public long minimumDelayMillis() {
+        return 10;
+    }
+
+    /**
+     * The maximum number of hedged requests sent per second, across all hosts.
+     */
+    @Value.Default
+    public double maxHedgedRequestsPerSecond() {
+        return 50.0;
+    }
+
+    @Value.Check
+    public void check() {
+        Preconditions.checkState(
+                latencyPercentile() > 0 && latencyPercentile() < 100,
+                "latencyPercentile should be strictly between 0 and 100, but found %s",
+                latencyPercentile());
+        Preconditions.checkState(
+                minimumDelayMillis() >= 0,
+                "minimumDelayMillis should not be negative, but found %s",
+                minimumDelayMillis());
+        Preconditions.checkState(
+                maxHedgedRequestsPerSecond() > 0,
+                "maxHedgedRequestsPerSecond should be positive, but found %s",
+                maxHedgedRequestsPerSecond());
+    }
+
+    static CassandraHedgedReadConfig defaultConfig() {
+        return ImmutableCassandraHedgedReadConfig.builder().build();
+    }
+}
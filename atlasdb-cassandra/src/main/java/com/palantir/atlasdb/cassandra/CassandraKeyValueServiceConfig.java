@@ -225,6 +225,18 @@ public interface CassandraKeyValueServiceConfig extends KeyValueServiceConfig {
         return CassandraConstants.DEFAULT_FETCH_BATCH_COUNT;
     }
 
+    /**
+     * Number of threads used to coalesce writes from concurrent {@code put} and {@code multiPut} calls. If positive,
+     * writes to the same Cassandra host are merged into combined {@code batch_mutate} calls, subject to the mutation
+     * batch count and size limits, and sent by these threads. Each host has at most one round of writes in flight, and
+     * hosts are written independently, so this bounds how many hosts are written to at once. Zero, the default,
+     * disables coalescing, so that each call sends its own mutations.
+     */
+    @Value.Default
+    default int multiPutCoalescingThreads() {
+        return 0;
+    }
+
     @Value.Default
     default boolean ignoreNodeTopologyChecks() {
         return false;
@@ -341,6 +353,9 @@ public interface CassandraKeyValueServiceConfig extends KeyValueServiceConfig {
         Preconditions.checkArgument(evictionCheckProportion > 0.01 && evictionCheckProportion <= 1,
                 "'proportionConnectionsToCheckPerEvictionRun' must be between 0.01 and 1");
 
+        Preconditions.checkArgument(multiPutCoalescingThreads() >= 0,
+                "'multiPutCoalescingThreads' must not be negative");
+
         Preconditions.checkArgument(localHostWeighting() >= 0.0 && localHostWeighting() <= 1.0,
                 "'localHostWeighting' must be between 0 and 1 inclusive");
     }
@@ -24,6 +24,7 @@ import com.google.auto.service.AutoService;
 import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.atlasdb.keyvalue.cassandra.CassandraConstants;
 import com.palantir.atlasdb.spi.KeyValueServiceRuntimeConfig;
+import com.palantir.logsafe.Preconditions;
 
 @AutoService(KeyValueServiceRuntimeConfig.class)
 @JsonDeserialize(as = ImmutableCassandraKeyValueServiceRuntimeConfig.class)
@@ -83,6 +84,14 @@ public abstract class CassandraKeyValueServiceRuntimeConfig implements KeyValueS
         return CassandraCellLoadingConfig.defaultConfig();
     }
 
+    /**
+     * Configures speculatively retrying slow idempotent reads against a second host.
+     */
+    @Value.Default
+    public CassandraHedgedReadConfig hedgedReadConfig() {
+        return CassandraHedgedReadConfig.defaultConfig();
+    }
+
     /**
      * The number of threads Sweep uses to read values from Cassandra.
      * Each thread fetches values from a distinct row.
@@ -92,6 +101,17 @@ public abstract class CassandraKeyValueServiceRuntimeConfig implements KeyValueS
         return AtlasDbConstants.DEFAULT_SWEEP_CASSANDRA_READ_THREADS;
     }
 
+    /**
+     * The number of token ranges of the ring a single getRange call scans concurrently. Ranges spanning several token
+     * ranges are split along the ring and scanned against the replicas owning each split, while rows are still
+     * returned in key order. This is intended for bulk scans such as backups or migrations; the default of 1 scans
+     * every range sequentially.
+     */
+    @Value.Default
+    public int rangeScanConcurrency() {
+        return 1;
+    }
+
     /**
      * The number of times a call to Cassandra retries a single host.
      */
@@ -121,6 +141,11 @@ public abstract class CassandraKeyValueServiceRuntimeConfig implements KeyValueS
         return true;
     }
 
+    @Value.Check
+    void check() {
+        Preconditions.checkArgument(rangeScanConcurrency() > 0, "'rangeScanConcurrency' must be positive");
+    }
+
     public static CassandraKeyValueServiceRuntimeConfig getDefault() {
         return ImmutableCassandraKeyValueServiceRuntimeConfig.builder().build();
     }
@@ -157,6 +157,11 @@ public class CassandraReloadableKvsConfig implements CassandraKeyValueServiceCon
                 config.fetchBatchCount());
     }
 
+    @Override
+    public int multiPutCoalescingThreads() {
+        return config.multiPutCoalescingThreads();
+    }
+
     @Override
     public boolean ignoreNodeTopologyChecks() {
         return config.ignoreNodeTopologyChecks();
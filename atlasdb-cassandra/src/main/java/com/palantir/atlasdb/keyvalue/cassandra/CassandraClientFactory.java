@@ -28,9 +28,6 @@ import javax.net.ssl.SSLSocketFactory;
 import org.apache.cassandra.thrift.AuthenticationRequest;
 import org.apache.cassandra.thrift.Cassandra;
 import org.apache.cassandra.thrift.Cassandra.Client;
-import org.apache.commons.pool2.BasePooledObjectFactory;
-import org.apache.commons.pool2.PooledObject;
-import org.apache.commons.pool2.impl.DefaultPooledObject;
 import org.apache.thrift.TException;
 import org.apache.thrift.protocol.TBinaryProtocol;
 import org.apache.thrift.protocol.TProtocol;
@@ -44,6 +41,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.collect.Maps;
 import com.palantir.atlasdb.cassandra.CassandraCredentialsConfig;
 import com.palantir.atlasdb.cassandra.CassandraKeyValueServiceConfig;
+import com.palantir.atlasdb.keyvalue.cassandra.pool.LockFreeObjectPool;
 import com.palantir.atlasdb.util.AtlasDbMetrics;
 import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.common.exception.AtlasDbDependencyException;
@@ -51,7 +49,7 @@ import com.palantir.conjure.java.config.ssl.SslSocketFactories;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.UnsafeArg;
 
-public class CassandraClientFactory extends BasePooledObjectFactory<CassandraClient> {
+public class CassandraClientFactory implements LockFreeObjectPool.ObjectFactory<CassandraClient> {
     private static final Logger log = LoggerFactory.getLogger(CassandraClientFactory.class);
 
     private final MetricsManager metricsManager;
@@ -189,18 +187,13 @@ public class CassandraClientFactory extends BasePooledObjectFactory<CassandraCli
     }
 
     @Override
-    public boolean validateObject(PooledObject<CassandraClient> client) {
-        return client.getObject().getOutputProtocol().getTransport().isOpen();
+    public boolean isValid(CassandraClient client) {
+        return client.getOutputProtocol().getTransport().isOpen();
     }
 
     @Override
-    public PooledObject<CassandraClient> wrap(CassandraClient client) {
-        return new DefaultPooledObject<>(client);
-    }
-
-    @Override
-    public void destroyObject(PooledObject<CassandraClient> client) {
-        client.getObject().close();
+    public void destroy(CassandraClient client) {
+        client.close();
         log.debug("Closed transport for client {} of host {}",
                 UnsafeArg.of("client", client),
                 SafeArg.of("cassandraClient", CassandraLogHelper.host(addr)));
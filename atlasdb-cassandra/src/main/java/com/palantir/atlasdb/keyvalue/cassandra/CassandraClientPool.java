@@ -16,8 +16,10 @@
 package com.palantir.atlasdb.keyvalue.cassandra;
 
 import java.net.InetSocketAddress;
+import java.util.List;
 import java.util.Map;
 
+import com.google.common.collect.RangeMap;
 import com.palantir.common.base.FunctionCheckedException;
 import com.palantir.processors.AutoDelegate;
 
@@ -31,7 +33,17 @@ public interface CassandraClientPool {
             InetSocketAddress specifiedHost,
             FunctionCheckedException<CassandraClient, V, K> fn) throws K;
     <V, K extends Exception> V runWithRetry(FunctionCheckedException<CassandraClient, V, K> fn) throws K;
+
+    /**
+     * As {@link #runWithRetryOnHost}, but if hedged reads are enabled and the host is slow to respond, the function
+     * is additionally run against another host. The function must therefore be an idempotent read without side
+     * effects.
+     */
+    <V, K extends Exception> V runHedgedReadWithRetryOnHost(
+            InetSocketAddress specifiedHost,
+            FunctionCheckedException<CassandraClient, V, K> fn) throws K;
     InetSocketAddress getRandomHostForKey(byte[] key);
     Map<InetSocketAddress, CassandraClientPoolingContainer> getCurrentPools();
+    RangeMap<LightweightOppToken, List<InetSocketAddress>> getTokenMap();
     void shutdown();
 }
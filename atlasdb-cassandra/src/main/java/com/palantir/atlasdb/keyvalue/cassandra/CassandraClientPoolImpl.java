@@ -16,12 +16,15 @@
 package com.palantir.atlasdb.keyvalue.cassandra;
 
 import java.net.InetSocketAddress;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
@@ -41,6 +44,7 @@ import com.google.common.collect.RangeMap;
 import com.google.common.collect.Sets;
 import com.palantir.async.initializer.AsyncInitializer;
 import com.palantir.atlasdb.AtlasDbConstants;
+import com.palantir.atlasdb.cassandra.CassandraHedgedReadConfig;
 import com.palantir.atlasdb.cassandra.CassandraKeyValueServiceConfig;
 import com.palantir.atlasdb.cassandra.CassandraKeyValueServiceRuntimeConfig;
 import com.palantir.atlasdb.cassandra.CassandraServersConfigs;
@@ -53,6 +57,7 @@ import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.UnsafeArg;
 import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import com.palantir.tracing.Tracers;
 
 /**
  * Feature breakdown:
@@ -101,6 +106,8 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
     }
 
     private static final Logger log = LoggerFactory.getLogger(CassandraClientPool.class);
+    // hedged reads beyond this many in flight are not hedged, as the cluster is then unlikely to benefit from them
+    private static final int MAX_CONCURRENT_HEDGED_READS = 32;
 
     private final Blacklist blacklist;
     private final CassandraRequestExceptionHandler exceptionHandler;
@@ -110,6 +117,10 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
     private final StartupChecks startupChecks;
     private final ScheduledExecutorService refreshDaemon;
     private final CassandraClientPoolMetrics metrics;
+    private final Supplier<CassandraHedgedReadConfig> hedgedReadConfig;
+    private final ExecutorService hedgeableReadExecutor;
+    private final ExecutorService hedgedReadExecutor;
+    private final HedgedRequestRunner hedgedRequestRunner;
     private final InitializingWrapper wrapper = new InitializingWrapper();
 
     private ScheduledFuture<?> refreshPoolFuture;
@@ -127,7 +138,8 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
                 startupChecks,
                 exceptionHandler,
                 blacklist,
-                new CassandraClientPoolMetrics(metricsManager));
+                new CassandraClientPoolMetrics(metricsManager),
+                () -> CassandraKeyValueServiceRuntimeConfig.getDefault().hedgedReadConfig());
         cassandraClientPool.wrapper.initialize(AtlasDbConstants.DEFAULT_INITIALIZE_ASYNC);
         return cassandraClientPool;
     }
@@ -148,7 +160,8 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
                 exceptionHandler,
                 blacklist,
                 cassandra,
-                new CassandraClientPoolMetrics(metricsManager));
+                new CassandraClientPoolMetrics(metricsManager),
+                () -> CassandraKeyValueServiceRuntimeConfig.getDefault().hedgedReadConfig());
         cassandraClientPool.wrapper.initialize(AtlasDbConstants.DEFAULT_INITIALIZE_ASYNC);
         return cassandraClientPool;
     }
@@ -169,7 +182,8 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
                 StartupChecks.RUN,
                 exceptionHandler,
                 blacklist,
-                new CassandraClientPoolMetrics(metricsManager));
+                new CassandraClientPoolMetrics(metricsManager),
+                () -> runtimeConfig.get().hedgedReadConfig());
         cassandraClientPool.wrapper.initialize(initializeAsync);
         return cassandraClientPool.wrapper.isInitialized() ? cassandraClientPool : cassandraClientPool.wrapper;
     }
@@ -180,7 +194,8 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
             StartupChecks startupChecks,
             CassandraRequestExceptionHandler exceptionHandler,
             Blacklist blacklist,
-            CassandraClientPoolMetrics metrics) {
+            CassandraClientPoolMetrics metrics,
+            Supplier<CassandraHedgedReadConfig> hedgedReadConfig) {
         this(config,
                 startupChecks,
                 PTExecutors.newScheduledThreadPool(
@@ -189,7 +204,8 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
                 exceptionHandler,
                 blacklist,
                 new CassandraService(metricsManager, config, blacklist, metrics),
-                metrics);
+                metrics,
+                hedgedReadConfig);
     }
 
     private CassandraClientPoolImpl(
@@ -199,7 +215,8 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
             CassandraRequestExceptionHandler exceptionHandler,
             Blacklist blacklist,
             CassandraService cassandra,
-            CassandraClientPoolMetrics metrics) {
+            CassandraClientPoolMetrics metrics,
+            Supplier<CassandraHedgedReadConfig> hedgedReadConfig) {
         this.config = config;
         this.startupChecks = startupChecks;
         this.refreshDaemon = refreshDaemon;
@@ -207,6 +224,21 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
         this.exceptionHandler = exceptionHandler;
         this.cassandra = cassandra;
         this.metrics = metrics;
+        this.hedgedReadConfig = hedgedReadConfig;
+        this.hedgeableReadExecutor = Tracers.wrap(PTExecutors.newCachedThreadPool(
+                new NamedThreadFactory("CassandraClientPool hedgeable reads", true)));
+        this.hedgedReadExecutor = Tracers.wrap(PTExecutors.newThreadPoolExecutor(
+                0,
+                MAX_CONCURRENT_HEDGED_READS,
+                1,
+                TimeUnit.MINUTES,
+                new SynchronousQueue<>(),
+                new NamedThreadFactory("CassandraClientPool hedged reads", true)));
+        this.hedgedRequestRunner = new HedgedRequestRunner(
+                hedgeableReadExecutor,
+                hedgedReadExecutor,
+                hedgedReadConfig.get().maxHedgedRequestsPerSecond(),
+                metrics::recordHedgedRequest);
     }
 
     private void tryInitialize() {
@@ -248,6 +280,8 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
     public void shutdown() {
         cassandra.close();
         refreshDaemon.shutdown();
+        hedgeableReadExecutor.shutdown();
+        hedgedReadExecutor.shutdown();
         cassandra.getPools().forEach((address, cassandraClientPoolingContainer) ->
                 cassandraClientPoolingContainer.shutdownPooling());
     }
@@ -271,8 +305,8 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
         return cassandra.getPools();
     }
 
-    @VisibleForTesting
-    RangeMap<LightweightOppToken, List<InetSocketAddress>> getTokenMap() {
+    @Override
+    public RangeMap<LightweightOppToken, List<InetSocketAddress>> getTokenMap() {
         return cassandra.getTokenMap();
     }
 
@@ -412,6 +446,50 @@ public class CassandraClientPoolImpl implements CassandraClientPool {
         }
     }
 
+    @Override
+    public <V, K extends Exception> V runHedgedReadWithRetryOnHost(
+            InetSocketAddress specifiedHost,
+            FunctionCheckedException<CassandraClient, V, K> fn) throws K {
+        CassandraHedgedReadConfig currentConfig = hedgedReadConfig.get();
+        if (!currentConfig.enabled()) {
+            return runWithRetryOnHost(specifiedHost, fn);
+        }
+        Optional<Duration> hostLatency = Optional.ofNullable(cassandra.getPools().get(specifiedHost))
+                .flatMap(hostPool -> hostPool.getReadLatencyPercentile(currentConfig.latencyPercentile()));
+        if (!hostLatency.isPresent()) {
+            return runHedgeableReadWithRetryOnHost(specifiedHost, fn);
+        }
+
+        hedgedRequestRunner.setMaxHedgedRequestsPerSecond(currentConfig.maxHedgedRequestsPerSecond());
+        Duration minimumDelay = Duration.ofMillis(currentConfig.minimumDelayMillis());
+        Duration hedgingDelay = hostLatency.get().compareTo(minimumDelay) > 0 ? hostLatency.get() : minimumDelay;
+        // Any host can coordinate the read, so the backup request does not need to go to a replica of the data.
+        return hedgedRequestRunner.run(
+                specifiedHost,
+                hedgingDelay,
+                () -> cassandra.getRandomGoodHostForPredicate(address -> !address.equals(specifiedHost))
+                        .map(CassandraClientPoolingContainer::getHost),
+                host -> runHedgeableReadWithRetryOnHost(host, fn));
+    }
+
+    /**
+     * Runs a read that may be hedged, recording its latency so that later reads know when to hedge. Only such reads
+     * are recorded, as writes and other requests may have very different latencies.
+     */
+    private <V, K extends Exception> V runHedgeableReadWithRetryOnHost(
+            InetSocketAddress specifiedHost,
+            FunctionCheckedException<CassandraClient, V, K> fn) throws K {
+        long startNanos = System.nanoTime();
+        try {
+            return runWithRetryOnHost(specifiedHost, fn);
+        } finally {
+            CassandraClientPoolingContainer hostPool = cassandra.getPools().get(specifiedHost);
+            if (hostPool != null) {
+                hostPool.recordReadLatency(System.nanoTime() - startNanos);
+            }
+        }
+    }
+
     private <V, K extends Exception> CassandraClientPoolingContainer getPreferredHostOrFallBack(
             RetryableCassandraRequest<V, K> req) {
         CassandraClientPoolingContainer hostPool = cassandra.getPools().get(req.getPreferredHost());
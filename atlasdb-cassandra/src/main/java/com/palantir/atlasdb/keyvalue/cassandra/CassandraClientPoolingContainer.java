@@ -20,16 +20,16 @@ import java.lang.management.ThreadInfo;
 import java.lang.management.ThreadMXBean;
 import java.lang.reflect.Field;
 import java.net.InetSocketAddress;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
-import org.apache.commons.pool2.impl.GenericObjectPool;
-import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.apache.thrift.transport.TFramedTransport;
 import org.apache.thrift.transport.TMemoryInputTransport;
 import org.apache.thrift.transport.TTransport;
@@ -44,6 +44,9 @@ import com.google.common.collect.ImmutableMap;
 import com.palantir.atlasdb.cassandra.CassandraKeyValueServiceConfig;
 import com.palantir.atlasdb.encoding.PtBytes;
 import com.palantir.atlasdb.keyvalue.cassandra.pool.CassandraClientPoolMetrics;
+import com.palantir.atlasdb.keyvalue.cassandra.pool.HostScore;
+import com.palantir.atlasdb.keyvalue.cassandra.pool.LockFreeObjectPool;
+import com.palantir.atlasdb.keyvalue.cassandra.pool.LockFreeObjectPool.PooledEntry;
 import com.palantir.atlasdb.util.MetricsManager;
 import com.palantir.common.base.FunctionCheckedException;
 import com.palantir.common.pooling.PoolingContainer;
@@ -58,7 +61,8 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
     private final MetricsManager metricsManager;
     private final AtomicLong count = new AtomicLong();
     private final AtomicInteger openRequests = new AtomicInteger();
-    private final GenericObjectPool<CassandraClient> clientPool;
+    private final HostScore score;
+    private final LockFreeObjectPool<CassandraClient> clientPool;
     private final int poolNumber;
     private final CassandraClientPoolMetrics poolMetrics;
 
@@ -71,6 +75,7 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
         this.metricsManager = metricsManager;
         this.host = host;
         this.config = config;
+        this.score = HostScore.create(Duration.ofMillis(config.socketQueryTimeoutMillis()));
         this.poolNumber = poolNumber;
         this.clientPool = createClientPool();
         this.poolMetrics = poolMetrics;
@@ -90,12 +95,30 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
         return openRequests.get();
     }
 
-    // returns negative if not available; only expected use is debugging
+    /**
+     * Score of this host for load balancing, combining recent latency, error rate and open requests. Lower is better.
+     */
+    public double getScore() {
+        return score.getScore(getOpenRequests());
+    }
+
+    /**
+     * Records the latency of a read that may be hedged, see {@link HostScore}.
+     */
+    public void recordReadLatency(long latencyNanos) {
+        score.recordReadLatency(latencyNanos);
+    }
+
+    public Optional<Duration> getReadLatencyPercentile(double percentile) {
+        return score.getReadLatencyPercentile(percentile);
+    }
+
+    // only expected use is debugging
     public int getActiveCheckouts() {
         return clientPool.getNumActive();
     }
 
-    // returns negative if unbounded; only expected use is debugging
+    // only expected use is debugging
     public int getPoolSize() {
         return clientPool.getMaxTotal();
     }
@@ -108,10 +131,14 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
                 + " calling cassandra host " + host
                 + " started at " + DateTimeFormatter.ISO_INSTANT.format(Instant.now())
                 + " - " + count.getAndIncrement());
+        long startNanos = System.nanoTime();
         try {
             openRequests.getAndIncrement();
-            return runWithGoodResource(fn);
+            V result = runWithGoodResource(fn);
+            score.recordSuccess(System.nanoTime() - startNanos);
+            return result;
         } catch (Throwable t) {
+            score.recordFailure();
             log.warn("Error occurred talking to host '{}': {}",
                     SafeArg.of("host", CassandraLogHelper.host(host)), UnsafeArg.of("exception", t.toString()));
             if (t instanceof NoSuchElementException && t.getMessage().contains("Pool exhausted")) {
@@ -142,9 +169,11 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
     private <V, K extends Exception> V runWithGoodResource(FunctionCheckedException<CassandraClient, V, K> fn)
             throws K {
         boolean shouldReuse = true;
+        PooledEntry<CassandraClient> entry = null;
         CassandraClient resource = null;
         try {
-            resource = clientPool.borrowObject();
+            entry = clientPool.borrow();
+            resource = entry.getObject();
             return fn.apply(resource);
         } catch (Exception e) {
             if (isInvalidClientConnection(resource)) {
@@ -160,14 +189,14 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
             }
             throw (K) e;
         } finally {
-            if (resource != null) {
+            if (entry != null) {
                 if (shouldReuse) {
                     log.debug("Returning resource to pool of host {}",
                             SafeArg.of("host", CassandraLogHelper.host(host)));
                     eagerlyCleanupReadBuffersFromIdleConnection(resource, host);
-                    clientPool.returnObject(resource);
+                    clientPool.returnEntry(entry);
                 } else {
-                    invalidateQuietly(resource);
+                    invalidateQuietly(entry);
                 }
             }
         }
@@ -200,11 +229,11 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
         return client != null && client.isValid();
     }
 
-    private void invalidateQuietly(CassandraClient resource) {
+    private void invalidateQuietly(PooledEntry<CassandraClient> entry) {
         try {
             log.debug("Discarding resource of host {}",
                     SafeArg.of("host", CassandraLogHelper.host(host)));
-            clientPool.invalidateObject(resource);
+            clientPool.invalidate(entry);
         } catch (Exception e) {
             // Ignore
         }
@@ -243,41 +272,29 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
      *          Try 3 times against this host, and then give up and try against different hosts 3 additional times.
      *
      *
+     * Borrowing from and returning to the pool take no locks; see {@link LockFreeObjectPool}.
+     *
      * In an asynchronous thread (using default values):
      *    Every 20-30 seconds, examine approximately a tenth of the connections in pool.
      *    Discard any connections in this tenth of the pool whose TCP connections are closed.
      *    Discard any connections in this tenth of the pool that have been idle for more than 10 minutes,
      *       while still keeping a minimum number of idle connections around for fast borrows.
      */
-    private GenericObjectPool<CassandraClient> createClientPool() {
+    private LockFreeObjectPool<CassandraClient> createClientPool() {
         CassandraClientFactory cassandraClientFactory = new CassandraClientFactory(metricsManager, host, config);
-        GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
-
-        poolConfig.setMinIdle(config.poolSize());
-        poolConfig.setMaxIdle(config.maxConnectionBurstSize());
-        poolConfig.setMaxTotal(config.maxConnectionBurstSize());
-
-        // immediately throw when we try and borrow from a full pool; dealt with at higher level
-        poolConfig.setBlockWhenExhausted(false);
-
-        // this test is free/just checks a boolean and does not block; borrow is still fast
-        poolConfig.setTestOnBorrow(true);
-
-        poolConfig.setSoftMinEvictableIdleTimeMillis(
-                TimeUnit.MILLISECONDS.convert(config.idleConnectionTimeoutSeconds(), TimeUnit.SECONDS));
-        poolConfig.setMinEvictableIdleTimeMillis(Long.MAX_VALUE);
 
         // the randomness here is to prevent all of the pools for all of the hosts
         // evicting all at at once, which isn't great for C*.
         int timeBetweenEvictionsSeconds = config.timeBetweenConnectionEvictionRunsSeconds();
         int delta = ThreadLocalRandom.current().nextInt(Math.min(timeBetweenEvictionsSeconds / 2, 10));
-        poolConfig.setTimeBetweenEvictionRunsMillis(
-                TimeUnit.MILLISECONDS.convert(timeBetweenEvictionsSeconds + delta, TimeUnit.SECONDS));
-        poolConfig.setNumTestsPerEvictionRun(-(int) (1.0 / config.proportionConnectionsToCheckPerEvictionRun()));
-        poolConfig.setTestWhileIdle(true);
 
-        poolConfig.setJmxNamePrefix(CassandraLogHelper.host(host));
-        GenericObjectPool<CassandraClient> pool = new GenericObjectPool<>(cassandraClientFactory, poolConfig);
+        LockFreeObjectPool<CassandraClient> pool = LockFreeObjectPool.create(
+                cassandraClientFactory,
+                config.poolSize(),
+                config.maxConnectionBurstSize(),
+                Duration.ofSeconds(config.idleConnectionTimeoutSeconds()),
+                Duration.ofSeconds(timeBetweenEvictionsSeconds + delta),
+                config.proportionConnectionsToCheckPerEvictionRun());
         registerMetrics(pool);
         return pool;
     }
@@ -303,7 +320,7 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
         }
     }
 
-    private void registerMetrics(GenericObjectPool<CassandraClient> pool) {
+    private void registerMetrics(LockFreeObjectPool<CassandraClient> pool) {
         registerPoolMetric("meanActiveTimeMillis", pool::getMeanActiveTimeMillis);
         registerPoolMetric("meanIdleTimeMillis", pool::getMeanIdleTimeMillis);
         registerPoolMetric("meanBorrowWaitTimeMillis", pool::getMeanBorrowWaitTimeMillis);
@@ -317,6 +334,10 @@ public class CassandraClientPoolingContainer implements PoolingContainer<Cassand
                 () -> ((double) pool.getDestroyedByEvictorCount()) / ((double) pool.getCreatedCount()));
         registerPoolMetric("proportionDestroyedByBorrower",
                 () -> ((double) pool.getDestroyedByBorrowValidationCount()) / ((double) pool.getCreatedCount()));
+        registerPoolMetric("openRequests", this::getOpenRequests);
+        registerPoolMetric("latencyEwmaMillis", () -> score.getLatencyEwmaNanos() / TimeUnit.MILLISECONDS.toNanos(1));
+        registerPoolMetric("errorRateEwma", score::getErrorRate);
+        registerPoolMetric("hostScore", this::getScore);
     }
 
     private void registerPoolMetric(String metricName, Gauge gauge) {
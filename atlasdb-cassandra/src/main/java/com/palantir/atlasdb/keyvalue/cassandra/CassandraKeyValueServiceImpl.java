@@ -126,6 +126,7 @@ import com.palantir.common.base.ClosableIterator;
 import com.palantir.common.base.ClosableIterators;
 import com.palantir.common.base.FunctionCheckedException;
 import com.palantir.common.base.Throwables;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.common.exception.AtlasDbDependencyException;
 import com.palantir.common.exception.PalantirRuntimeException;
 import com.palantir.common.streams.KeyedStream;
@@ -221,8 +222,10 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
     private final WrappingQueryRunner wrappingQueryRunner;
     private final CellLoader cellLoader;
     private final Optional<AsyncKeyValueService> asyncKeyValueService;
+    private final ExecutorService rangeScanExecutor;
     private final RangeLoader rangeLoader;
     private final TaskRunner taskRunner;
+    private final Optional<MultiPutCoalescer> multiPutCoalescer;
     private final CellValuePutter cellValuePutter;
     private final CassandraTableMetadata tableMetadata;
     private final CassandraTableCreator cassandraTableCreator;
@@ -429,13 +432,20 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
         this.cassandraTables = new CassandraTables(clientPool, config);
         this.taskRunner = new TaskRunner(executor);
         this.cellLoader = CellLoader.create(clientPool, wrappingQueryRunner, taskRunner, runtimeConfigSupplier);
-        this.rangeLoader = new RangeLoader(clientPool, queryRunner, metricsManager, readConsistency);
+        this.rangeScanExecutor = Tracers.wrap(PTExecutors.newCachedThreadPool("Atlas Cassandra KVS range scan"));
+        this.rangeLoader = new RangeLoader(clientPool, queryRunner, metricsManager, readConsistency,
+                rangeScanExecutor, () -> runtimeConfigSupplier.get().rangeScanConcurrency());
+        this.multiPutCoalescer = config.multiPutCoalescingThreads() > 0
+                ? Optional.of(new MultiPutCoalescer(this::writeCoalescedMutations, config.multiPutCoalescingThreads(),
+                        this::getMultiPutBatchCount, this::getMultiPutBatchSizeBytes))
+                : Optional.empty();
         this.cellValuePutter = new CellValuePutter(
                 config,
                 clientPool,
                 taskRunner,
                 wrappingQueryRunner,
-                mutationTimestampProvider::getSweepSentinelWriteTimestamp);
+                mutationTimestampProvider::getSweepSentinelWriteTimestamp,
+                multiPutCoalescer);
         this.checkAndSetRunner = new CheckAndSetRunner(queryRunner);
         this.tableMetadata = new CassandraTableMetadata(rangeLoader, cassandraTables, clientPool,
                 wrappingQueryRunner);
@@ -681,7 +691,7 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
             final TableReference tableRef,
             List<KeyPredicate> query,
             final long startTs) throws Exception {
-        return clientPool.runWithRetryOnHost(
+        return clientPool.runHedgedReadWithRetryOnHost(
                 host,
                 new FunctionCheckedException<CassandraClient, Map<ByteBuffer, List<ColumnOrSuperColumn>>, Exception>() {
                     @Override
@@ -919,7 +929,7 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
                                                              BatchColumnRangeSelection batchColumnRangeSelection,
                                                              long startTs) {
         try {
-            return clientPool.runWithRetryOnHost(host,
+            return clientPool.runHedgedReadWithRetryOnHost(host,
                     new FunctionCheckedException<CassandraClient, RowColumnRangeExtractor.RowColumnRangeResult,
                             Exception>() {
                         @Override
@@ -974,7 +984,7 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
             }
 
             TokenBackedBasicResultsPage<Entry<Cell, Value>, byte[]> page(final byte[] startCol) throws Exception {
-                return clientPool.runWithRetryOnHost(host, new FunctionCheckedException<
+                return clientPool.runHedgedReadWithRetryOnHost(host, new FunctionCheckedException<
                         CassandraClient,
                         TokenBackedBasicResultsPage<Entry<Cell, Value>, byte[]>,
                         Exception>() {
@@ -1130,6 +1140,11 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
         Map<InetSocketAddress, List<TableCellAndValue>> partitionedByHost = HostPartitioner.partitionByHost(clientPool,
                 flattened, TableCellAndValue.EXTRACT_ROW_NAME_FUNCTION);
 
+        if (multiPutCoalescer.isPresent()) {
+            multiPutCoalescer.get().writeAll(getCoalescedMultiPuts(partitionedByHost, timestamp));
+            return;
+        }
+
         List<Callable<Void>> callables = Lists.newArrayList();
         for (Map.Entry<InetSocketAddress, List<TableCellAndValue>> entry : partitionedByHost.entrySet()) {
             callables.addAll(getMultiPutTasksForSingleHost(entry.getKey(), entry.getValue(), timestamp));
@@ -1157,6 +1172,47 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
         return tasks;
     }
 
+    private List<MultiPutCoalescer.HostMutations> getCoalescedMultiPuts(
+            Map<InetSocketAddress, List<TableCellAndValue>> partitionedByHost,
+            long timestamp) {
+        List<MultiPutCoalescer.HostMutations> hostMutations = Lists.newArrayList();
+        for (Map.Entry<InetSocketAddress, List<TableCellAndValue>> entry : partitionedByHost.entrySet()) {
+            List<TableCellAndValue> values = entry.getValue();
+            for (List<TableCellAndValue> batch : IterablePartitioner.partitionByCountAndBytes(values,
+                    getMultiPutBatchCount(),
+                    getMultiPutBatchSizeBytes(),
+                    extractTableNames(values).toString(),
+                    TableCellAndValue.SIZING_FUNCTION)) {
+                long sizeInBytes = batch.stream().mapToLong(TableCellAndValue.SIZING_FUNCTION::apply).sum();
+                hostMutations.add(new MultiPutCoalescer.HostMutations(
+                        entry.getKey(),
+                        extractTableNames(batch),
+                        convertToMutations(batch, timestamp),
+                        batch.size(),
+                        sizeInBytes));
+            }
+        }
+        return hostMutations;
+    }
+
+    private void writeCoalescedMutations(InetSocketAddress host,
+                                         Set<TableReference> tableRefs,
+                                         MutationMap mutationMap,
+                                         int numCells) throws Exception {
+        clientPool.runWithRetryOnHost(host, new FunctionCheckedException<CassandraClient, Void, Exception>() {
+            @Override
+            public Void apply(CassandraClient client) throws Exception {
+                return wrappingQueryRunner.batchMutate("multiPut", client, tableRefs, mutationMap,
+                        WRITE_CONSISTENCY);
+            }
+
+            @Override
+            public String toString() {
+                return "batch_mutate(" + host + ", " + tableRefs + ", " + numCells + " coalesced values)";
+            }
+        });
+    }
+
     private static Set<TableReference> extractTableNames(Iterable<TableCellAndValue> tableCellAndValues) {
         Set<TableReference> tableRefs = Sets.newHashSet();
         for (TableCellAndValue tableCellAndValue : tableCellAndValues) {
@@ -1749,8 +1805,10 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
      */
     @Override
     public void close() {
+        multiPutCoalescer.ifPresent(MultiPutCoalescer::close);
         clientPool.shutdown();
         asyncKeyValueService.ifPresent(AsyncKeyValueService::close);
+        rangeScanExecutor.shutdownNow();
         super.close();
     }
 
@@ -1803,6 +1861,11 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
      * interleave.  However, concurrent writes to the same Cell will not both report success.
      * One of them will throw {@link KeyAlreadyExistsException}.
      * <p>
+     * Each row is a separate compare-and-set, which is sent to a host owning that row; rows are processed in parallel.
+     * If the cells in several rows already exist, a single {@link KeyAlreadyExistsException} reporting all of them is
+     * thrown once every row has been processed; its known successfully committed keys are the cells of the rows that
+     * were put.
+     * <p>
      * Requires a quorum of Cassandra nodes to be reachable.
      *
      * @param tableRef the name of the table to put values into.
@@ -1815,26 +1878,32 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
     public void putUnlessExists(final TableReference tableRef, final Map<Cell, byte[]> values)
             throws KeyAlreadyExistsException {
         try {
-            Optional<KeyAlreadyExistsException> failure = clientPool.runWithRetry(client -> {
-                Map<ByteString, Map<Cell, byte[]>> partitionedEntries = partitionPerRow(values);
-
-                for (Map.Entry<ByteString, Map<Cell, byte[]>> partition : partitionedEntries.entrySet()) {
-                    CASResult casResult = putUnlessExistsSinglePartition(
-                            tableRef, client, partition.getKey(), partition.getValue());
-                    if (!casResult.isSuccess()) {
-                        return Optional.of(new KeyAlreadyExistsException(
-                                String.format("The cells in table %s already exist.", tableRef.getQualifiedName()),
-                                casResult.getCurrent_values().stream()
-                                        .map(column -> Cell.create(partition.getKey().toByteArray(),
-                                                CassandraKeyValueServices.decompose(column.bufferForName()).lhSide))
-                                        .collect(Collectors.toList())));
-                    }
+            List<Entry<ByteString, Map<Cell, byte[]>>> partitions =
+                    ImmutableList.copyOf(partitionPerRow(values).entrySet());
+            List<Callable<List<Cell>>> tasks = partitions.stream()
+                    .map(partition -> AnnotatedCallable.wrapWithThreadName(AnnotationType.PREPEND,
+                            "Atlas putUnlessExists of " + partition.getValue().size() + " cells into " + tableRef,
+                            () -> putUnlessExistsSinglePartition(tableRef, partition.getKey(), partition.getValue())))
+                    .collect(Collectors.toList());
+            List<List<Cell>> existingCellsPerPartition = taskRunner.runAllTasksCancelOnFailure(tasks);
+
+            // results are in the same order as the tasks; rows with no existing cells were put successfully
+            List<Cell> existingCells = Lists.newArrayList();
+            List<Cell> successfullyPutCells = Lists.newArrayList();
+            for (int i = 0; i < partitions.size(); i++) {
+                List<Cell> existingInPartition = existingCellsPerPartition.get(i);
+                if (existingInPartition.isEmpty()) {
+                    successfullyPutCells.addAll(partitions.get(i).getValue().keySet());
+                } else {
+                    existingCells.addAll(existingInPartition);
                 }
-                return Optional.empty();
-            });
-            failure.ifPresent(exception -> {
-                throw exception;
-            });
+            }
+            if (!existingCells.isEmpty()) {
+                throw new KeyAlreadyExistsException(
+                        String.format("The cells in table %s already exist.", tableRef.getQualifiedName()),
+                        existingCells,
+                        successfullyPutCells);
+            }
         } catch (KeyAlreadyExistsException e) {
             throw e;
         } catch (Exception e) {
@@ -1849,20 +1918,42 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
                         Collectors.toMap(Entry::getKey, Entry::getValue)));
     }
 
-    private static CASResult putUnlessExistsSinglePartition(
+    /**
+     * Returns the cells of the partition that already existed, which is empty if the values were put.
+     */
+    private List<Cell> putUnlessExistsSinglePartition(
             TableReference tableRef,
-            CassandraClient client,
             ByteString row,
             Map<Cell, byte[]> partition) throws TException {
-        return client.put_unless_exists(
-                tableRef,
-                ByteBuffer.wrap(row.toByteArray()),
-                partition.entrySet()
-                        .stream()
-                        .map(CassandraKeyValueServiceImpl::prepareColumnForPutUnlessExists)
-                        .collect(Collectors.toList()),
-                ConsistencyLevel.SERIAL,
-                WRITE_CONSISTENCY);
+        byte[] rowName = row.toByteArray();
+        CASResult casResult = clientPool.runWithRetryOnHost(
+                clientPool.getRandomHostForKey(rowName),
+                new FunctionCheckedException<CassandraClient, CASResult, TException>() {
+                    @Override
+                    public CASResult apply(CassandraClient client) throws TException {
+                        return client.put_unless_exists(
+                                tableRef,
+                                ByteBuffer.wrap(rowName),
+                                partition.entrySet()
+                                        .stream()
+                                        .map(CassandraKeyValueServiceImpl::prepareColumnForPutUnlessExists)
+                                        .collect(Collectors.toList()),
+                                ConsistencyLevel.SERIAL,
+                                WRITE_CONSISTENCY);
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "put_unless_exists(" + tableRef + ", " + partition.size() + " values)";
+                    }
+                });
+        if (casResult.isSuccess()) {
+            return ImmutableList.of();
+        }
+        return casResult.getCurrent_values().stream()
+                .map(column -> Cell.create(rowName,
+                        CassandraKeyValueServices.decompose(column.bufferForName()).lhSide))
+                .collect(Collectors.toList());
     }
 
     private static Column prepareColumnForPutUnlessExists(Entry<Cell, byte[]> insertion) {
@@ -2028,6 +2119,33 @@ public class CassandraKeyValueServiceImpl extends AbstractKeyValueService implem
                 .orElseGet(() -> Futures.immediateFuture(this.get(tableRef, timestampByCell)));
     }
 
+    /**
+     * Asynchronously gets rows from the cassandra key-value store, using CQL if it is configured.
+     */
+    @Override
+    public ListenableFuture<Map<Cell, Value>> getRowsAsync(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnSelection columnSelection,
+            long timestamp) {
+        return asyncKeyValueService.map(asyncKvs -> asyncKvs.getRowsAsync(tableRef, rows, columnSelection, timestamp))
+                .orElseGet(() -> Futures.immediateFuture(this.getRows(tableRef, rows, columnSelection, timestamp)));
+    }
+
+    /**
+     * Asynchronously puts values into the cassandra key-value store, using CQL if it is configured.
+     */
+    @Override
+    public ListenableFuture<Void> multiPutAsync(
+            Map<TableReference, ? extends Map<Cell, byte[]>> valuesByTable,
+            long timestamp) {
+        if (!asyncKeyValueService.isPresent()) {
+            multiPut(valuesByTable, timestamp);
+            return Futures.immediateFuture(null);
+        }
+        return asyncKeyValueService.get().multiPutAsync(valuesByTable, timestamp);
+    }
+
     private static class TableCellAndValue {
         private static final Function<TableCellAndValue, byte[]> EXTRACT_ROW_NAME_FUNCTION =
                 input -> input.cell.getRowName();
@@ -144,38 +144,12 @@ final class CellLoader {
         final ColumnParent colFam = new ColumnParent(CassandraKeyValueServiceImpl.internalTableName(tableRef));
         List<Callable<Void>> tasks = Lists.newArrayList();
         for (final List<Cell> partition : batcher.partitionIntoBatches(cells, host, tableRef)) {
-            Callable<Void> multiGetCallable = () -> clientPool.runWithRetryOnHost(
-                    host,
-                    new FunctionCheckedException<CassandraClient, Void, Exception>() {
-                        @Override
-                        public Void apply(CassandraClient client) throws Exception {
-                            List<KeyPredicate> query
-                                    = translatePartitionToKeyPredicates(partition, startTs, loadAllTs);
-
-                            if (log.isTraceEnabled()) {
-                                log.trace("Requesting {} cells from {} {}starting at timestamp {} on {}",
-                                        SafeArg.of("cells", partition.size()),
-                                        LoggingArgs.tableRef(tableRef),
-                                        SafeArg.of("timestampClause", loadAllTs ? "for all timestamps " : ""),
-                                        SafeArg.of("startTs", startTs),
-                                        SafeArg.of("host", CassandraLogHelper.host(host)));
-                            }
-
-                            Map<ByteBuffer, List<List<ColumnOrSuperColumn>>> results = queryRunner.multiget_multislice(
-                                    kvsMethodName, client, tableRef, query, consistency);
-                            Map<ByteBuffer, List<ColumnOrSuperColumn>> aggregatedResults = Maps.transformValues(results,
-                                    lists -> Lists.newArrayList(Iterables.concat(lists)));
-                            visitor.visit(aggregatedResults);
-                            return null;
-                        }
-
-                        @Override
-                        public String toString() {
-                            return "multiget_multislice(" + host + ", " + colFam + ", "
-                                    + partition.size() + " cells" + ")";
-                        }
-
-                    });
+            Callable<Void> multiGetCallable = () -> {
+                // the visitor is applied outside the request, as a hedged request may run more than once
+                visitor.visit(loadPartition(kvsMethodName, host, tableRef, colFam, partition, startTs, loadAllTs,
+                        consistency));
+                return null;
+            };
             tasks.add(AnnotatedCallable.wrapWithThreadName(AnnotationType.PREPEND,
                     "Atlas loadWithTs " + partition.size() + " cells from " + tableRef + " on " + host,
                     multiGetCallable));
@@ -183,6 +157,48 @@ final class CellLoader {
         return tasks;
     }
 
+    private Map<ByteBuffer, List<ColumnOrSuperColumn>> loadPartition(String kvsMethodName,
+            InetSocketAddress host,
+            TableReference tableRef,
+            ColumnParent colFam,
+            List<Cell> partition,
+            long startTs,
+            boolean loadAllTs,
+            ConsistencyLevel consistency) throws Exception {
+        return clientPool.runHedgedReadWithRetryOnHost(
+                host,
+                new FunctionCheckedException<CassandraClient, Map<ByteBuffer, List<ColumnOrSuperColumn>>,
+                        Exception>() {
+                    @Override
+                    public Map<ByteBuffer, List<ColumnOrSuperColumn>> apply(CassandraClient client)
+                            throws Exception {
+                        List<KeyPredicate> query
+                                = translatePartitionToKeyPredicates(partition, startTs, loadAllTs);
+
+                        if (log.isTraceEnabled()) {
+                            log.trace("Requesting {} cells from {} {}starting at timestamp {} on {}",
+                                    SafeArg.of("cells", partition.size()),
+                                    LoggingArgs.tableRef(tableRef),
+                                    SafeArg.of("timestampClause", loadAllTs ? "for all timestamps " : ""),
+                                    SafeArg.of("startTs", startTs),
+                                    SafeArg.of("host", CassandraLogHelper.host(host)));
+                        }
+
+                        Map<ByteBuffer, List<List<ColumnOrSuperColumn>>> results = queryRunner.multiget_multislice(
+                                kvsMethodName, client, tableRef, query, consistency);
+                        return Maps.transformValues(results,
+                                lists -> Lists.newArrayList(Iterables.concat(lists)));
+                    }
+
+                    @Override
+                    public String toString() {
+                        return "multiget_multislice(" + host + ", " + colFam + ", "
+                                + partition.size() + " cells" + ")";
+                    }
+
+                });
+    }
+
     private static List<KeyPredicate> translatePartitionToKeyPredicates(
             List<Cell> partition, long startTs, boolean loadAllTs) {
         Map<byte[], SlicePredicate> canonicalPredicates = Maps.newTreeMap(UnsignedBytes.lexicographicalComparator());
@@ -16,8 +16,10 @@
 package com.palantir.atlasdb.keyvalue.cassandra;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.function.LongSupplier;
 
@@ -50,17 +52,28 @@ public class CellValuePutter {
     private CassandraClientPool clientPool;
     private TaskRunner taskRunner;
     private WrappingQueryRunner queryRunner;
+    private Optional<MultiPutCoalescer> multiPutCoalescer;
 
     public CellValuePutter(CassandraKeyValueServiceConfig config,
             CassandraClientPool clientPool,
             TaskRunner taskRunner,
             WrappingQueryRunner queryRunner,
             LongSupplier timestampOverrideSupplier) {
+        this(config, clientPool, taskRunner, queryRunner, timestampOverrideSupplier, Optional.empty());
+    }
+
+    CellValuePutter(CassandraKeyValueServiceConfig config,
+            CassandraClientPool clientPool,
+            TaskRunner taskRunner,
+            WrappingQueryRunner queryRunner,
+            LongSupplier timestampOverrideSupplier,
+            Optional<MultiPutCoalescer> multiPutCoalescer) {
         this.config = config;
         this.clientPool = clientPool;
         this.taskRunner = taskRunner;
         this.queryRunner = queryRunner;
         this.timestampOverrideSupplier = timestampOverrideSupplier;
+        this.multiPutCoalescer = multiPutCoalescer;
     }
 
     void putWithOverriddenTimestamps(final String kvsMethodName,
@@ -80,6 +93,11 @@ public class CellValuePutter {
             final Iterable<Map.Entry<Cell, Value>> values,
             boolean overwriteTimestamps) {
         Map<InetSocketAddress, Map<Cell, Value>> cellsByHost = HostPartitioner.partitionMapByHost(clientPool, values);
+        if (multiPutCoalescer.isPresent() && !overwriteTimestamps) {
+            // overridden timestamps are fetched per attempt, so those writes cannot be prepared in advance
+            multiPutCoalescer.get().writeAll(toHostMutations(tableRef, cellsByHost));
+            return;
+        }
         List<Callable<Void>> tasks = Lists.newArrayListWithCapacity(cellsByHost.size());
         for (final Map.Entry<InetSocketAddress, Map<Cell, Value>> entry : cellsByHost.entrySet()) {
             tasks.add(AnnotatedCallable.wrapWithThreadName(AnnotationType.PREPEND,
@@ -121,24 +139,8 @@ public class CellValuePutter {
                                 mutationBatchSizeBytes,
                                 tableRef,
                                 ENTRY_SIZING_FUNCTION)) {
-                            MutationMap map = new MutationMap();
-                            for (Map.Entry<Cell, Value> e : partition) {
-                                Cell cell = e.getKey();
-                                Column col = overrideTimestamps
-                                        ? CassandraKeyValueServices.createColumnForDelete(
-                                                cell,
-                                                e.getValue(),
-                                                overrideTimestamp)
-                                        : CassandraKeyValueServices.createColumn(cell, e.getValue());
-
-                                ColumnOrSuperColumn colOrSup = new ColumnOrSuperColumn();
-                                colOrSup.setColumn(col);
-                                Mutation mutation = new Mutation();
-                                mutation.setColumn_or_supercolumn(colOrSup);
-
-                                map.addMutationForCell(cell, tableRef, mutation);
-                            }
-
+                            MutationMap map = toMutationMap(tableRef, partition, overrideTimestamps,
+                                    overrideTimestamp);
                             queryRunner.batchMutate(kvsMethodName, client, ImmutableSet.of(tableRef), map,
                                     CassandraKeyValueServiceImpl.WRITE_CONSISTENCY);
                         }
@@ -152,4 +154,50 @@ public class CellValuePutter {
                     }
                 });
     }
+
+    private List<MultiPutCoalescer.HostMutations> toHostMutations(TableReference tableRef,
+            Map<InetSocketAddress, Map<Cell, Value>> cellsByHost) {
+        List<MultiPutCoalescer.HostMutations> hostMutations = new ArrayList<>();
+        for (Map.Entry<InetSocketAddress, Map<Cell, Value>> entry : cellsByHost.entrySet()) {
+            for (List<Map.Entry<Cell, Value>> partition : IterablePartitioner.partitionByCountAndBytes(
+                    entry.getValue().entrySet(),
+                    config.mutationBatchCount(),
+                    config.mutationBatchSizeBytes(),
+                    tableRef,
+                    ENTRY_SIZING_FUNCTION)) {
+                long sizeInBytes = partition.stream().mapToLong(ENTRY_SIZING_FUNCTION::apply).sum();
+                hostMutations.add(new MultiPutCoalescer.HostMutations(
+                        entry.getKey(),
+                        ImmutableSet.of(tableRef),
+                        toMutationMap(tableRef, partition, false, Long.MIN_VALUE),
+                        partition.size(),
+                        sizeInBytes));
+            }
+        }
+        return hostMutations;
+    }
+
+    private static MutationMap toMutationMap(TableReference tableRef,
+            List<Map.Entry<Cell, Value>> partition,
+            boolean overrideTimestamps,
+            long overrideTimestamp) {
+        MutationMap map = new MutationMap();
+        for (Map.Entry<Cell, Value> e : partition) {
+            Cell cell = e.getKey();
+            Column col = overrideTimestamps
+                    ? CassandraKeyValueServices.createColumnForDelete(
+                            cell,
+                            e.getValue(),
+                            overrideTimestamp)
+                    : CassandraKeyValueServices.createColumn(cell, e.getValue());
+
+            ColumnOrSuperColumn colOrSup = new ColumnOrSuperColumn();
+            colOrSup.setColumn(col);
+            Mutation mutation = new Mutation();
+            mutation.setColumn_or_supercolumn(colOrSup);
+
+            map.addMutationForCell(cell, tableRef, mutation);
+        }
+        return map;
+    }
 }
@@ -0,0 +1,185 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.SettableFuture;
+import com.palantir.exception.PalantirInterruptedException;
+
+/**
+ * Runs a request against a host and, if it has not completed within a given delay, runs it against a second host as
+ * well. The request must therefore be idempotent and free of side effects.
+ *
+ * The original and hedged requests race, and the calling thread returns the first successful response, so a slow
+ * original host does not hold up the caller once the hedged request has succeeded. If both fail, the failure of the
+ * original request is thrown. Hedged requests are limited by a global rate and by the size of the executor they run
+ * on, beyond which requests are simply not hedged.
+ */
+final class HedgedRequestRunner {
+    interface HostRequest<V, K extends Exception> {
+        V runOnHost(InetSocketAddress host) throws K;
+    }
+
+    private final ListeningExecutorService originalExecutor;
+    private final ListeningExecutorService hedgeExecutor;
+    private final RateLimiter hedgingBudget;
+    private final Runnable hedgedRequestListener;
+
+    /**
+     * @param originalExecutor runs original requests while the caller waits, and so should not reject tasks
+     * @param hedgeExecutor runs hedged requests, and should be bounded; requests it rejects are not hedged
+     */
+    HedgedRequestRunner(
+            ExecutorService originalExecutor,
+            ExecutorService hedgeExecutor,
+            double maxHedgedRequestsPerSecond,
+            Runnable hedgedRequestListener) {
+        this.originalExecutor = MoreExecutors.listeningDecorator(originalExecutor);
+        this.hedgeExecutor = MoreExecutors.listeningDecorator(hedgeExecutor);
+        this.hedgingBudget = RateLimiter.create(maxHedgedRequestsPerSecond);
+        this.hedgedRequestListener = hedgedRequestListener;
+    }
+
+    void setMaxHedgedRequestsPerSecond(double maxHedgedRequestsPerSecond) {
+        if (hedgingBudget.getRate() != maxHedgedRequestsPerSecond) {
+            hedgingBudget.setRate(maxHedgedRequestsPerSecond);
+        }
+    }
+
+    <V, K extends Exception> V run(
+            InetSocketAddress host,
+            Duration hedgingDelay,
+            Supplier<Optional<InetSocketAddress>> backupHostSupplier,
+            HostRequest<V, K> request) throws K {
+        ListenableFuture<V> original = originalExecutor.submit(() -> request.runOnHost(host));
+        try {
+            return original.get(hedgingDelay.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            throw interrupted(e);
+        } catch (ExecutionException e) {
+            throw HedgedRequestRunner.<K>rethrow(e.getCause());
+        } catch (TimeoutException e) {
+            Optional<ListenableFuture<V>> backup = startBackup(backupHostSupplier, request);
+            return HedgedRequestRunner.<V, K>await(
+                    backup.isPresent() ? firstSuccessful(original, backup.get()) : original);
+        }
+    }
+
+    /**
+     * Starts the request on a backup host, if any. Whichever of the original and backup requests loses the race is
+     * left to complete in the background, so that its connection is returned to the pool in a consistent state.
+     */
+    private <V, K extends Exception> Optional<ListenableFuture<V>> startBackup(
+            Supplier<Optional<InetSocketAddress>> backupHostSupplier,
+            HostRequest<V, K> request) {
+        Optional<InetSocketAddress> backupHost = backupHostSupplier.get();
+        if (!backupHost.isPresent() || !hedgingBudget.tryAcquire()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(hedgeExecutor.submit(() -> {
+                hedgedRequestListener.run();
+                return request.runOnHost(backupHost.get());
+            }));
+        } catch (RejectedExecutionException e) {
+            // every hedging thread is busy, so the cluster is unlikely to benefit from more load
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Completes with the first successful response, or once both requests have failed, with the original failure
+     * and the backup failure suppressed.
+     */
+    @SuppressWarnings("FutureReturnValueIgnored") // the outcome is reported through the returned future
+    private static <V> ListenableFuture<V> firstSuccessful(ListenableFuture<V> original, ListenableFuture<V> backup) {
+        SettableFuture<V> result = SettableFuture.create();
+        FutureCallback<V> completeOnSuccess = new FutureCallback<V>() {
+            @Override
+            public void onSuccess(V value) {
+                result.set(value);
+            }
+
+            @Override
+            public void onFailure(Throwable failure) {
+                // the other request may still succeed
+            }
+        };
+        Futures.addCallback(original, completeOnSuccess, MoreExecutors.directExecutor());
+        Futures.addCallback(backup, completeOnSuccess, MoreExecutors.directExecutor());
+        Futures.whenAllComplete(original, backup).call(() -> {
+            Optional<Throwable> originalFailure = failure(original);
+            Optional<Throwable> backupFailure = failure(backup);
+            if (originalFailure.isPresent() && backupFailure.isPresent()) {
+                originalFailure.get().addSuppressed(backupFailure.get());
+                result.setException(originalFailure.get());
+            }
+            return null;
+        }, MoreExecutors.directExecutor());
+        return result;
+    }
+
+    private static Optional<Throwable> failure(Future<?> completedFuture) {
+        try {
+            Futures.getDone(completedFuture);
+            return Optional.empty();
+        } catch (ExecutionException e) {
+            return Optional.of(e.getCause());
+        }
+    }
+
+    private static <V, K extends Exception> V await(Future<V> future) throws K {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            throw interrupted(e);
+        } catch (ExecutionException e) {
+            throw HedgedRequestRunner.<K>rethrow(e.getCause());
+        }
+    }
+
+    private static PalantirInterruptedException interrupted(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return new PalantirInterruptedException(e);
+    }
+
+    @SuppressWarnings("unchecked") // the request only throws unchecked exceptions or K
+    private static <K extends Exception> K rethrow(Throwable throwable) {
+        if (throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
+        }
+        if (throwable instanceof Error) {
+            throw (Error) throwable;
+        }
+        return (K) throwable;
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.cassandra.thrift.MutationMap;
+import com.palantir.common.base.Throwables;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import com.palantir.tracing.Tracers;
+
+/**
+ * Coalesces concurrent writes to the same Cassandra host into combined {@code batch_mutate} calls.
+ *
+ * Each host has its own queue of pending writes and at most one round of writes in flight. While a round is in
+ * flight, further writes to that host queue up behind it; the next round merges everything queued for the host into
+ * as few batches as the batch count and size limits allow, and sends those batches one after another. Hosts are
+ * written independently, so a slow host only delays writes to itself. Each write completes when the batch containing
+ * it has been written. If a combined batch fails, its writes are retried one at a time, so a write only fails with
+ * its own error.
+ */
+final class MultiPutCoalescer implements Closeable {
+    private final HostMutationWriter writer;
+    private final IntSupplier maxCellsPerBatch;
+    private final LongSupplier maxBytesPerBatch;
+    private final ExecutorService executor;
+    private final ConcurrentMap<InetSocketAddress, HostQueue> queuesByHost = new ConcurrentHashMap<>();
+
+    MultiPutCoalescer(HostMutationWriter writer, int numThreads, IntSupplier maxCellsPerBatch,
+            LongSupplier maxBytesPerBatch) {
+        this.writer = writer;
+        this.maxCellsPerBatch = maxCellsPerBatch;
+        this.maxBytesPerBatch = maxBytesPerBatch;
+        this.executor = Tracers.wrap(PTExecutors.newFixedThreadPool(numThreads,
+                new NamedThreadFactory("Atlas Cassandra KVS coalesced multiPut", true)));
+    }
+
+    ListenableFuture<Void> write(HostMutations mutations) {
+        PendingWrite write = new PendingWrite(mutations);
+        queuesByHost.computeIfAbsent(mutations.host, HostQueue::new).add(write);
+        return write.result;
+    }
+
+    /**
+     * Writes all of the given mutations, waiting for them to be written.
+     *
+     * @throws com.palantir.common.exception.AtlasDbDependencyException if any of the writes failed
+     */
+    void writeAll(List<HostMutations> mutations) {
+        List<ListenableFuture<Void>> futures = mutations.stream().map(this::write).collect(Collectors.toList());
+        try {
+            Futures.allAsList(futures).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Throwables.rewrapAndThrowUncheckedException("Interrupted while writing coalesced mutations", e);
+        } catch (ExecutionException e) {
+            throw Throwables.unwrapAndThrowAtlasDbDependencyException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        queuesByHost.values().forEach(queue -> queue.failPending(
+                new SafeIllegalStateException("Coalesced multiPut was closed before the write was sent")));
+    }
+
+    private List<List<PendingWrite>> partitionIntoBatches(List<PendingWrite> writes) {
+        int maxCells = maxCellsPerBatch.getAsInt();
+        long maxBytes = maxBytesPerBatch.getAsLong();
+        List<List<PendingWrite>> batches = new ArrayList<>();
+        List<PendingWrite> currentBatch = new ArrayList<>();
+        int currentCells = 0;
+        long currentBytes = 0;
+        for (PendingWrite write : writes) {
+            HostMutations mutations = write.mutations;
+            if (!currentBatch.isEmpty() && (currentCells + mutations.numCells > maxCells
+                    || currentBytes + mutations.sizeInBytes > maxBytes)) {
+                batches.add(currentBatch);
+                currentBatch = new ArrayList<>();
+                currentCells = 0;
+                currentBytes = 0;
+            }
+            currentBatch.add(write);
+            currentCells += mutations.numCells;
+            currentBytes += mutations.sizeInBytes;
+        }
+        if (!currentBatch.isEmpty()) {
+            batches.add(currentBatch);
+        }
+        return batches;
+    }
+
+    private void writeBatch(InetSocketAddress host, List<PendingWrite> batch) {
+        if (batch.size() == 1) {
+            writeIndividually(host, batch.get(0));
+            return;
+        }
+        MutationMap combined = new MutationMap();
+        Set<TableReference> tableRefs = new HashSet<>();
+        int numCells = 0;
+        for (PendingWrite write : batch) {
+            combined.addAll(write.mutations.mutations);
+            tableRefs.addAll(write.mutations.tableRefs);
+            numCells += write.mutations.numCells;
+        }
+        try {
+            writer.write(host, tableRefs, combined, numCells);
+            batch.forEach(write -> write.result.set(null));
+        } catch (Throwable t) {
+            // the failure may have been caused by any one of the writes, so give each of them its own attempt
+            batch.forEach(write -> writeIndividually(host, write));
+        }
+    }
+
+    private void writeIndividually(InetSocketAddress host, PendingWrite write) {
+        try {
+            HostMutations mutations = write.mutations;
+            writer.write(host, mutations.tableRefs, mutations.mutations, mutations.numCells);
+            write.result.set(null);
+        } catch (Throwable t) {
+            write.result.setException(t);
+        }
+    }
+
+    private final class HostQueue {
+        private final InetSocketAddress host;
+        private final Queue<PendingWrite> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean roundInFlight = new AtomicBoolean();
+
+        HostQueue(InetSocketAddress host) {
+            this.host = host;
+        }
+
+        void add(PendingWrite write) {
+            pending.add(write);
+            scheduleRoundIfIdle();
+        }
+
+        void failPending(Throwable cause) {
+            for (PendingWrite write = pending.poll(); write != null; write = pending.poll()) {
+                write.result.setException(cause);
+            }
+        }
+
+        private void scheduleRoundIfIdle() {
+            if (pending.isEmpty() || !roundInFlight.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(this::writeRound);
+            } catch (RejectedExecutionException e) {
+                roundInFlight.set(false);
+                failPending(e);
+            }
+        }
+
+        private void writeRound() {
+            try {
+                List<PendingWrite> round = new ArrayList<>();
+                for (PendingWrite write = pending.poll(); write != null; write = pending.poll()) {
+                    round.add(write);
+                }
+                partitionIntoBatches(round).forEach(batch -> writeBatch(host, batch));
+            } finally {
+                // writes queued while this round was in flight form the next round
+                roundInFlight.set(false);
+                scheduleRoundIfIdle();
+            }
+        }
+    }
+
+    private static final class PendingWrite {
+        private final HostMutations mutations;
+        private final SettableFuture<Void> result = SettableFuture.create();
+
+        PendingWrite(HostMutations mutations) {
+            this.mutations = mutations;
+        }
+    }
+
+    interface HostMutationWriter {
+        void write(InetSocketAddress host, Set<TableReference> tableRefs, MutationMap mutations, int numCells)
+                throws Exception;
+    }
+
+    static final class HostMutations {
+        private final InetSocketAddress host;
+        private final Set<TableReference> tableRefs;
+        private final MutationMap mutations;
+        private final int numCells;
+        private final long sizeInBytes;
+
+        HostMutations(InetSocketAddress host, Set<TableReference> tableRefs, MutationMap mutations, int numCells,
+                long sizeInBytes) {
+            this.host = host;
+            this.tableRefs = tableRefs;
+            this.mutations = mutations;
+            this.numCells = numCells;
+            this.sizeInBytes = sizeInBytes;
+        }
+    }
+}
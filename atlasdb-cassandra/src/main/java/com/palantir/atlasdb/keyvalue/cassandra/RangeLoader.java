@@ -16,7 +16,11 @@
 
 package com.palantir.atlasdb.keyvalue.cassandra;
 
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.function.IntSupplier;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import org.apache.cassandra.thrift.ConsistencyLevel;
 import org.apache.cassandra.thrift.SlicePredicate;
@@ -28,6 +32,7 @@ import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.api.Value;
 import com.palantir.atlasdb.keyvalue.cassandra.paging.CassandraRangePagingIterable;
 import com.palantir.atlasdb.keyvalue.cassandra.paging.ColumnGetter;
+import com.palantir.atlasdb.keyvalue.cassandra.paging.ParallelRangeScanIterator;
 import com.palantir.atlasdb.keyvalue.cassandra.paging.RowGetter;
 import com.palantir.atlasdb.keyvalue.cassandra.paging.ThriftColumnGetter;
 import com.palantir.atlasdb.keyvalue.cassandra.thrift.SlicePredicates;
@@ -39,14 +44,18 @@ public class RangeLoader {
     private final CassandraClientPool clientPool;
     private final TracingQueryRunner queryRunner;
     private final MetricsManager metricsManager;
+    private final ExecutorService rangeScanExecutor;
+    private final IntSupplier rangeScanConcurrency;
     private ConsistencyLevel consistencyLevel;
 
     public RangeLoader(CassandraClientPool clientPool, TracingQueryRunner queryRunner, MetricsManager metricsManager,
-            ConsistencyLevel consistencyLevel) {
+            ConsistencyLevel consistencyLevel, ExecutorService rangeScanExecutor, IntSupplier rangeScanConcurrency) {
         this.clientPool = clientPool;
         this.queryRunner = queryRunner;
         this.metricsManager = metricsManager;
         this.consistencyLevel = consistencyLevel;
+        this.rangeScanExecutor = rangeScanExecutor;
+        this.rangeScanConcurrency = rangeScanConcurrency;
     }
 
     public ClosableIterator<RowResult<Value>> getRange(TableReference tableRef, RangeRequest rangeRequest, long ts) {
@@ -93,15 +102,28 @@ public class RangeLoader {
             return ClosableIterators.wrap(ImmutableList.<RowResult<T>>of().iterator());
         }
 
-        CassandraRangePagingIterable<T> rowResults = new CassandraRangePagingIterable<>(
-                rowGetter,
-                slicePredicate,
-                columnGetter,
-                rangeRequest,
-                resultsExtractor,
-                startTs
-        );
+        int concurrency = rangeScanConcurrency.getAsInt();
+        List<RangeRequest> splits = concurrency > 1
+                ? TokenRangeSplitter.split(rangeRequest, clientPool.getTokenMap())
+                : ImmutableList.of(rangeRequest);
+        if (splits.size() == 1) {
+            CassandraRangePagingIterable<T> rowResults = new CassandraRangePagingIterable<>(
+                    rowGetter,
+                    slicePredicate,
+                    columnGetter,
+                    rangeRequest,
+                    resultsExtractor,
+                    startTs
+            );
 
-        return ClosableIterators.wrap(rowResults.iterator());
+            return ClosableIterators.wrap(rowResults.iterator());
+        }
+
+        List<CassandraRangePagingIterable<T>> splitResults = splits.stream()
+                .map(split -> new CassandraRangePagingIterable<>(
+                        rowGetter, slicePredicate, columnGetter, split, resultsExtractor, startTs))
+                .collect(Collectors.toList());
+        int bufferedRowsPerSplit = rangeRequest.getBatchHint() == null ? 100 : rangeRequest.getBatchHint();
+        return new ParallelRangeScanIterator<>(splitResults, rangeScanExecutor, concurrency, bufferedRowsPerSplit);
     }
 }
@@ -0,0 +1,83 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedSet;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeMap;
+import com.google.common.primitives.UnsignedBytes;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RangeRequests;
+import com.palantir.logsafe.Preconditions;
+
+/**
+ * Splits a forward {@link RangeRequest} into contiguous sub-ranges along the boundaries of the Cassandra token ring.
+ *
+ * As AtlasDB requires the byte ordered partitioner, a token is simply a row key; each split therefore lies wholly
+ * within one token range and can be served by that range's replicas. The splits are returned in key order and
+ * together cover exactly the original request.
+ */
+final class TokenRangeSplitter {
+    private static final Comparator<byte[]> ROW_COMPARATOR = UnsignedBytes.lexicographicalComparator();
+
+    private TokenRangeSplitter() {
+        // utility
+    }
+
+    static List<RangeRequest> split(RangeRequest rangeRequest, RangeMap<LightweightOppToken, ?> tokenMap) {
+        Preconditions.checkArgument(!rangeRequest.isReverse(), "Reverse range requests cannot be split");
+        byte[] start = rangeRequest.getStartInclusive();
+        byte[] end = rangeRequest.getEndExclusive();
+
+        ImmutableList.Builder<RangeRequest> splits = ImmutableList.builder();
+        byte[] splitStart = start;
+        for (byte[] boundary : boundaries(tokenMap)) {
+            if (ROW_COMPARATOR.compare(boundary, splitStart) <= 0) {
+                continue;
+            }
+            if (end.length != 0 && ROW_COMPARATOR.compare(boundary, end) >= 0) {
+                break;
+            }
+            splits.add(rangeRequest.getBuilder().startRowInclusive(splitStart).endRowExclusive(boundary).build());
+            splitStart = boundary;
+        }
+        splits.add(rangeRequest.getBuilder().startRowInclusive(splitStart).endRowExclusive(end).build());
+        return splits.build();
+    }
+
+    /**
+     * Token ranges are open below and closed above, so the first row of the next range is the row immediately
+     * following each range's upper token.
+     */
+    private static SortedSet<byte[]> boundaries(RangeMap<LightweightOppToken, ?> tokenMap) {
+        ImmutableSortedSet.Builder<byte[]> boundaries = ImmutableSortedSet.orderedBy(ROW_COMPARATOR);
+        for (Range<LightweightOppToken> tokenRange : tokenMap.asMapOfRanges().keySet()) {
+            if (tokenRange.hasUpperBound()) {
+                byte[] nextRow = RangeRequests.getNextStartRowUnlessTerminal(false, tokenRange.upperEndpoint().bytes);
+                if (nextRow != null) {
+                    boundaries.add(nextRow);
+                }
+            }
+        }
+        return boundaries.build();
+    }
+}
@@ -16,42 +16,91 @@
 
 package com.palantir.atlasdb.keyvalue.cassandra.async;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Streams;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.palantir.atlasdb.futures.FuturesCombiner;
 import com.palantir.atlasdb.keyvalue.api.AsyncKeyValueService;
 import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.keyvalue.cassandra.CassandraKeyValueServiceImpl;
 import com.palantir.atlasdb.keyvalue.cassandra.async.queries.CqlQueryContext;
+import com.palantir.atlasdb.keyvalue.cassandra.async.queries.CqlQuerySpec;
 import com.palantir.atlasdb.keyvalue.cassandra.async.queries.GetQuerySpec;
 import com.palantir.atlasdb.keyvalue.cassandra.async.queries.GetQuerySpec.GetQueryParameters;
+import com.palantir.atlasdb.keyvalue.cassandra.async.queries.GetRowQuerySpec;
 import com.palantir.atlasdb.keyvalue.cassandra.async.queries.ImmutableCqlQueryContext;
 import com.palantir.atlasdb.keyvalue.cassandra.async.queries.ImmutableGetQueryParameters;
+import com.palantir.atlasdb.keyvalue.cassandra.async.queries.PutQuerySpec;
+import com.palantir.atlasdb.keyvalue.impl.Cells;
+import com.palantir.atlasdb.keyvalue.impl.IterablePartitioner;
 import com.palantir.atlasdb.logging.LoggingArgs;
 import com.palantir.common.streams.KeyedStream;
 import com.palantir.logsafe.SafeArg;
 
 public final class CassandraAsyncKeyValueService implements AsyncKeyValueService {
     private static final Logger log = LoggerFactory.getLogger(CassandraAsyncKeyValueService.class);
+    private static final Function<Map.Entry<Cell, byte[]>, Long> ENTRY_SIZING_FUNCTION = input ->
+            input.getValue().length + 4L + Cells.getApproxSizeOfCell(input.getKey());
+
+    /**
+     * Upper bound on the row reads or write batches of a single {@link #getRowsAsync} or {@link #multiPutAsync} call
+     * that are in flight at once, so that one large call cannot flood the driver's connections to a host.
+     */
+    private static final int MAX_CONCURRENT_QUERIES_PER_CALL = 32;
 
     private final String keyspace;
     private final CqlClient cqlClient;
     private final FuturesCombiner futuresCombiner;
+    private final Executor queryExecutor;
+    private final int mutationBatchCount;
+    private final int mutationBatchSizeBytes;
 
-    public static AsyncKeyValueService create(String keyspace, CqlClient cqlClient, FuturesCombiner futuresCombiner) {
-        return new CassandraAsyncKeyValueService(keyspace, cqlClient, futuresCombiner);
+    /**
+     * @param queryExecutor issues the queries of a call that are held back by the bound on concurrent queries per
+     * call, once earlier ones complete; preparing a statement may block, so this must not run on the driver's threads
+     */
+    public static AsyncKeyValueService create(
+            String keyspace,
+            CqlClient cqlClient,
+            FuturesCombiner futuresCombiner,
+            Executor queryExecutor,
+            int mutationBatchCount,
+            int mutationBatchSizeBytes) {
+        return new CassandraAsyncKeyValueService(
+                keyspace, cqlClient, futuresCombiner, queryExecutor, mutationBatchCount, mutationBatchSizeBytes);
     }
 
-    private CassandraAsyncKeyValueService(String keyspace, CqlClient cqlClient, FuturesCombiner futuresCombiner) {
+    private CassandraAsyncKeyValueService(
+            String keyspace,
+            CqlClient cqlClient,
+            FuturesCombiner futuresCombiner,
+            Executor queryExecutor,
+            int mutationBatchCount,
+            int mutationBatchSizeBytes) {
         this.keyspace = keyspace;
         this.cqlClient = cqlClient;
         this.futuresCombiner = futuresCombiner;
+        this.queryExecutor = queryExecutor;
+        this.mutationBatchCount = mutationBatchCount;
+        this.mutationBatchSizeBytes = mutationBatchSizeBytes;
     }
 
     public ListenableFuture<Map<Cell, Value>> getAsync(TableReference tableReference, Map<Cell, Long> timestampByCell) {
@@ -70,10 +119,7 @@ public final class CassandraAsyncKeyValueService implements AsyncKeyValueService
     }
 
     private ListenableFuture<Optional<Value>> getCellAsync(TableReference tableReference, Cell cell, long timestamp) {
-        CqlQueryContext queryContext = ImmutableCqlQueryContext.builder()
-                .tableReference(tableReference)
-                .keyspace(keyspace)
-                .build();
+        CqlQueryContext queryContext = queryContext(tableReference);
         GetQueryParameters getQueryParameters = ImmutableGetQueryParameters.builder()
                 .cell(cell)
                 .humanReadableTimestamp(timestamp)
@@ -82,6 +128,114 @@ public final class CassandraAsyncKeyValueService implements AsyncKeyValueService
         return cqlClient.executeQuery(new GetQuerySpec(queryContext, getQueryParameters));
     }
 
+    /**
+     * Reads each row with its own query, routed to a replica owning the row, with at most
+     * {@link #MAX_CONCURRENT_QUERIES_PER_CALL} rows read at once. If only some columns are selected, the selected cells
+     * are read individually as in {@link #getAsync(TableReference, Map)} instead.
+     *
+     * Each row query reads every version of every column in the row, see {@link GetRowQuerySpec}, so this suits rows
+     * with few overwritten versions; rows that are rewritten often are cheaper to read through Thrift, which filters
+     * versions on the server.
+     */
+    @Override
+    public ListenableFuture<Map<Cell, Value>> getRowsAsync(
+            TableReference tableReference,
+            Iterable<byte[]> rows,
+            ColumnSelection columnSelection,
+            long timestamp) {
+        if (!columnSelection.allColumnsSelected()) {
+            Map<Cell, Long> timestampByCell = new HashMap<>();
+            for (byte[] row : rows) {
+                columnSelection.getSelectedColumns()
+                        .forEach(column -> timestampByCell.put(Cell.create(row, column), timestamp));
+            }
+            return getAsync(tableReference, timestampByCell);
+        }
+
+        CqlQueryContext queryContext = queryContext(tableReference);
+        List<GetRowQuerySpec> rowQueries = Streams.stream(rows)
+                .map(row -> new GetRowQuerySpec(queryContext, row, timestamp))
+                .collect(Collectors.toList());
+        return Futures.transform(
+                executeWithBoundedConcurrency(rowQueries),
+                rowResults -> {
+                    Map<Cell, Value> result = new HashMap<>();
+                    rowResults.forEach(result::putAll);
+                    return result;
+                },
+                MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Writes the values of each row in batches, routed to a replica owning the row. As with writes through Thrift,
+     * each batch holds at most {@code mutationBatchCount} cells and {@code mutationBatchSizeBytes} bytes. Up to
+     * {@link #MAX_CONCURRENT_QUERIES_PER_CALL} batches are written concurrently, and the returned future fails if any
+     * of them fails.
+     */
+    @Override
+    public ListenableFuture<Void> multiPutAsync(
+            Map<TableReference, ? extends Map<Cell, byte[]>> valuesByTable,
+            long timestamp) {
+        List<CqlQuerySpec<Void>> batchQueries = new ArrayList<>();
+        valuesByTable.forEach((tableReference, values) -> {
+            CqlQueryContext queryContext = queryContext(tableReference);
+            CassandraKeyValueServiceImpl.partitionPerRow(values).forEach((row, rowValues) -> {
+                for (List<Map.Entry<Cell, byte[]>> batch : IterablePartitioner.partitionByCountAndBytes(
+                        rowValues.entrySet(),
+                        mutationBatchCount,
+                        mutationBatchSizeBytes,
+                        tableReference,
+                        ENTRY_SIZING_FUNCTION)) {
+                    Map<Cell, byte[]> batchValues = new HashMap<>();
+                    batch.forEach(entry -> batchValues.put(entry.getKey(), entry.getValue()));
+                    batchQueries.add(new PutQuerySpec(queryContext, row.toByteArray(), batchValues, timestamp));
+                }
+            });
+        });
+        return Futures.transform(
+                executeWithBoundedConcurrency(batchQueries), unused -> null, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Runs the queries with at most {@link #MAX_CONCURRENT_QUERIES_PER_CALL} in flight, each of a fixed number of
+     * lanes taking the next query whenever its previous one completes. Results are in no particular order, and the
+     * returned future fails as soon as any query fails, leaving the queries not yet started unissued.
+     */
+    private <T> ListenableFuture<List<T>> executeWithBoundedConcurrency(List<? extends CqlQuerySpec<T>> queries) {
+        Queue<CqlQuerySpec<T>> pending = new ConcurrentLinkedQueue<>(queries);
+        List<ListenableFuture<List<T>>> lanes = new ArrayList<>();
+        for (int lane = 0; lane < Math.min(queries.size(), MAX_CONCURRENT_QUERIES_PER_CALL); lane++) {
+            lanes.add(executeRemaining(pending, new ArrayList<>()));
+        }
+        return Futures.transform(
+                Futures.allAsList(lanes),
+                laneResults -> laneResults.stream()
+                        .flatMap(List::stream)
+                        .collect(Collectors.toList()),
+                MoreExecutors.directExecutor());
+    }
+
+    private <T> ListenableFuture<List<T>> executeRemaining(Queue<CqlQuerySpec<T>> pending, List<T> laneResults) {
+        CqlQuerySpec<T> query = pending.poll();
+        if (query == null) {
+            return Futures.immediateFuture(laneResults);
+        }
+        return Futures.transformAsync(
+                cqlClient.executeQuery(query),
+                result -> {
+                    laneResults.add(result);
+                    return executeRemaining(pending, laneResults);
+                },
+                queryExecutor);
+    }
+
+    private CqlQueryContext queryContext(TableReference tableReference) {
+        return ImmutableCqlQueryContext.builder()
+                .tableReference(tableReference)
+                .keyspace(keyspace)
+                .build();
+    }
+
     @Override
     public void close() {
         cqlClient.close();
@@ -78,7 +78,10 @@ public final class DefaultCassandraAsyncKeyValueServiceFactory implements Cassan
         return cqlClient.map(client -> CassandraAsyncKeyValueService.create(
                 config.getKeyspaceOrThrow(),
                 client,
-                AtlasFutures.futuresCombiner(executorService)));
+                AtlasFutures.futuresCombiner(executorService),
+                executorService,
+                config.mutationBatchCount(),
+                config.mutationBatchSizeBytes()));
     }
 
     /**
@@ -0,0 +1,147 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.async.queries;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.utils.Bytes;
+import com.google.common.collect.Maps;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.keyvalue.impl.AbstractKeyValueService;
+
+/**
+ * Reads the latest visible value of every column of a single row.
+ *
+ * CQL cannot limit the read to the latest version of each column, as a per partition limit counts versions rather than
+ * columns. The query therefore returns every version of every column in the row, paged by the driver, and the cost of
+ * a read grows with the number of versions that sweep has not yet removed, not with the number of columns returned.
+ */
+public final class GetRowQuerySpec implements CqlQuerySpec<Map<Cell, Value>> {
+
+    /**
+     * Unlike {@link GetQuerySpec} we cannot restrict {@code column2/timestamp} without restricting
+     * {@code column1/column}, so all versions of the row are read and filtered here. Within each column, versions are
+     * clustered from the newest to the oldest, as timestamps are stored as bitwise complements of the original values,
+     * so the first visible version of each column is the one we are after.
+     */
+    private static final String QUERY_FORMAT = "SELECT column1, column2, value FROM \"%s\".\"%s\" "
+            + "WHERE key = :row;";
+
+    private final CqlQueryContext cqlQueryContext;
+    private final byte[] row;
+    private final long humanReadableTimestamp;
+    private final GetRowQueryAccumulator accumulator;
+
+    public GetRowQuerySpec(CqlQueryContext cqlQueryContext, byte[] row, long humanReadableTimestamp) {
+        this.cqlQueryContext = cqlQueryContext;
+        this.row = row;
+        this.humanReadableTimestamp = humanReadableTimestamp;
+        this.accumulator = new GetRowQueryAccumulator(row, ~humanReadableTimestamp);
+    }
+
+    @Override
+    public CqlQueryContext cqlQueryContext() {
+        return cqlQueryContext;
+    }
+
+    @Override
+    public String formatQueryString() {
+        return String.format(
+                QUERY_FORMAT,
+                cqlQueryContext().keyspace(),
+                AbstractKeyValueService.internalTableName(cqlQueryContext().tableReference()));
+    }
+
+    @Override
+    public QueryType queryType() {
+        return QueryType.GET_ROW;
+    }
+
+    @Override
+    public Statement makeExecutableStatement(PreparedStatement preparedStatement) {
+        return preparedStatement.bind()
+                .setBytes("row", ByteBuffer.wrap(row).asReadOnlyBuffer());
+    }
+
+    @Override
+    public ConsistencyLevel queryConsistency() {
+        return ConsistencyLevel.LOCAL_QUORUM;
+    }
+
+    @Override
+    public RowStreamAccumulator<Map<Cell, Value>> rowStreamAccumulator() {
+        return accumulator;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        GetRowQuerySpec that = (GetRowQuerySpec) other;
+        return humanReadableTimestamp == that.humanReadableTimestamp
+                && cqlQueryContext.equals(that.cqlQueryContext)
+                && Arrays.equals(row, that.row);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cqlQueryContext, Arrays.hashCode(row), humanReadableTimestamp);
+    }
+
+    private static class GetRowQueryAccumulator implements RowStreamAccumulator<Map<Cell, Value>> {
+        private final byte[] row;
+        private final long queryTimestamp;
+        private final Map<Cell, Value> result = Maps.newHashMap();
+
+        GetRowQueryAccumulator(byte[] row, long queryTimestamp) {
+            this.row = row;
+            this.queryTimestamp = queryTimestamp;
+        }
+
+        @Override
+        public void accumulateRowStream(Stream<Row> rowStream) {
+            rowStream.forEach(this::accumulate);
+        }
+
+        private void accumulate(Row cqlRow) {
+            long storedTimestamp = cqlRow.getLong(1);
+            if (storedTimestamp <= queryTimestamp) {
+                return;
+            }
+            Cell cell = Cell.create(row, Bytes.getArray(cqlRow.getBytes(0)));
+            result.putIfAbsent(cell, Value.create(Bytes.getArray(cqlRow.getBytes(2)), ~storedTimestamp));
+        }
+
+        @Override
+        public Map<Cell, Value> result() {
+            return result;
+        }
+    }
+}
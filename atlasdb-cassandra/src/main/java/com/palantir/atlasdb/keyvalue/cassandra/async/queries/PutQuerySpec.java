@@ -0,0 +1,144 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.async.queries;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Statement;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.impl.AbstractKeyValueService;
+import com.palantir.logsafe.Preconditions;
+
+/**
+ * Writes values to cells of a single row at one timestamp, as one unlogged batch. All statements of the batch share
+ * the row's partition key, so the batch is applied atomically by a single replica set and the driver can route it to
+ * a replica owning the row.
+ */
+public final class PutQuerySpec implements CqlQuerySpec<Void> {
+
+    /**
+     * As with writes through Thrift, the Cassandra write time is the Atlas timestamp, and the Atlas timestamp is
+     * stored as the bitwise complement of the original value.
+     */
+    private static final String QUERY_FORMAT = "INSERT INTO \"%s\".\"%s\" (key, column1, column2, value) "
+            + "VALUES (:row, :column, :timestamp, :value) "
+            + "USING TIMESTAMP :write_time;";
+
+    private final CqlQueryContext cqlQueryContext;
+    private final byte[] row;
+    private final Map<Cell, byte[]> values;
+    private final long humanReadableTimestamp;
+
+    public PutQuerySpec(
+            CqlQueryContext cqlQueryContext,
+            byte[] row,
+            Map<Cell, byte[]> values,
+            long humanReadableTimestamp) {
+        Preconditions.checkArgument(values.keySet().stream().allMatch(cell -> Arrays.equals(cell.getRowName(), row)),
+                "All cells of a put must belong to the same row");
+        this.cqlQueryContext = cqlQueryContext;
+        this.row = row;
+        this.values = values;
+        this.humanReadableTimestamp = humanReadableTimestamp;
+    }
+
+    @Override
+    public CqlQueryContext cqlQueryContext() {
+        return cqlQueryContext;
+    }
+
+    @Override
+    public String formatQueryString() {
+        return String.format(
+                QUERY_FORMAT,
+                cqlQueryContext().keyspace(),
+                AbstractKeyValueService.internalTableName(cqlQueryContext().tableReference()));
+    }
+
+    @Override
+    public QueryType queryType() {
+        return QueryType.PUT;
+    }
+
+    @Override
+    public Statement makeExecutableStatement(PreparedStatement preparedStatement) {
+        BatchStatement batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+        values.forEach((cell, value) -> batch.add(preparedStatement.bind()
+                .setBytes("row", toReadOnlyByteBuffer(row))
+                .setBytes("column", toReadOnlyByteBuffer(cell.getColumnName()))
+                .setLong("timestamp", ~humanReadableTimestamp)
+                .setBytes("value", toReadOnlyByteBuffer(value))
+                .setLong("write_time", humanReadableTimestamp)));
+        return batch;
+    }
+
+    private static ByteBuffer toReadOnlyByteBuffer(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    @Override
+    public ConsistencyLevel queryConsistency() {
+        return ConsistencyLevel.EACH_QUORUM;
+    }
+
+    @Override
+    public RowStreamAccumulator<Void> rowStreamAccumulator() {
+        return NoResultAccumulator.INSTANCE;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || getClass() != other.getClass()) {
+            return false;
+        }
+        PutQuerySpec that = (PutQuerySpec) other;
+        return humanReadableTimestamp == that.humanReadableTimestamp
+                && cqlQueryContext.equals(that.cqlQueryContext)
+                && Arrays.equals(row, that.row)
+                && values.equals(that.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cqlQueryContext, Arrays.hashCode(row), values, humanReadableTimestamp);
+    }
+
+    private enum NoResultAccumulator implements RowStreamAccumulator<Void> {
+        INSTANCE;
+
+        @Override
+        public void accumulateRowStream(Stream<Row> rowStream) {
+            // writes return no rows
+        }
+
+        @Override
+        public Void result() {
+            return null;
+        }
+    }
+}
@@ -17,5 +17,7 @@
 package com.palantir.atlasdb.keyvalue.cassandra.async.queries;
 
 public enum QueryType {
-    GET
+    GET,
+    GET_ROW,
+    PUT
 }
@@ -0,0 +1,212 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.paging;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.collect.AbstractIterator;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.common.base.ClosableIterator;
+import com.palantir.common.base.Throwables;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+
+/**
+ * Iterates over several disjoint, key ordered splits of a range, scanning up to {@code concurrency} splits ahead
+ * of the consumer in the background. Results are returned in split order, so if the splits are ordered by key the
+ * rows are too.
+ *
+ * Each background scan buffers at most {@code bufferedRowsPerSplit} rows before waiting for the consumer, which
+ * bounds the memory used by a scan regardless of the size of the range. Background scans stop once the iterator is
+ * closed or, if a consumer abandons it without closing it, once it has been garbage collected; they hold no strong
+ * reference to the iterator, and check whether it is still in use every {@code POLL_INTERVAL_MILLIS} while
+ * waiting for space in their buffer.
+ */
+public final class ParallelRangeScanIterator<T> extends AbstractIterator<RowResult<T>>
+        implements ClosableIterator<RowResult<T>> {
+    private static final Object END_OF_SPLIT = new Object();
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final Iterator<? extends Iterable<RowResult<T>>> pendingSplits;
+    private final Deque<SplitScan> activeScans = new ArrayDeque<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final WeakReference<ParallelRangeScanIterator<T>> selfReference = new WeakReference<>(this);
+    private final ExecutorService executor;
+    private final int concurrency;
+    private final int bufferedRowsPerSplit;
+
+    public ParallelRangeScanIterator(
+            List<? extends Iterable<RowResult<T>>> splits,
+            ExecutorService executor,
+            int concurrency,
+            int bufferedRowsPerSplit) {
+        Preconditions.checkArgument(concurrency > 0, "Concurrency must be positive");
+        Preconditions.checkArgument(bufferedRowsPerSplit > 0, "Buffer size must be positive");
+        this.pendingSplits = splits.iterator();
+        this.executor = executor;
+        this.concurrency = concurrency;
+        this.bufferedRowsPerSplit = bufferedRowsPerSplit;
+    }
+
+    @Override
+    protected RowResult<T> computeNext() {
+        while (true) {
+            startPendingScans();
+            SplitScan current = activeScans.peekFirst();
+            if (current == null) {
+                return endOfData();
+            }
+            RowResult<T> next = current.next();
+            if (next != null) {
+                return next;
+            }
+            activeScans.removeFirst();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed.set(true);
+        activeScans.forEach(SplitScan::cancel);
+        activeScans.clear();
+    }
+
+    private void startPendingScans() {
+        while (activeScans.size() < concurrency && pendingSplits.hasNext()) {
+            activeScans.addLast(new SplitScan(pendingSplits.next()));
+        }
+    }
+
+    private final class SplitScan {
+        private final BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(bufferedRowsPerSplit);
+        private final Future<?> future;
+
+        SplitScan(Iterable<RowResult<T>> split) {
+            this.future = executor.submit(new ScanTask<>(split, buffer, closed, selfReference));
+        }
+
+        /**
+         * Returns the next row of this split, or null if the split is exhausted.
+         */
+        @SuppressWarnings("unchecked")
+        RowResult<T> next() {
+            Object next;
+            try {
+                next = poll();
+            } catch (InterruptedException e) {
+                close();
+                throw Throwables.rewrapAndThrowUncheckedException("Interrupted while waiting for a range scan", e);
+            }
+            if (next == END_OF_SPLIT) {
+                return null;
+            }
+            if (next instanceof Throwable) {
+                close();
+                throw Throwables.rewrapAndThrowUncheckedException((Throwable) next);
+            }
+            return (RowResult<T>) next;
+        }
+
+        private Object poll() throws InterruptedException {
+            while (true) {
+                Object next = buffer.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (next != null) {
+                    return next;
+                }
+                if (future.isDone()) {
+                    // the scan may have finished between the poll and the check
+                    next = buffer.poll();
+                    if (next == null) {
+                        close();
+                        throw new SafeIllegalStateException("Background range scan stopped before completing");
+                    }
+                    return next;
+                }
+            }
+        }
+
+        void cancel() {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Deliberately static, so that a running scan does not keep the iterator reachable.
+     */
+    private static final class ScanTask<T> implements Runnable {
+        private final Iterable<RowResult<T>> split;
+        private final BlockingQueue<Object> buffer;
+        private final AtomicBoolean closed;
+        private final WeakReference<?> owner;
+
+        ScanTask(
+                Iterable<RowResult<T>> split,
+                BlockingQueue<Object> buffer,
+                AtomicBoolean closed,
+                WeakReference<?> owner) {
+            this.split = split;
+            this.buffer = buffer;
+            this.closed = closed;
+            this.owner = owner;
+        }
+
+        @Override
+        public void run() {
+            try {
+                try {
+                    for (RowResult<T> row : split) {
+                        if (!offer(row)) {
+                            return;
+                        }
+                    }
+                    offer(END_OF_SPLIT);
+                } catch (RuntimeException | Error e) {
+                    offer(e);
+                }
+            } catch (InterruptedException e) {
+                // the consumer closed the iterator, so nobody is waiting for the rest of this split
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Returns false, without buffering the item, if nobody will consume it.
+         */
+        private boolean offer(Object item) throws InterruptedException {
+            while (!isAbandoned()) {
+                if (buffer.offer(item, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isAbandoned() {
+            return closed.get() || owner.get() == null;
+        }
+    }
+}
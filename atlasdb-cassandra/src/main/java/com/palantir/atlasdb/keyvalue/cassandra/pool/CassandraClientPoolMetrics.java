@@ -36,11 +36,14 @@ public class CassandraClientPoolMetrics {
     // Not bundled in with request metrics, as we seek to not produce host-level metrics for economic reasons.
     private final Counter poolExhaustionCounter;
 
+    private final Meter hedgedRequests;
+
     public CassandraClientPoolMetrics(MetricsManager metricsManager) {
         this.metricsManager = metricsManager;
         this.aggregateRequestMetrics = new RequestMetrics(metricsManager, null);
         this.poolExhaustionCounter
                 = metricsManager.registerOrGetCounter(CassandraClientPoolMetrics.class, "pool-exhaustion");
+        this.hedgedRequests = metricsManager.registerOrGetMeter(CassandraClientPool.class, "hedgedRequests");
     }
 
     public void registerAggregateMetrics(Supplier<Integer> blacklistSize) {
@@ -72,6 +75,10 @@ public class CassandraClientPoolMetrics {
         poolExhaustionCounter.inc();
     }
 
+    public void recordHedgedRequest() {
+        hedgedRequests.mark();
+    }
+
     private void updateMetricOnAggregateAndHost(
             CassandraClientPoolingContainer hostPool,
             Consumer<RequestMetrics> metricsConsumer) {
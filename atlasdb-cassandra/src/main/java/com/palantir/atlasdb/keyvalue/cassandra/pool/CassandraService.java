@@ -316,7 +316,7 @@ public class CassandraService implements AutoCloseable {
             return Optional.empty();
         }
 
-        return Optional.of(WeightedHosts.create(matchingPools).getRandomHost());
+        return Optional.of(LatencyAwareHostSelector.selectHost(matchingPools.values()));
     }
 
     public void debugLogStateOfPool() {
@@ -0,0 +1,148 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.pool;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.SlidingWindowReservoir;
+import com.codahale.metrics.Snapshot;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Suppliers;
+
+/**
+ * Tracks the latencies of requests to a host. This is the single source of per-host latency, used both to balance
+ * load and to decide when to hedge reads.
+ *
+ * For load balancing, exponentially weighted moving averages of the latency and error rate of all requests are
+ * combined with the number of in-flight requests into a score: lower is better. Averages decay with wall-clock time
+ * rather than per sample, and also decay while no requests are made, so that a host that was slow at some point is
+ * eventually tried again. Updates are lock-free. A failed request is charged a fixed penalty latency rather than the
+ * time it took, as failures are often fast: the recent 99th percentile read latency if known, and otherwise the
+ * given penalty, which should be of the order of a request timeout.
+ *
+ * For hedging, the latencies of the most recent hedgeable reads are kept in a histogram, so that percentiles can be
+ * computed. Only such reads are recorded there, as other requests may have very different latencies.
+ */
+public final class HostScore {
+    private static final long DECAY_TIME_CONSTANT_NANOS = TimeUnit.SECONDS.toNanos(10);
+    // a host failing every request is scored as if it were this many times slower
+    private static final double ERROR_PENALTY = 10.0;
+    private static final double FAILURE_LATENCY_PERCENTILE = 99.0;
+    private static final int MINIMUM_READ_SAMPLES = 100;
+    private static final int MAXIMUM_READ_SAMPLES = 1024;
+
+    private final LongSupplier nanoClock;
+    private final long failurePenaltyNanos;
+    private final AtomicReference<State> state = new AtomicReference<>();
+    // bounded by count rather than time, so that the memory used does not grow with the request rate
+    private final Histogram readLatencyNanos = new Histogram(new SlidingWindowReservoir(MAXIMUM_READ_SAMPLES));
+    // taking a snapshot copies and sorts the whole window, so avoid doing so on every request
+    private final Supplier<Snapshot> readLatencySnapshot =
+            Suppliers.memoizeWithExpiration(readLatencyNanos::getSnapshot, 1, TimeUnit.SECONDS);
+
+    @VisibleForTesting
+    HostScore(LongSupplier nanoClock, Duration failurePenalty) {
+        this.nanoClock = nanoClock;
+        this.failurePenaltyNanos = failurePenalty.toNanos();
+    }
+
+    public static HostScore create(Duration failurePenalty) {
+        return new HostScore(System::nanoTime, failurePenalty);
+    }
+
+    public void recordSuccess(long latencyNanos) {
+        record(latencyNanos, 0.0);
+    }
+
+    public void recordFailure() {
+        long penaltyNanos = getReadLatencyPercentile(FAILURE_LATENCY_PERCENTILE)
+                .map(Duration::toNanos)
+                .orElse(failurePenaltyNanos);
+        record(penaltyNanos, 1.0);
+    }
+
+    public void recordReadLatency(long latencyNanos) {
+        readLatencyNanos.update(latencyNanos);
+    }
+
+    /**
+     * Returns the given percentile of the latencies of the host's most recent hedgeable reads, or empty if too few
+     * have been recorded for the percentile to be meaningful.
+     */
+    public Optional<Duration> getReadLatencyPercentile(double percentile) {
+        Snapshot snapshot = readLatencySnapshot.get();
+        if (snapshot.size() < MINIMUM_READ_SAMPLES) {
+            return Optional.empty();
+        }
+        return Optional.of(Duration.ofNanos((long) snapshot.getValue(percentile / 100)));
+    }
+
+    /**
+     * Returns the score of the host, given the number of requests currently in flight to it. Hosts that have not
+     * been used recently score zero, so they are tried in preference to hosts with known latencies.
+     */
+    public double getScore(int inFlightRequests) {
+        return getLatencyEwmaNanos() * (Math.max(inFlightRequests, 0) + 1) * (1 + ERROR_PENALTY * getErrorRate());
+    }
+
+    public double getLatencyEwmaNanos() {
+        State current = state.get();
+        return current == null ? 0.0 : current.latencyEwmaNanos * decayFactor(current, nanoClock.getAsLong());
+    }
+
+    public double getErrorRate() {
+        State current = state.get();
+        return current == null ? 0.0 : current.errorEwma * decayFactor(current, nanoClock.getAsLong());
+    }
+
+    private void record(long latencyNanos, double error) {
+        long now = nanoClock.getAsLong();
+        state.getAndUpdate(current -> {
+            if (current == null) {
+                return new State(latencyNanos, error, now);
+            }
+            double weight = decayFactor(current, now);
+            return new State(
+                    current.latencyEwmaNanos * weight + latencyNanos * (1 - weight),
+                    current.errorEwma * weight + error * (1 - weight),
+                    now);
+        });
+    }
+
+    private static double decayFactor(State state, long now) {
+        long elapsedNanos = Math.max(now - state.lastUpdateNanos, 0);
+        return Math.exp(-(double) elapsedNanos / DECAY_TIME_CONSTANT_NANOS);
+    }
+
+    private static final class State {
+        private final double latencyEwmaNanos;
+        private final double errorEwma;
+        private final long lastUpdateNanos;
+
+        private State(double latencyEwmaNanos, double errorEwma, long lastUpdateNanos) {
+            this.latencyEwmaNanos = latencyEwmaNanos;
+            this.errorEwma = errorEwma;
+            this.lastUpdateNanos = lastUpdateNanos;
+        }
+    }
+}
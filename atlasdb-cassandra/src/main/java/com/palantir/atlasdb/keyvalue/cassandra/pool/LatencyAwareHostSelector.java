@@ -0,0 +1,62 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.pool;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.palantir.atlasdb.keyvalue.cassandra.CassandraClientPoolingContainer;
+import com.palantir.logsafe.Preconditions;
+
+/**
+ * Picks a host using the power of two choices: two distinct hosts are sampled uniformly at random, and the one with
+ * the lower {@link CassandraClientPoolingContainer#getScore() score} is returned. This avoids both herding onto the
+ * single best host and the cost of weighting every host on every selection, while steering traffic away from slow,
+ * overloaded or failing hosts.
+ */
+public final class LatencyAwareHostSelector {
+    private LatencyAwareHostSelector() {
+        // utility
+    }
+
+    public static InetSocketAddress selectHost(Collection<CassandraClientPoolingContainer> pools) {
+        return selectHost(pools, ThreadLocalRandom.current());
+    }
+
+    @VisibleForTesting
+    static InetSocketAddress selectHost(Collection<CassandraClientPoolingContainer> pools, Random random) {
+        Preconditions.checkArgument(!pools.isEmpty(), "pools should be non-empty");
+        List<CassandraClientPoolingContainer> candidates = new ArrayList<>(pools);
+        if (candidates.size() == 1) {
+            return candidates.get(0).getHost();
+        }
+
+        int firstIndex = random.nextInt(candidates.size());
+        int secondIndex = random.nextInt(candidates.size() - 1);
+        if (secondIndex >= firstIndex) {
+            secondIndex++;
+        }
+        CassandraClientPoolingContainer first = candidates.get(firstIndex);
+        CassandraClientPoolingContainer second = candidates.get(secondIndex);
+        return first.getScore() <= second.getScore() ? first.getHost() : second.getHost();
+    }
+}
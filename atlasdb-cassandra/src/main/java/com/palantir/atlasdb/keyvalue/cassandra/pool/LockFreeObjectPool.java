@@ -0,0 +1,386 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.pool;
+
+import java.io.Closeable;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+
+/**
+ * An object pool whose borrow and return paths take no locks, for connections that are borrowed for every request.
+ *
+ * Pooled objects are kept in a copy-on-write list, and each one is claimed by compare-and-set on its state. Each thread
+ * remembers the last object it returned and tries that one first, so in the steady state a borrow is a single
+ * uncontended compare-and-set; otherwise the list is scanned for an idle object, and a new object is created if the
+ * pool is below its maximum size. A borrow from a full pool immediately throws a {@link NoSuchElementException} with a
+ * message containing "Pool exhausted", as commons-pool does when not blocking.
+ *
+ * Objects are validated on borrow. Every eviction interval, a background task examines a proportion of the pool in
+ * turn, discarding idle objects that are no longer valid, or that have been idle for longer than the idle timeout while
+ * more than the minimum number are idle, and then tops the pool back up to the minimum number of idle objects.
+ */
+public final class LockFreeObjectPool<T> implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(LockFreeObjectPool.class);
+
+    private static final ScheduledExecutorService EVICTION_EXECUTOR = PTExecutors.newScheduledThreadPool(
+            1, new NamedThreadFactory("LockFreeObjectPoolEviction", true));
+
+    private static final int IDLE = 0;
+    private static final int IN_USE = 1;
+    private static final int REMOVED = 2;
+
+    private final ObjectFactory<T> factory;
+    private final int minIdle;
+    private final int maxTotal;
+    private final long idleTimeoutNanos;
+    private final double proportionToCheckPerEviction;
+    private final LongSupplier nanoClock;
+
+    private final CopyOnWriteArrayList<PooledEntry<T>> entries = new CopyOnWriteArrayList<>();
+    private final AtomicInteger totalObjects = new AtomicInteger();
+    private final ThreadLocal<WeakReference<PooledEntry<T>>> lastReturned = new ThreadLocal<>();
+
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder destroyedByEvictorCount = new LongAdder();
+    private final LongAdder destroyedByBorrowerCount = new LongAdder();
+    private final Mean borrowWaitNanos = new Mean();
+    private final Mean activeNanos = new Mean();
+    private final Mean idleNanos = new Mean();
+
+    private volatile boolean closed = false;
+    private volatile ScheduledFuture<?> evictionTask;
+    private int evictionCursor = 0;
+
+    @VisibleForTesting
+    LockFreeObjectPool(ObjectFactory<T> factory, int minIdle, int maxTotal, Duration idleTimeout,
+            double proportionToCheckPerEviction, LongSupplier nanoClock) {
+        Preconditions.checkArgument(maxTotal > 0, "maxTotal must be positive", SafeArg.of("maxTotal", maxTotal));
+        Preconditions.checkArgument(minIdle >= 0, "minIdle must not be negative", SafeArg.of("minIdle", minIdle));
+        this.factory = factory;
+        // as in commons-pool, a minimum above the maximum is capped rather than rejected
+        this.minIdle = Math.min(minIdle, maxTotal);
+        this.maxTotal = maxTotal;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.proportionToCheckPerEviction = proportionToCheckPerEviction;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Creates a pool whose eviction task first runs after the given interval, and then repeatedly at that interval.
+     */
+    public static <T> LockFreeObjectPool<T> create(ObjectFactory<T> factory, int minIdle, int maxTotal,
+            Duration idleTimeout, Duration evictionInterval, double proportionToCheckPerEviction) {
+        LockFreeObjectPool<T> pool = new LockFreeObjectPool<>(
+                factory, minIdle, maxTotal, idleTimeout, proportionToCheckPerEviction, System::nanoTime);
+        long intervalMillis = evictionInterval.toMillis();
+        pool.evictionTask = EVICTION_EXECUTOR.scheduleWithFixedDelay(
+                pool::evictQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return pool;
+    }
+
+    /**
+     * Borrows an idle object from the pool, creating one if none are idle and the pool is not full. The entry must be
+     * handed back via exactly one of {@link #returnEntry(PooledEntry)} or {@link #invalidate(PooledEntry)}.
+     *
+     * @throws NoSuchElementException if every object is in use and the pool is at its maximum size
+     */
+    public PooledEntry<T> borrow() throws Exception {
+        Preconditions.checkState(!closed, "Pool is closed");
+        long startNanos = nanoClock.getAsLong();
+        PooledEntry<T> entry = borrowIdle();
+        if (entry == null) {
+            entry = createInUse();
+        }
+        long nowNanos = nanoClock.getAsLong();
+        borrowWaitNanos.record(nowNanos - startNanos);
+        entry.borrowedAtNanos = nowNanos;
+        return entry;
+    }
+
+    public void returnEntry(PooledEntry<T> entry) {
+        long nowNanos = nanoClock.getAsLong();
+        activeNanos.record(nowNanos - entry.borrowedAtNanos);
+        entry.returnedAtNanos = nowNanos;
+        lastReturned.set(entry.selfReference);
+        makeIdle(entry);
+    }
+
+    public void invalidate(PooledEntry<T> entry) {
+        destroy(entry);
+    }
+
+    /**
+     * Destroys all idle objects; objects that are in use are unaffected.
+     */
+    public void clear() {
+        for (PooledEntry<T> entry : entries) {
+            if (entry.state.compareAndSet(IDLE, IN_USE)) {
+                destroy(entry);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (evictionTask != null) {
+            evictionTask.cancel(false);
+        }
+        clear();
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public int getNumIdle() {
+        return countInState(IDLE);
+    }
+
+    public int getNumActive() {
+        return countInState(IN_USE);
+    }
+
+    public long getCreatedCount() {
+        return createdCount.sum();
+    }
+
+    public long getDestroyedByEvictorCount() {
+        return destroyedByEvictorCount.sum();
+    }
+
+    public long getDestroyedByBorrowValidationCount() {
+        return destroyedByBorrowerCount.sum();
+    }
+
+    public long getMeanBorrowWaitTimeMillis() {
+        return borrowWaitNanos.getMillis();
+    }
+
+    public long getMeanActiveTimeMillis() {
+        return activeNanos.getMillis();
+    }
+
+    public long getMeanIdleTimeMillis() {
+        return idleNanos.getMillis();
+    }
+
+    @VisibleForTesting
+    void evict() {
+        long nowNanos = nanoClock.getAsLong();
+        List<PooledEntry<T>> snapshot = new ArrayList<>(entries);
+        int numToCheck = Math.min(snapshot.size(), (int) Math.ceil(snapshot.size() * proportionToCheckPerEviction));
+        for (int i = 0; i < numToCheck; i++) {
+            PooledEntry<T> entry = snapshot.get(Math.floorMod(evictionCursor + i, snapshot.size()));
+            if (!entry.state.compareAndSet(IDLE, IN_USE)) {
+                continue;
+            }
+            // the claimed entry is not counted as idle, so this keeps at least minIdle others around
+            boolean idleTooLong = nowNanos - entry.returnedAtNanos > idleTimeoutNanos && getNumIdle() >= minIdle;
+            if (idleTooLong || !factory.isValid(entry.object)) {
+                destroy(entry);
+                destroyedByEvictorCount.increment();
+            } else {
+                makeIdle(entry);
+            }
+        }
+        evictionCursor += numToCheck;
+        ensureMinIdle();
+    }
+
+    private void evictQuietly() {
+        try {
+            evict();
+        } catch (Throwable t) {
+            log.warn("Failed to evict objects from the pool", t);
+        }
+    }
+
+    private void ensureMinIdle() {
+        while (!closed && getNumIdle() < minIdle && reserveCapacity()) {
+            T object;
+            try {
+                object = factory.create();
+            } catch (Exception e) {
+                totalObjects.decrementAndGet();
+                log.info("Failed to create an idle object for the pool", e);
+                return;
+            }
+            createdCount.increment();
+            PooledEntry<T> entry = new PooledEntry<>(object, IN_USE, nanoClock.getAsLong());
+            entries.add(entry);
+            makeIdle(entry);
+        }
+    }
+
+    /**
+     * Hands a claimed entry back to the pool. If the pool was closed concurrently, {@link #clear()} may already have
+     * run and missed the entry, so it is destroyed here instead; whichever of the two claims it first destroys it.
+     */
+    private void makeIdle(PooledEntry<T> entry) {
+        entry.state.set(IDLE);
+        if (closed && entry.state.compareAndSet(IDLE, IN_USE)) {
+            destroy(entry);
+        }
+    }
+
+    private PooledEntry<T> borrowIdle() {
+        WeakReference<PooledEntry<T>> lastReturnedReference = lastReturned.get();
+        PooledEntry<T> preferred = lastReturnedReference == null ? null : lastReturnedReference.get();
+        if (preferred != null && tryClaim(preferred)) {
+            return preferred;
+        }
+        for (PooledEntry<T> entry : entries) {
+            if (tryClaim(entry)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private boolean tryClaim(PooledEntry<T> entry) {
+        if (!entry.state.compareAndSet(IDLE, IN_USE)) {
+            return false;
+        }
+        idleNanos.record(nanoClock.getAsLong() - entry.returnedAtNanos);
+        if (factory.isValid(entry.object)) {
+            return true;
+        }
+        destroy(entry);
+        destroyedByBorrowerCount.increment();
+        return false;
+    }
+
+    private PooledEntry<T> createInUse() throws Exception {
+        if (!reserveCapacity()) {
+            throw new NoSuchElementException("Pool exhausted");
+        }
+        boolean created = false;
+        try {
+            PooledEntry<T> entry = new PooledEntry<>(factory.create(), IN_USE, nanoClock.getAsLong());
+            created = true;
+            createdCount.increment();
+            entries.add(entry);
+            return entry;
+        } finally {
+            if (!created) {
+                totalObjects.decrementAndGet();
+            }
+        }
+    }
+
+    private boolean reserveCapacity() {
+        while (true) {
+            int current = totalObjects.get();
+            if (current >= maxTotal) {
+                return false;
+            }
+            if (totalObjects.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void destroy(PooledEntry<T> entry) {
+        entry.state.set(REMOVED);
+        if (entries.remove(entry)) {
+            totalObjects.decrementAndGet();
+        }
+        try {
+            factory.destroy(entry.object);
+        } catch (Exception e) {
+            log.debug("Failed to destroy pooled object", e);
+        }
+    }
+
+    private int countInState(int state) {
+        int count = 0;
+        for (PooledEntry<T> entry : entries) {
+            if (entry.state.get() == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public interface ObjectFactory<T> {
+        T create() throws Exception;
+
+        /**
+         * Called on every borrow, so should be cheap and must not block.
+         */
+        boolean isValid(T object);
+
+        void destroy(T object) throws Exception;
+    }
+
+    public static final class PooledEntry<T> {
+        private final T object;
+        private final AtomicInteger state;
+        private final WeakReference<PooledEntry<T>> selfReference = new WeakReference<>(this);
+        private volatile long borrowedAtNanos;
+        private volatile long returnedAtNanos;
+
+        private PooledEntry(T object, int state, long nowNanos) {
+            this.object = object;
+            this.state = new AtomicInteger(state);
+            this.borrowedAtNanos = nowNanos;
+            this.returnedAtNanos = nowNanos;
+        }
+
+        public T getObject() {
+            return object;
+        }
+    }
+
+    /**
+     * Mean since the pool was created, kept in striped counters so that recording does not contend between threads.
+     */
+    private static final class Mean {
+        private final LongAdder total = new LongAdder();
+        private final LongAdder count = new LongAdder();
+
+        void record(long value) {
+            total.add(value);
+            count.increment();
+        }
+
+        long getMillis() {
+            long samples = count.sum();
+            return samples == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(total.sum() / samples);
+        }
+    }
+}
@@ -54,6 +54,18 @@ public class MutationMap {
         tableMutations.add(mutation);
     }
 
+    /**
+     * Adds all of the mutations in the given map to this one. Mutations of the same cell in both maps are all kept,
+     * and resolved by Cassandra as if they had been sent in separate calls.
+     */
+    public void addAll(MutationMap other) {
+        other.mutationMap.forEach((rowName, otherRowPuts) -> {
+            Map<String, List<Mutation>> rowPuts = mutationMap.computeIfAbsent(rowName, row -> Maps.newHashMap());
+            otherRowPuts.forEach((tableName, mutations) ->
+                    rowPuts.computeIfAbsent(tableName, k -> Lists.newArrayList()).addAll(mutations));
+        });
+    }
+
     /**
      * Gets the MutationMap's internal map object, for use by Thrift's batch_mutate API.
      *
@@ -0,0 +1,204 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.palantir.common.concurrent.PTExecutors;
+
+public class HedgedRequestRunnerTest {
+    private static final InetSocketAddress PRIMARY = InetSocketAddress.createUnresolved("primary", 9160);
+    private static final InetSocketAddress BACKUP = InetSocketAddress.createUnresolved("backup", 9160);
+    private static final Duration HEDGING_DELAY = Duration.ofMillis(10);
+
+    private final ExecutorService originalExecutor = PTExecutors.newCachedThreadPool("hedged-request-runner-original");
+    private final ExecutorService executor = PTExecutors.newCachedThreadPool("hedged-request-runner-test");
+    private final CountDownLatch backupRequested = new CountDownLatch(1);
+    private final CountDownLatch slowHostMayRespond = new CountDownLatch(1);
+    private final List<InetSocketAddress> requestedHosts = new CopyOnWriteArrayList<>();
+    private final AtomicInteger hedgedRequests = new AtomicInteger();
+    private final HedgedRequestRunner runner =
+            new HedgedRequestRunner(originalExecutor, executor, 100, hedgedRequests::incrementAndGet);
+
+    @After
+    public void after() {
+        slowHostMayRespond.countDown();
+        originalExecutor.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void fastRequestsAreNotHedged() throws InterruptedException {
+        String result = runner.run(PRIMARY, HEDGING_DELAY, () -> Optional.of(BACKUP), this::respond);
+        Thread.sleep(5 * HEDGING_DELAY.toMillis());
+
+        assertThat(result).isEqualTo(PRIMARY.getHostString());
+        assertThat(requestedHosts).containsExactly(PRIMARY);
+        assertThat(hedgedRequests).hasValue(0);
+    }
+
+    @Test
+    public void hedgedResponseIsUsedIfTheSlowOriginalHostHasNotYetResponded() throws InterruptedException {
+        String result = runner.run(PRIMARY, HEDGING_DELAY, () -> Optional.of(BACKUP), this::respondSlowlyOnPrimary);
+
+        assertThat(result).isEqualTo(BACKUP.getHostString());
+        assertThat(requestedHosts).containsExactlyInAnyOrder(PRIMARY, BACKUP);
+        assertThat(hedgedRequests).hasValue(1);
+    }
+
+    @Test
+    public void originalResponseIsUsedIfTheSlowOriginalHostRespondsFirst() throws InterruptedException {
+        String result = runner.run(PRIMARY, HEDGING_DELAY, () -> Optional.of(BACKUP), host -> {
+            String response = respondOnceHedged(host);
+            if (host.equals(BACKUP)) {
+                awaitSlowHost();
+            }
+            return response;
+        });
+
+        assertThat(result).isEqualTo(PRIMARY.getHostString());
+        assertThat(requestedHosts).containsExactlyInAnyOrder(PRIMARY, BACKUP);
+        assertThat(hedgedRequests).hasValue(1);
+    }
+
+    @Test
+    public void slowOriginalResponseIsUsedIfTheHedgedRequestFails() throws Exception {
+        String result = runner.run(PRIMARY, HEDGING_DELAY, () -> Optional.of(BACKUP), host -> {
+            String response = respondOnceHedged(host);
+            if (host.equals(BACKUP)) {
+                throw new Exception("failed on backup");
+            }
+            return response;
+        });
+
+        assertThat(result).isEqualTo(PRIMARY.getHostString());
+        assertThat(hedgedRequests).hasValue(1);
+    }
+
+    @Test
+    public void slowFailedRequestsUseTheHedgedResponse() throws Exception {
+        String result = runner.run(PRIMARY, HEDGING_DELAY, () -> Optional.of(BACKUP), this::failOnPrimaryOnceHedged);
+
+        assertThat(result).isEqualTo(BACKUP.getHostString());
+        assertThat(hedgedRequests).hasValue(1);
+    }
+
+    @Test
+    public void slowRequestsAreNotHedgedIfNoOtherHostIsAvailable() throws InterruptedException {
+        String result = runner.run(PRIMARY, Duration.ZERO, Optional::empty, this::respondSlowly);
+
+        assertThat(result).isEqualTo(PRIMARY.getHostString());
+        assertThat(requestedHosts).containsExactly(PRIMARY);
+        assertThat(hedgedRequests).hasValue(0);
+    }
+
+    @Test
+    public void hedgedRequestsAreLimitedByTheBudget() throws InterruptedException {
+        HedgedRequestRunner limitedRunner =
+                new HedgedRequestRunner(originalExecutor, executor, 0.001, hedgedRequests::incrementAndGet);
+        limitedRunner.run(PRIMARY, HEDGING_DELAY, () -> Optional.of(BACKUP), this::respondOnceHedged);
+
+        String result = limitedRunner.run(PRIMARY, Duration.ZERO, () -> Optional.of(BACKUP), this::respondSlowly);
+
+        assertThat(result).isEqualTo(PRIMARY.getHostString());
+        assertThat(hedgedRequests).hasValue(1);
+    }
+
+    @Test
+    public void requestsAreNotHedgedIfTheExecutorIsFull() {
+        ExecutorService rejectingExecutor = PTExecutors.newCachedThreadPool("rejecting");
+        rejectingExecutor.shutdown();
+        HedgedRequestRunner rejectingRunner =
+                new HedgedRequestRunner(originalExecutor, rejectingExecutor, 100, hedgedRequests::incrementAndGet);
+
+        assertThatThrownBy(() -> rejectingRunner.run(PRIMARY, Duration.ZERO, () -> Optional.of(BACKUP), host -> {
+            respondSlowly(host);
+            throw new Exception("failed on " + host.getHostString());
+        }))
+                .hasMessage("failed on primary");
+        assertThat(requestedHosts).containsExactly(PRIMARY);
+        assertThat(hedgedRequests).hasValue(0);
+    }
+
+    @Test
+    public void originalFailureIsRethrownIfAllHostsFail() {
+        assertThatThrownBy(() -> runner.run(PRIMARY, HEDGING_DELAY, () -> Optional.of(BACKUP), host -> {
+            respondOnceHedged(host);
+            throw new Exception("failed on " + host.getHostString());
+        }))
+                .hasMessage("failed on primary")
+                .satisfies(failure -> assertThat(failure.getSuppressed())
+                        .extracting(Throwable::getMessage)
+                        .containsExactly("failed on backup"));
+    }
+
+    private String respond(InetSocketAddress host) {
+        requestedHosts.add(host);
+        if (host.equals(BACKUP)) {
+            backupRequested.countDown();
+        }
+        return host.getHostString();
+    }
+
+    private String respondSlowly(InetSocketAddress host) throws InterruptedException {
+        String response = respond(host);
+        Thread.sleep(5 * HEDGING_DELAY.toMillis());
+        return response;
+    }
+
+    private String respondOnceHedged(InetSocketAddress host) throws InterruptedException {
+        String response = respond(host);
+        if (host.equals(PRIMARY)) {
+            assertThat(backupRequested.await(10, TimeUnit.SECONDS)).isTrue();
+        }
+        return response;
+    }
+
+    private String respondSlowlyOnPrimary(InetSocketAddress host) throws InterruptedException {
+        String response = respond(host);
+        if (host.equals(PRIMARY)) {
+            awaitSlowHost();
+        }
+        return response;
+    }
+
+    private void awaitSlowHost() throws InterruptedException {
+        assertThat(slowHostMayRespond.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private String failOnPrimaryOnceHedged(InetSocketAddress host) throws Exception {
+        String response = respondOnceHedged(host);
+        if (host.equals(PRIMARY)) {
+            throw new Exception("failed on primary");
+        }
+        return response;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.cassandra.thrift.Mutation;
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.cassandra.thrift.MutationMap;
+import com.palantir.common.exception.AtlasDbDependencyException;
+import com.palantir.exception.PalantirInterruptedException;
+
+public class MultiPutCoalescerTest {
+    private static final InetSocketAddress HOST_1 = InetSocketAddress.createUnresolved("NW16XE", 123);
+    private static final InetSocketAddress HOST_2 = InetSocketAddress.createUnresolved("SW1A2AA", 1234);
+    private static final TableReference TABLE = TableReference.createFromFullyQualifiedName("ns.table");
+    private static final int MAX_CELLS_PER_BATCH = 2;
+
+    private final List<InetSocketAddress> writtenHosts = new CopyOnWriteArrayList<>();
+    private final List<Integer> writtenCellCounts = new CopyOnWriteArrayList<>();
+    private final List<Integer> writtenRowCounts = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstWriteStarted = new CountDownLatch(1);
+    private final CountDownLatch writesReleased = new CountDownLatch(1);
+    private volatile ByteBuffer failingRow = null;
+
+    private final MultiPutCoalescer coalescer = new MultiPutCoalescer(
+            this::write, 2, () -> MAX_CELLS_PER_BATCH, () -> Long.MAX_VALUE);
+
+    @After
+    public void after() {
+        writesReleased.countDown();
+        coalescer.close();
+    }
+
+    @Test
+    public void coalescesWritesQueuedBehindAnInFlightWrite() throws InterruptedException {
+        ListenableFuture<Void> first = coalescer.write(mutations(HOST_1, 0));
+        firstWriteStarted.await();
+        List<ListenableFuture<Void>> queued = IntStream.range(1, 3)
+                .mapToObj(row -> coalescer.write(mutations(HOST_1, row)))
+                .collect(Collectors.toList());
+        writesReleased.countDown();
+
+        Futures.getUnchecked(first);
+        Futures.getUnchecked(Futures.allAsList(queued));
+
+        assertThat(writtenCellCounts).containsExactly(1, 2);
+        assertThat(writtenRowCounts).containsExactly(1, 2);
+    }
+
+    @Test
+    public void splitsCoalescedWritesAtTheBatchLimit() throws InterruptedException {
+        ListenableFuture<Void> first = coalescer.write(mutations(HOST_1, 0));
+        firstWriteStarted.await();
+        List<ListenableFuture<Void>> queued = IntStream.range(1, 6)
+                .mapToObj(row -> coalescer.write(mutations(HOST_1, row)))
+                .collect(Collectors.toList());
+        writesReleased.countDown();
+
+        Futures.getUnchecked(first);
+        Futures.getUnchecked(Futures.allAsList(queued));
+
+        assertThat(writtenCellCounts).hasSize(4);
+        assertThat(writtenCellCounts.get(0)).isEqualTo(1);
+        assertThat(writtenCellCounts.subList(1, 4)).containsExactlyInAnyOrder(2, 2, 1);
+    }
+
+    @Test
+    public void writesToDifferentHostsAreNotCombined() {
+        writesReleased.countDown();
+
+        coalescer.writeAll(ImmutableList.of(mutations(HOST_1, 0), mutations(HOST_2, 1)));
+
+        assertThat(writtenHosts).containsExactlyInAnyOrder(HOST_1, HOST_2);
+        assertThat(writtenCellCounts).containsExactly(1, 1);
+    }
+
+    @Test
+    public void slowHostDoesNotDelayWritesToOtherHosts() throws Exception {
+        ListenableFuture<Void> slow = coalescer.write(mutations(HOST_1, 0));
+        firstWriteStarted.await();
+
+        coalescer.write(mutations(HOST_2, 1)).get(10, TimeUnit.SECONDS);
+
+        assertThat(slow).isNotDone();
+        assertThat(writtenHosts).containsExactly(HOST_1, HOST_2);
+    }
+
+    @Test
+    public void failedBatchesAreRetriedOneWriteAtATime() throws InterruptedException {
+        failingRow = row(1);
+        ListenableFuture<Void> first = coalescer.write(mutations(HOST_1, 0));
+        firstWriteStarted.await();
+        ListenableFuture<Void> failing = coalescer.write(mutations(HOST_1, 1));
+        ListenableFuture<Void> succeeding = coalescer.write(mutations(HOST_1, 2));
+        writesReleased.countDown();
+
+        Futures.getUnchecked(first);
+        Futures.getUnchecked(succeeding);
+        assertThatThrownBy(failing::get)
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IOException.class);
+        assertThat(writtenRowCounts).containsExactly(1, 2, 1, 1);
+        assertThatThrownBy(() -> coalescer.writeAll(ImmutableList.of(mutations(HOST_1, 1))))
+                .isInstanceOf(AtlasDbDependencyException.class);
+    }
+
+    @Test
+    public void writeAllRestoresTheInterruptFlag() throws InterruptedException {
+        ListenableFuture<Void> first = coalescer.write(mutations(HOST_1, 0));
+        firstWriteStarted.await();
+
+        Thread.currentThread().interrupt();
+        assertThatThrownBy(() -> coalescer.writeAll(ImmutableList.of(mutations(HOST_1, 1))))
+                .isInstanceOf(PalantirInterruptedException.class);
+        assertThat(Thread.interrupted()).isTrue();
+
+        writesReleased.countDown();
+        Futures.getUnchecked(first);
+    }
+
+    private void write(InetSocketAddress host, Set<TableReference> tableRefs, MutationMap mutations, int numCells)
+            throws Exception {
+        writtenHosts.add(host);
+        writtenCellCounts.add(numCells);
+        writtenRowCounts.add(mutations.toMap().size());
+        if (host.equals(HOST_1)) {
+            firstWriteStarted.countDown();
+            writesReleased.await();
+        }
+        if (mutations.toMap().containsKey(failingRow)) {
+            throw new IOException("write failed");
+        }
+    }
+
+    private static ByteBuffer row(int row) {
+        return ByteBuffer.wrap(PtBytes.toBytes("row" + row));
+    }
+
+    private static MultiPutCoalescer.HostMutations mutations(InetSocketAddress host, int row) {
+        MutationMap mutationMap = new MutationMap();
+        mutationMap.addMutationForCell(
+                Cell.create(row(row).array(), PtBytes.toBytes("col")), TABLE, new Mutation());
+        return new MultiPutCoalescer.HostMutations(host, ImmutableSet.of(TABLE), mutationMap, 1, 10);
+    }
+}
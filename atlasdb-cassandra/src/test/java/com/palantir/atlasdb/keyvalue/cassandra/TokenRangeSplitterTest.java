@@ -0,0 +1,106 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableRangeMap;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeMap;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RangeRequests;
+
+public class TokenRangeSplitterTest {
+    private static final InetSocketAddress HOST = InetSocketAddress.createUnresolved("cassandra", 9160);
+    private static final byte[] TOKEN_1 = PtBytes.toBytes("d");
+    private static final byte[] TOKEN_2 = PtBytes.toBytes("m");
+    private static final byte[] TOKEN_3 = PtBytes.toBytes("t");
+
+    private static final RangeMap<LightweightOppToken, InetSocketAddress> TOKEN_MAP =
+            ImmutableRangeMap.<LightweightOppToken, InetSocketAddress>builder()
+                    .put(Range.atMost(token(TOKEN_1)), HOST)
+                    .put(Range.openClosed(token(TOKEN_1), token(TOKEN_2)), HOST)
+                    .put(Range.openClosed(token(TOKEN_2), token(TOKEN_3)), HOST)
+                    .put(Range.greaterThan(token(TOKEN_3)), HOST)
+                    .build();
+
+    @Test
+    public void splitsFullRangeAtEveryTokenBoundary() {
+        List<RangeRequest> splits = TokenRangeSplitter.split(RangeRequest.all(), TOKEN_MAP);
+
+        assertThat(splits).containsExactly(
+                range(PtBytes.EMPTY_BYTE_ARRAY, nextRow(TOKEN_1)),
+                range(nextRow(TOKEN_1), nextRow(TOKEN_2)),
+                range(nextRow(TOKEN_2), nextRow(TOKEN_3)),
+                range(nextRow(TOKEN_3), PtBytes.EMPTY_BYTE_ARRAY));
+    }
+
+    @Test
+    public void onlySplitsAtBoundariesInsideTheRequestedRange() {
+        RangeRequest request = range(PtBytes.toBytes("f"), PtBytes.toBytes("p"));
+
+        assertThat(TokenRangeSplitter.split(request, TOKEN_MAP)).containsExactly(
+                range(PtBytes.toBytes("f"), nextRow(TOKEN_2)),
+                range(nextRow(TOKEN_2), PtBytes.toBytes("p")));
+    }
+
+    @Test
+    public void rangeWithinOneTokenRangeIsNotSplit() {
+        RangeRequest request = range(PtBytes.toBytes("e"), PtBytes.toBytes("f"));
+
+        assertThat(TokenRangeSplitter.split(request, TOKEN_MAP)).containsExactly(request);
+    }
+
+    @Test
+    public void splitsPreserveOtherRequestParameters() {
+        RangeRequest request = RangeRequest.builder()
+                .batchHint(7)
+                .retainColumns(ImmutableList.of(PtBytes.toBytes("col")))
+                .build();
+
+        assertThat(TokenRangeSplitter.split(request, TOKEN_MAP)).allSatisfy(split -> {
+            assertThat(split.getBatchHint()).isEqualTo(7);
+            assertThat(split.getColumnNames()).hasSize(1);
+        });
+    }
+
+    @Test
+    public void reverseRangesCannotBeSplit() {
+        assertThatThrownBy(() -> TokenRangeSplitter.split(RangeRequest.reverseBuilder().build(), TOKEN_MAP))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static LightweightOppToken token(byte[] bytes) {
+        return new LightweightOppToken(bytes);
+    }
+
+    private static byte[] nextRow(byte[] token) {
+        return RangeRequests.nextLexicographicName(token);
+    }
+
+    private static RangeRequest range(byte[] start, byte[] end) {
+        return RangeRequest.builder().startRowInclusive(start).endRowExclusive(end).build();
+    }
+}
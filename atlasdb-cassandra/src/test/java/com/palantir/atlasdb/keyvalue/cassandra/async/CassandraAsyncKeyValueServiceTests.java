@@ -17,33 +17,48 @@
 package com.palantir.atlasdb.keyvalue.cassandra.async;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.palantir.atlasdb.encoding.PtBytes;
 import com.palantir.atlasdb.futures.AtlasFutures;
 import com.palantir.atlasdb.keyvalue.api.AsyncKeyValueService;
 import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
 import com.palantir.atlasdb.keyvalue.api.Namespace;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.api.Value;
 import com.palantir.atlasdb.keyvalue.cassandra.async.queries.CqlQueryContext;
+import com.palantir.atlasdb.keyvalue.cassandra.async.queries.CqlQuerySpec;
 import com.palantir.atlasdb.keyvalue.cassandra.async.queries.GetQuerySpec;
+import com.palantir.atlasdb.keyvalue.cassandra.async.queries.GetRowQuerySpec;
 import com.palantir.atlasdb.keyvalue.cassandra.async.queries.ImmutableCqlQueryContext;
 import com.palantir.atlasdb.keyvalue.cassandra.async.queries.ImmutableGetQueryParameters;
+import com.palantir.atlasdb.keyvalue.cassandra.async.queries.QueryType;
 import com.palantir.common.random.RandomBytes;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -52,6 +67,8 @@ public class CassandraAsyncKeyValueServiceTests {
     private static final TableReference TABLE = TableReference.create(Namespace.DEFAULT_NAMESPACE, "foo");
     // tests are imagined as if the visible data has a timestamp lower than 20 and non visible data has timestamp higher
     private static final long TIMESTAMP = 20L;
+    private static final int MUTATION_BATCH_COUNT = 2;
+    private static final int MUTATION_BATCH_SIZE_BYTES = 1024;
     private static final Cell NON_VISIBLE_CELL = Cell.create(PtBytes.toBytes(100), PtBytes.toBytes(100));
     private static final Cell VISIBLE_CELL_1 = Cell.create(PtBytes.toBytes(100), PtBytes.toBytes(200));
     private static final Cell VISIBLE_CELL_2 = Cell.create(PtBytes.toBytes(100), PtBytes.toBytes(300));
@@ -69,7 +86,10 @@ public class CassandraAsyncKeyValueServiceTests {
         asyncKeyValueService = CassandraAsyncKeyValueService.create(
                 KEYSPACE,
                 cqlClient,
-                AtlasFutures.futuresCombiner(MoreExecutors.newDirectExecutorService()));
+                AtlasFutures.futuresCombiner(MoreExecutors.newDirectExecutorService()),
+                MoreExecutors.directExecutor(),
+                MUTATION_BATCH_COUNT,
+                MUTATION_BATCH_SIZE_BYTES);
     }
 
     @After
@@ -112,6 +132,108 @@ public class CassandraAsyncKeyValueServiceTests {
         assertThat(result).containsOnlyKeys(VISIBLE_CELL_1, VISIBLE_CELL_2);
     }
 
+    @Test
+    public void getRowsWithAllColumnsQueriesEachRow() throws Exception {
+        Cell otherRowCell = Cell.create(PtBytes.toBytes(200), PtBytes.toBytes(200));
+        Value value = Value.create(PtBytes.toBytes("value"), TIMESTAMP - 1);
+        Map<Cell, Value> firstRow = ImmutableMap.of(VISIBLE_CELL_1, value, VISIBLE_CELL_2, value);
+        Map<Cell, Value> secondRow = ImmutableMap.of(otherRowCell, value);
+        when(cqlClient.executeQuery(new GetRowQuerySpec(CQL_QUERY_CONTEXT, VISIBLE_CELL_1.getRowName(), TIMESTAMP)))
+                .thenReturn(Futures.immediateFuture(firstRow));
+        when(cqlClient.executeQuery(new GetRowQuerySpec(CQL_QUERY_CONTEXT, otherRowCell.getRowName(), TIMESTAMP)))
+                .thenReturn(Futures.immediateFuture(secondRow));
+
+        Map<Cell, Value> result = asyncKeyValueService.getRowsAsync(
+                TABLE,
+                ImmutableList.of(VISIBLE_CELL_1.getRowName(), otherRowCell.getRowName()),
+                ColumnSelection.all(),
+                TIMESTAMP).get();
+
+        assertThat(result).containsOnlyKeys(VISIBLE_CELL_1, VISIBLE_CELL_2, otherRowCell);
+    }
+
+    @Test
+    public void getRowsBoundsConcurrentRowQueries() throws Exception {
+        List<SettableFuture<Map<Cell, Value>>> rowFutures = new CopyOnWriteArrayList<>();
+        when(cqlClient.executeQuery(any())).thenAnswer(invocation -> {
+            SettableFuture<Map<Cell, Value>> rowFuture = SettableFuture.create();
+            rowFutures.add(rowFuture);
+            return rowFuture;
+        });
+        List<byte[]> rows = IntStream.range(0, 40)
+                .mapToObj(PtBytes::toBytes)
+                .collect(Collectors.toList());
+
+        ListenableFuture<Map<Cell, Value>> result =
+                asyncKeyValueService.getRowsAsync(TABLE, rows, ColumnSelection.all(), TIMESTAMP);
+        assertThat(rowFutures).hasSize(32);
+
+        rowFutures.get(0).set(ImmutableMap.of());
+        assertThat(rowFutures).hasSize(33);
+
+        for (int completed = 1; completed < rows.size(); completed++) {
+            rowFutures.get(completed).set(ImmutableMap.of());
+        }
+        assertThat(result.get()).isEmpty();
+        verify(cqlClient, times(rows.size())).executeQuery(any());
+    }
+
+    @Test
+    public void getRowsWithSelectedColumnsQueriesEachCell() throws Exception {
+        setUpVisibleCells(VISIBLE_CELL_1);
+        setUpNonVisibleCells(NON_VISIBLE_CELL);
+
+        Map<Cell, Value> result = asyncKeyValueService.getRowsAsync(
+                TABLE,
+                ImmutableList.of(VISIBLE_CELL_1.getRowName()),
+                ColumnSelection.create(
+                        ImmutableList.of(VISIBLE_CELL_1.getColumnName(), NON_VISIBLE_CELL.getColumnName())),
+                TIMESTAMP).get();
+
+        assertThat(result).containsOnlyKeys(VISIBLE_CELL_1);
+    }
+
+    @Test
+    public void multiPutWritesOneBatchPerRow() throws Exception {
+        Cell otherRowCell = Cell.create(PtBytes.toBytes(200), PtBytes.toBytes(200));
+        byte[] value = PtBytes.toBytes("value");
+        when(cqlClient.executeQuery(any())).thenReturn(Futures.immediateFuture(null));
+
+        Map<Cell, byte[]> values = ImmutableMap.of(VISIBLE_CELL_1, value, VISIBLE_CELL_2, value, otherRowCell, value);
+
+        asyncKeyValueService.multiPutAsync(ImmutableMap.of(TABLE, values), TIMESTAMP).get();
+
+        ArgumentCaptor<CqlQuerySpec> captor = ArgumentCaptor.forClass(CqlQuerySpec.class);
+        verify(cqlClient, times(2)).executeQuery(captor.capture());
+        assertThat(captor.getAllValues())
+                .allSatisfy(spec -> assertThat(spec.queryType()).isEqualTo(QueryType.PUT));
+    }
+
+    @Test
+    public void multiPutSplitsRowsIntoBatchesOfAtMostMutationBatchCount() throws Exception {
+        Cell thirdCell = Cell.create(PtBytes.toBytes(100), PtBytes.toBytes(400));
+        byte[] value = PtBytes.toBytes("value");
+        when(cqlClient.executeQuery(any())).thenReturn(Futures.immediateFuture(null));
+
+        Map<Cell, byte[]> values = ImmutableMap.of(VISIBLE_CELL_1, value, VISIBLE_CELL_2, value, thirdCell, value);
+
+        asyncKeyValueService.multiPutAsync(ImmutableMap.of(TABLE, values), TIMESTAMP).get();
+
+        verify(cqlClient, times(2)).executeQuery(any());
+    }
+
+    @Test
+    public void multiPutSplitsRowsIntoBatchesOfAtMostMutationBatchSizeBytes() throws Exception {
+        byte[] largeValue = RandomBytes.ofLength(MUTATION_BATCH_SIZE_BYTES / 2);
+        when(cqlClient.executeQuery(any())).thenReturn(Futures.immediateFuture(null));
+
+        Map<Cell, byte[]> values = ImmutableMap.of(VISIBLE_CELL_1, largeValue, VISIBLE_CELL_2, largeValue);
+
+        asyncKeyValueService.multiPutAsync(ImmutableMap.of(TABLE, values), TIMESTAMP).get();
+
+        verify(cqlClient, times(2)).executeQuery(any());
+    }
+
     private void setUpVisibleCells(Cell... cells) {
         for (Cell cell : cells) {
             when(cqlClient.executeQuery(buildGetQuerySpec(buildGetQueryParameter(cell))))
@@ -0,0 +1,105 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.async.queries;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import com.datastax.driver.core.Row;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.Namespace;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.api.Value;
+
+public class GetRowQuerySpecTest {
+    private static final CqlQueryContext CQL_QUERY_CONTEXT = ImmutableCqlQueryContext.builder()
+            .keyspace("test")
+            .tableReference(TableReference.create(Namespace.DEFAULT_NAMESPACE, "foo"))
+            .build();
+    private static final byte[] ROW = PtBytes.toBytes("row");
+    private static final byte[] COLUMN_1 = PtBytes.toBytes("column1");
+    private static final byte[] COLUMN_2 = PtBytes.toBytes("column2");
+    private static final long TIMESTAMP = 20L;
+
+    private final RowStreamAccumulator<Map<Cell, Value>> accumulator =
+            new GetRowQuerySpec(CQL_QUERY_CONTEXT, ROW, TIMESTAMP).rowStreamAccumulator();
+
+    @Test
+    public void emptyRowHasNoValues() {
+        accumulator.accumulateRowStream(Stream.empty());
+
+        assertThat(accumulator.result()).isEmpty();
+    }
+
+    @Test
+    public void keepsOnlyTheLatestVisibleVersionOfEachColumn() {
+        accumulator.accumulateRowStream(Stream.of(
+                cqlRow(COLUMN_1, 30L, "invisible"),
+                cqlRow(COLUMN_1, TIMESTAMP, "at read timestamp"),
+                cqlRow(COLUMN_1, 15L, "latest"),
+                cqlRow(COLUMN_1, 10L, "older"),
+                cqlRow(COLUMN_2, 5L, "other column")));
+
+        assertThat(accumulator.result()).containsOnly(
+                entry(COLUMN_1, 15L, "latest"),
+                entry(COLUMN_2, 5L, "other column"));
+    }
+
+    @Test
+    public void omitsColumnsWithNoVisibleVersion() {
+        accumulator.accumulateRowStream(Stream.of(
+                cqlRow(COLUMN_1, 30L, "invisible"),
+                cqlRow(COLUMN_2, 5L, "visible")));
+
+        assertThat(accumulator.result()).containsOnlyKeys(Cell.create(ROW, COLUMN_2));
+    }
+
+    @Test
+    public void keepsTheLatestVisibleVersionAcrossPages() {
+        accumulator.accumulateRowStream(Stream.of(
+                cqlRow(COLUMN_1, 30L, "invisible"),
+                cqlRow(COLUMN_1, 15L, "latest")));
+        accumulator.accumulateRowStream(Stream.of(
+                cqlRow(COLUMN_1, 10L, "older"),
+                cqlRow(COLUMN_2, 5L, "other column")));
+
+        assertThat(accumulator.result()).containsOnly(
+                entry(COLUMN_1, 15L, "latest"),
+                entry(COLUMN_2, 5L, "other column"));
+    }
+
+    private static Row cqlRow(byte[] column, long timestamp, String value) {
+        Row row = mock(Row.class);
+        when(row.getBytes(0)).thenReturn(ByteBuffer.wrap(column));
+        when(row.getLong(1)).thenReturn(~timestamp);
+        when(row.getBytes(2)).thenReturn(ByteBuffer.wrap(PtBytes.toBytes(value)));
+        return row;
+    }
+
+    private static Map.Entry<Cell, Value> entry(byte[] column, long timestamp, String value) {
+        return Assertions.entry(Cell.create(ROW, column), Value.create(PtBytes.toBytes(value), timestamp));
+    }
+}
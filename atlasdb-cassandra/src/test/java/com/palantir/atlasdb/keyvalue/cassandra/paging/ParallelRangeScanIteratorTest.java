@@ -0,0 +1,189 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.paging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Iterators;
+import com.google.common.primitives.UnsignedBytes;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.exception.PalantirInterruptedException;
+
+public class ParallelRangeScanIteratorTest {
+    private final ExecutorService executor = PTExecutors.newCachedThreadPool("parallel-range-scan-test");
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void returnsRowsOfAllSplitsInSplitOrder() {
+        List<List<RowResult<Long>>> splits = ImmutableList.of(rows(0, 250), rows(250, 260), rows(260, 260),
+                rows(260, 500));
+
+        ParallelRangeScanIterator<Long> iterator = new ParallelRangeScanIterator<>(splits, executor, 2, 10);
+
+        assertThat(ImmutableList.copyOf(iterator)).isEqualTo(rows(0, 500));
+    }
+
+    @Test
+    public void scansAheadOfTheConsumer() throws InterruptedException {
+        CountDownLatch secondSplitStarted = new CountDownLatch(1);
+        Iterable<RowResult<Long>> secondSplit = () -> {
+            secondSplitStarted.countDown();
+            return rows(10, 20).iterator();
+        };
+
+        ParallelRangeScanIterator<Long> iterator = new ParallelRangeScanIterator<>(
+                ImmutableList.of(rows(0, 10), secondSplit), executor, 2, 5);
+        iterator.next();
+
+        assertThat(secondSplitStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        iterator.close();
+    }
+
+    @Test
+    public void doesNotScanMoreSplitsThanTheConcurrency() {
+        AtomicInteger startedScans = new AtomicInteger();
+        List<Iterable<RowResult<Long>>> splits = IntStream.range(0, 5)
+                .mapToObj(index -> (Iterable<RowResult<Long>>) () -> {
+                    startedScans.incrementAndGet();
+                    return rows(index * 10, index * 10 + 10).iterator();
+                })
+                .collect(Collectors.toList());
+
+        ParallelRangeScanIterator<Long> iterator = new ParallelRangeScanIterator<>(splits, executor, 2, 5);
+        iterator.next();
+
+        assertThat(startedScans.get()).isLessThanOrEqualTo(2);
+        iterator.close();
+    }
+
+    @Test
+    public void propagatesFailuresOfBackgroundScans() {
+        Iterable<RowResult<Long>> failingSplit = () -> Iterators.concat(rows(10, 12).iterator(), new FailingIterator());
+
+        ParallelRangeScanIterator<Long> iterator = new ParallelRangeScanIterator<>(
+                ImmutableList.of(rows(0, 10), failingSplit), executor, 2, 5);
+
+        assertThatThrownBy(() -> iterator.forEachRemaining(row -> { }))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("boom");
+    }
+
+    @Test
+    public void interruptedConsumerStopsWaitingAndKeepsItsInterruptFlag() {
+        CountDownLatch splitReleased = new CountDownLatch(1);
+        Iterable<RowResult<Long>> blockedSplit = () -> {
+            Uninterruptibles.awaitUninterruptibly(splitReleased);
+            return rows(0, 10).iterator();
+        };
+        ParallelRangeScanIterator<Long> iterator = new ParallelRangeScanIterator<>(
+                ImmutableList.of(blockedSplit), executor, 1, 5);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThatThrownBy(iterator::next).isInstanceOf(PalantirInterruptedException.class);
+            assertThat(Thread.currentThread().isInterrupted()).isTrue();
+        } finally {
+            Thread.interrupted();
+            splitReleased.countDown();
+        }
+    }
+
+    @Test
+    public void stopsBackgroundScansWhenClosed() throws Exception {
+        ExecutorService singleThreadExecutor = PTExecutors.newSingleThreadExecutor();
+        try {
+            ParallelRangeScanIterator<Long> iterator = new ParallelRangeScanIterator<>(
+                    ImmutableList.of(endlessSplit()), singleThreadExecutor, 1, 5);
+            iterator.next();
+            iterator.close();
+
+            singleThreadExecutor.submit(() -> { }).get(10, TimeUnit.SECONDS);
+        } finally {
+            singleThreadExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void stopsBackgroundScansOnceAbandonedIteratorIsGarbageCollected() throws Exception {
+        ExecutorService singleThreadExecutor = PTExecutors.newSingleThreadExecutor();
+        try {
+            startAndAbandonEndlessScan(singleThreadExecutor);
+            Future<?> nextTask = singleThreadExecutor.submit(() -> { });
+            for (int attempt = 0; attempt < 100 && !nextTask.isDone(); attempt++) {
+                System.gc();
+                Thread.sleep(100);
+            }
+
+            assertThat(nextTask).isDone();
+        } finally {
+            singleThreadExecutor.shutdownNow();
+        }
+    }
+
+    private static void startAndAbandonEndlessScan(ExecutorService scanExecutor) {
+        new ParallelRangeScanIterator<>(ImmutableList.of(endlessSplit()), scanExecutor, 1, 5).next();
+    }
+
+    private static Iterable<RowResult<Long>> endlessSplit() {
+        return () -> Iterators.cycle(rows(0, 1));
+    }
+
+    private static List<RowResult<Long>> rows(int startInclusive, int endExclusive) {
+        return IntStream.range(startInclusive, endExclusive)
+                .mapToObj(row -> RowResult.create(
+                        PtBytes.toBytes((long) row),
+                        ImmutableSortedMap.<byte[], Long>orderedBy(UnsignedBytes.lexicographicalComparator())
+                                .put(PtBytes.toBytes("col"), (long) row)
+                                .build()))
+                .collect(Collectors.toList());
+    }
+
+    private static final class FailingIterator implements Iterator<RowResult<Long>> {
+        @Override
+        public boolean hasNext() {
+            return true;
+        }
+
+        @Override
+        public RowResult<Long> next() {
+            throw new IllegalStateException("boom");
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.pool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class HostScoreTest {
+    private static final long LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final Duration FAILURE_PENALTY = Duration.ofSeconds(60);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final HostScore score = new HostScore(clock::get, FAILURE_PENALTY);
+
+    @Test
+    public void unusedHostScoresZero() {
+        assertThat(score.getScore(0)).isEqualTo(0.0);
+        assertThat(score.getErrorRate()).isEqualTo(0.0);
+    }
+
+    @Test
+    public void firstSampleIsTakenAsTheAverage() {
+        score.recordSuccess(LATENCY_NANOS);
+
+        assertThat(score.getLatencyEwmaNanos()).isEqualTo(LATENCY_NANOS);
+        assertThat(score.getScore(0)).isEqualTo(LATENCY_NANOS);
+    }
+
+    @Test
+    public void scoreGrowsWithInFlightRequests() {
+        score.recordSuccess(LATENCY_NANOS);
+
+        assertThat(score.getScore(3)).isEqualTo(4.0 * LATENCY_NANOS);
+    }
+
+    @Test
+    public void failuresIncreaseTheScore() {
+        score.recordSuccess(LATENCY_NANOS);
+        double healthyScore = score.getScore(0);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        score.recordFailure();
+
+        assertThat(score.getErrorRate()).isGreaterThan(0.0);
+        assertThat(score.getScore(0)).isGreaterThan(healthyScore);
+    }
+
+    @Test
+    public void failuresAreChargedThePenaltyLatencyIfReadLatenciesAreUnknown() {
+        score.recordFailure();
+
+        assertThat(score.getLatencyEwmaNanos()).isEqualTo(FAILURE_PENALTY.toNanos());
+    }
+
+    @Test
+    public void failuresAreChargedTheRecentHighReadLatencyIfKnown() {
+        for (int sample = 0; sample < 100; sample++) {
+            score.recordReadLatency(LATENCY_NANOS);
+        }
+
+        score.recordFailure();
+
+        assertThat(score.getLatencyEwmaNanos()).isEqualTo(LATENCY_NANOS);
+    }
+
+    @Test
+    public void readLatencyPercentilesNeedEnoughSamples() {
+        for (int sample = 1; sample < 100; sample++) {
+            score.recordReadLatency(sample);
+        }
+
+        assertThat(score.getReadLatencyPercentile(50)).isEmpty();
+    }
+
+    @Test
+    public void readLatencyPercentilesAreComputedOverRecentReads() {
+        for (int sample = 1; sample <= 100; sample++) {
+            score.recordReadLatency(sample);
+        }
+
+        assertThat(score.getReadLatencyPercentile(50)).hasValueSatisfying(
+                latency -> assertThat(latency.toNanos()).isBetween(49L, 51L));
+    }
+
+    @Test
+    public void averagesDecayWhileTheHostIsIdle() {
+        score.recordFailure();
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(5));
+
+        assertThat(score.getLatencyEwmaNanos()).isCloseTo(0.0, within(1.0));
+        assertThat(score.getErrorRate()).isCloseTo(0.0, within(0.001));
+    }
+
+    @Test
+    public void recentSamplesOutweighOldOnes() {
+        score.recordSuccess(LATENCY_NANOS);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        score.recordSuccess(10 * LATENCY_NANOS);
+
+        assertThat(score.getLatencyEwmaNanos()).isGreaterThan(9.0 * LATENCY_NANOS);
+    }
+}
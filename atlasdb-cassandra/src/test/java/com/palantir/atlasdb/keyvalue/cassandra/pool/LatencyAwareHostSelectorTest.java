@@ -0,0 +1,83 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.pool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.palantir.atlasdb.keyvalue.cassandra.CassandraClientPoolingContainer;
+
+public class LatencyAwareHostSelectorTest {
+    private static final InetSocketAddress HOST_1 = new InetSocketAddress(1);
+    private static final InetSocketAddress HOST_2 = new InetSocketAddress(2);
+    private static final InetSocketAddress HOST_3 = new InetSocketAddress(3);
+
+    @Test
+    public void selectsTheOnlyHost() {
+        assertThat(LatencyAwareHostSelector.selectHost(ImmutableList.of(container(HOST_1, 100.0))))
+                .isEqualTo(HOST_1);
+    }
+
+    @Test
+    public void prefersTheLowerScoringOfTwoHosts() {
+        ImmutableList<CassandraClientPoolingContainer> pools = ImmutableList.of(
+                container(HOST_1, 100.0), container(HOST_2, 1.0));
+
+        assertThat(IntStream.range(0, 100).mapToObj(unused -> LatencyAwareHostSelector.selectHost(pools)))
+                .containsOnly(HOST_2);
+    }
+
+    @Test
+    public void theWorstHostIsNeverSelectedAndOtherHostsShareTraffic() {
+        ImmutableList<CassandraClientPoolingContainer> pools = ImmutableList.of(
+                container(HOST_1, 1.0), container(HOST_2, 2.0), container(HOST_3, 1000.0));
+        Random random = new Random(0);
+
+        Map<InetSocketAddress, Long> selections = IntStream.range(0, 3000)
+                .mapToObj(unused -> LatencyAwareHostSelector.selectHost(pools, random))
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+
+        assertThat(selections).doesNotContainKey(HOST_3);
+        assertThat(selections.get(HOST_1)).isGreaterThan(selections.get(HOST_2));
+        assertThat(selections.get(HOST_2)).isGreaterThan(0L);
+    }
+
+    @Test
+    public void requiresAtLeastOneHost() {
+        assertThatThrownBy(() -> LatencyAwareHostSelector.selectHost(ImmutableList.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static CassandraClientPoolingContainer container(InetSocketAddress host, double score) {
+        CassandraClientPoolingContainer container = mock(CassandraClientPoolingContainer.class);
+        when(container.getHost()).thenReturn(host);
+        when(container.getScore()).thenReturn(score);
+        return container;
+    }
+}
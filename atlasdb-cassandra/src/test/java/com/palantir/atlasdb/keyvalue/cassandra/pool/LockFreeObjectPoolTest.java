@@ -0,0 +1,289 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.cassandra.pool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.palantir.atlasdb.keyvalue.cassandra.pool.LockFreeObjectPool.PooledEntry;
+
+public class LockFreeObjectPoolTest {
+    private static final int MIN_IDLE = 2;
+    private static final int MAX_TOTAL = 4;
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(10);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final TestFactory factory = new TestFactory();
+    private final LockFreeObjectPool<TestObject> pool = createPool(1.0);
+
+    @Test
+    public void reusesReturnedObjects() throws Exception {
+        PooledEntry<TestObject> entry = pool.borrow();
+        pool.returnEntry(entry);
+
+        assertThat(pool.borrow().getObject()).isSameAs(entry.getObject());
+        assertThat(pool.getCreatedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void throwsWhenExhausted() throws Exception {
+        for (int i = 0; i < MAX_TOTAL; i++) {
+            pool.borrow();
+        }
+
+        assertThat(pool.getNumActive()).isEqualTo(MAX_TOTAL);
+        assertThatThrownBy(pool::borrow)
+                .isInstanceOf(NoSuchElementException.class)
+                .hasMessageContaining("Pool exhausted");
+    }
+
+    @Test
+    public void discardsInvalidObjectsOnBorrow() throws Exception {
+        PooledEntry<TestObject> entry = pool.borrow();
+        pool.returnEntry(entry);
+        entry.getObject().valid.set(false);
+
+        assertThat(pool.borrow().getObject()).isNotSameAs(entry.getObject());
+        assertThat(entry.getObject().destroyed.get()).isTrue();
+        assertThat(pool.getDestroyedByBorrowValidationCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidatedObjectsFreeCapacity() throws Exception {
+        List<PooledEntry<TestObject>> entries = new ArrayList<>();
+        for (int i = 0; i < MAX_TOTAL; i++) {
+            entries.add(pool.borrow());
+        }
+        pool.invalidate(entries.get(0));
+
+        assertThat(entries.get(0).getObject().destroyed.get()).isTrue();
+        assertThat(pool.borrow().getObject()).isNotSameAs(entries.get(0).getObject());
+    }
+
+    @Test
+    public void failedCreationFreesCapacity() throws Exception {
+        factory.failCreation.set(true);
+        for (int i = 0; i < MAX_TOTAL + 1; i++) {
+            assertThatThrownBy(pool::borrow).isInstanceOf(IllegalStateException.class);
+        }
+
+        factory.failCreation.set(false);
+        assertThat(pool.borrow()).isNotNull();
+    }
+
+    @Test
+    public void clearDestroysOnlyIdleObjects() throws Exception {
+        PooledEntry<TestObject> idle = pool.borrow();
+        PooledEntry<TestObject> active = pool.borrow();
+        pool.returnEntry(idle);
+
+        pool.clear();
+
+        assertThat(idle.getObject().destroyed.get()).isTrue();
+        assertThat(active.getObject().destroyed.get()).isFalse();
+        assertThat(pool.getNumIdle()).isZero();
+        assertThat(pool.getNumActive()).isEqualTo(1);
+    }
+
+    @Test
+    public void evictionTopsUpToMinIdle() {
+        pool.evict();
+
+        assertThat(pool.getNumIdle()).isEqualTo(MIN_IDLE);
+    }
+
+    @Test
+    public void evictionDiscardsInvalidAndLongIdleObjectsAboveMinIdle() throws Exception {
+        List<PooledEntry<TestObject>> entries = new ArrayList<>();
+        for (int i = 0; i < MAX_TOTAL; i++) {
+            entries.add(pool.borrow());
+        }
+        entries.forEach(pool::returnEntry);
+        entries.get(0).getObject().valid.set(false);
+
+        clock.addAndGet(IDLE_TIMEOUT.toNanos() + 1);
+        pool.evict();
+
+        assertThat(pool.getNumIdle()).isEqualTo(MIN_IDLE);
+        assertThat(pool.getDestroyedByEvictorCount()).isEqualTo(MAX_TOTAL - MIN_IDLE);
+        assertThat(entries.get(0).getObject().destroyed.get()).isTrue();
+    }
+
+    @Test
+    public void evictionExaminesTheConfiguredProportionOfThePoolInTurn() throws Exception {
+        LockFreeObjectPool<TestObject> partialPool = createPool(0.5);
+        List<PooledEntry<TestObject>> entries = new ArrayList<>();
+        for (int i = 0; i < MAX_TOTAL; i++) {
+            entries.add(partialPool.borrow());
+        }
+        entries.forEach(partialPool::returnEntry);
+        entries.forEach(entry -> entry.getObject().valid.set(false));
+
+        partialPool.evict();
+        assertThat(partialPool.getDestroyedByEvictorCount()).isEqualTo(MAX_TOTAL / 2);
+
+        partialPool.evict();
+        assertThat(partialPool.getDestroyedByEvictorCount()).isGreaterThan(MAX_TOTAL / 2);
+    }
+
+    @Test
+    public void closeDestroysObjectsAsTheyAreReturned() throws Exception {
+        PooledEntry<TestObject> idle = pool.borrow();
+        PooledEntry<TestObject> active = pool.borrow();
+        pool.returnEntry(idle);
+
+        pool.close();
+        assertThat(idle.getObject().destroyed.get()).isTrue();
+        assertThat(active.getObject().destroyed.get()).isFalse();
+
+        pool.returnEntry(active);
+        assertThat(active.getObject().destroyed.get()).isTrue();
+        assertThatThrownBy(pool::borrow).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void closeDuringEvictionDestroysTheObjectsBeingChecked() {
+        pool.evict();
+        factory.onValidation = pool::close;
+
+        pool.evict();
+
+        assertThat(factory.created)
+                .hasSize(MIN_IDLE)
+                .allSatisfy(object -> assertThat(object.destroyed.get()).isTrue());
+    }
+
+    @Test
+    public void closeWhileObjectsAreReturnedDestroysEveryObject() throws Exception {
+        LockFreeObjectPool<TestObject> sharedPool = new LockFreeObjectPool<>(
+                factory, MIN_IDLE, MAX_TOTAL, IDLE_TIMEOUT, 1.0, System::nanoTime);
+        ExecutorService executor = Executors.newFixedThreadPool(MAX_TOTAL);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < MAX_TOTAL; thread++) {
+            futures.add(executor.submit(() -> {
+                while (true) {
+                    PooledEntry<TestObject> entry;
+                    try {
+                        entry = sharedPool.borrow();
+                    } catch (NoSuchElementException e) {
+                        continue;
+                    } catch (IllegalStateException e) {
+                        return null;
+                    }
+                    sharedPool.returnEntry(entry);
+                }
+            }));
+        }
+        Thread.sleep(100);
+
+        sharedPool.close();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertThat(factory.created).allSatisfy(object -> assertThat(object.destroyed.get()).isTrue());
+    }
+
+    @Test
+    public void neverLendsAnObjectToTwoThreadsAtOnce() throws Exception {
+        LockFreeObjectPool<TestObject> sharedPool = new LockFreeObjectPool<>(
+                factory, MIN_IDLE, MAX_TOTAL, IDLE_TIMEOUT, 1.0, System::nanoTime);
+        Set<TestObject> inUse = ConcurrentHashMap.newKeySet();
+        AtomicBoolean doubleLent = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(2 * MAX_TOTAL);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 2 * MAX_TOTAL; thread++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    PooledEntry<TestObject> entry;
+                    try {
+                        entry = sharedPool.borrow();
+                    } catch (NoSuchElementException e) {
+                        continue;
+                    }
+                    if (!inUse.add(entry.getObject())) {
+                        doubleLent.set(true);
+                    }
+                    inUse.remove(entry.getObject());
+                    sharedPool.returnEntry(entry);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertThat(doubleLent.get()).isFalse();
+        assertThat(sharedPool.getCreatedCount()).isLessThanOrEqualTo(MAX_TOTAL);
+        assertThat(sharedPool.getNumActive()).isZero();
+    }
+
+    private LockFreeObjectPool<TestObject> createPool(double proportionToCheckPerEviction) {
+        return new LockFreeObjectPool<>(
+                factory, MIN_IDLE, MAX_TOTAL, IDLE_TIMEOUT, proportionToCheckPerEviction, clock::get);
+    }
+
+    private static final class TestObject {
+        private final AtomicBoolean valid = new AtomicBoolean(true);
+        private final AtomicBoolean destroyed = new AtomicBoolean(false);
+    }
+
+    private static final class TestFactory implements LockFreeObjectPool.ObjectFactory<TestObject> {
+        private final AtomicBoolean failCreation = new AtomicBoolean(false);
+        private final Set<TestObject> created = ConcurrentHashMap.newKeySet();
+        private volatile Runnable onValidation = () -> { };
+
+        @Override
+        public TestObject create() {
+            if (failCreation.get()) {
+                throw new IllegalStateException("failed to create");
+            }
+            TestObject object = new TestObject();
+            created.add(object);
+            return object;
+        }
+
+        @Override
+        public boolean isValid(TestObject object) {
+            onValidation.run();
+            return object.valid.get();
+        }
+
+        @Override
+        public void destroy(TestObject object) {
+            object.destroyed.set(true);
+        }
+    }
+}
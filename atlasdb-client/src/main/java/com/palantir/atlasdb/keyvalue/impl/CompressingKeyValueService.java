@@ -0,0 +1,334 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.atlasdb.keyvalue.api.BatchColumnRangeSelection;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.CheckAndSetException;
+import com.palantir.atlasdb.keyvalue.api.CheckAndSetRequest;
+import com.palantir.atlasdb.keyvalue.api.ColumnRangeSelection;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RowColumnRangeIterator;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.logging.LoggingArgs;
+import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.ValueCompression;
+import com.palantir.common.base.ClosableIterator;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
+import com.palantir.util.paging.SimpleTokenBackedResultsPage;
+import com.palantir.util.paging.TokenBackedBasicResultsPage;
+
+/**
+ * Compresses values of tables whose {@link com.palantir.atlasdb.table.description.TableMetadata} asks for value
+ * compression before they are written to the delegate, and decompresses them when they are read, so that tables
+ * written through the raw key value service and dynamic column tables can be compressed too.
+ *
+ * Values of tables that do not ask for value compression are passed through untouched. Whether a table asks for value
+ * compression can only be chosen when it is created, as neither existing values of other tables nor compressed values
+ * could otherwise be told apart from encoded ones; the compression threshold can be changed at any time. Settings are
+ * read from table metadata and cached for a minute, so that threshold changes made by other clients are picked up.
+ *
+ * Values of tables that ask for compression are always decoded on reads, even if writes are not being compressed, so
+ * such tables must only be accessed through this class. Check-and-set values are never compressed, so that they
+ * compare equal to the stored values; a cell must therefore be written either only with check-and-set or only with
+ * the put methods, as a check-and-set against a value stored by a put may not match it.
+ */
+public final class CompressingKeyValueService extends ForwardingKeyValueService {
+    private final KeyValueService delegate;
+    private final LoadingCache<TableReference, ValueCompressor> compressors;
+
+    private CompressingKeyValueService(KeyValueService delegate, boolean compressWrites) {
+        this.delegate = delegate;
+        this.compressors = Caffeine.newBuilder()
+                .expireAfterWrite(1, TimeUnit.MINUTES)
+                .build(tableRef -> ValueCompressor.fromMetadata(
+                        delegate.getMetadataForTable(tableRef), compressWrites));
+    }
+
+    public static CompressingKeyValueService create(KeyValueService delegate) {
+        return create(delegate, true);
+    }
+
+    /**
+     * Creates a key value service that decodes the values of tables that ask for value compression, and compresses
+     * new values of those tables only if {@code compressWrites} is true.
+     */
+    public static CompressingKeyValueService create(KeyValueService delegate, boolean compressWrites) {
+        return new CompressingKeyValueService(delegate, compressWrites);
+    }
+
+    @Override
+    public KeyValueService delegate() {
+        return delegate;
+    }
+
+    @Override
+    public void put(TableReference tableRef, Map<Cell, byte[]> values, long timestamp) {
+        delegate.put(tableRef, encode(tableRef, values), timestamp);
+    }
+
+    @Override
+    public void multiPut(Map<TableReference, ? extends Map<Cell, byte[]>> valuesByTable, long timestamp) {
+        delegate.multiPut(encode(valuesByTable), timestamp);
+    }
+
+    @Override
+    public ListenableFuture<Void> multiPutAsync(
+            Map<TableReference, ? extends Map<Cell, byte[]>> valuesByTable,
+            long timestamp) {
+        return delegate.multiPutAsync(encode(valuesByTable), timestamp);
+    }
+
+    @Override
+    public void putWithTimestamps(TableReference tableRef, Multimap<Cell, Value> cellValues) {
+        ValueCompressor compressor = compressors.get(tableRef);
+        if (compressor.isPassThrough()) {
+            delegate.putWithTimestamps(tableRef, cellValues);
+            return;
+        }
+        delegate.putWithTimestamps(tableRef, ImmutableListMultimap.copyOf(Multimaps.transformValues(cellValues,
+                value -> Value.create(compressor.encode(value.getContents()), value.getTimestamp()))));
+    }
+
+    @Override
+    public void putUnlessExists(TableReference tableRef, Map<Cell, byte[]> values) {
+        delegate.putUnlessExists(tableRef, encode(tableRef, values));
+    }
+
+    @Override
+    public void checkAndSet(CheckAndSetRequest request) {
+        ValueCompressor compressor = compressors.get(request.table());
+        if (compressor.isPassThrough()) {
+            delegate.checkAndSet(request);
+            return;
+        }
+        CheckAndSetRequest escapedRequest = new CheckAndSetRequest.Builder()
+                .table(request.table())
+                .cell(request.cell())
+                .oldValue(request.oldValue().map(compressor::escape))
+                .newValue(compressor.escape(request.newValue()))
+                .build();
+        try {
+            delegate.checkAndSet(escapedRequest);
+        } catch (CheckAndSetException e) {
+            if (e.getActualValues() == null) {
+                throw e;
+            }
+            List<byte[]> actualValues = e.getActualValues().stream()
+                    .map(compressor::decode)
+                    .collect(Collectors.toList());
+            throw new CheckAndSetException(
+                    e.getMessage(), e, e.getKey(), request.oldValue().orElse(null), actualValues);
+        }
+    }
+
+    @Override
+    public Map<Cell, Value> get(TableReference tableRef, Map<Cell, Long> timestampByCell) {
+        return decodeValues(tableRef, delegate.get(tableRef, timestampByCell));
+    }
+
+    @Override
+    public ListenableFuture<Map<Cell, Value>> getAsync(TableReference tableRef, Map<Cell, Long> timestampByCell) {
+        return Futures.transform(delegate.getAsync(tableRef, timestampByCell),
+                values -> decodeValues(tableRef, values), MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public Map<Cell, Value> getRows(TableReference tableRef, Iterable<byte[]> rows, ColumnSelection columnSelection,
+            long timestamp) {
+        return decodeValues(tableRef, delegate.getRows(tableRef, rows, columnSelection, timestamp));
+    }
+
+    @Override
+    public ListenableFuture<Map<Cell, Value>> getRowsAsync(TableReference tableRef, Iterable<byte[]> rows,
+            ColumnSelection columnSelection, long timestamp) {
+        return Futures.transform(delegate.getRowsAsync(tableRef, rows, columnSelection, timestamp),
+                values -> decodeValues(tableRef, values), MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public Map<byte[], RowColumnRangeIterator> getRowsColumnRange(TableReference tableRef, Iterable<byte[]> rows,
+            BatchColumnRangeSelection batchColumnRangeSelection, long timestamp) {
+        Map<byte[], RowColumnRangeIterator> iterators =
+                delegate.getRowsColumnRange(tableRef, rows, batchColumnRangeSelection, timestamp);
+        ValueCompressor compressor = compressors.get(tableRef);
+        if (compressor.isPassThrough()) {
+            return iterators;
+        }
+        return ImmutableMap.copyOf(Maps.transformValues(iterators, iterator -> decodeColumns(compressor, iterator)));
+    }
+
+    @Override
+    public RowColumnRangeIterator getRowsColumnRange(TableReference tableRef, Iterable<byte[]> rows,
+            ColumnRangeSelection columnRangeSelection, int cellBatchHint, long timestamp) {
+        RowColumnRangeIterator iterator =
+                delegate.getRowsColumnRange(tableRef, rows, columnRangeSelection, cellBatchHint, timestamp);
+        ValueCompressor compressor = compressors.get(tableRef);
+        return compressor.isPassThrough() ? iterator : decodeColumns(compressor, iterator);
+    }
+
+    @Override
+    public ClosableIterator<RowResult<Value>> getRange(TableReference tableRef, RangeRequest rangeRequest,
+            long timestamp) {
+        ClosableIterator<RowResult<Value>> range = delegate.getRange(tableRef, rangeRequest, timestamp);
+        ValueCompressor compressor = compressors.get(tableRef);
+        return compressor.isPassThrough() ? range : range.map(row -> decodeRow(compressor, row));
+    }
+
+    @Override
+    public Map<RangeRequest, TokenBackedBasicResultsPage<RowResult<Value>, byte[]>> getFirstBatchForRanges(
+            TableReference tableRef, Iterable<RangeRequest> rangeRequests, long timestamp) {
+        Map<RangeRequest, TokenBackedBasicResultsPage<RowResult<Value>, byte[]>> pages =
+                delegate.getFirstBatchForRanges(tableRef, rangeRequests, timestamp);
+        ValueCompressor compressor = compressors.get(tableRef);
+        if (compressor.isPassThrough()) {
+            return pages;
+        }
+        return ImmutableMap.copyOf(Maps.transformValues(pages, page -> decodePage(compressor, page)));
+    }
+
+    @Override
+    public void createTable(TableReference tableRef, byte[] tableMetadata) {
+        checkValueCompressionUnchanged(tableRef, delegate.getMetadataForTable(tableRef), tableMetadata);
+        delegate.createTable(tableRef, tableMetadata);
+        compressors.invalidate(tableRef);
+    }
+
+    @Override
+    public void createTables(Map<TableReference, byte[]> tableRefToTableMetadata) {
+        checkValueCompressionUnchanged(tableRefToTableMetadata);
+        delegate.createTables(tableRefToTableMetadata);
+        compressors.invalidateAll(tableRefToTableMetadata.keySet());
+    }
+
+    @Override
+    public void putMetadataForTable(TableReference tableRef, byte[] metadata) {
+        checkValueCompressionUnchanged(tableRef, delegate.getMetadataForTable(tableRef), metadata);
+        delegate.putMetadataForTable(tableRef, metadata);
+        compressors.invalidate(tableRef);
+    }
+
+    @Override
+    public void putMetadataForTables(Map<TableReference, byte[]> tableRefToMetadata) {
+        checkValueCompressionUnchanged(tableRefToMetadata);
+        delegate.putMetadataForTables(tableRefToMetadata);
+        compressors.invalidateAll(tableRefToMetadata.keySet());
+    }
+
+    @Override
+    public void dropTable(TableReference tableRef) {
+        delegate.dropTable(tableRef);
+        compressors.invalidate(tableRef);
+    }
+
+    @Override
+    public void dropTables(Set<TableReference> tableRefs) {
+        delegate.dropTables(tableRefs);
+        compressors.invalidateAll(tableRefs);
+    }
+
+    private void checkValueCompressionUnchanged(Map<TableReference, byte[]> newMetadata) {
+        Map<TableReference, byte[]> existingMetadata = delegate.getMetadataForTables();
+        newMetadata.forEach((tableRef, metadata) ->
+                checkValueCompressionUnchanged(tableRef, existingMetadata.get(tableRef), metadata));
+    }
+
+    private static void checkValueCompressionUnchanged(TableReference tableRef, byte[] existingMetadata,
+            byte[] newMetadata) {
+        if (existingMetadata == null || existingMetadata.length == 0) {
+            return;
+        }
+        ValueCompression existingCompression = ValueCompressor.getValueCompression(existingMetadata);
+        ValueCompression newCompression = ValueCompressor.getValueCompression(newMetadata);
+        if (existingCompression != newCompression) {
+            throw new SafeIllegalArgumentException("Value compression can only be chosen when a table is created",
+                    LoggingArgs.tableRef(tableRef),
+                    SafeArg.of("existingCompression", existingCompression),
+                    SafeArg.of("newCompression", newCompression));
+        }
+    }
+
+    private Map<TableReference, Map<Cell, byte[]>> encode(
+            Map<TableReference, ? extends Map<Cell, byte[]>> valuesByTable) {
+        ImmutableMap.Builder<TableReference, Map<Cell, byte[]>> encoded = ImmutableMap.builder();
+        valuesByTable.forEach((tableRef, values) -> encoded.put(tableRef, encode(tableRef, values)));
+        return encoded.build();
+    }
+
+    private Map<Cell, byte[]> encode(TableReference tableRef, Map<Cell, byte[]> values) {
+        ValueCompressor compressor = compressors.get(tableRef);
+        if (compressor.isPassThrough()) {
+            return values;
+        }
+        return ImmutableMap.copyOf(Maps.transformValues(values, compressor::encode));
+    }
+
+    private Map<Cell, Value> decodeValues(TableReference tableRef, Map<Cell, Value> values) {
+        ValueCompressor compressor = compressors.get(tableRef);
+        if (compressor.isPassThrough()) {
+            return values;
+        }
+        return ImmutableMap.copyOf(Maps.transformValues(values, value -> decodeValue(compressor, value)));
+    }
+
+    private static RowResult<Value> decodeRow(ValueCompressor compressor, RowResult<Value> row) {
+        return RowResult.create(row.getRowName(), ImmutableSortedMap.copyOfSorted(
+                Maps.transformValues(row.getColumns(), value -> decodeValue(compressor, value))));
+    }
+
+    private static TokenBackedBasicResultsPage<RowResult<Value>, byte[]> decodePage(ValueCompressor compressor,
+            TokenBackedBasicResultsPage<RowResult<Value>, byte[]> page) {
+        return SimpleTokenBackedResultsPage.create(
+                page.getTokenForNextPage(),
+                ImmutableList.copyOf(Iterables.transform(page.getResults(), row -> decodeRow(compressor, row))),
+                page.moreResultsAvailable());
+    }
+
+    private static RowColumnRangeIterator decodeColumns(ValueCompressor compressor, RowColumnRangeIterator iterator) {
+        return new LocalRowColumnRangeIterator(Iterators.transform(iterator,
+                entry -> Maps.immutableEntry(entry.getKey(), decodeValue(compressor, entry.getValue()))));
+    }
+
+    private static Value decodeValue(ValueCompressor compressor, Value value) {
+        byte[] contents = compressor.decode(value.getContents());
+        return contents == value.getContents() ? value : Value.create(contents, value.getTimestamp());
+    }
+}
@@ -234,6 +234,23 @@ public class KeyValueServices {
                 return Futures.immediateFuture(keyValueService.get(tableRef, timestampByCell));
             }
 
+            @Override
+            public ListenableFuture<Map<Cell, Value>> getRowsAsync(
+                    TableReference tableRef,
+                    Iterable<byte[]> rows,
+                    ColumnSelection columnSelection,
+                    long timestamp) {
+                return Futures.immediateFuture(keyValueService.getRows(tableRef, rows, columnSelection, timestamp));
+            }
+
+            @Override
+            public ListenableFuture<Void> multiPutAsync(
+                    Map<TableReference, ? extends Map<Cell, byte[]>> valuesByTable,
+                    long timestamp) {
+                keyValueService.multiPut(valuesByTable, timestamp);
+                return Futures.immediateFuture(null);
+            }
+
             @Override
             public void close() {
                 // NoOp
@@ -0,0 +1,181 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.impl;
+
+import java.util.Arrays;
+
+import com.google.common.primitives.Ints;
+import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.ValueCompression;
+import com.palantir.atlasdb.table.description.TableMetadata;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+/**
+ * Encodes the values stored by a {@link CompressingKeyValueService}.
+ *
+ * Values of tables that do not ask for value compression are passed through untouched in both directions. For tables
+ * that do, values are stored as they are, unless they are compressed or happen to start with the header that marks
+ * encoded values. Encoded values consist of {@link #MAGIC}, a format byte, and then either the uncompressed length
+ * followed by the LZ4 compressed value, or the original value if it was only escaped. Decoding is therefore
+ * independent of the table's compression threshold and of whether writes are currently compressed.
+ */
+final class ValueCompressor {
+    static final ValueCompressor PASS_THROUGH =
+            new ValueCompressor(ValueCompression.UNCOMPRESSED, Integer.MAX_VALUE, false);
+
+    private static final byte[] MAGIC = {(byte) 0xFF, 'A', 'C', 'V'};
+    private static final byte FORMAT_ESCAPED = 0;
+    private static final byte FORMAT_LZ4 = 1;
+    private static final int HEADER_LENGTH = MAGIC.length + 1;
+    private static final int LZ4_HEADER_LENGTH = HEADER_LENGTH + Integer.BYTES;
+    // an LZ4 sequence can describe at most 255 output bytes per input byte
+    private static final int MAX_LZ4_EXPANSION = 255;
+
+    private static final LZ4Compressor LZ4_COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4SafeDecompressor LZ4_DECOMPRESSOR = LZ4Factory.fastestInstance().safeDecompressor();
+
+    private final ValueCompression compression;
+    private final int thresholdBytes;
+    private final boolean compressWrites;
+
+    private ValueCompressor(ValueCompression compression, int thresholdBytes, boolean compressWrites) {
+        this.compression = compression;
+        this.thresholdBytes = thresholdBytes;
+        this.compressWrites = compressWrites;
+    }
+
+    /**
+     * Creates the compressor for a table. If {@code compressWrites} is false, values of tables that ask for value
+     * compression are still escaped and decoded, but new values are not compressed.
+     */
+    static ValueCompressor fromMetadata(byte[] tableMetadata, boolean compressWrites) {
+        if (tableMetadata == null || tableMetadata.length == 0) {
+            return PASS_THROUGH;
+        }
+        TableMetadata metadata = TableMetadata.BYTES_HYDRATOR.hydrateFromBytes(tableMetadata);
+        if (metadata.getValueCompression() == ValueCompression.UNCOMPRESSED) {
+            return PASS_THROUGH;
+        }
+        return new ValueCompressor(
+                metadata.getValueCompression(), metadata.getValueCompressionThresholdBytes(), compressWrites);
+    }
+
+    static ValueCompression getValueCompression(byte[] tableMetadata) {
+        if (tableMetadata == null || tableMetadata.length == 0) {
+            return ValueCompression.UNCOMPRESSED;
+        }
+        return TableMetadata.BYTES_HYDRATOR.hydrateFromBytes(tableMetadata).getValueCompression();
+    }
+
+    boolean isPassThrough() {
+        return compression == ValueCompression.UNCOMPRESSED;
+    }
+
+    /**
+     * Compresses the value if writes are compressed, the value is at least as large as the threshold, and compression
+     * makes it smaller; otherwise only escapes it.
+     */
+    byte[] encode(byte[] value) {
+        if (compressWrites && compression == ValueCompression.LZ4 && value.length >= thresholdBytes) {
+            byte[] compressed = compressLz4(value);
+            if (compressed.length < value.length) {
+                return compressed;
+            }
+        }
+        return escape(value);
+    }
+
+    /**
+     * Encodes the value without compressing it, so that it decodes back to itself. Encoding is deterministic, so this
+     * can also be used for values that are compared against stored values, as in check-and-set.
+     */
+    byte[] escape(byte[] value) {
+        if (isPassThrough() || !hasHeader(value)) {
+            return value;
+        }
+        byte[] escaped = new byte[HEADER_LENGTH + value.length];
+        System.arraycopy(MAGIC, 0, escaped, 0, MAGIC.length);
+        escaped[MAGIC.length] = FORMAT_ESCAPED;
+        System.arraycopy(value, 0, escaped, HEADER_LENGTH, value.length);
+        return escaped;
+    }
+
+    byte[] decode(byte[] stored) {
+        if (isPassThrough() || !hasHeader(stored)) {
+            return stored;
+        }
+        switch (stored[MAGIC.length]) {
+            case FORMAT_ESCAPED:
+                return Arrays.copyOfRange(stored, HEADER_LENGTH, stored.length);
+            case FORMAT_LZ4:
+                return decompressLz4(stored);
+            default:
+                // not written by us, as we would have escaped it
+                return stored;
+        }
+    }
+
+    private static boolean hasHeader(byte[] value) {
+        if (value.length < HEADER_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (value[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] compressLz4(byte[] value) {
+        int maxCompressedLength = LZ4_COMPRESSOR.maxCompressedLength(value.length);
+        byte[] buffer = new byte[LZ4_HEADER_LENGTH + maxCompressedLength];
+        System.arraycopy(MAGIC, 0, buffer, 0, MAGIC.length);
+        buffer[MAGIC.length] = FORMAT_LZ4;
+        System.arraycopy(Ints.toByteArray(value.length), 0, buffer, HEADER_LENGTH, Integer.BYTES);
+        int compressedLength = LZ4_COMPRESSOR.compress(
+                value, 0, value.length, buffer, LZ4_HEADER_LENGTH, maxCompressedLength);
+        return Arrays.copyOf(buffer, LZ4_HEADER_LENGTH + compressedLength);
+    }
+
+    private static byte[] decompressLz4(byte[] stored) {
+        if (stored.length < LZ4_HEADER_LENGTH) {
+            throw new SafeIllegalStateException("Compressed value is too short to hold its length",
+                    SafeArg.of("storedLength", stored.length));
+        }
+        int compressedLength = stored.length - LZ4_HEADER_LENGTH;
+        int length = Ints.fromBytes(
+                stored[HEADER_LENGTH], stored[HEADER_LENGTH + 1], stored[HEADER_LENGTH + 2], stored[HEADER_LENGTH + 3]);
+        if (length < 0 || length > (long) compressedLength * MAX_LZ4_EXPANSION) {
+            throw new SafeIllegalStateException("Compressed value has an impossible uncompressed length",
+                    SafeArg.of("length", length),
+                    SafeArg.of("compressedLength", compressedLength));
+        }
+        byte[] value = new byte[length];
+        int decompressedLength = LZ4_DECOMPRESSOR.decompress(stored, LZ4_HEADER_LENGTH, compressedLength, value, 0);
+        if (decompressedLength != length) {
+            throw new SafeIllegalStateException("Compressed value did not decompress to its recorded length",
+                    SafeArg.of("length", length),
+                    SafeArg.of("decompressedLength", decompressedLength));
+        }
+        return value;
+    }
+}
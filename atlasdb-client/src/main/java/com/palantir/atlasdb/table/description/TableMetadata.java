@@ -25,13 +25,17 @@ import com.palantir.atlasdb.protos.generated.TableMetadataPersistence;
 import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.CachePriority;
 import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.LogSafety;
 import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.SweepStrategy;
+import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.ValueCompression;
 import com.palantir.atlasdb.transaction.api.ConflictHandler;
 import com.palantir.common.base.Throwables;
 import com.palantir.common.persist.Persistable;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
 
 @Value.Immutable
 @Value.Style(get = {"get*", "is*", "has*"})
 public abstract class TableMetadata implements Persistable {
+    public static final int DEFAULT_VALUE_COMPRESSION_THRESHOLD_BYTES = 256;
 
     @Value.Default
     public NameMetadataDescription getRowMetadata() {
@@ -92,6 +96,33 @@ public abstract class TableMetadata implements Persistable {
         return false;
     }
 
+    /**
+     * @return how whole stored values of the table are compressed by a
+     * {@link com.palantir.atlasdb.keyvalue.impl.CompressingKeyValueService}. Unlike column value compression, this
+     * also applies to tables written through the raw key value service and to dynamic column tables. It can only be
+     * chosen when the table is created, and tables using it must only be accessed through that key value service.
+     */
+    @Value.Default
+    public ValueCompression getValueCompression() {
+        return ValueCompression.UNCOMPRESSED;
+    }
+
+    /**
+     * @return the size below which values are stored uncompressed even if {@link #getValueCompression()} is set, as
+     * compressing small values rarely saves enough to pay for itself.
+     */
+    @Value.Default
+    public int getValueCompressionThresholdBytes() {
+        return DEFAULT_VALUE_COMPRESSION_THRESHOLD_BYTES;
+    }
+
+    @Value.Check
+    protected void check() {
+        Preconditions.checkArgument(getValueCompressionThresholdBytes() >= 0,
+                "Value compression threshold must be non-negative",
+                SafeArg.of("valueCompressionThresholdBytes", getValueCompressionThresholdBytes()));
+    }
+
     public static TableMetadata allDefault() {
         return builder().build();
     }
@@ -168,6 +199,12 @@ public abstract class TableMetadata implements Persistable {
         if (hasDenselyAccessedWideRows()) {
             builder.setDenselyAccessedWideRows(hasDenselyAccessedWideRows());
         }
+        if (getValueCompression() != ValueCompression.UNCOMPRESSED) {
+            builder.setValueCompression(getValueCompression());
+        }
+        if (getValueCompressionThresholdBytes() != DEFAULT_VALUE_COMPRESSION_THRESHOLD_BYTES) {
+            builder.setValueCompressionThresholdBytes(getValueCompressionThresholdBytes());
+        }
         return builder;
     }
 
@@ -201,6 +238,12 @@ public abstract class TableMetadata implements Persistable {
         if (message.hasDenselyAccessedWideRows()) {
             builder.denselyAccessedWideRows(message.getDenselyAccessedWideRows());
         }
+        if (message.hasValueCompression()) {
+            builder.valueCompression(message.getValueCompression());
+        }
+        if (message.hasValueCompressionThresholdBytes()) {
+            builder.valueCompressionThresholdBytes(message.getValueCompressionThresholdBytes());
+        }
 
         return builder.build();
     }
@@ -0,0 +1,146 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.CheckAndSetException;
+import com.palantir.atlasdb.keyvalue.api.CheckAndSetRequest;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.ValueCompression;
+import com.palantir.atlasdb.table.description.TableMetadata;
+import com.palantir.common.base.ClosableIterator;
+import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
+
+public class CompressingKeyValueServiceTest {
+    private static final TableReference TABLE = TableReference.createFromFullyQualifiedName("test.compressed");
+    private static final Cell CELL = Cell.create(PtBytes.toBytes("row"), PtBytes.toBytes("col"));
+    private static final long TIMESTAMP = 10L;
+    private static final byte[] VALUE = repeated(4096);
+    private static final byte[] LZ4_METADATA =
+            TableMetadata.builder().valueCompression(ValueCompression.LZ4).build().persistToBytes();
+
+    private final KeyValueService rawKvs = new InMemoryKeyValueService(false);
+    private final KeyValueService kvs = CompressingKeyValueService.create(rawKvs);
+
+    @After
+    public void after() {
+        kvs.close();
+    }
+
+    @Test
+    public void compressesValuesOfTablesWithValueCompression() {
+        kvs.createTable(TABLE, LZ4_METADATA);
+        kvs.put(TABLE, ImmutableMap.of(CELL, VALUE), TIMESTAMP);
+
+        assertThat(readValue(rawKvs).length).isLessThan(VALUE.length);
+        assertThat(readValue(kvs)).isEqualTo(VALUE);
+        try (ClosableIterator<RowResult<Value>> range = kvs.getRange(TABLE, RangeRequest.all(), Long.MAX_VALUE)) {
+            assertThat(range.next().getOnlyColumnValue().getContents()).isEqualTo(VALUE);
+        }
+    }
+
+    @Test
+    public void storesValuesOfOtherTablesUnchanged() {
+        kvs.createTable(TABLE, TableMetadata.allDefault().persistToBytes());
+        kvs.put(TABLE, ImmutableMap.of(CELL, VALUE), TIMESTAMP);
+
+        assertThat(readValue(rawKvs)).isEqualTo(VALUE);
+        assertThat(readValue(kvs)).isEqualTo(VALUE);
+    }
+
+    @Test
+    public void doesNotDecodeValuesOfOtherTables() {
+        byte[] encodedLookingValue = compressedValue();
+        kvs.createTable(TABLE, TableMetadata.allDefault().persistToBytes());
+        kvs.put(TABLE, ImmutableMap.of(CELL, encodedLookingValue), TIMESTAMP);
+
+        assertThat(readValue(rawKvs)).isEqualTo(encodedLookingValue);
+        assertThat(readValue(kvs)).isEqualTo(encodedLookingValue);
+    }
+
+    @Test
+    public void decodesCompressedValuesEvenIfWritesAreNotCompressed() {
+        kvs.createTable(TABLE, LZ4_METADATA);
+        kvs.put(TABLE, ImmutableMap.of(CELL, VALUE), TIMESTAMP);
+        KeyValueService decodingKvs = CompressingKeyValueService.create(rawKvs, false);
+        decodingKvs.put(TABLE, ImmutableMap.of(CELL, VALUE), TIMESTAMP + 1);
+
+        assertThat(readValue(rawKvs)).isEqualTo(VALUE);
+        assertThat(readValue(decodingKvs)).isEqualTo(VALUE);
+        assertThat(decodingKvs.get(TABLE, ImmutableMap.of(CELL, TIMESTAMP + 1)).get(CELL).getContents())
+                .isEqualTo(VALUE);
+    }
+
+    @Test
+    public void rejectsChangingValueCompressionOfExistingTables() {
+        kvs.createTable(TABLE, TableMetadata.allDefault().persistToBytes());
+
+        assertThatThrownBy(() -> kvs.putMetadataForTable(TABLE, LZ4_METADATA))
+                .isInstanceOf(SafeIllegalArgumentException.class);
+        assertThatThrownBy(() -> kvs.createTables(ImmutableMap.of(TABLE, LZ4_METADATA)))
+                .isInstanceOf(SafeIllegalArgumentException.class);
+        kvs.putMetadataForTable(TABLE, TableMetadata.allDefault().persistToBytes());
+    }
+
+    @Test
+    public void checkAndSetComparesUncompressedValues() {
+        kvs.createTable(TABLE, LZ4_METADATA);
+        byte[] otherValue = Arrays.copyOf(VALUE, VALUE.length + 1);
+        kvs.checkAndSet(CheckAndSetRequest.newCell(TABLE, CELL, VALUE));
+        kvs.checkAndSet(CheckAndSetRequest.singleCell(TABLE, CELL, VALUE, otherValue));
+
+        assertThatThrownBy(() -> kvs.checkAndSet(CheckAndSetRequest.singleCell(TABLE, CELL, VALUE, VALUE)))
+                .isInstanceOfSatisfying(CheckAndSetException.class,
+                        exception -> assertThat(exception.getActualValues()).containsExactly(otherValue));
+    }
+
+    private static byte[] readValue(KeyValueService keyValueService) {
+        Map<Cell, Value> values = keyValueService.get(TABLE, ImmutableMap.of(CELL, Long.MAX_VALUE));
+        return values.get(CELL).getContents();
+    }
+
+    private static byte[] compressedValue() {
+        KeyValueService otherRawKvs = new InMemoryKeyValueService(false);
+        KeyValueService otherKvs = CompressingKeyValueService.create(otherRawKvs);
+        otherKvs.createTable(TABLE, LZ4_METADATA);
+        otherKvs.put(TABLE, ImmutableMap.of(CELL, VALUE), TIMESTAMP);
+        byte[] stored = readValue(otherRawKvs);
+        otherKvs.close();
+        return stored;
+    }
+
+    private static byte[] repeated(int length) {
+        byte[] value = new byte[length];
+        Arrays.fill(value, (byte) 7);
+        return value;
+    }
+}
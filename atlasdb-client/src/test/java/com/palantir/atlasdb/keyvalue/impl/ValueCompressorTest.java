@@ -0,0 +1,127 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.ValueCompression;
+import com.palantir.atlasdb.table.description.TableMetadata;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+
+public class ValueCompressorTest {
+    private static final int THRESHOLD = 64;
+    private static final byte[] LZ4_METADATA = TableMetadata.builder()
+            .valueCompression(ValueCompression.LZ4)
+            .valueCompressionThresholdBytes(THRESHOLD)
+            .build()
+            .persistToBytes();
+    private static final ValueCompressor LZ4 = ValueCompressor.fromMetadata(LZ4_METADATA, true);
+
+    @Test
+    public void compressesLargeCompressibleValues() {
+        byte[] value = repeated(10 * THRESHOLD);
+        byte[] encoded = LZ4.encode(value);
+
+        assertThat(encoded.length).isLessThan(value.length);
+        assertThat(LZ4.decode(encoded)).isEqualTo(value);
+    }
+
+    @Test
+    public void doesNotCompressValuesBelowThreshold() {
+        byte[] value = repeated(THRESHOLD - 1);
+
+        assertThat(LZ4.encode(value)).isSameAs(value);
+    }
+
+    @Test
+    public void doesNotCompressIncompressibleValues() {
+        byte[] value = new byte[10 * THRESHOLD];
+        new Random(0).nextBytes(value);
+
+        assertThat(LZ4.encode(value)).isSameAs(value);
+    }
+
+    @Test
+    public void decodesButDoesNotCompressIfWritesAreNotCompressed() {
+        ValueCompressor decodeOnly = ValueCompressor.fromMetadata(LZ4_METADATA, false);
+        byte[] value = repeated(10 * THRESHOLD);
+
+        assertThat(decodeOnly.isPassThrough()).isFalse();
+        assertThat(decodeOnly.encode(value)).isSameAs(value);
+        assertThat(decodeOnly.decode(LZ4.encode(value))).isEqualTo(value);
+    }
+
+    @Test
+    public void tablesAreUncompressedByDefault() {
+        assertThat(ValueCompressor.fromMetadata(TableMetadata.allDefault().persistToBytes(), true))
+                .isSameAs(ValueCompressor.PASS_THROUGH);
+        assertThat(ValueCompressor.fromMetadata(new byte[0], true)).isSameAs(ValueCompressor.PASS_THROUGH);
+
+        byte[] value = repeated(10 * THRESHOLD);
+        assertThat(ValueCompressor.PASS_THROUGH.encode(value)).isSameAs(value);
+    }
+
+    @Test
+    public void passesValuesThatLookEncodedThroughUntouchedForOtherTables() {
+        byte[] value = LZ4.encode(repeated(10 * THRESHOLD));
+
+        assertThat(ValueCompressor.PASS_THROUGH.escape(value)).isSameAs(value);
+        assertThat(ValueCompressor.PASS_THROUGH.decode(value)).isSameAs(value);
+    }
+
+    @Test
+    public void escapesValuesThatLookEncoded() {
+        byte[] value = LZ4.encode(repeated(10 * THRESHOLD));
+        byte[] escaped = LZ4.escape(value);
+
+        assertThat(escaped).isNotEqualTo(value);
+        assertThat(LZ4.decode(escaped)).isEqualTo(value);
+        assertThat(LZ4.decode(LZ4.encode(value))).isEqualTo(value);
+    }
+
+    @Test
+    public void decodesShortAndEmptyValuesUnchanged() {
+        assertThat(LZ4.decode(new byte[0])).isEmpty();
+        assertThat(LZ4.decode(new byte[] {(byte) 0xFF, 'A'})).containsExactly((byte) 0xFF, 'A');
+    }
+
+    @Test
+    public void rejectsImpossibleUncompressedLengths() {
+        byte[] encoded = LZ4.encode(repeated(10 * THRESHOLD));
+        byte[] truncated = Arrays.copyOf(encoded, 9);
+        byte[] hugeLength = encoded.clone();
+        hugeLength[5] = 0x7F;
+        byte[] negativeLength = encoded.clone();
+        negativeLength[5] = (byte) 0x80;
+
+        for (byte[] corrupt : Arrays.asList(truncated, hugeLength, negativeLength)) {
+            assertThatThrownBy(() -> LZ4.decode(corrupt)).isInstanceOf(SafeIllegalStateException.class);
+        }
+    }
+
+    private static byte[] repeated(int length) {
+        byte[] value = new byte[length];
+        Arrays.fill(value, (byte) 7);
+        return value;
+    }
+}
@@ -16,12 +16,15 @@
 package com.palantir.atlasdb.table.description;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import org.junit.Test;
 
 import com.palantir.atlasdb.protos.generated.TableMetadataPersistence;
 import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.LogSafety;
+import com.palantir.atlasdb.protos.generated.TableMetadataPersistence.ValueCompression;
 import com.palantir.atlasdb.transaction.api.ConflictHandler;
+import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
 
 public class TableMetadataTest {
     private static final TableMetadata DEFAULT_TABLE_METADATA = TableMetadata.allDefault();
@@ -33,6 +36,8 @@ public class TableMetadataTest {
             .appendHeavyAndReadLight(true)
             .nameLogSafety(LogSafety.SAFE)
             .denselyAccessedWideRows(true)
+            .valueCompression(ValueCompression.LZ4)
+            .valueCompressionThresholdBytes(64)
             .build();
 
     @Test
@@ -40,6 +45,18 @@ public class TableMetadataTest {
         assertThat(DEFAULT_TABLE_METADATA.getNameLogSafety()).isEqualTo(LogSafety.UNSAFE);
     }
 
+    @Test
+    public void valuesAreUncompressedByDefault() {
+        assertThat(DEFAULT_TABLE_METADATA.getValueCompression()).isEqualTo(ValueCompression.UNCOMPRESSED);
+        assertThat(DEFAULT_TABLE_METADATA.persistToProto().hasValueCompression()).isFalse();
+    }
+
+    @Test
+    public void rejectsNegativeValueCompressionThreshold() {
+        assertThatThrownBy(() -> TableMetadata.builder().valueCompressionThresholdBytes(-1).build())
+                .isInstanceOf(SafeIllegalArgumentException.class);
+    }
+
     @Test
     public void canSerializeAndDeserializeDefaultMetadata() {
         assertCanSerializeAndDeserialize(DEFAULT_TABLE_METADATA);
@@ -175,6 +175,16 @@ public abstract class AtlasDbConfig {
         return AtlasDbConstants.DEFAULT_INITIALIZE_ASYNC;
     }
 
+    /**
+     * If true, values of tables whose {@link com.palantir.atlasdb.table.description.TableMetadata} asks for value
+     * compression are compressed before they are written to the key value service. Values of those tables are always
+     * decompressed when read, so this can be turned off again at any time; values of other tables are never touched.
+     */
+    @Value.Default
+    public boolean compressTableValues() {
+        return AtlasDbConstants.DEFAULT_COMPRESS_TABLE_VALUES;
+    }
+
     /**
      * Install time configurations for targeted sweep.
      */
@@ -139,7 +139,7 @@ public final class Leaders {
 
         PaxosAcceptor ourAcceptor = AtlasDbMetrics.instrumentTimed(metricsManager.getRegistry(),
                 PaxosAcceptor.class,
-                PaxosAcceptorImpl.newAcceptor(config.acceptorLogDir().getPath()));
+                PaxosAcceptorImpl.newAcceptor(config.acceptorLogDir().getPath(), config.leaderLease()));
         PaxosLearner ourLearner = AtlasDbMetrics.instrumentTimed(metricsManager.getRegistry(),
                 PaxosLearner.class,
                 PaxosLearnerImpl.newLearner(config.learnerLogDir().getPath(), leadershipEventRecorder));
@@ -201,6 +201,7 @@ public final class Leaders {
                 .decorateProposer(proposer ->
                         AtlasDbMetrics.instrumentTimed(metricsManager.getRegistry(), PaxosProposer.class, proposer))
                 .leaderAddressCacheTtl(config.leaderAddressCacheTtl())
+                .leaderLeaseDuration(config.leaderLease())
                 .build();
 
         LeaderElectionService leaderElectionService = AtlasDbMetrics.instrumentTimed(
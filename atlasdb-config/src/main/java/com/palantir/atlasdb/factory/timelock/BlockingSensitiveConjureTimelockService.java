@@ -18,6 +18,8 @@ package com.palantir.atlasdb.factory.timelock;
 
 import com.palantir.atlasdb.timelock.api.ConjureGetFreshTimestampsRequest;
 import com.palantir.atlasdb.timelock.api.ConjureGetFreshTimestampsResponse;
+import com.palantir.atlasdb.timelock.api.ConjureLockBatchRequest;
+import com.palantir.atlasdb.timelock.api.ConjureLockBatchResponse;
 import com.palantir.atlasdb.timelock.api.ConjureLockRequest;
 import com.palantir.atlasdb.timelock.api.ConjureLockResponse;
 import com.palantir.atlasdb.timelock.api.ConjureRefreshLocksRequest;
@@ -69,6 +71,12 @@ public final class BlockingSensitiveConjureTimelockService implements ConjureTim
         return blocking.lock(authHeader, namespace, request);
     }
 
+    @Override
+    public ConjureLockBatchResponse lockBatch(AuthHeader authHeader, String namespace,
+            ConjureLockBatchRequest request) {
+        return blocking.lockBatch(authHeader, namespace, request);
+    }
+
     @Override
     public ConjureWaitForLocksResponse waitForLocks(AuthHeader authHeader, String namespace,
             ConjureLockRequest request) {
@@ -20,7 +20,9 @@ import java.time.Duration;
 import java.util.Optional;
 import java.util.function.Supplier;
 
+import com.codahale.metrics.Meter;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
 import com.palantir.atlasdb.config.AuxiliaryRemotingParameters;
 import com.palantir.atlasdb.config.ServerListConfig;
 import com.palantir.atlasdb.http.v2.ConjureJavaRuntimeTargetFactory;
@@ -60,7 +62,8 @@ public final class AtlasDbHttpClients {
             AuxiliaryRemotingParameters parameters) {
         Supplier<T> clientFactory = () -> instrument(
                 metricsManager.getTaggedRegistry(),
-                ConjureJavaRuntimeTargetFactory.DEFAULT.createProxyWithFailover(serverListConfig, type, parameters),
+                ConjureJavaRuntimeTargetFactory.DEFAULT.createProxyWithFailover(
+                        serverListConfig, type, parameters, redirectMeter(metricsManager, type)::mark),
                 type);
         return wrapWithOkHttpBugHandling(type, clientFactory);
     }
@@ -75,7 +78,8 @@ public final class AtlasDbHttpClients {
                 ConjureJavaRuntimeTargetFactory.DEFAULT.createLiveReloadingProxyWithFailover(
                         serverListConfigSupplier,
                         type,
-                        clientParameters),
+                        clientParameters,
+                        redirectMeter(metricsManager, type)::mark),
                 type);
         return wrapWithOkHttpBugHandling(type, clientFactory);
     }
@@ -94,6 +98,18 @@ public final class AtlasDbHttpClients {
         return wrapWithOkHttpBugHandling(type, clientFactory);
     }
 
+    /**
+     * Marked for every {@code 308} response the HTTP client receives, i.e. every request that reached a node other
+     * than the leader, whether the client then followed the redirect or the failover proxy retried the request. This
+     * spikes after a failover while clients find the new leader, and stays high while no leader can be elected.
+     */
+    private static Meter redirectMeter(MetricsManager metricsManager, Class<?> type) {
+        return metricsManager.registerOrGetTaggedMeter(
+                AtlasDbHttpClients.class,
+                "leaderRedirects",
+                ImmutableMap.of("serviceName", type.getSimpleName()));
+    }
+
     private static <T> T instrument(
             TaggedMetricRegistry taggedMetricRegistry,
             TargetFactory.InstanceAndVersion<T> client,
@@ -30,6 +30,7 @@ import com.palantir.conjure.java.api.config.service.UserAgent;
 import com.palantir.conjure.java.client.config.ClientConfiguration;
 import com.palantir.conjure.java.client.jaxrs.JaxRsClient;
 import com.palantir.conjure.java.config.ssl.TrustContext;
+import com.palantir.conjure.java.okhttp.HostEventsSink;
 import com.palantir.conjure.java.okhttp.HostMetricsRegistry;
 import com.palantir.util.CachedTransformingSupplier;
 
@@ -67,9 +68,22 @@ public final class ConjureJavaRuntimeTargetFactory implements TargetFactory {
             ServerListConfig serverListConfig,
             Class<T> type,
             AuxiliaryRemotingParameters parameters) {
+        return createProxyWithFailover(serverListConfig, type, parameters, () -> { });
+    }
+
+    /**
+     * As {@link #createProxyWithFailover(ServerListConfig, Class, AuxiliaryRemotingParameters)}, but runs the
+     * supplied listener for every {@code 308} response the client receives, whether the client follows the redirect
+     * itself or the failover proxy retries the request.
+     */
+    public <T> InstanceAndVersion<T> createProxyWithFailover(
+            ServerListConfig serverListConfig,
+            Class<T> type,
+            AuxiliaryRemotingParameters parameters,
+            Runnable redirectListener) {
         // It doesn't make sense to create a proxy with the capacity to failover that doesn't retry.
         ClientOptions clientOptions = getClientOptionsForFailoverProxy(parameters);
-        return createFailoverProxy(serverListConfig, type, parameters, clientOptions);
+        return createFailoverProxy(serverListConfig, type, parameters, clientOptions, redirectListener);
     }
 
     @Override
@@ -77,13 +91,27 @@ public final class ConjureJavaRuntimeTargetFactory implements TargetFactory {
             Supplier<ServerListConfig> serverListConfigSupplier,
             Class<T> type,
             AuxiliaryRemotingParameters parameters) {
+        return createLiveReloadingProxyWithFailover(serverListConfigSupplier, type, parameters, () -> { });
+    }
+
+    /**
+     * As {@link #createLiveReloadingProxyWithFailover(Supplier, Class, AuxiliaryRemotingParameters)}, but runs the
+     * supplied listener for every {@code 308} response the client receives, whether the client follows the redirect
+     * itself or the failover proxy retries the request.
+     */
+    public <T> InstanceAndVersion<T> createLiveReloadingProxyWithFailover(
+            Supplier<ServerListConfig> serverListConfigSupplier,
+            Class<T> type,
+            AuxiliaryRemotingParameters parameters,
+            Runnable redirectListener) {
         ClientOptions options = getClientOptionsForFailoverProxy(parameters);
+        HostEventsSink hostEventsSink = redirectCountingHostEventsSink(redirectListener);
         Supplier<T> clientSupplier = new CachedTransformingSupplier<>(
                 serverListConfigSupplier,
                 serverListConfig -> JaxRsClient.create(
                         type,
                         addAtlasDbRemotingAgent(parameters.userAgent()),
-                        HOST_METRICS_REGISTRY,
+                        hostEventsSink,
                         options.serverListToClient(serverListConfig)));
 
         return decorateFailoverProxy(type, clientSupplier);
@@ -93,20 +121,22 @@ public final class ConjureJavaRuntimeTargetFactory implements TargetFactory {
             ServerListConfig serverListConfig,
             Class<T> type,
             AuxiliaryRemotingParameters parameters) {
-        return createFailoverProxy(serverListConfig, type, parameters, ClientOptions.FAST_RETRYING_FOR_TEST);
+        return createFailoverProxy(
+                serverListConfig, type, parameters, ClientOptions.FAST_RETRYING_FOR_TEST, () -> { });
     }
 
     private <T> InstanceAndVersion<T> createFailoverProxy(
             ServerListConfig serverListConfig,
             Class<T> type,
             AuxiliaryRemotingParameters parameters,
-            ClientOptions clientOptions) {
+            ClientOptions clientOptions,
+            Runnable redirectListener) {
         ClientConfiguration clientConfiguration = clientOptions.serverListToClient(serverListConfig);
 
         T client = JaxRsClient.create(
                 type,
                 addAtlasDbRemotingAgent(parameters.userAgent()),
-                HOST_METRICS_REGISTRY,
+                redirectCountingHostEventsSink(redirectListener),
                 clientConfiguration);
         return decorateFailoverProxy(type, () -> client);
     }
@@ -115,6 +145,10 @@ public final class ConjureJavaRuntimeTargetFactory implements TargetFactory {
         return wrapWithVersion(FastFailoverProxy.newProxyInstance(type, client));
     }
 
+    private static HostEventsSink redirectCountingHostEventsSink(Runnable redirectListener) {
+        return new RedirectCountingHostEventsSink(HOST_METRICS_REGISTRY, redirectListener);
+    }
+
     private static UserAgent addAtlasDbRemotingAgent(UserAgent agent) {
         return agent.addAgent(AtlasDbRemotingConstants.ATLASDB_HTTP_CLIENT_AGENT);
     }
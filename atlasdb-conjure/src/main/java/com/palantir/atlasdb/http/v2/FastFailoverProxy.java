@@ -23,6 +23,9 @@ import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import org.immutables.value.Value;
@@ -30,6 +33,7 @@ import org.immutables.value.Value;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.reflect.AbstractInvocationHandler;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.palantir.common.base.Throwables;
 import com.palantir.conjure.java.api.errors.QosException;
 
@@ -39,26 +43,42 @@ import feign.RetryableException;
  * This proxy exists to support "fast failover" behaviour with no limit as to the number of attempts made; instead,
  * we use a time limit. This exists to support perpetual {@code 308} responses from servers, which may happen if
  * leader election is still taking place.
+ *
+ * When leadership changes, every client is redirected at once, and keeps being redirected until a new leader has been
+ * elected. Retries are therefore spaced out by exponentially growing delays with full jitter, so that clients do not
+ * keep retrying against the cluster in lockstep throughout the election.
  */
 public final class FastFailoverProxy<T> extends AbstractInvocationHandler {
     private static final Duration TIME_LIMIT = Duration.ofSeconds(10);
 
+    @VisibleForTesting
+    static final Duration BACKOFF_SLOT_SIZE = Duration.ofMillis(10);
+    @VisibleForTesting
+    static final Duration MAX_BACKOFF = Duration.ofMillis(500);
+    private static final int MAX_BACKOFF_EXPONENT = 16;
+
     private final Supplier<T> delegate;
     private final Clock clock;
+    private final Consumer<Duration> backoff;
 
-    private FastFailoverProxy(Supplier<T> delegate, Clock clock) {
+    private FastFailoverProxy(Supplier<T> delegate, Clock clock, Consumer<Duration> backoff) {
         this.delegate = delegate;
         this.clock = clock;
+        this.backoff = backoff;
     }
 
     public static <U> U newProxyInstance(Class<U> interfaceClass, Supplier<U> delegate) {
-        return newProxyInstance(interfaceClass, delegate, Clock.systemUTC());
+        return newProxyInstance(interfaceClass, delegate, Clock.systemUTC(), FastFailoverProxy::sleep);
     }
 
     @VisibleForTesting
     @SuppressWarnings("unchecked") // Class guaranteed to be correct
-    static <U> U newProxyInstance(Class<U> interfaceClass, Supplier<U> delegate, Clock clock) {
-        FastFailoverProxy<U> proxy = new FastFailoverProxy<>(delegate, clock);
+    static <U> U newProxyInstance(
+            Class<U> interfaceClass,
+            Supplier<U> delegate,
+            Clock clock,
+            Consumer<Duration> backoff) {
+        FastFailoverProxy<U> proxy = new FastFailoverProxy<>(delegate, clock, backoff);
 
         return (U) Proxy.newProxyInstance(
                 interfaceClass.getClassLoader(),
@@ -70,12 +90,14 @@ public final class FastFailoverProxy<T> extends AbstractInvocationHandler {
     protected Object handleInvocation(Object proxy, Method method, Object[] args) throws Throwable {
         Instant lastRetryInstant = clock.instant().plus(TIME_LIMIT);
         ResultOrThrowable attempt = singleInvocation(method, args);
+        int retries = 0;
         while (clock.instant().isBefore(lastRetryInstant) && !attempt.isSuccessful()) {
             Throwable cause = attempt.throwable().get();
             ResultOrThrowable fastFailoverCheck = isRetriable(cause);
             if (!fastFailoverCheck.isSuccessful()) {
                 throw fastFailoverCheck.throwable().get();
             }
+            backoff.accept(backoffBeforeRetry(retries++));
             attempt = singleInvocation(method, args);
         }
         if (attempt.isSuccessful()) {
@@ -84,6 +106,18 @@ public final class FastFailoverProxy<T> extends AbstractInvocationHandler {
         throw Throwables.unwrapIfPossible(attempt.throwable().get());
     }
 
+    @VisibleForTesting
+    static Duration backoffBeforeRetry(int retries) {
+        long maxBackoffNanos = Math.min(
+                MAX_BACKOFF.toNanos(),
+                BACKOFF_SLOT_SIZE.toNanos() << Math.min(retries, MAX_BACKOFF_EXPONENT));
+        return Duration.ofNanos(ThreadLocalRandom.current().nextLong(maxBackoffNanos + 1));
+    }
+
+    private static void sleep(Duration duration) {
+        Uninterruptibles.sleepUninterruptibly(duration.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
     private ResultOrThrowable singleInvocation(Method method, Object[] args) {
         try {
             return ResultOrThrowable.success(method.invoke(delegate.get(), args));
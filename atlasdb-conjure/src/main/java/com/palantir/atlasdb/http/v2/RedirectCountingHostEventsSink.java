@@ -0,0 +1,49 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.http.v2;
+
+import com.palantir.conjure.java.okhttp.HostEventsSink;
+
+/**
+ * Passes every host event on to a delegate, and additionally runs a listener for each {@code 308} response. The HTTP
+ * client reports every response it receives here, including the redirects it goes on to follow by itself, so this
+ * sees every redirect, not only the ones that reach the {@link FastFailoverProxy}.
+ */
+final class RedirectCountingHostEventsSink implements HostEventsSink {
+    private static final int PERMANENT_REDIRECT = 308;
+
+    private final HostEventsSink delegate;
+    private final Runnable redirectListener;
+
+    RedirectCountingHostEventsSink(HostEventsSink delegate, Runnable redirectListener) {
+        this.delegate = delegate;
+        this.redirectListener = redirectListener;
+    }
+
+    @Override
+    public void record(String serviceName, String hostname, int port, int statusCode, long micros) {
+        delegate.record(serviceName, hostname, port, statusCode, micros);
+        if (statusCode == PERMANENT_REDIRECT) {
+            redirectListener.run();
+        }
+    }
+
+    @Override
+    public void recordIoException(String serviceName, String hostname, int port) {
+        delegate.recordIoException(serviceName, hostname, port);
+    }
+}
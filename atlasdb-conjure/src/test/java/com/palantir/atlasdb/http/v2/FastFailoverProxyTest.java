@@ -29,7 +29,10 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.sql.Date;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BinaryOperator;
 import java.util.function.LongConsumer;
@@ -47,6 +50,7 @@ public class FastFailoverProxyTest {
     private final BinaryOperator<Integer> binaryOperator = mock(BinaryOperator.class);
     private final Clock clock = mock(Clock.class);
     private final AtomicLong time = new AtomicLong();
+    private final List<Duration> backoffs = new CopyOnWriteArrayList<>();
 
     private BinaryOperator<Integer> proxy;
 
@@ -88,6 +92,40 @@ public class FastFailoverProxyTest {
         verify(binaryOperator, times(5)).apply(1, 2);
     }
 
+    @Test
+    public void backsOffBeforeEachRetry() {
+        RetryableException retryableException = createRetryableException(QosException.retryOther(createUrl()));
+        when(binaryOperator.apply(1, 2))
+                .thenThrow(retryableException)
+                .thenThrow(retryableException)
+                .thenThrow(retryableException)
+                .thenReturn(3);
+
+        assertThat(proxy.apply(1, 2)).isEqualTo(3);
+        assertThat(backoffs).hasSize(3);
+        for (int retry = 0; retry < backoffs.size(); retry++) {
+            assertThat(backoffs.get(retry))
+                    .isLessThanOrEqualTo(FastFailoverProxy.BACKOFF_SLOT_SIZE.multipliedBy(1 << retry));
+        }
+    }
+
+    @Test
+    public void doesNotBackOffWithoutRetrying() {
+        when(binaryOperator.apply(1, 2)).thenReturn(3);
+
+        assertThat(proxy.apply(1, 2)).isEqualTo(3);
+        assertThat(backoffs).isEmpty();
+    }
+
+    @Test
+    public void backoffIsCapped() {
+        for (int retries = 0; retries < 100; retries++) {
+            assertThat(FastFailoverProxy.backoffBeforeRetry(retries))
+                    .isGreaterThanOrEqualTo(Duration.ZERO)
+                    .isLessThanOrEqualTo(FastFailoverProxy.MAX_BACKOFF);
+        }
+    }
+
     @Test
     public void eventuallyGivesUpFromRetryingRetryOther() {
         RetryableException retryableException = createRetryableException(QosException.retryOther(createUrl()));
@@ -103,7 +141,8 @@ public class FastFailoverProxyTest {
         RetryableException retryableException = createRetryableException(QosException.retryOther(createUrl()));
         doThrow(retryableException).doNothing().when(longConsumer).accept(42L);
 
-        LongConsumer proxyConsumer = FastFailoverProxy.newProxyInstance(LongConsumer.class, () -> longConsumer, clock);
+        LongConsumer proxyConsumer = FastFailoverProxy.newProxyInstance(
+                LongConsumer.class, () -> longConsumer, clock, backoffs::add);
         assertThatCode(() -> proxyConsumer.accept(42L)).doesNotThrowAnyException();
         verify(longConsumer, times(2)).accept(42L);
     }
@@ -148,7 +187,7 @@ public class FastFailoverProxyTest {
     }
 
     private void createProxy() {
-        proxy = FastFailoverProxy.newProxyInstance(BinaryOperator.class, () -> binaryOperator, clock);
+        proxy = FastFailoverProxy.newProxyInstance(BinaryOperator.class, () -> binaryOperator, clock, backoffs::add);
     }
 
 
@@ -0,0 +1,63 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.http.v2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.palantir.conjure.java.okhttp.HostEventsSink;
+
+public class RedirectCountingHostEventsSinkTest {
+    private static final String SERVICE = "timelock";
+    private static final String HOST = "host";
+    private static final int PORT = 8421;
+
+    private final HostEventsSink delegate = mock(HostEventsSink.class);
+    private final AtomicLong redirects = new AtomicLong();
+    private final HostEventsSink sink = new RedirectCountingHostEventsSink(delegate, redirects::incrementAndGet);
+
+    @Test
+    public void countsRedirects() {
+        sink.record(SERVICE, HOST, PORT, 308, 1);
+        sink.record(SERVICE, HOST, PORT, 308, 1);
+
+        assertThat(redirects).hasValue(2);
+    }
+
+    @Test
+    public void doesNotCountOtherResponses() {
+        sink.record(SERVICE, HOST, PORT, 200, 1);
+        sink.record(SERVICE, HOST, PORT, 503, 1);
+        sink.recordIoException(SERVICE, HOST, PORT);
+
+        assertThat(redirects).hasValue(0);
+    }
+
+    @Test
+    public void passesEventsToDelegate() {
+        sink.record(SERVICE, HOST, PORT, 308, 1);
+        sink.recordIoException(SERVICE, HOST, PORT);
+
+        verify(delegate).record(SERVICE, HOST, PORT, 308, 1);
+        verify(delegate).recordIoException(SERVICE, HOST, PORT);
+    }
+}
@@ -20,6 +20,8 @@ import java.util.Optional;
 
 import com.palantir.atlasdb.timelock.api.ConjureGetFreshTimestampsRequest;
 import com.palantir.atlasdb.timelock.api.ConjureGetFreshTimestampsResponse;
+import com.palantir.atlasdb.timelock.api.ConjureLockBatchRequest;
+import com.palantir.atlasdb.timelock.api.ConjureLockBatchResponse;
 import com.palantir.atlasdb.timelock.api.ConjureLockRequest;
 import com.palantir.atlasdb.timelock.api.ConjureLockResponse;
 import com.palantir.atlasdb.timelock.api.ConjureRefreshLocksRequest;
@@ -75,20 +77,21 @@ public class LockDiagnosticConjureTimelockService implements ConjureTimelockServ
 
     @Override
     public ConjureLockResponse lock(AuthHeader authHeader, String namespace, ConjureLockRequest request) {
-        request.getClientDescription()
-                .flatMap(LockDiagnosticConjureTimelockService::tryParseStartTimestamp)
-                .ifPresent(startTimestamp -> lockDiagnosticCollector.collect(
-                        startTimestamp, request.getRequestId(), request.getLockDescriptors()));
+        collectLockRequest(request);
         return conjureDelegate.lock(authHeader, namespace, request);
     }
 
+    @Override
+    public ConjureLockBatchResponse lockBatch(AuthHeader authHeader, String namespace,
+            ConjureLockBatchRequest request) {
+        request.getRequests().forEach(this::collectLockRequest);
+        return conjureDelegate.lockBatch(authHeader, namespace, request);
+    }
+
     @Override
     public ConjureWaitForLocksResponse waitForLocks(AuthHeader authHeader, String namespace,
             ConjureLockRequest request) {
-        request.getClientDescription()
-                .flatMap(LockDiagnosticConjureTimelockService::tryParseStartTimestamp)
-                .ifPresent(startTimestamp -> lockDiagnosticCollector.collect(
-                        startTimestamp, request.getRequestId(), request.getLockDescriptors()));
+        collectLockRequest(request);
         return conjureDelegate.waitForLocks(authHeader, namespace, request);
     }
 
@@ -109,6 +112,13 @@ public class LockDiagnosticConjureTimelockService implements ConjureTimelockServ
         return conjureDelegate.getCommitTimestamps(authHeader, namespace, request);
     }
 
+    private void collectLockRequest(ConjureLockRequest request) {
+        request.getClientDescription()
+                .flatMap(LockDiagnosticConjureTimelockService::tryParseStartTimestamp)
+                .ifPresent(startTimestamp -> lockDiagnosticCollector.collect(
+                        startTimestamp, request.getRequestId(), request.getLockDescriptors()));
+    }
+
     private static Optional<Long> tryParseStartTimestamp(String description) {
         try {
             return Optional.of(Long.parseLong(description));
@@ -0,0 +1,201 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.performance.benchmarks;
+
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.palantir.atlasdb.timelock.AsyncTimelockServiceImpl;
+import com.palantir.atlasdb.timelock.api.GetCommitTimestampsResponse;
+import com.palantir.atlasdb.timelock.lock.AsyncLockService;
+import com.palantir.atlasdb.timelock.lock.LockLog;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.lock.LockDescriptor;
+import com.palantir.lock.StringLockDescriptor;
+import com.palantir.lock.client.IdentifiedLockRequest;
+import com.palantir.lock.v2.ImmutableStartTransactionRequestV5;
+import com.palantir.lock.v2.LockResponseV2;
+import com.palantir.lock.v2.LockToken;
+import com.palantir.lock.v2.RefreshLockResponseV2;
+import com.palantir.lock.v2.StartTransactionRequestV5;
+import com.palantir.lock.v2.StartTransactionResponseV5;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import com.palantir.timestamp.PersistentTimestampServiceImpl;
+import com.palantir.timestamp.TimestampBoundStore;
+
+/**
+ * Drives {@link AsyncTimelockServiceImpl} directly, without HTTP or leader election, backed by a persistent
+ * timestamp service whose bound is stored in memory. This isolates the cost of handling timelock requests on the
+ * server, so regressions can be caught without standing up a cluster.
+ *
+ * Each benchmark is measured for throughput and sampled latency; run with the GC profiler for allocation rates.
+ */
+@Measurement(iterations = 10, time = 2)
+@Warmup(iterations = 5, time = 1)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AsyncTimelockServiceBenchmark {
+    private static final int THREADS = 16;
+    private static final int TRANSACTIONS_PER_REQUEST = 5;
+    private static final int COMMIT_TIMESTAMPS_PER_REQUEST = 5;
+    private static final int NUM_LOCK_DESCRIPTORS = 1_000_000;
+    private static final long ACQUIRE_TIMEOUT_MILLIS = 10_000;
+
+    private AsyncTimelockServiceImpl timelockService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LockLog lockLog = new LockLog(new MetricRegistry(), () -> Long.MAX_VALUE);
+        AsyncLockService lockService = AsyncLockService.createDefault(
+                lockLog,
+                PTExecutors.newSingleThreadScheduledExecutor(new NamedThreadFactory("benchmark-lock-reaper", true)),
+                PTExecutors.newSingleThreadScheduledExecutor(new NamedThreadFactory("benchmark-lock-timeouts", true)));
+        timelockService = new AsyncTimelockServiceImpl(
+                lockService,
+                PersistentTimestampServiceImpl.create(new InMemoryTimestampBoundStore()),
+                lockLog);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        timelockService.close();
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public StartTransactionResponseV5 startTransactionsWithWatches(Client client) {
+        StartTransactionRequestV5 request = ImmutableStartTransactionRequestV5.builder()
+                .requestId(UUID.randomUUID())
+                .requestorId(client.requestorId)
+                .lastKnownLockLogVersion(OptionalLong.empty())
+                .numTransactions(TRANSACTIONS_PER_REQUEST)
+                .build();
+        StartTransactionResponseV5 response = Futures.getUnchecked(
+                timelockService.startTransactionsWithWatches(request));
+        // release the immutable timestamp lock, as clients do when their transactions finish
+        timelockService.unlock(ImmutableSet.of(response.immutableTimestamp().getLock()));
+        return response;
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public GetCommitTimestampsResponse getCommitTimestamps() {
+        return Futures.getUnchecked(
+                timelockService.getCommitTimestamps(COMMIT_TIMESTAMPS_PER_REQUEST, OptionalLong.empty()));
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public Set<LockToken> lockAndUnlock() {
+        IdentifiedLockRequest request = IdentifiedLockRequest.of(
+                ImmutableSet.of(randomLockDescriptor()), ACQUIRE_TIMEOUT_MILLIS);
+        LockToken token = lock(timelockService, request);
+        return Futures.getUnchecked(timelockService.unlock(ImmutableSet.of(token)));
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public RefreshLockResponseV2 refreshLockLeases(HeldLocks heldLocks) {
+        return Futures.getUnchecked(timelockService.refreshLockLeases(heldLocks.tokens));
+    }
+
+    private static LockToken lock(AsyncTimelockServiceImpl timelockService, IdentifiedLockRequest request) {
+        return Futures.getUnchecked(timelockService.lock(request)).accept(LockResponseV2.Visitor.of(
+                LockResponseV2.Successful::getToken,
+                unsuccessful -> {
+                    throw new SafeIllegalStateException("Lock request timed out");
+                }));
+    }
+
+    private static LockDescriptor randomLockDescriptor() {
+        return StringLockDescriptor.of("lock-" + ThreadLocalRandom.current().nextInt(NUM_LOCK_DESCRIPTORS));
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private final UUID requestorId = UUID.randomUUID();
+    }
+
+    /**
+     * A handful of locks held by each benchmark thread for the duration of a trial.
+     */
+    @State(Scope.Thread)
+    public static class HeldLocks {
+        private static final AtomicLong threadIds = new AtomicLong();
+        private static final int LOCKS_PER_THREAD = 10;
+
+        private Set<LockToken> tokens;
+        private AsyncTimelockServiceImpl timelockService;
+
+        @Setup(Level.Trial)
+        public void setUp(AsyncTimelockServiceBenchmark benchmark) {
+            timelockService = benchmark.timelockService;
+            long threadId = threadIds.getAndIncrement();
+            ImmutableSet.Builder<LockToken> held = ImmutableSet.builder();
+            for (int i = 0; i < LOCKS_PER_THREAD; i++) {
+                IdentifiedLockRequest request = IdentifiedLockRequest.of(
+                        ImmutableSet.of(StringLockDescriptor.of("held-" + threadId + "-" + i)),
+                        ACQUIRE_TIMEOUT_MILLIS);
+                held.add(lock(timelockService, request));
+            }
+            tokens = held.build();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            timelockService.unlock(tokens);
+        }
+    }
+
+    private static final class InMemoryTimestampBoundStore implements TimestampBoundStore {
+        private volatile long upperLimit = 0;
+
+        @Override
+        public long getUpperLimit() {
+            return upperLimit;
+        }
+
+        @Override
+        public void storeUpperLimit(long limit) {
+            upperLimit = limit;
+        }
+    }
+}
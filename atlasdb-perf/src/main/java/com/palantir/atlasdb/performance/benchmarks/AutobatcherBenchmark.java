@@ -0,0 +1,169 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.atlasdb.performance.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
+import com.palantir.atlasdb.autobatch.Autobatchers;
+import com.palantir.atlasdb.autobatch.BatchElement;
+import com.palantir.atlasdb.autobatch.DisruptorAutobatcher;
+import com.palantir.common.streams.KeyedStream;
+
+/**
+ * Measures the overhead of {@link DisruptorAutobatcher} itself, using in-process batch functions that do a
+ * configurable amount of work per batch, so that no database or timelock server is required.
+ *
+ * Sample-time mode reports latency percentiles (p50, p99, ...) per request; throughput mode reports requests per
+ * second. Run with {@code -prof gc} to see allocation per request ({@code gc.alloc.rate.norm}); the burst benchmark is
+ * normalised per element via {@link OperationsPerInvocation}. Use {@code -t} to vary the number of submitting threads.
+ */
+@Measurement(iterations = 5, time = 5)
+@Warmup(iterations = 3, time = 2)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AutobatcherBenchmark {
+    private static final int BURST_SIZE = 64;
+    private static final int DISTINCT_KEYS = 128;
+
+    @Param({"INDEPENDENT", "COALESCING"})
+    private HandlerType handlerType;
+
+    @Param({"BLOCKING", "SLEEPING", "YIELDING", "BUSY_SPIN"})
+    private WaitStrategyType waitStrategy;
+
+    @Param({"256", "4096"})
+    private int bufferSize;
+
+    @Param({"0", "1000"})
+    private int batchFunctionTokens;
+
+    private DisruptorAutobatcher<Integer, Integer> autobatcher;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        autobatcher = handlerType.builder(batchFunctionTokens)
+                .safeLoggablePurpose("autobatcher-benchmark")
+                .bufferSize(bufferSize)
+                .waitStrategy(waitStrategy)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        autobatcher.close();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Integer singleRequest() {
+        return Futures.getUnchecked(autobatcher.apply(randomKey()));
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(BURST_SIZE)
+    public List<Integer> burstOfRequests() {
+        List<ListenableFuture<Integer>> futures = new ArrayList<>(BURST_SIZE);
+        for (int i = 0; i < BURST_SIZE; i++) {
+            futures.add(autobatcher.apply(randomKey()));
+        }
+        return Futures.getUnchecked(Futures.allAsList(futures));
+    }
+
+    private static int randomKey() {
+        return ThreadLocalRandom.current().nextInt(DISTINCT_KEYS);
+    }
+
+    public enum HandlerType {
+        INDEPENDENT {
+            @Override
+            Autobatchers.AutobatcherBuilder<Integer, Integer> builder(int batchFunctionTokens) {
+                return Autobatchers.<Integer, Integer>independent(batch -> {
+                    Blackhole.consumeCPU(batchFunctionTokens);
+                    for (BatchElement<Integer, Integer> element : batch) {
+                        element.result().set(element.argument());
+                    }
+                });
+            }
+        },
+        COALESCING {
+            @Override
+            Autobatchers.AutobatcherBuilder<Integer, Integer> builder(int batchFunctionTokens) {
+                return Autobatchers.<Integer, Integer>coalescing(keys -> identity(keys, batchFunctionTokens));
+            }
+        };
+
+        abstract Autobatchers.AutobatcherBuilder<Integer, Integer> builder(int batchFunctionTokens);
+
+        private static Map<Integer, Integer> identity(Set<Integer> keys, int batchFunctionTokens) {
+            Blackhole.consumeCPU(batchFunctionTokens);
+            return KeyedStream.of(keys).map(Function.identity()).collectToMap();
+        }
+    }
+
+    public enum WaitStrategyType implements Supplier<WaitStrategy> {
+        BLOCKING(BlockingWaitStrategy::new),
+        SLEEPING(SleepingWaitStrategy::new),
+        YIELDING(YieldingWaitStrategy::new),
+        BUSY_SPIN(BusySpinWaitStrategy::new);
+
+        private final Supplier<WaitStrategy> factory;
+
+        WaitStrategyType(Supplier<WaitStrategy> factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public WaitStrategy get() {
+            return factory.get();
+        }
+    }
+}
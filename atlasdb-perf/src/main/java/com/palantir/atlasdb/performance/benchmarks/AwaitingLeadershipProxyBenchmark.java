@@ -39,9 +39,12 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningScheduledExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.atlasdb.util.AtlasDbMetrics;
 import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.leader.LeaderElectionService;
 import com.palantir.leader.proxy.AwaitingLeadershipProxy;
+import com.palantir.processors.AutoLeadershipProxy;
+import com.palantir.tritium.metrics.registry.DefaultTaggedMetricRegistry;
 
 @Measurement(iterations = 10, time = 2)
 @Warmup(iterations = 6, time = 1)
@@ -55,6 +58,16 @@ public class AwaitingLeadershipProxyBenchmark {
                     LeaderAwareService.class,
                     () -> LeaderAwareImpl.INSTANCE,
                     FakeLeaderElectionService.INSTANCE);
+    private final ReflectiveLeaderAwareService reflectiveService =
+            AwaitingLeadershipProxy.newProxyInstance(
+                    ReflectiveLeaderAwareService.class,
+                    () -> LeaderAwareImpl.INSTANCE,
+                    FakeLeaderElectionService.INSTANCE);
+    /**
+     * Instrumented the way timelock instruments its leadership proxies, to measure what Tritium adds on top.
+     */
+    private final LeaderAwareService instrumentedService = AtlasDbMetrics.instrumentWithTaggedMetrics(
+            new DefaultTaggedMetricRegistry(), LeaderAwareService.class, service);
     private static final int ASYNC_ITERATIONS = 1000;
 
     @Benchmark
@@ -67,21 +80,57 @@ public class AwaitingLeadershipProxyBenchmark {
     @OperationsPerInvocation(ASYNC_ITERATIONS)
     @Threads(12)
     public List<Object> benchmarkAsync() {
+        return callAsync(service);
+    }
+
+    @Benchmark
+    @Threads(256)
+    public int benchmarkBlockingReflective() {
+        return reflectiveService.somethingBlocking();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ASYNC_ITERATIONS)
+    @Threads(12)
+    public List<Object> benchmarkAsyncReflective() {
+        return callAsync(reflectiveService);
+    }
+
+    @Benchmark
+    @Threads(256)
+    public int benchmarkBlockingInstrumented() {
+        return instrumentedService.somethingBlocking();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ASYNC_ITERATIONS)
+    @Threads(12)
+    public List<Object> benchmarkAsyncInstrumented() {
+        return callAsync(instrumentedService);
+    }
+
+    private static List<Object> callAsync(LeaderAwareService leaderAwareService) {
         List<ListenableFuture<?>> futures = new ArrayList<>(ASYNC_ITERATIONS);
         for (int i = 0; i < ASYNC_ITERATIONS; i++) {
-            futures.add(service.somethingAsync());
+            futures.add(leaderAwareService.somethingAsync());
         }
         ListenableFuture<List<Object>> composition = Futures.allAsList(futures);
         return Futures.getUnchecked(composition);
     }
 
-
+    @AutoLeadershipProxy
     public interface LeaderAwareService {
         int somethingBlocking();
         ListenableFuture<?> somethingAsync();
     }
 
-    private enum LeaderAwareImpl implements LeaderAwareService {
+    /**
+     * Not annotated with {@link AutoLeadershipProxy}, so proxied through reflection.
+     */
+    public interface ReflectiveLeaderAwareService extends LeaderAwareService {
+    }
+
+    private enum LeaderAwareImpl implements ReflectiveLeaderAwareService {
         INSTANCE;
 
         @Override
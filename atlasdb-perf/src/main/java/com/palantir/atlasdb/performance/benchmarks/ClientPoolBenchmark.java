@@ -0,0 +1,207 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.performance.benchmarks;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.palantir.atlasdb.keyvalue.cassandra.pool.LockFreeObjectPool;
+import com.palantir.atlasdb.keyvalue.cassandra.pool.LockFreeObjectPool.PooledEntry;
+
+/**
+ * Compares the cost of borrowing and returning a connection with commons-pool's {@link GenericObjectPool}, which the
+ * Cassandra client pool used to be built on, and with {@link LockFreeObjectPool}, which it is now built on. Pools are
+ * configured as the Cassandra client pool configures them by default, and hold dummy connections, so that only the
+ * pool itself is measured; the work done while a connection is held is configurable.
+ *
+ * Sample-time mode reports latency percentiles per borrow and return; use {@code -t} to vary the number of threads.
+ */
+@Measurement(iterations = 5, time = 5)
+@Warmup(iterations = 3, time = 2)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClientPoolBenchmark {
+    private static final int MIN_IDLE = 30;
+    private static final int MAX_TOTAL = 100;
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(10);
+    private static final Duration EVICTION_INTERVAL = Duration.ofSeconds(20);
+
+    @Param({"COMMONS_POOL", "LOCK_FREE"})
+    private PoolType poolType;
+
+    @Param({"0", "100"})
+    private int tokensWhileBorrowed;
+
+    private BenchmarkPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pool = poolType.create();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Object borrowAndReturn() throws Exception {
+        return pool.borrowAndReturn(tokensWhileBorrowed);
+    }
+
+    public enum PoolType {
+        COMMONS_POOL {
+            @Override
+            BenchmarkPool create() {
+                GenericObjectPoolConfig poolConfig = new GenericObjectPoolConfig();
+                poolConfig.setMinIdle(MIN_IDLE);
+                poolConfig.setMaxIdle(MAX_TOTAL);
+                poolConfig.setMaxTotal(MAX_TOTAL);
+                poolConfig.setBlockWhenExhausted(false);
+                poolConfig.setTestOnBorrow(true);
+                poolConfig.setSoftMinEvictableIdleTimeMillis(IDLE_TIMEOUT.toMillis());
+                poolConfig.setMinEvictableIdleTimeMillis(Long.MAX_VALUE);
+                poolConfig.setTimeBetweenEvictionRunsMillis(EVICTION_INTERVAL.toMillis());
+                poolConfig.setNumTestsPerEvictionRun(-10);
+                poolConfig.setTestWhileIdle(true);
+                poolConfig.setJmxEnabled(false);
+                GenericObjectPool<DummyConnection> pool = new GenericObjectPool<>(
+                        new CommonsPoolConnectionFactory(), poolConfig);
+                return new BenchmarkPool() {
+                    @Override
+                    public Object borrowAndReturn(int tokens) throws Exception {
+                        DummyConnection connection = pool.borrowObject();
+                        try {
+                            return connection.use(tokens);
+                        } finally {
+                            pool.returnObject(connection);
+                        }
+                    }
+
+                    @Override
+                    public void close() {
+                        pool.close();
+                    }
+                };
+            }
+        },
+        LOCK_FREE {
+            @Override
+            BenchmarkPool create() {
+                LockFreeObjectPool<DummyConnection> pool = LockFreeObjectPool.create(
+                        new LockFreeConnectionFactory(), MIN_IDLE, MAX_TOTAL, IDLE_TIMEOUT, EVICTION_INTERVAL, 0.1);
+                return new BenchmarkPool() {
+                    @Override
+                    public Object borrowAndReturn(int tokens) throws Exception {
+                        PooledEntry<DummyConnection> entry = pool.borrow();
+                        try {
+                            return entry.getObject().use(tokens);
+                        } finally {
+                            pool.returnEntry(entry);
+                        }
+                    }
+
+                    @Override
+                    public void close() {
+                        pool.close();
+                    }
+                };
+            }
+        };
+
+        abstract BenchmarkPool create();
+    }
+
+    private interface BenchmarkPool {
+        Object borrowAndReturn(int tokens) throws Exception;
+
+        void close();
+    }
+
+    private static final class DummyConnection {
+        private volatile boolean open = true;
+
+        DummyConnection use(int tokens) {
+            Blackhole.consumeCPU(tokens);
+            return this;
+        }
+    }
+
+    private static final class CommonsPoolConnectionFactory extends BasePooledObjectFactory<DummyConnection> {
+        @Override
+        public DummyConnection create() {
+            return new DummyConnection();
+        }
+
+        @Override
+        public PooledObject<DummyConnection> wrap(DummyConnection connection) {
+            return new DefaultPooledObject<>(connection);
+        }
+
+        @Override
+        public boolean validateObject(PooledObject<DummyConnection> connection) {
+            return connection.getObject().open;
+        }
+
+        @Override
+        public void destroyObject(PooledObject<DummyConnection> connection) {
+            connection.getObject().open = false;
+        }
+    }
+
+    private static final class LockFreeConnectionFactory
+            implements LockFreeObjectPool.ObjectFactory<DummyConnection> {
+        @Override
+        public DummyConnection create() {
+            return new DummyConnection();
+        }
+
+        @Override
+        public boolean isValid(DummyConnection connection) {
+            return connection.open;
+        }
+
+        @Override
+        public void destroy(DummyConnection connection) {
+            connection.open = false;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.performance.benchmarks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.palantir.atlasdb.timelock.paxos.AutobatchingSimulatedPaxosCluster;
+import com.palantir.atlasdb.timelock.paxos.Client;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import com.palantir.paxos.PaxosProposer;
+import com.palantir.paxos.PaxosRoundFailureException;
+import com.palantir.paxos.SimulatedPaxosCluster;
+import com.palantir.paxos.SimulatedPaxosNetwork;
+
+/**
+ * Proposes values for consecutive sequence numbers from a single node of an in-process Paxos cluster, whose nodes
+ * talk to each other over a simulated network with the given round trip time. The nodes either use the single leader
+ * network clients, or the autobatching network clients in front of the timelock batch acceptors and learners.
+ */
+@Measurement(iterations = 10, time = 2)
+@Warmup(iterations = 5, time = 1)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+public class PaxosProposalBenchmark {
+    private static final long SEED = 0L;
+    private static final byte[] VALUE = new byte[8];
+    private static final Client CLIENT = Client.of("benchmark");
+
+    @Param({"3", "5"})
+    public int numNodes;
+
+    @Param({"0", "1"})
+    public int latencyMillis;
+
+    @Param({"SINGLE_LEADER", "AUTOBATCHING"})
+    public ClientType clientType;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private Closeable cluster;
+    private PaxosProposer proposer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        SimulatedPaxosNetwork network =
+                new SimulatedPaxosNetwork(SEED, Duration.ofMillis(latencyMillis), Duration.ZERO, 0.0);
+        switch (clientType) {
+            case SINGLE_LEADER:
+                SimulatedPaxosCluster singleLeaderCluster = SimulatedPaxosCluster.create(numNodes, network);
+                cluster = singleLeaderCluster;
+                proposer = singleLeaderCluster.proposer(0);
+                break;
+            case AUTOBATCHING:
+                AutobatchingSimulatedPaxosCluster autobatchingCluster =
+                        AutobatchingSimulatedPaxosCluster.create(numNodes, network);
+                cluster = autobatchingCluster;
+                proposer = autobatchingCluster.proposer(0, CLIENT);
+                break;
+            default:
+                throw new SafeIllegalStateException("Unknown client type", SafeArg.of("clientType", clientType));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        cluster.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public byte[] sequentialProposals() throws PaxosRoundFailureException {
+        return proposeNext();
+    }
+
+    @Benchmark
+    @Threads(16)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public byte[] concurrentProposals() throws PaxosRoundFailureException {
+        return proposeNext();
+    }
+
+    @Benchmark
+    @Threads(1)
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public byte[] proposalLatency() throws PaxosRoundFailureException {
+        return proposeNext();
+    }
+
+    private byte[] proposeNext() throws PaxosRoundFailureException {
+        return proposer.propose(sequence.getAndIncrement(), VALUE);
+    }
+
+    public enum ClientType {
+        SINGLE_LEADER,
+        AUTOBATCHING
+    }
+}
@@ -26,6 +26,7 @@ import javax.inject.Inject;
 
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.results.RunResult;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
@@ -88,6 +89,9 @@ public class AtlasDbPerfCli {
     @Option(name = {"--test-run"}, description = "Run a single iteration of the benchmarks for testing purposes.")
     private boolean testRun;
 
+    @Option(name = {"--gc-profiler"}, description = "Also report allocation rates and GC activity of the benchmarks.")
+    private boolean gcProfiler;
+
     public static void main(String[] args) throws Exception {
         AtlasDbPerfCli cli = SingleCommand.singleCommand(AtlasDbPerfCli.class).parse(args);
 
@@ -136,6 +140,10 @@ public class AtlasDbPerfCli {
                                 .collect(Collectors.toList())
                                 .toArray(new String[uris.size()]));
 
+        if (cli.gcProfiler) {
+            optBuilder.addProfiler(GCProfiler.class);
+        }
+
         if (cli.tests == null) {
             getAllBenchmarks().forEach(b -> optBuilder.include(".*" + b));
         } else {
@@ -0,0 +1,36 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.processors;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates {@code AutoLeadershipProxy_<InterfaceName>}, an implementation of the annotated interface that forwards
+ * every call directly to the delegate of a {@code com.palantir.leader.proxy.LeadershipCoordinator}. The leadership
+ * proxy factory in leader-election-impl picks up the generated class in preference to a reflective proxy, so
+ * modules using this annotation need leader-election-impl on their compile classpath.
+ *
+ * The generated class is not instrumented itself, so any metrics wrapper applied to the returned proxy (such as
+ * timelock's Tritium instrumentation) still adds its own reflective call on top.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+public @interface AutoLeadershipProxy {
+}
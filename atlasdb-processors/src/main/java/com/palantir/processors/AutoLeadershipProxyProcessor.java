@@ -0,0 +1,291 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.processors;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.FilerException;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+import com.google.auto.service.AutoService;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapMaker;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.TypeVariableName;
+
+/**
+ * Generates the implementations described in {@link AutoLeadershipProxy}. Every interface method, including default
+ * methods, is forwarded to the delegate: methods returning {@code ListenableFuture} go through
+ * {@code LeadershipCoordinator#executeAsync} and all others through {@code LeadershipCoordinator#execute}, mirroring
+ * the reflective proxy. A no-argument {@code close} method closes the coordinator rather than being forwarded.
+ */
+@AutoService(Processor.class)
+public final class AutoLeadershipProxyProcessor extends AbstractProcessor {
+    // We keep track of if this processor has been registered in a processing environment, to avoid registering it
+    // twice. Therefore, we keep weak references to both the keys and the values, to avoid keeping such references in
+    // memory unnecessarily.
+    private static final ConcurrentMap<ProcessingEnvironment, Processor> registeredProcessors =
+            new MapMaker().weakKeys().weakValues().concurrencyLevel(1).initialCapacity(1).makeMap();
+    // must be kept in sync with AwaitingLeadershipProxy in leader-election-impl
+    private static final String PREFIX = "AutoLeadershipProxy_";
+    private static final ClassName COORDINATOR = ClassName.get("com.palantir.leader.proxy", "LeadershipCoordinator");
+    private static final String LISTENABLE_FUTURE = "com.google.common.util.concurrent.ListenableFuture";
+    private static final String COORDINATOR_FIELD = "coordinator";
+    private static final String CLOSE_METHOD = "close";
+
+    private Types typeUtils;
+    private Elements elementUtils;
+    private Filer filer;
+    private Messager messager;
+    private AtomicBoolean abortProcessing = new AtomicBoolean(false);
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+
+        typeUtils = processingEnv.getTypeUtils();
+        elementUtils = processingEnv.getElementUtils();
+        filer = processingEnv.getFiler();
+        messager = processingEnv.getMessager();
+
+        if (registeredProcessors.putIfAbsent(processingEnv, this) != null) {
+            messager.printMessage(Diagnostic.Kind.NOTE,
+                    "AutoLeadershipProxy processor registered twice; disabling duplicate instance");
+            abortProcessing.set(true);
+        }
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return ImmutableSet.of(AutoLeadershipProxy.class.getCanonicalName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.RELEASE_8;
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (abortProcessing.get()) {
+            // Another instance of AutoLeadershipProxyProcessor is running in the current processing environment.
+            return false;
+        }
+
+        for (Element annotatedElement : roundEnv.getElementsAnnotatedWith(AutoLeadershipProxy.class)) {
+            try {
+                TypeElement typeElement = validateAnnotatedElement(annotatedElement);
+                generateCode(typeElement);
+            } catch (FilerException e) {
+                // Happens when same file is written twice.
+                warn(annotatedElement, e.getMessage());
+            } catch (ProcessingException e) {
+                error(e.getElement(), e.getMessage());
+            } catch (IOException | RuntimeException e) {
+                error(annotatedElement, e.getMessage());
+            }
+        }
+
+        return false;
+    }
+
+    private TypeElement validateAnnotatedElement(Element annotatedElement) throws ProcessingException {
+        if (annotatedElement.getKind() != ElementKind.INTERFACE) {
+            throw new ProcessingException(annotatedElement, "Only interfaces can be annotated with @%s",
+                    AutoLeadershipProxy.class.getSimpleName());
+        }
+
+        PackageElement typePackage = elementUtils.getPackageOf(annotatedElement);
+        if (typePackage.isUnnamed()) {
+            throw new ProcessingException(annotatedElement, "Type %s doesn't have a package", annotatedElement);
+        }
+
+        if (elementUtils.getTypeElement(COORDINATOR.toString()) == null) {
+            throw new ProcessingException(annotatedElement, "@%s requires %s on the compile classpath",
+                    AutoLeadershipProxy.class.getSimpleName(), COORDINATOR);
+        }
+
+        return (TypeElement) annotatedElement;
+    }
+
+    private void generateCode(TypeElement typeElement) throws IOException {
+        DeclaredType interfaceType = (DeclaredType) typeElement.asType();
+        TypeName interfaceTypeName = TypeName.get(interfaceType);
+        TypeName coordinatorType = ParameterizedTypeName.get(COORDINATOR, interfaceTypeName);
+
+        TypeSpec.Builder typeBuilder = TypeSpec.classBuilder(PREFIX + typeElement.getSimpleName())
+                .addModifiers(Modifier.FINAL)
+                .addTypeVariables(typeElement.getTypeParameters()
+                        .stream()
+                        .map(TypeVariableName::get)
+                        .collect(Collectors.toList()))
+                .addSuperinterface(interfaceTypeName)
+                .addSuperinterface(Closeable.class);
+        if (typeElement.getModifiers().contains(Modifier.PUBLIC)) {
+            typeBuilder.addModifiers(Modifier.PUBLIC);
+        }
+
+        typeBuilder.addField(FieldSpec.builder(coordinatorType, COORDINATOR_FIELD, Modifier.PRIVATE, Modifier.FINAL)
+                .build());
+        typeBuilder.addMethod(MethodSpec.constructorBuilder()
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(coordinatorType, COORDINATOR_FIELD)
+                .addStatement("this.$N = $N", COORDINATOR_FIELD, COORDINATOR_FIELD)
+                .build());
+
+        for (ExecutableElement methodElement : methodsToForward(typeElement, interfaceType)) {
+            typeBuilder.addMethod(MethodSpec.overriding(methodElement, interfaceType, typeUtils)
+                    .addCode(forwardingCall(methodElement, interfaceType))
+                    .build());
+        }
+
+        typeBuilder.addMethod(MethodSpec.methodBuilder(CLOSE_METHOD)
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addStatement("$N.close()", COORDINATOR_FIELD)
+                .build());
+
+        JavaFile
+                .builder(elementUtils.getPackageOf(typeElement).getQualifiedName().toString(), typeBuilder.build())
+                .build()
+                .writeTo(filer);
+    }
+
+    private Iterable<ExecutableElement> methodsToForward(TypeElement typeElement, DeclaredType interfaceType) {
+        // keyed by name and erased parameter types, as superinterfaces may declare the same method
+        Map<String, ExecutableElement> methods = new LinkedHashMap<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(elementUtils.getAllMembers(typeElement))) {
+            if (method.getEnclosingElement().getKind() != ElementKind.INTERFACE
+                    || method.getModifiers().contains(Modifier.STATIC)
+                    || method.getModifiers().contains(Modifier.PRIVATE)
+                    || isCloseMethod(method)) {
+                continue;
+            }
+            ExecutableType methodType = (ExecutableType) typeUtils.asMemberOf(interfaceType, method);
+            String signature = method.getSimpleName() + methodType.getParameterTypes()
+                    .stream()
+                    .map(typeUtils::erasure)
+                    .map(TypeMirror::toString)
+                    .collect(Collectors.joining(",", "(", ")"));
+            methods.putIfAbsent(signature, method);
+        }
+        return methods.values();
+    }
+
+    private static boolean isCloseMethod(ExecutableElement method) {
+        return method.getSimpleName().contentEquals(CLOSE_METHOD) && method.getParameters().isEmpty();
+    }
+
+    private CodeBlock forwardingCall(ExecutableElement methodElement, DeclaredType interfaceType) {
+        String delegate = delegateParameterName(methodElement);
+        String arguments = methodElement.getParameters()
+                .stream()
+                .map(VariableElement::getSimpleName)
+                .collect(Collectors.joining(", "));
+        CodeBlock call = CodeBlock.of("$N.$N($L)", delegate, methodElement.getSimpleName().toString(), arguments);
+
+        TypeMirror returnType =
+                ((ExecutableType) typeUtils.asMemberOf(interfaceType, methodElement)).getReturnType();
+        if (returnType.getKind() == TypeKind.VOID) {
+            return CodeBlock.builder()
+                    .add("$N.execute($N -> {\n", COORDINATOR_FIELD, delegate)
+                    .indent()
+                    .addStatement("$L", call)
+                    .addStatement("return null")
+                    .unindent()
+                    .add("});\n")
+                    .build();
+        } else if (isListenableFuture(returnType)) {
+            return CodeBlock.of("return $N.executeAsync($N -> $L);\n", COORDINATOR_FIELD, delegate, call);
+        } else {
+            return CodeBlock.of("return $N.execute($N -> $L);\n", COORDINATOR_FIELD, delegate, call);
+        }
+    }
+
+    private boolean isListenableFuture(TypeMirror returnType) {
+        TypeElement listenableFuture = elementUtils.getTypeElement(LISTENABLE_FUTURE);
+        return listenableFuture != null
+                && typeUtils.isSameType(typeUtils.erasure(returnType), typeUtils.erasure(listenableFuture.asType()));
+    }
+
+    private static String delegateParameterName(ExecutableElement methodElement) {
+        Set<String> parameterNames = methodElement.getParameters()
+                .stream()
+                .map(parameter -> parameter.getSimpleName().toString())
+                .collect(Collectors.toSet());
+        String name = "delegate";
+        while (parameterNames.contains(name)) {
+            name = name + "_";
+        }
+        return name;
+    }
+
+    /**
+     * Prints a warn message.
+     *
+     * @param element The element which has caused the error. Can be null
+     * @param msg The error message
+     */
+    private void warn(Element element, String msg) {
+        messager.printMessage(Diagnostic.Kind.WARNING, msg, element);
+    }
+
+    /**
+     * Prints an error message.
+     *
+     * @param element The element which has caused the error. Can be null
+     * @param msg The error message
+     */
+    private void error(Element element, String msg) {
+        messager.printMessage(Diagnostic.Kind.ERROR, msg, element);
+    }
+}
@@ -16,6 +16,8 @@
 package com.palantir.paxos;
 
 import java.io.IOException;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 import com.palantir.common.persist.Persistable;
 
@@ -53,6 +55,26 @@ public interface PaxosStateLog<V extends Persistable & Versionable> {
      */
     byte[] readRound(long seq) throws IOException;
 
+    /**
+     * Retrieves the rounds with sequence numbers between the given bounds (both inclusive) from disk, stopping after
+     * the {@code limit} rounds with the smallest sequence numbers. Sequence numbers without a round are skipped.
+     * Implementations should override this if they can read a range of rounds more cheaply than one at a time.
+     *
+     * @return the bytes of data for each round present, keyed by sequence number
+     * @throws CorruptLogFileException if any of the rounds read is corrupted on disk
+     */
+    default NavigableMap<Long, byte[]> readRounds(long fromInclusive, long toInclusive, int limit)
+            throws IOException {
+        NavigableMap<Long, byte[]> rounds = new TreeMap<>();
+        for (long seq = fromInclusive; seq <= toInclusive && rounds.size() < limit; seq++) {
+            byte[] round = readRound(seq);
+            if (round != null) {
+                rounds.put(seq, round);
+            }
+        }
+        return rounds;
+    }
+
     /**
      * Returns the sequence number of the least known log entry or {@value PaxosAcceptor#NO_LOG_ENTRY}
      * if this log has never been truncated.
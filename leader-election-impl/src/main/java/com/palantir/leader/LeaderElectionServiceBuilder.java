@@ -22,6 +22,7 @@ import java.util.function.UnaryOperator;
 
 import javax.annotation.Nullable;
 
+import com.palantir.common.time.NanoTime;
 import com.palantir.logsafe.Preconditions;
 import com.palantir.paxos.CoalescingPaxosLatestRoundVerifier;
 import com.palantir.paxos.LeaderPinger;
@@ -46,6 +47,7 @@ public final class LeaderElectionServiceBuilder {
     @Nullable private Duration leaderAddressCacheTtl;
     @Nullable private UUID leaderUuid;
     @Nullable private PaxosLatestRoundVerifier latestRoundVerifier;
+    private Duration leaderLeaseDuration = Duration.ZERO;
 
     private UnaryOperator<PaxosProposer> proposerDecorator = paxosProposer -> paxosProposer;
 
@@ -115,6 +117,19 @@ public final class LeaderElectionServiceBuilder {
         return this;
     }
 
+    /**
+     * Allows the leader to skip verifying its leadership with a quorum for slightly less than the given duration after
+     * each successful verification. Every acceptor must be created with at least the same lease duration (see
+     * {@link com.palantir.paxos.PaxosAcceptorImpl#newAcceptor(String, Duration)}); defaults to zero, which disables
+     * leases.
+     */
+    public LeaderElectionServiceBuilder leaderLeaseDuration(Duration leaderLeaseDuration) {
+        Preconditions.checkNotNull(leaderLeaseDuration, "leaderLeaseDuration cannot be null");
+        Preconditions.checkArgument(!leaderLeaseDuration.isNegative(), "leaderLeaseDuration must not be negative");
+        this.leaderLeaseDuration = leaderLeaseDuration;
+        return this;
+    }
+
     public LeaderElectionService build() {
         return new PaxosLeaderElectionService(
                 proposerDecorator.apply(buildProposer()),
@@ -125,7 +140,9 @@ public final class LeaderElectionServiceBuilder {
                 pingRate(),
                 randomWaitBeforeProposingLeadership(),
                 leaderAddressCacheTtl(),
-                eventRecorder());
+                eventRecorder(),
+                leaderLeaseDuration,
+                NanoTime::now);
     }
 
     private PaxosProposer buildProposer() {
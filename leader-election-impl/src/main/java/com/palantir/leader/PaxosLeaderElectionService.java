@@ -17,9 +17,14 @@ package com.palantir.leader;
 
 import java.time.Duration;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 import org.immutables.value.Value;
 import org.slf4j.Logger;
@@ -33,6 +38,10 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.RateLimiter;
+import com.palantir.atlasdb.futures.AtlasFutures;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.common.time.NanoTime;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.paxos.LeaderPingResult;
 import com.palantir.paxos.LeaderPingResults;
@@ -60,6 +69,9 @@ public class PaxosLeaderElectionService implements LeaderElectionService {
     // stored here to be consistent when proposing to take over leadership
     private static final byte[] LEADERSHIP_PROPOSAL_VALUE = null;
 
+    private static final ExecutorService catchUpExecutor =
+            PTExecutors.newCachedThreadPool(new NamedThreadFactory("paxos-learner-catch-up", true));
+
     private final ReentrantLock lock = new ReentrantLock();
     private final PaxosLatestRoundVerifier latestRoundVerifier;
 
@@ -79,6 +91,10 @@ public class PaxosLeaderElectionService implements LeaderElectionService {
 
     private final Cache<UUID, HostAndPort> leaderAddressCache;
 
+    private final Duration leaderLeaseDuration;
+    private final Supplier<NanoTime> clock;
+    private final AtomicReference<Optional<LeaderLease>> leaderLease = new AtomicReference<>(Optional.empty());
+
     PaxosLeaderElectionService(
             PaxosProposer proposer,
             PaxosLearner knowledge,
@@ -89,6 +105,29 @@ public class PaxosLeaderElectionService implements LeaderElectionService {
             Duration randomWaitBeforeProposingLeadership,
             Duration leaderAddressCacheTtl,
             PaxosLeaderElectionEventRecorder eventRecorder) {
+        this(proposer, knowledge, leaderPinger, latestRoundVerifier, learnerClient, updatePollingWait,
+                randomWaitBeforeProposingLeadership, leaderAddressCacheTtl, eventRecorder, Duration.ZERO,
+                NanoTime::now);
+    }
+
+    /**
+     * @param leaderLeaseDuration how long after starting a successful verification of our leadership we may keep
+     * serving requests without verifying again; zero disables leases. This is only safe if every acceptor promises
+     * not to prepare later rounds for at least this long after answering the verification, and if the
+     * {@link PaxosLatestRoundVerifier} only ever returns results of verifications that started after it was called.
+     */
+    PaxosLeaderElectionService(
+            PaxosProposer proposer,
+            PaxosLearner knowledge,
+            LeaderPinger leaderPinger,
+            PaxosLatestRoundVerifier latestRoundVerifier,
+            PaxosLearnerNetworkClient learnerClient,
+            Duration updatePollingWait,
+            Duration randomWaitBeforeProposingLeadership,
+            Duration leaderAddressCacheTtl,
+            PaxosLeaderElectionEventRecorder eventRecorder,
+            Duration leaderLeaseDuration,
+            Supplier<NanoTime> clock) {
         this.proposer = proposer;
         this.knowledge = knowledge;
         this.leaderPinger = leaderPinger;
@@ -100,6 +139,8 @@ public class PaxosLeaderElectionService implements LeaderElectionService {
         this.leaderAddressCache = Caffeine.newBuilder()
                 .expireAfterWrite(leaderAddressCacheTtl)
                 .build();
+        this.leaderLeaseDuration = leaderLeaseDuration;
+        this.clock = clock;
     }
 
     @Override
@@ -241,12 +282,51 @@ public class PaxosLeaderElectionService implements LeaderElectionService {
             return Futures.immediateFuture(StillLeadingStatus.NOT_LEADING);
         }
 
+        if (leaderLeaseDuration.isZero()) {
+            return verifyLeadership(value);
+        }
+
+        NanoTime verificationStart = clock.get();
+        if (hasValidLease(value, verificationStart)) {
+            return Futures.immediateFuture(StillLeadingStatus.LEADING);
+        }
+
+        return Futures.transform(verifyLeadership(value), status -> {
+            if (status == StillLeadingStatus.LEADING) {
+                extendLease(value, verificationStart);
+            }
+            return status;
+        }, MoreExecutors.directExecutor());
+    }
+
+    private ListenableFuture<StillLeadingStatus> verifyLeadership(PaxosValue value) {
         return Futures.transform(
                 latestRoundVerifier.isLatestRoundAsync(value.getRound()),
                 PaxosQuorumStatus::toStillLeadingStatus,
                 MoreExecutors.directExecutor());
     }
 
+    private boolean hasValidLease(PaxosValue value, NanoTime now) {
+        return leaderLease.get()
+                .filter(lease -> lease.round() == value.getRound())
+                .filter(lease -> now.isBefore(lease.expiry()))
+                .isPresent();
+    }
+
+    /**
+     * Acceptors start their promise when they receive the verification request, which is no earlier than the time
+     * we started the verification, so a lease counted from that time expires no later than their promise. A tenth of
+     * the lease is kept back to tolerate clock rate differences between nodes.
+     */
+    private void extendLease(PaxosValue value, NanoTime verificationStart) {
+        NanoTime expiry = verificationStart.plus(leaderLeaseDuration.minus(leaderLeaseDuration.dividedBy(10)));
+        LeaderLease newLease = ImmutableLeaderLease.of(value.getRound(), expiry);
+        leaderLease.accumulateAndGet(Optional.of(newLease), (current, proposed) -> current
+                .filter(lease -> lease.round() == newLease.round())
+                .filter(lease -> newLease.expiry().isBefore(lease.expiry()))
+                .isPresent() ? current : proposed);
+    }
+
     private boolean isLatestRound(PaxosValue value) {
         return isLatestRound(Optional.of(value));
     }
@@ -275,10 +355,34 @@ public class PaxosLeaderElectionService implements LeaderElectionService {
      * @return true if new state was learned, otherwise false
      */
     private boolean updateLearnedStateFromPeers(Optional<PaxosValue> greatestLearned) {
-        final long nextToLearnSeq = getNextSequenceNumber(greatestLearned);
+        long nextToLearnSeq = getNextSequenceNumber(greatestLearned);
+        Future<PaxosResponses<PaxosUpdate>> nextUpdates = fetchLearnedValuesSince(nextToLearnSeq);
+
+        // peers may return values in bounded pages, so we keep asking for values after the greatest one returned,
+        // fetching the next page while we learn the current one, until no peer returns anything at or after the
+        // sequence asked for
+        boolean learned = false;
+        while (true) {
+            PaxosResponses<PaxosUpdate> updates = AtlasFutures.getUnchecked(nextUpdates);
+            OptionalLong greatestReturned = updates.stream()
+                    .flatMap(update -> update.getValues().stream())
+                    .mapToLong(PaxosValue::getRound)
+                    .max();
+            if (!greatestReturned.isPresent() || greatestReturned.getAsLong() < nextToLearnSeq) {
+                return learnUpdates(updates) || learned;
+            }
 
-        PaxosResponses<PaxosUpdate> updates = learnerClient.getLearnedValuesSince(nextToLearnSeq);
+            nextToLearnSeq = greatestReturned.getAsLong() + 1;
+            nextUpdates = fetchLearnedValuesSince(nextToLearnSeq);
+            learned |= learnUpdates(updates);
+        }
+    }
+
+    private Future<PaxosResponses<PaxosUpdate>> fetchLearnedValuesSince(long seq) {
+        return catchUpExecutor.submit(() -> learnerClient.getLearnedValuesSince(seq));
+    }
 
+    private boolean learnUpdates(PaxosResponses<PaxosUpdate> updates) {
         // learn the state accumulated from peers
         boolean learned = false;
         for (PaxosUpdate update : updates.get()) {
@@ -290,7 +394,6 @@ public class PaxosLeaderElectionService implements LeaderElectionService {
                 }
             }
         }
-
         return learned;
     }
 
@@ -299,6 +402,8 @@ public class PaxosLeaderElectionService implements LeaderElectionService {
         LeadershipState leadershipState = determineLeadershipState();
         StillLeadingStatus status = leadershipState.status();
         if (status == StillLeadingStatus.LEADING) {
+            // acceptors reject later rounds until our lease expires, so stepping down may fail until then
+            leaderLease.set(Optional.empty());
             try {
                 proposer.proposeAnonymously(
                         getNextSequenceNumber(leadershipState.greatestLearnedValue()),
@@ -356,6 +461,15 @@ public class PaxosLeaderElectionService implements LeaderElectionService {
         return paxosValue.map(PaxosValue::getRound).orElse(PaxosAcceptor.NO_LOG_ENTRY) + 1;
     }
 
+    @Value.Immutable
+    interface LeaderLease {
+        @Value.Parameter
+        long round();
+
+        @Value.Parameter
+        NanoTime expiry();
+    }
+
     @Value.Immutable
     interface LeadershipState {
 
@@ -16,11 +16,17 @@
 package com.palantir.paxos;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.palantir.logsafe.Preconditions;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.exceptions.SafeIllegalStateException;
 
@@ -28,29 +34,96 @@ public final class PaxosAcceptorImpl implements PaxosAcceptor {
     private static final Logger logger = LoggerFactory.getLogger(PaxosAcceptorImpl.class);
 
     public static PaxosAcceptor newAcceptor(String logDir) {
-        PaxosStateLog<PaxosAcceptorState> log = new PaxosStateLogImpl<>(logDir);
+        return newAcceptor(new PaxosStateLogImpl<>(logDir));
+    }
+
+    /**
+     * Creates an acceptor that, whenever it reports its latest sequence to a leader verifying its leadership, promises
+     * not to prepare any later sequence for the given lease duration. This allows the leader to rely on a successful
+     * verification for slightly less than the lease duration (see
+     * {@link com.palantir.leader.LeaderElectionServiceBuilder#leaderLeaseDuration(Duration)}), and must be configured
+     * with the same lease duration as the leaders it serves.
+     *
+     * Promises are only held in memory, so after starting up the acceptor rejects every prepare for one lease duration,
+     * in case it made a promise before restarting that has not yet expired.
+     */
+    public static PaxosAcceptor newAcceptor(String logDir, Duration leaderLeaseDuration) {
+        return newAcceptor(new PaxosStateLogImpl<>(logDir), leaderLeaseDuration);
+    }
+
+    private static PaxosAcceptor newAcceptor(PaxosStateLog<PaxosAcceptorState> log) {
+        return newAcceptor(log, Duration.ZERO);
+    }
+
+    private static PaxosAcceptor newAcceptor(PaxosStateLog<PaxosAcceptorState> log, Duration leaderLeaseDuration) {
+        return newAcceptor(log, leaderLeaseDuration, Optional.empty());
+    }
+
+    private static PaxosAcceptor newAcceptor(
+            PaxosStateLog<PaxosAcceptorState> log,
+            Duration leaderLeaseDuration,
+            Optional<Long> roundsRetainedAfterCompaction) {
+        Preconditions.checkArgument(!leaderLeaseDuration.isNegative(), "leaderLeaseDuration must not be negative");
+        ConcurrentSkipListMap<Long, PaxosAcceptorState> state = new ConcurrentSkipListMap<>();
         return new PaxosAcceptorImpl(
-                new ConcurrentSkipListMap<>(),
+                state,
                 log,
-                log.getGreatestLogEntry());
+                log.getGreatestLogEntry(),
+                leaderLeaseDuration,
+                System::nanoTime,
+                PaxosLogCompactor.create(log, state, roundsRetainedAfterCompaction));
     }
 
     public static PaxosAcceptor newAcceptor(PaxosStorageParameters storageParameters) {
+        return newAcceptor(storageParameters, Duration.ZERO);
+    }
+
+    /**
+     * Creates an acceptor using the given storage that holds leader leases of the given duration; see
+     * {@link #newAcceptor(String, Duration)}.
+     */
+    public static PaxosAcceptor newAcceptor(PaxosStorageParameters storageParameters, Duration leaderLeaseDuration) {
         String logDirectory = storageParameters.fileBasedLogDirectory()
                 .orElseThrow(() -> new SafeIllegalStateException("We currently need to have file-based storage"));
-        return newAcceptor(logDirectory);
+        PaxosStateLog<PaxosAcceptorState> log = storageParameters.useSegmentedLog()
+                ? SegmentedPaxosStateLog.createMigratingFromLegacy(logDirectory, PaxosAcceptorState.BYTES_HYDRATOR)
+                : new PaxosStateLogImpl<>(logDirectory);
+        return newAcceptor(log, leaderLeaseDuration, storageParameters.roundsRetainedAfterCompaction());
     }
 
     private final ConcurrentSkipListMap<Long, PaxosAcceptorState> state;
     private final PaxosStateLog<PaxosAcceptorState> log;
     private final long greatestInLogAtStartup;
+    private final long leaderLeaseNanos;
+    private final LongSupplier nanoClock;
+    private final PaxosLogCompactor compactor;
+    private final long startupPromiseExpiryNanos;
+    private final AtomicReference<LeasePromise> leasePromise = new AtomicReference<>(LeasePromise.NONE);
+
+    @VisibleForTesting
+    PaxosAcceptorImpl(ConcurrentSkipListMap<Long, PaxosAcceptorState> state,
+                      PaxosStateLog<PaxosAcceptorState> log,
+                      long greatestInLogAtStartup,
+                      Duration leaderLeaseDuration,
+                      LongSupplier nanoClock) {
+        this(state, log, greatestInLogAtStartup, leaderLeaseDuration, nanoClock,
+                PaxosLogCompactor.create(log, state, Optional.empty()));
+    }
 
-    private PaxosAcceptorImpl(ConcurrentSkipListMap<Long, PaxosAcceptorState> state,
-                              PaxosStateLog<PaxosAcceptorState> log,
-                              long greatestInLogAtStartup) {
+    @VisibleForTesting
+    PaxosAcceptorImpl(ConcurrentSkipListMap<Long, PaxosAcceptorState> state,
+                      PaxosStateLog<PaxosAcceptorState> log,
+                      long greatestInLogAtStartup,
+                      Duration leaderLeaseDuration,
+                      LongSupplier nanoClock,
+                      PaxosLogCompactor compactor) {
         this.state = state;
         this.log = log;
         this.greatestInLogAtStartup = greatestInLogAtStartup;
+        this.leaderLeaseNanos = leaderLeaseDuration.toNanos();
+        this.nanoClock = nanoClock;
+        this.compactor = compactor;
+        this.startupPromiseExpiryNanos = nanoClock.getAsLong() + leaderLeaseNanos;
     }
 
     @Override
@@ -62,8 +135,17 @@ public final class PaxosAcceptorImpl implements PaxosAcceptor {
             return PaxosPromise.reject(pid);
         }
 
+        if (isCoveredByLeasePromise(seq)) {
+            logger.debug("Rejecting prepare for sequence {} as a leader lease may be outstanding",
+                    SafeArg.of("sequence", seq));
+            return PaxosPromise.reject(pid);
+        }
+
         for (;;) {
             PaxosAcceptorState oldState = state.get(seq);
+            if (isTruncatedSinceLogCheck(seq)) {
+                return PaxosPromise.reject(pid);
+            }
 
             if (oldState != null && pid.compareTo(oldState.lastPromisedId) < 0) {
                 return PaxosPromise.reject(oldState.lastPromisedId);
@@ -83,6 +165,7 @@ public final class PaxosAcceptorImpl implements PaxosAcceptor {
             if ((oldState == null && state.putIfAbsent(seq, newState) == null)
                     || (oldState != null && state.replace(seq, oldState, newState))) {
                 log.writeRound(seq, newState);
+                compactor.roundWritten(seq);
                 return PaxosPromise.accept(
                         newState.lastPromisedId,
                         newState.lastAcceptedId,
@@ -102,6 +185,9 @@ public final class PaxosAcceptorImpl implements PaxosAcceptor {
 
         for (;;) {
             PaxosAcceptorState oldState = state.get(seq);
+            if (isTruncatedSinceLogCheck(seq)) {
+                return new BooleanPaxosResponse(false); // nack
+            }
 
             // nack
             if (oldState != null && proposal.id.compareTo(oldState.lastPromisedId) < 0) {
@@ -115,6 +201,7 @@ public final class PaxosAcceptorImpl implements PaxosAcceptor {
             if ((oldState == null && state.putIfAbsent(seq, newState) == null)
                     || (oldState != null && state.replace(seq, oldState, newState))) {
                 log.writeRound(seq, newState);
+                compactor.roundWritten(seq);
                 return new BooleanPaxosResponse(true);
             }
         }
@@ -122,11 +209,54 @@ public final class PaxosAcceptorImpl implements PaxosAcceptor {
 
     @Override
     public long getLatestSequencePreparedOrAccepted() {
-        if (state.isEmpty()) {
-            return greatestInLogAtStartup;
-        } else {
-            return Math.max(greatestInLogAtStartup, state.lastKey());
+        long latestSequence = state.isEmpty()
+                ? greatestInLogAtStartup
+                : Math.max(greatestInLogAtStartup, state.lastKey());
+        grantLeasePromise(latestSequence);
+        return latestSequence;
+    }
+
+    /**
+     * Leaders only verify their leadership for the latest round they know of, so by answering we promise that leader
+     * that no later sequence will be prepared here until the lease expires. Promises only ever get extended.
+     */
+    private void grantLeasePromise(long latestSequence) {
+        if (leaderLeaseNanos == 0) {
+            return;
+        }
+        LeasePromise newPromise = new LeasePromise(latestSequence, nanoClock.getAsLong() + leaderLeaseNanos);
+        leasePromise.accumulateAndGet(newPromise,
+                (current, proposed) -> current == LeasePromise.NONE || proposed.expiryNanos - current.expiryNanos > 0
+                        ? proposed
+                        : current);
+    }
+
+    private boolean isCoveredByLeasePromise(long seq) {
+        if (leaderLeaseNanos == 0) {
+            return false;
+        }
+        long now = nanoClock.getAsLong();
+        if (startupPromiseExpiryNanos - now > 0) {
+            // a promise made before we restarted may still be outstanding, and we do not know its sequence
+            return true;
         }
+        LeasePromise promise = leasePromise.get();
+        return seq > promise.sequence && promise.expiryNanos - now > 0;
+    }
+
+    /**
+     * Compaction may clear a round from {@link #state} after {@link #checkLogIfNeeded(long)} found it there, so a round
+     * read as absent may be one we have forgotten rather than one we never saw. Compaction marks rounds as truncated
+     * before clearing them, so checking after reading the round catches this; and if it clears the round after the
+     * check, the compare-and-set that follows fails and we check again.
+     */
+    private boolean isTruncatedSinceLogCheck(long seq) {
+        if (compactor.isTruncated(seq)) {
+            logger.info("Rejecting request for sequence {} as it was truncated while being processed",
+                    SafeArg.of("sequence", seq));
+            return true;
+        }
+        return false;
     }
 
     private void checkLogIfNeeded(long seq) throws TruncatedStateLogException, IOException {
@@ -134,7 +264,7 @@ public final class PaxosAcceptorImpl implements PaxosAcceptor {
             return;
         }
 
-        if (seq < log.getLeastLogEntry()) {
+        if (compactor.isTruncated(seq) || seq < log.getLeastLogEntry()) {
             throw new TruncatedStateLogException("round " + seq + " before truncation cutoff of "
                     + log.getLeastLogEntry());
         }
@@ -147,4 +277,15 @@ public final class PaxosAcceptorImpl implements PaxosAcceptor {
         }
     }
 
+    private static final class LeasePromise {
+        private static final LeasePromise NONE = new LeasePromise(Long.MAX_VALUE, Long.MIN_VALUE);
+
+        private final long sequence;
+        private final long expiryNanos;
+
+        private LeasePromise(long sequence, long expiryNanos) {
+            this.sequence = sequence;
+            this.expiryNanos = expiryNanos;
+        }
+    }
 }
@@ -17,8 +17,10 @@ package com.palantir.paxos;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.stream.Collectors;
 import java.util.stream.LongStream;
@@ -27,6 +29,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
 import com.palantir.leader.PaxosKnowledgeEventRecorder;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.exceptions.SafeIllegalStateException;
@@ -35,12 +38,28 @@ public final class PaxosLearnerImpl implements PaxosLearner {
 
     private static final Logger logger = LoggerFactory.getLogger(PaxosLearnerImpl.class);
 
+    /**
+     * Upper bound on the number of values returned by a single call to {@link #getLearnedValuesSince(long)}, so that
+     * a node catching up from far behind pages through the log rather than having it all loaded into memory at once.
+     */
+    public static final int MAX_LEARNED_VALUES_PER_RESPONSE = 500;
+
     public static PaxosLearner newLearner(String logDir) {
         return newLearner(logDir, PaxosKnowledgeEventRecorder.NO_OP);
     }
 
     public static PaxosLearner newLearner(String logDir, PaxosKnowledgeEventRecorder eventRecorder) {
-        PaxosStateLogImpl<PaxosValue> log = new PaxosStateLogImpl<>(logDir);
+        return newLearner(new PaxosStateLogImpl<>(logDir), eventRecorder);
+    }
+
+    private static PaxosLearner newLearner(PaxosStateLog<PaxosValue> log, PaxosKnowledgeEventRecorder eventRecorder) {
+        return newLearner(log, eventRecorder, Optional.empty());
+    }
+
+    private static PaxosLearner newLearner(
+            PaxosStateLog<PaxosValue> log,
+            PaxosKnowledgeEventRecorder eventRecorder,
+            Optional<Long> roundsRetainedAfterCompaction) {
         ConcurrentSkipListMap<Long, PaxosValue> state = new ConcurrentSkipListMap<>();
 
         byte[] greatestValidValue = PaxosStateLogs.getGreatestValidLogEntry(log);
@@ -49,26 +68,33 @@ public final class PaxosLearnerImpl implements PaxosLearner {
             state.put(value.getRound(), value);
         }
 
-        return new PaxosLearnerImpl(state, log, eventRecorder);
+        return new PaxosLearnerImpl(
+                state, log, eventRecorder, PaxosLogCompactor.create(log, state, roundsRetainedAfterCompaction));
     }
 
     public static PaxosLearner newLearner(
             PaxosStorageParameters storageParameters, PaxosKnowledgeEventRecorder eventRecorder) {
         String logDirectory = storageParameters.fileBasedLogDirectory()
                 .orElseThrow(() -> new SafeIllegalStateException("We currently need to have file-based storage"));
-        return newLearner(logDirectory, eventRecorder);
+        PaxosStateLog<PaxosValue> log = storageParameters.useSegmentedLog()
+                ? SegmentedPaxosStateLog.createMigratingFromLegacy(logDirectory, PaxosValue.BYTES_HYDRATOR)
+                : new PaxosStateLogImpl<>(logDirectory);
+        return newLearner(log, eventRecorder, storageParameters.roundsRetainedAfterCompaction());
     }
 
     final SortedMap<Long, PaxosValue> state;
     final PaxosStateLog<PaxosValue> log;
     final PaxosKnowledgeEventRecorder eventRecorder;
+    private final PaxosLogCompactor compactor;
 
     private PaxosLearnerImpl(SortedMap<Long, PaxosValue> stateWithGreatestValueFromLog,
                              PaxosStateLog<PaxosValue> log,
-                            PaxosKnowledgeEventRecorder eventRecorder) {
+                             PaxosKnowledgeEventRecorder eventRecorder,
+                             PaxosLogCompactor compactor) {
         this.state = stateWithGreatestValueFromLog;
         this.log = log;
         this.eventRecorder = eventRecorder;
+        this.compactor = compactor;
     }
 
     @Override
@@ -76,6 +102,7 @@ public final class PaxosLearnerImpl implements PaxosLearner {
         state.put(seq, val);
         log.writeRound(seq, val);
         eventRecorder.recordRound(val);
+        compactor.roundWritten(seq);
     }
 
     @Override
@@ -84,7 +111,7 @@ public final class PaxosLearnerImpl implements PaxosLearner {
             if (!state.containsKey(seq)) {
                 byte[] bytes = log.readRound(seq);
                 if (bytes != null) {
-                    PaxosValue value = PaxosValue.BYTES_HYDRATOR.hydrateFromBytes(log.readRound(seq));
+                    PaxosValue value = PaxosValue.BYTES_HYDRATOR.hydrateFromBytes(bytes);
                     state.put(seq, value);
                 }
             }
@@ -97,19 +124,45 @@ public final class PaxosLearnerImpl implements PaxosLearner {
         }
     }
 
+    /**
+     * Returns at most {@link #MAX_LEARNED_VALUES_PER_RESPONSE} values, those with the smallest rounds; callers page
+     * through the rest by asking again from after the greatest round returned. Values read from the log are not
+     * cached, as they are only needed by the node catching up.
+     */
     @Override
     public Collection<PaxosValue> getLearnedValuesSince(long seq) {
         Optional<Long> greatestSeq = getGreatestLearnedValue().map(PaxosValue::getRound);
-        if (!greatestSeq.isPresent()) {
+        if (!greatestSeq.isPresent() || greatestSeq.get() < seq) {
             return ImmutableList.of();
         }
 
-        return LongStream.rangeClosed(seq, greatestSeq.get())
-                .boxed()
-                .map(this::getLearnedValue)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toList());
+        NavigableMap<Long, byte[]> roundsFromLog;
+        try {
+            roundsFromLog = log.readRounds(seq, greatestSeq.get(), MAX_LEARNED_VALUES_PER_RESPONSE);
+        } catch (IOException e) {
+            logger.error("Unable to read learned values since sequence {} in bulk; reading them one at a time",
+                    SafeArg.of("sequence", seq),
+                    e);
+            return LongStream.rangeClosed(seq, greatestSeq.get())
+                    .boxed()
+                    .map(this::getLearnedValue)
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .limit(MAX_LEARNED_VALUES_PER_RESPONSE)
+                    .collect(Collectors.toList());
+        }
+
+        // values may have been learned but not yet written to the log, so we also include those we hold in memory
+        long upperBound = roundsFromLog.size() < MAX_LEARNED_VALUES_PER_RESPONSE
+                ? greatestSeq.get()
+                : roundsFromLog.lastKey();
+        NavigableMap<Long, PaxosValue> values =
+                new TreeMap<>(Maps.transformValues(roundsFromLog, PaxosValue.BYTES_HYDRATOR::hydrateFromBytes));
+        values.putAll(state.subMap(seq, upperBound + 1));
+        while (values.size() > MAX_LEARNED_VALUES_PER_RESPONSE) {
+            values.pollLastEntry();
+        }
+        return ImmutableList.copyOf(values.values());
     }
 
     @Override
@@ -0,0 +1,115 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.paxos;
+
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.logsafe.SafeArg;
+
+/**
+ * Keeps a {@link PaxosStateLog}, and the in-memory cache of rounds in front of it, down to a tail of recent rounds.
+ * Once the greatest round written is more than twice the retained number of rounds beyond the last truncation point,
+ * everything more than the retained number of rounds below it is truncated in the background; compacting in batches
+ * like this amortises the cost of listing and deleting rounds.
+ *
+ * The greatest round is never truncated, so it serves as the snapshot from which a node restarts; with compaction
+ * the node reads only that and the tail, rather than every round ever written. Only use this where nothing reads
+ * rounds far behind the greatest one. Truncated rounds read as absent from learners, so a node that falls more than
+ * the retained number of rounds behind cannot catch up on them from its peers. Acceptors reject prepares and accepts
+ * for truncated rounds, including ones that race with the truncation (see {@link #isTruncated(long)}), so that they
+ * never act on a round whose state they may have lost; a proposer still working on such a round stalls instead.
+ */
+final class PaxosLogCompactor {
+    private static final Logger log = LoggerFactory.getLogger(PaxosLogCompactor.class);
+
+    private static final ExecutorService compactionExecutor =
+            PTExecutors.newCachedThreadPool(new NamedThreadFactory("paxos-log-compaction", true));
+
+    private static final long NOTHING_TRUNCATED = PaxosAcceptor.NO_LOG_ENTRY - 1;
+    private static final PaxosLogCompactor DISABLED = new PaxosLogCompactor(null, null, 0);
+
+    private final PaxosStateLog<?> stateLog;
+    private final SortedMap<Long, ?> cachedRounds;
+    private final long retainedRounds;
+    private final AtomicLong truncatedUpTo = new AtomicLong(NOTHING_TRUNCATED);
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    private PaxosLogCompactor(PaxosStateLog<?> stateLog, SortedMap<Long, ?> cachedRounds, long retainedRounds) {
+        this.stateLog = stateLog;
+        this.cachedRounds = cachedRounds;
+        this.retainedRounds = retainedRounds;
+    }
+
+    static PaxosLogCompactor create(
+            PaxosStateLog<?> stateLog,
+            SortedMap<Long, ?> cachedRounds,
+            Optional<Long> retainedRounds) {
+        return retainedRounds
+                .map(rounds -> new PaxosLogCompactor(stateLog, cachedRounds, rounds))
+                .orElse(DISABLED);
+    }
+
+    /**
+     * Must be called after each round is written to the log, with that round's sequence number.
+     */
+    void roundWritten(long seq) {
+        if (this == DISABLED
+                || seq - truncatedUpTo.get() <= 2 * retainedRounds
+                || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+        compactionExecutor.execute(() -> {
+            try {
+                compact(seq - retainedRounds);
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    /**
+     * Whether the given round has been, or is being, truncated. Acceptors must not act on such rounds: the state they
+     * had for them may already be gone, and acting as if they had none could contradict an earlier promise.
+     */
+    boolean isTruncated(long seq) {
+        return seq <= truncatedUpTo.get();
+    }
+
+    @VisibleForTesting
+    void compact(long toDeleteInclusive) {
+        // advance the watermark first, so that nothing acts on rounds while we are deleting them
+        truncatedUpTo.accumulateAndGet(toDeleteInclusive, Math::max);
+        try {
+            cachedRounds.headMap(toDeleteInclusive + 1).clear();
+            stateLog.truncate(toDeleteInclusive);
+        } catch (RuntimeException e) {
+            log.warn("Failed to compact Paxos log up to sequence {}; will try again at the next compaction",
+                    SafeArg.of("sequence", toDeleteInclusive),
+                    e);
+        }
+    }
+}
@@ -216,13 +216,15 @@ public class PaxosStateLogImpl<V extends Persistable & Versionable> implements P
             for (File file : files) {
                 long fileSeq = getSeqFromFilename(file);
                 if (fileSeq <= toDeleteInclusive) {
-                    if (file.delete()) {
+                    if (!file.delete()) {
                         log.warn("failed to delete log file {}", file.getAbsolutePath());
                     }
                 } else {
                     break;
                 }
             }
+            long truncatedUpTo = toDeleteInclusive;
+            seqToVersionMap.keySet().removeIf(seq -> seq <= truncatedUpTo);
         } finally {
             lock.unlock();
         }
@@ -0,0 +1,74 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.paxos;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.palantir.common.persist.Persistable;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.exceptions.SafeIoException;
+
+/**
+ * Copies every round from one {@link PaxosStateLog} into another, in batches. Migration fails if any round cannot be
+ * read, as leaving a round out would make the acceptor forget the promise or value recorded in it.
+ */
+public final class PaxosStateLogMigrator {
+    private static final Logger log = LoggerFactory.getLogger(PaxosStateLogMigrator.class);
+    private static final int BATCH_SIZE = 1_000;
+
+    private PaxosStateLogMigrator() {
+        // no
+    }
+
+    public static <V extends Persistable & Versionable> void migrate(
+            PaxosStateLog<V> source,
+            PaxosStateLog<V> target,
+            Persistable.Hydrator<V> hydrator) throws IOException {
+        long least = Math.max(source.getLeastLogEntry(), 0);
+        long greatest = source.getGreatestLogEntry();
+        log.info("Migrating paxos rounds {} to {} to a new state log",
+                SafeArg.of("least", least),
+                SafeArg.of("greatest", greatest));
+
+        List<PaxosRound<V>> batch = new ArrayList<>(BATCH_SIZE);
+        for (long seq = least; seq <= greatest; seq++) {
+            byte[] bytes;
+            try {
+                bytes = source.readRound(seq);
+            } catch (IOException e) {
+                throw new SafeIoException("Could not read paxos round while migrating", e, SafeArg.of("seq", seq));
+            }
+            if (bytes != null) {
+                batch.add(ImmutablePaxosRound.<V>builder()
+                        .sequence(seq)
+                        .value(hydrator.hydrateFromBytes(bytes))
+                        .build());
+            }
+            if (batch.size() >= BATCH_SIZE) {
+                target.writeBatchOfRounds(batch);
+                batch.clear();
+            }
+        }
+        target.writeBatchOfRounds(batch);
+    }
+}
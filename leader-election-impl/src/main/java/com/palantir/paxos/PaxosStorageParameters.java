@@ -21,15 +21,36 @@ import java.util.Optional;
 import org.immutables.value.Value;
 
 import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
 
 @Value.Immutable
 public interface PaxosStorageParameters {
     Optional<String> fileBasedLogDirectory();
     Optional<String> databaseNamespace();
 
+    /**
+     * Whether rounds should be stored in a {@link SegmentedPaxosStateLog} in a subdirectory of the file-based log
+     * directory, rather than in a file per round. The segmented log is populated from the existing file-based log
+     * the first time it is used.
+     */
+    @Value.Default
+    default boolean useSegmentedLog() {
+        return false;
+    }
+
+    /**
+     * If present, the logs are compacted in the background down to roughly this many rounds below the greatest round
+     * written; see {@link PaxosLogCompactor}. Only suitable for use cases which never read back old rounds, such as
+     * timestamp bounds, where only the greatest agreed value matters.
+     */
+    Optional<Long> roundsRetainedAfterCompaction();
+
     @Value.Check
     default void check() {
         Preconditions.checkState(fileBasedLogDirectory().isPresent() || databaseNamespace().isPresent(),
                 "At least one of 'fileBasedLogDirectory' and 'databaseNamespace' must be present.");
+        roundsRetainedAfterCompaction().ifPresent(rounds -> Preconditions.checkState(rounds >= 2,
+                "At least the two rounds below the greatest round must be retained after compaction",
+                SafeArg.of("roundsRetainedAfterCompaction", rounds)));
     }
 }
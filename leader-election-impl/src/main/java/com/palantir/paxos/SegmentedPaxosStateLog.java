@@ -0,0 +1,795 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.paxos;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.palantir.common.persist.Persistable;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.UnsafeArg;
+
+/**
+ * A {@link PaxosStateLog} that appends rounds to a sequence of segment files, rather than writing a file per round.
+ *
+ * Each record carries a CRC32 checksum of its contents. Concurrent writers share fsyncs: a writer only forces the
+ * active segment if no other writer has already done so since its record was appended. Segments are rolled once they
+ * exceed a size limit, and {@link #truncate(long)} deletes whole segments whose rounds have all been truncated; the
+ * truncation point itself is recorded in the log, so rounds at or below it stay invisible across restarts even while
+ * they remain in a partially truncated segment.
+ *
+ * Only rounds in the active segment are indexed in memory. The other segments are summarised by the range of
+ * sequence numbers they contain, and are scanned on the rare occasions that an old round is read.
+ */
+public final class SegmentedPaxosStateLog<V extends Persistable & Versionable> implements PaxosStateLog<V>, Closeable {
+    private static final Logger log = LoggerFactory.getLogger(SegmentedPaxosStateLog.class);
+
+    @VisibleForTesting
+    static final long DEFAULT_MAX_SEGMENT_BYTES = 4 * 1024 * 1024;
+
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("(\\d+)" + Pattern.quote(SEGMENT_SUFFIX));
+
+    private static final byte ROUND_RECORD = 0;
+    private static final byte TRUNCATION_RECORD = 1;
+    private static final int RECORD_HEADER_BYTES = Integer.BYTES + Byte.BYTES + Long.BYTES + Integer.BYTES;
+    private static final byte[] NO_PAYLOAD = new byte[0];
+    private static final long NOT_TRUNCATED = Long.MIN_VALUE;
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Object syncLock = new Object();
+    private final AtomicLong syncedRecords = new AtomicLong();
+
+    @GuardedBy("lock")
+    private final NavigableMap<Long, Segment> sealedSegments = new TreeMap<>();
+    @GuardedBy("lock")
+    private final Map<Long, Long> activeSegmentIndex = new HashMap<>();
+    @GuardedBy("lock")
+    private Segment activeSegment;
+    @GuardedBy("lock")
+    private FileChannel activeChannel;
+    @GuardedBy("lock")
+    private long appendedRecords;
+    @GuardedBy("lock")
+    private long truncatedUpTo = NOT_TRUNCATED;
+
+    private SegmentedPaxosStateLog(Path directory, long maxSegmentBytes) {
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+    }
+
+    public static <V extends Persistable & Versionable> SegmentedPaxosStateLog<V> create(Path directory) {
+        return create(directory, DEFAULT_MAX_SEGMENT_BYTES);
+    }
+
+    @VisibleForTesting
+    static <V extends Persistable & Versionable> SegmentedPaxosStateLog<V> create(
+            Path directory, long maxSegmentBytes) {
+        SegmentedPaxosStateLog<V> stateLog = new SegmentedPaxosStateLog<>(directory, maxSegmentBytes);
+        try {
+            stateLog.recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("IO problem recovering the paxos state log at " + directory, e);
+        }
+        return stateLog;
+    }
+
+    /**
+     * Creates a segmented log in the {@code segmented} subdirectory of a directory holding a {@link PaxosStateLogImpl},
+     * copying every round of the existing log into it the first time this is called. The existing log is left in
+     * place but is not kept up to date with rounds written afterwards, so it must not be used again once the segmented
+     * log has accepted writes: an acceptor reading it would forget promises and accepted values, which is unsafe.
+     */
+    public static <V extends Persistable & Versionable> SegmentedPaxosStateLog<V> createMigratingFromLegacy(
+            String legacyLogDirectory, Persistable.Hydrator<V> hydrator) {
+        Path directory = Paths.get(legacyLogDirectory, "segmented");
+        Path migrationMarker = directory.resolve("migrated");
+        try {
+            if (!Files.exists(migrationMarker)) {
+                // a previous attempt may have failed part way through; start again from scratch
+                FileUtils.deleteDirectory(directory.toFile());
+                try (SegmentedPaxosStateLog<V> target = create(directory)) {
+                    PaxosStateLogMigrator.migrate(new PaxosStateLogImpl<>(legacyLogDirectory), target, hydrator);
+                }
+                Files.createFile(migrationMarker);
+                forceDirectory(directory);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("IO problem migrating the paxos state log at " + legacyLogDirectory, e);
+        }
+        return create(directory);
+    }
+
+    @Override
+    public void writeRound(long seq, V round) {
+        awaitDurable(append(ImmutableList.of(ImmutablePaxosRound.<V>builder().sequence(seq).value(round).build())));
+    }
+
+    @Override
+    public void writeBatchOfRounds(Iterable<PaxosRound<V>> rounds) {
+        awaitDurable(append(rounds));
+    }
+
+    @Override
+    public byte[] readRound(long seq) throws IOException {
+        List<Segment> candidates = new ArrayList<>();
+        lock.lock();
+        try {
+            if (seq <= truncatedUpTo) {
+                return null;
+            }
+            Long offset = activeSegmentIndex.get(seq);
+            if (offset != null) {
+                return readRecordAt(activeChannel(), offset, seq);
+            }
+            for (Segment segment : sealedSegments.descendingMap().values()) {
+                if (segment.mayContain(seq)) {
+                    candidates.add(segment);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // sealed segments are immutable, so can be scanned without holding the lock
+        for (Segment segment : candidates) {
+            byte[] value = scanForRound(segment, seq);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads each candidate segment once from start to end, rather than once per round as {@link #readRound} would.
+     */
+    @Override
+    public NavigableMap<Long, byte[]> readRounds(long fromInclusive, long toInclusive, int limit) throws IOException {
+        NavigableMap<Long, byte[]> rounds = new TreeMap<>();
+        List<Segment> candidates = new ArrayList<>();
+        long lowerBound;
+        lock.lock();
+        try {
+            lowerBound = Math.max(fromInclusive, truncatedUpTo + 1);
+            for (Segment segment : sealedSegments.values()) {
+                if (segment.minSeq <= toInclusive && lowerBound <= segment.maxSeq) {
+                    candidates.add(segment);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // segments are in the order they were written, so later records for a round replace earlier ones
+        for (Segment segment : candidates) {
+            scanForRounds(segment, lowerBound, toInclusive, limit, rounds);
+        }
+
+        lock.lock();
+        try {
+            for (Map.Entry<Long, Long> entry : activeSegmentIndex.entrySet()) {
+                long seq = entry.getKey();
+                if (lowerBound <= seq && seq <= toInclusive && seq > truncatedUpTo) {
+                    putBounded(rounds, seq, readRecordAt(activeChannel(), entry.getValue(), seq), limit);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return rounds;
+    }
+
+    @Override
+    public long getLeastLogEntry() {
+        lock.lock();
+        try {
+            long least = activeSegment.minSeq;
+            for (Segment segment : sealedSegments.values()) {
+                least = Math.min(least, segment.minSeq);
+            }
+            return least == Long.MAX_VALUE ? PaxosAcceptor.NO_LOG_ENTRY : least;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getGreatestLogEntry() {
+        lock.lock();
+        try {
+            long greatest = activeSegment.maxSeq;
+            for (Segment segment : sealedSegments.values()) {
+                greatest = Math.max(greatest, segment.maxSeq);
+            }
+            return greatest == Long.MIN_VALUE ? PaxosAcceptor.NO_LOG_ENTRY : greatest;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void truncate(long toDeleteInclusive) {
+        long ticket;
+        lock.lock();
+        try {
+            long greatestLogEntry = getGreatestLogEntry();
+            if (greatestLogEntry == PaxosAcceptor.NO_LOG_ENTRY) {
+                return;
+            }
+            // We never want to remove our most recent entry
+            long newTruncationPoint = Math.min(greatestLogEntry - 1, toDeleteInclusive);
+            if (newTruncationPoint <= truncatedUpTo) {
+                return;
+            }
+
+            appendRecord(TRUNCATION_RECORD, newTruncationPoint, NO_PAYLOAD);
+            ticket = ++appendedRecords;
+            truncatedUpTo = newTruncationPoint;
+            activeSegmentIndex.keySet().removeIf(seq -> seq <= newTruncationPoint);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+
+        // the truncation point must be durable before any segment it covers is deleted
+        awaitDurable(ticket);
+        deleteTruncatedSegments();
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (activeChannel.isOpen()) {
+                activeChannel.force(false);
+                activeChannel.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long append(Iterable<PaxosRound<V>> rounds) {
+        lock.lock();
+        try {
+            for (PaxosRound<V> round : rounds) {
+                long seq = round.sequence();
+                long offset = appendRecord(ROUND_RECORD, seq, round.value().persistToBytes());
+                if (seq > truncatedUpTo) {
+                    activeSegmentIndex.put(seq, offset);
+                    activeSegment.include(seq);
+                }
+                appendedRecords++;
+            }
+            return appendedRecords;
+        } catch (IOException e) {
+            log.error("problem writing paxos state", e);
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @GuardedBy("lock")
+    private long appendRecord(byte type, long seq, byte[] payload) throws IOException {
+        if (activeSegment.sizeBytes >= maxSegmentBytes) {
+            rollSegment();
+        }
+        FileChannel channel = activeChannel();
+        long offset = activeSegment.sizeBytes;
+        ByteBuffer buffer = encode(type, seq, payload);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+        activeSegment.sizeBytes += buffer.limit();
+        return offset;
+    }
+
+    @GuardedBy("lock")
+    private void rollSegment() throws IOException {
+        FileChannel channel = activeChannel();
+        channel.force(false);
+        channel.close();
+        syncedRecords.accumulateAndGet(appendedRecords, Math::max);
+
+        sealedSegments.put(activeSegment.id, activeSegment);
+        activeSegmentIndex.clear();
+        activeSegment = new Segment(activeSegment.id + 1, segmentPath(activeSegment.id + 1));
+        activeChannel = openForAppend(activeSegment.path);
+        forceDirectory(directory);
+        if (truncatedUpTo != NOT_TRUNCATED) {
+            // so that the truncation point survives the deletion of the segment it was originally recorded in
+            appendRecord(TRUNCATION_RECORD, truncatedUpTo, NO_PAYLOAD);
+        }
+    }
+
+    @GuardedBy("lock")
+    private FileChannel activeChannel() throws IOException {
+        if (!activeChannel.isOpen()) {
+            // the channel is closed if a thread is interrupted while using it
+            activeChannel = openForAppend(activeSegment.path);
+        }
+        return activeChannel;
+    }
+
+    /**
+     * Blocks until every record up to and including the given ticket has been forced to disk. Whoever acquires the
+     * sync lock forces everything appended so far, so writers that arrive while an fsync is in progress are all
+     * covered by the next one.
+     */
+    private void awaitDurable(long ticket) {
+        synchronized (syncLock) {
+            while (syncedRecords.get() < ticket) {
+                FileChannel channel;
+                long target;
+                lock.lock();
+                try {
+                    channel = activeChannel();
+                    target = appendedRecords;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    lock.unlock();
+                }
+
+                try {
+                    channel.force(false);
+                    syncedRecords.accumulateAndGet(target, Math::max);
+                } catch (ClosedByInterruptException e) {
+                    throw new UncheckedIOException(e);
+                } catch (ClosedChannelException e) {
+                    // the segment was rolled, which forces it first; retry against the new active segment
+                } catch (IOException e) {
+                    log.error("problem syncing paxos state", e);
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    private void deleteTruncatedSegments() {
+        List<Segment> toDelete = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Segment segment : sealedSegments.values()) {
+                if (segment.maxSeq <= truncatedUpTo) {
+                    toDelete.add(segment);
+                } else {
+                    segment.minSeq = segment.minSeq <= truncatedUpTo ? leastRoundAbove(segment) : segment.minSeq;
+                }
+            }
+            toDelete.forEach(segment -> sealedSegments.remove(segment.id));
+            activeSegment.minSeq = leastIndexedRound();
+        } finally {
+            lock.unlock();
+        }
+
+        for (Segment segment : toDelete) {
+            try {
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                log.warn("failed to delete paxos log segment {}", UnsafeArg.of("path", segment.path), e);
+            }
+        }
+    }
+
+    @GuardedBy("lock")
+    private long leastIndexedRound() {
+        return activeSegmentIndex.keySet().stream()
+                .mapToLong(Long::longValue)
+                .min()
+                .orElse(Long.MAX_VALUE);
+    }
+
+    private long leastRoundAbove(Segment segment) {
+        long least = Long.MAX_VALUE;
+        try (RecordReader reader = new RecordReader(segment.path)) {
+            for (Record record = reader.next(); record != null; record = reader.next()) {
+                if (record.type == ROUND_RECORD && record.seq > truncatedUpTo) {
+                    least = Math.min(least, record.seq);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to scan paxos log segment {}; its least entry may be misreported",
+                    UnsafeArg.of("path", segment.path), e);
+            return segment.minSeq;
+        }
+        return least;
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Long> segmentIds = listSegmentIds();
+        Segment lastSegment = null;
+        for (int i = 0; i < segmentIds.size(); i++) {
+            if (lastSegment != null) {
+                sealedSegments.put(lastSegment.id, lastSegment);
+            }
+            lastSegment = recoverSegment(segmentIds.get(i), i == segmentIds.size() - 1);
+        }
+
+        if (lastSegment == null) {
+            lastSegment = new Segment(0, segmentPath(0));
+        } else {
+            activeSegmentIndex.clear();
+            try (RecordReader reader = new RecordReader(lastSegment.path)) {
+                for (Record record = reader.next(); record != null; record = reader.next()) {
+                    if (record.type == ROUND_RECORD) {
+                        activeSegmentIndex.put(record.seq, record.offset);
+                    }
+                }
+            }
+        }
+        activeSegment = lastSegment;
+        activeChannel = openForAppend(activeSegment.path);
+        if (segmentIds.isEmpty()) {
+            forceDirectory(directory);
+        }
+        // discard any torn record left behind by a crash part way through an append; see recoverSegment
+        activeChannel.truncate(activeSegment.sizeBytes);
+
+        long truncationPoint = truncatedUpTo;
+        activeSegmentIndex.keySet().removeIf(seq -> seq <= truncationPoint);
+        for (Segment segment : sealedSegments.values()) {
+            if (segment.minSeq <= truncatedUpTo) {
+                segment.minSeq = leastRoundAbove(segment);
+            }
+        }
+        activeSegment.minSeq = leastIndexedRound();
+    }
+
+    /**
+     * Replays a segment. Only the last segment may end in a torn record, because a segment is forced before the next
+     * one is created: an invalid record that runs up to or past the end of the last segment, or that is followed only
+     * by zeroes, was being appended when the process crashed, and is discarded. Any other invalid record means that
+     * data which was once durable has been corrupted, and recovery fails rather than silently dropping the rest of the
+     * log.
+     */
+    private Segment recoverSegment(long segmentId, boolean last) throws IOException {
+        Segment segment = new Segment(segmentId, segmentPath(segmentId));
+        try (RecordReader reader = new RecordReader(segment.path)) {
+            for (Record record = reader.next(); record != null; record = reader.next()) {
+                if (record.type == ROUND_RECORD) {
+                    segment.include(record.seq);
+                } else {
+                    truncatedUpTo = Math.max(truncatedUpTo, record.seq);
+                }
+                segment.sizeBytes = record.offset + RECORD_HEADER_BYTES + record.payload.length;
+            }
+            if (reader.isTorn() || reader.isCorrupt()) {
+                boolean tornTail = last && (reader.isTorn()
+                        || reader.isInvalidRecordLast()
+                        || isZeroFilledFrom(segment.path, segment.sizeBytes));
+                if (!tornTail) {
+                    log.error("Found a corrupt record in paxos log segment {} at offset {}",
+                            UnsafeArg.of("path", segment.path),
+                            SafeArg.of("offset", segment.sizeBytes));
+                    throw new CorruptLogFileException();
+                }
+                log.warn("Discarding a torn record at the end of paxos log segment {} at offset {}",
+                        UnsafeArg.of("path", segment.path),
+                        SafeArg.of("offset", segment.sizeBytes));
+            }
+        }
+        return segment;
+    }
+
+    private static boolean isZeroFilledFrom(Path path, long offset) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            long skipped = 0;
+            while (skipped < offset) {
+                long skippedNow = in.skip(offset - skipped);
+                if (skippedNow <= 0) {
+                    return true;
+                }
+                skipped += skippedNow;
+            }
+            byte[] buffer = new byte[8192];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] != 0) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private List<Long> listSegmentIds() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    ids.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        ids.sort(Long::compare);
+        return ids;
+    }
+
+    private Path segmentPath(long segmentId) {
+        return directory.resolve(String.format("%019d%s", segmentId, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Forces the directory's entries to disk. A newly created file is only durable once its directory entry is, so
+     * this must happen before anything forced into the file is relied upon.
+     */
+    private static void forceDirectory(Path path) throws IOException {
+        try (FileChannel directoryChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        }
+    }
+
+    private static FileChannel openForAppend(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static byte[] scanForRound(Segment segment, long seq) throws IOException {
+        byte[] latest = null;
+        try (RecordReader reader = new RecordReader(segment.path)) {
+            for (Record record = reader.next(); record != null; record = reader.next()) {
+                if (record.type == ROUND_RECORD && record.seq == seq) {
+                    latest = record.payload;
+                }
+            }
+            if (latest == null && reader.isCorrupt()) {
+                throw new CorruptLogFileException();
+            }
+        } catch (NoSuchFileException e) {
+            // the segment was deleted by a concurrent truncation, so the round is no longer in the log
+            return null;
+        }
+        return latest;
+    }
+
+    private static void scanForRounds(
+            Segment segment,
+            long fromInclusive,
+            long toInclusive,
+            int limit,
+            NavigableMap<Long, byte[]> rounds) throws IOException {
+        try (RecordReader reader = new RecordReader(segment.path)) {
+            for (Record record = reader.next(); record != null; record = reader.next()) {
+                if (record.type == ROUND_RECORD && fromInclusive <= record.seq && record.seq <= toInclusive) {
+                    putBounded(rounds, record.seq, record.payload, limit);
+                }
+            }
+            if (reader.isCorrupt()) {
+                throw new CorruptLogFileException();
+            }
+        } catch (NoSuchFileException e) {
+            // the segment was deleted by a concurrent truncation, so its rounds are no longer in the log
+        }
+    }
+
+    /**
+     * Keeps only the {@code limit} smallest rounds, so that memory use is bounded however many rounds are scanned.
+     */
+    private static void putBounded(NavigableMap<Long, byte[]> rounds, long seq, byte[] value, int limit) {
+        rounds.put(seq, value);
+        if (rounds.size() > limit) {
+            rounds.pollLastEntry();
+        }
+    }
+
+    private static byte[] readRecordAt(FileChannel channel, long offset, long seq) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+        readFully(channel, header, offset);
+        header.flip();
+        int length = header.getInt();
+        byte type = header.get();
+        long recordSeq = header.getLong();
+        int checksum = header.getInt();
+        if (length < 0 || length > channel.size() - offset - RECORD_HEADER_BYTES) {
+            log.error("Problem reading paxos state for round {}: record length {} exceeds the segment",
+                    SafeArg.of("seq", seq),
+                    SafeArg.of("length", length));
+            throw new CorruptLogFileException();
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(channel, payload, offset + RECORD_HEADER_BYTES);
+        if (recordSeq != seq || checksum(type, recordSeq, payload.array()) != checksum) {
+            log.error("Problem reading paxos state for round {}: checksum mismatch", SafeArg.of("seq", seq));
+            throw new CorruptLogFileException();
+        }
+        return payload.array();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    private static ByteBuffer encode(byte type, long seq, byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length);
+        buffer.putInt(payload.length)
+                .put(type)
+                .putLong(seq)
+                .putInt(checksum(type, seq, payload))
+                .put(payload);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static int checksum(byte type, long seq, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, seq));
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static final class Segment {
+        private final long id;
+        private final Path path;
+        private long sizeBytes;
+        private long minSeq = Long.MAX_VALUE;
+        private long maxSeq = Long.MIN_VALUE;
+
+        private Segment(long id, Path path) {
+            this.id = id;
+            this.path = path;
+        }
+
+        private void include(long seq) {
+            minSeq = Math.min(minSeq, seq);
+            maxSeq = Math.max(maxSeq, seq);
+        }
+
+        private boolean mayContain(long seq) {
+            return minSeq <= seq && seq <= maxSeq;
+        }
+    }
+
+    private static final class Record {
+        private final long offset;
+        private final byte type;
+        private final long seq;
+        private final byte[] payload;
+
+        private Record(long offset, byte type, long seq, byte[] payload) {
+            this.offset = offset;
+            this.type = type;
+            this.seq = seq;
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * Reads records sequentially from a segment, stopping at the end of the file or the first record that is
+     * incomplete or fails its checksum. A record is torn if it runs past the end of the file, and corrupt if it is
+     * invalid but fits within the file.
+     */
+    private static final class RecordReader implements Closeable {
+        private final DataInputStream in;
+        private final long sizeBytes;
+        private long offset = 0;
+        private boolean corrupt = false;
+        private boolean torn = false;
+        private boolean invalidRecordIsLast = false;
+
+        private RecordReader(Path path) throws IOException {
+            InputStream fileIn = Files.newInputStream(path);
+            this.in = new DataInputStream(new BufferedInputStream(fileIn));
+            this.sizeBytes = Files.size(path);
+        }
+
+        private Record next() throws IOException {
+            if (corrupt || torn) {
+                return null;
+            }
+            if (offset == sizeBytes) {
+                return null;
+            }
+            try {
+                int length = in.readInt();
+                byte type = in.readByte();
+                long seq = in.readLong();
+                int checksum = in.readInt();
+                if (length < 0 || (type != ROUND_RECORD && type != TRUNCATION_RECORD)) {
+                    corrupt = true;
+                    return null;
+                }
+                if (length > sizeBytes - offset - RECORD_HEADER_BYTES) {
+                    // never allocate more than the file could hold, whatever the length field claims
+                    torn = true;
+                    return null;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                if (checksum(type, seq, payload) != checksum) {
+                    corrupt = true;
+                    invalidRecordIsLast = offset + RECORD_HEADER_BYTES + length == sizeBytes;
+                    return null;
+                }
+                Record record = new Record(offset, type, seq, payload);
+                offset += RECORD_HEADER_BYTES + length;
+                return record;
+            } catch (EOFException e) {
+                // the file is shorter than when the reader was opened, or the header itself was torn
+                torn = true;
+                return null;
+            }
+        }
+
+        private boolean isCorrupt() {
+            return corrupt;
+        }
+
+        private boolean isTorn() {
+            return torn;
+        }
+
+        private boolean isInvalidRecordLast() {
+            return invalidRecordIsLast;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
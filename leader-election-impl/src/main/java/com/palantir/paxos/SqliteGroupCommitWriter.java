@@ -0,0 +1,118 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.paxos;
+
+import java.sql.Connection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.statement.PreparedBatch;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
+import com.palantir.atlasdb.autobatch.Autobatchers;
+import com.palantir.atlasdb.autobatch.BatchElement;
+import com.palantir.atlasdb.autobatch.DisruptorAutobatcher;
+import com.palantir.atlasdb.futures.AtlasFutures;
+import com.palantir.tritium.metrics.registry.MetricName;
+import com.palantir.tritium.metrics.registry.TaggedMetricRegistry;
+
+/**
+ * Coalesces concurrent single-round writes to {@link SqlitePaxosStateLog}s backed by the same database into one
+ * transaction, so that they share a single commit and fsync. Callers block until the transaction containing their
+ * write has committed.
+ *
+ * Writes are applied in the order they were submitted, so the end state for a sequence written several times within
+ * one transaction is that of the last write.
+ */
+public final class SqliteGroupCommitWriter implements AutoCloseable {
+    private final DisruptorAutobatcher<Write, Void> autobatcher;
+
+    private SqliteGroupCommitWriter(DisruptorAutobatcher<Write, Void> autobatcher) {
+        this.autobatcher = autobatcher;
+    }
+
+    public static SqliteGroupCommitWriter create(
+            Supplier<Connection> connectionSupplier,
+            TaggedMetricRegistry metrics) {
+        Jdbi jdbi = Jdbi.create(connectionSupplier::get);
+        Timer commitTime = metrics.timer(withName("paxos.sqlite.group-commit.time"));
+        Histogram commitSize = metrics.histogram(withName("paxos.sqlite.group-commit.size"));
+        DisruptorAutobatcher<Write, Void> autobatcher = Autobatchers
+                .<Write, Void>independent(commit(jdbi, commitTime, commitSize))
+                .safeLoggablePurpose("sqlite-paxos-group-commit")
+                .build();
+        return new SqliteGroupCommitWriter(autobatcher);
+    }
+
+    void writeRound(String table, long seq, byte[] value) {
+        AtlasFutures.getUnchecked(autobatcher.apply(new Write(table, seq, value)));
+    }
+
+    @Override
+    public void close() {
+        autobatcher.close();
+    }
+
+    private static Consumer<List<BatchElement<Write, Void>>> commit(
+            Jdbi jdbi,
+            Timer commitTime,
+            Histogram commitSize) {
+        return batch -> {
+            Map<String, List<Write>> writesByTable = batch.stream()
+                    .map(BatchElement::argument)
+                    .collect(Collectors.groupingBy(write -> write.table, LinkedHashMap::new, Collectors.toList()));
+            try (Timer.Context ignored = commitTime.time()) {
+                jdbi.useTransaction(handle -> writesByTable.forEach((table, writes) -> {
+                    PreparedBatch preparedBatch = handle
+                            .prepareBatch("INSERT OR REPLACE INTO <table> (seq, val) VALUES (:seq, :value)")
+                            .define("table", table);
+                    for (Write write : writes) {
+                        preparedBatch.bind("seq", write.seq).bind("value", write.value).add();
+                    }
+                    preparedBatch.execute();
+                }));
+                commitSize.update(batch.size());
+                batch.forEach(element -> element.result().set(null));
+            } catch (Throwable t) {
+                batch.forEach(element -> element.result().setException(t));
+            }
+        };
+    }
+
+    private static MetricName withName(String name) {
+        return MetricName.builder().safeName(name).build();
+    }
+
+    private static final class Write {
+        private final String table;
+        private final long seq;
+        private final byte[] value;
+
+        private Write(String table, long seq, byte[] value) {
+            this.table = table;
+            this.seq = seq;
+            this.value = value;
+        }
+    }
+}
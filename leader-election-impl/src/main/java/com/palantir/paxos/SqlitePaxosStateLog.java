@@ -17,7 +17,11 @@
 package com.palantir.paxos;
 
 import java.sql.Connection;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.TreeMap;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -25,6 +29,8 @@ import org.jdbi.v3.core.Jdbi;
 import org.jdbi.v3.core.mapper.immutables.JdbiImmutables;
 import org.jdbi.v3.sqlobject.SingleValue;
 import org.jdbi.v3.sqlobject.SqlObjectPlugin;
+import org.jdbi.v3.sqlobject.config.KeyColumn;
+import org.jdbi.v3.sqlobject.config.ValueColumn;
 import org.jdbi.v3.sqlobject.customizer.Bind;
 import org.jdbi.v3.sqlobject.customizer.BindPojo;
 import org.jdbi.v3.sqlobject.customizer.Define;
@@ -37,17 +43,35 @@ import com.palantir.common.persist.Persistable;
 public final class SqlitePaxosStateLog<V extends Persistable & Versionable> implements PaxosStateLog<V> {
     private final String namespace;
     private final Jdbi jdbi;
+    private final Optional<SqliteGroupCommitWriter> groupCommitWriter;
 
-    private SqlitePaxosStateLog(String namespace, Jdbi jdbi) {
+    private SqlitePaxosStateLog(String namespace, Jdbi jdbi, Optional<SqliteGroupCommitWriter> groupCommitWriter) {
         this.namespace = namespace;
         this.jdbi = jdbi;
+        this.groupCommitWriter = groupCommitWriter;
     }
 
     public static <V extends Persistable & Versionable> PaxosStateLog<V> create(String namespace,
             Supplier<Connection> connectionSupplier) {
+        return create(namespace, connectionSupplier, Optional.empty());
+    }
+
+    /**
+     * Creates a log whose single-round writes are committed together with concurrent writes to other logs sharing
+     * the given writer, which must write to the same database as the connection supplier.
+     */
+    public static <V extends Persistable & Versionable> PaxosStateLog<V> create(String namespace,
+            Supplier<Connection> connectionSupplier,
+            SqliteGroupCommitWriter groupCommitWriter) {
+        return create(namespace, connectionSupplier, Optional.of(groupCommitWriter));
+    }
+
+    private static <V extends Persistable & Versionable> PaxosStateLog<V> create(String namespace,
+            Supplier<Connection> connectionSupplier,
+            Optional<SqliteGroupCommitWriter> groupCommitWriter) {
         Jdbi jdbi = Jdbi.create(connectionSupplier::get).installPlugin(new SqlObjectPlugin());
         jdbi.getConfig(JdbiImmutables.class).registerImmutable(PaxosRound.class);
-        SqlitePaxosStateLog<V> log = new SqlitePaxosStateLog<>(namespace, jdbi);
+        SqlitePaxosStateLog<V> log = new SqlitePaxosStateLog<>(namespace, jdbi, groupCommitWriter);
         log.initialize();
         return log;
     }
@@ -58,7 +82,11 @@ public final class SqlitePaxosStateLog<V extends Persistable & Versionable> impl
 
     @Override
     public void writeRound(long seq, V round) {
-        execute(dao -> dao.writeRound(namespace, seq, round.persistToBytes()));
+        if (groupCommitWriter.isPresent()) {
+            groupCommitWriter.get().writeRound(namespace, seq, round.persistToBytes());
+        } else {
+            execute(dao -> dao.writeRound(namespace, seq, round.persistToBytes()));
+        }
     }
 
     @Override
@@ -71,6 +99,11 @@ public final class SqlitePaxosStateLog<V extends Persistable & Versionable> impl
         return execute(dao -> dao.readRound(namespace, seq));
     }
 
+    @Override
+    public NavigableMap<Long, byte[]> readRounds(long fromInclusive, long toInclusive, int limit) {
+        return new TreeMap<>(execute(dao -> dao.readRounds(namespace, fromInclusive, toInclusive, limit)));
+    }
+
     @Override
     public long getLeastLogEntry() {
         return execute(dao -> dao.getLeastLogEntry(namespace)).orElse(PaxosAcceptor.NO_LOG_ENTRY);
@@ -101,6 +134,12 @@ public final class SqlitePaxosStateLog<V extends Persistable & Versionable> impl
         @SingleValue
         byte[] readRound(@Define("table") String table, @Bind("seq") long seq);
 
+        @SqlQuery("SELECT seq, val FROM <table> WHERE seq >= :from AND seq <= :to ORDER BY seq LIMIT :limit")
+        @KeyColumn("seq")
+        @ValueColumn("val")
+        Map<Long, byte[]> readRounds(@Define("table") String table, @Bind("from") long fromInclusive,
+                @Bind("to") long toInclusive, @Bind("limit") int limit);
+
         @SqlQuery("SELECT MIN(seq) FROM <table>")
         OptionalLong getLeastLogEntry(@Define("table") String table);
 
@@ -0,0 +1,148 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.leader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.palantir.common.time.NanoTime;
+import com.palantir.leader.LeaderElectionService.StillLeadingStatus;
+import com.palantir.paxos.LeaderPinger;
+import com.palantir.paxos.PaxosLatestRoundVerifier;
+import com.palantir.paxos.PaxosLearner;
+import com.palantir.paxos.PaxosLearnerNetworkClient;
+import com.palantir.paxos.PaxosProposer;
+import com.palantir.paxos.PaxosQuorumStatus;
+import com.palantir.paxos.PaxosValue;
+
+public class PaxosLeaderElectionServiceLeaseTest {
+    private static final Duration LEASE = Duration.ofSeconds(1);
+    private static final String LOCAL_UUID = UUID.randomUUID().toString();
+    private static final PaxosValue VALUE = new PaxosValue(LOCAL_UUID, 1L, null);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final PaxosProposer proposer = mock(PaxosProposer.class);
+    private final PaxosLearner knowledge = mock(PaxosLearner.class);
+    private final PaxosLatestRoundVerifier latestRoundVerifier = mock(PaxosLatestRoundVerifier.class);
+
+    private PaxosLeaderElectionService electionService;
+
+    @Before
+    public void setUp() {
+        when(proposer.getUuid()).thenReturn(LOCAL_UUID);
+        when(knowledge.getGreatestLearnedValue()).thenReturn(Optional.of(VALUE));
+        when(latestRoundVerifier.isLatestRoundAsync(anyLong()))
+                .thenReturn(Futures.immediateFuture(PaxosQuorumStatus.QUORUM_AGREED));
+        electionService = new PaxosLeaderElectionService(
+                proposer,
+                knowledge,
+                mock(LeaderPinger.class),
+                latestRoundVerifier,
+                mock(PaxosLearnerNetworkClient.class),
+                Duration.ofSeconds(1),
+                Duration.ofSeconds(1),
+                Duration.ofSeconds(1),
+                mock(PaxosLeaderElectionEventRecorder.class),
+                LEASE,
+                () -> NanoTime.createForTests(nanos.get()));
+    }
+
+    @Test
+    public void servesFromLeaseWithoutVerifyingAgain() {
+        assertThat(isStillLeading(VALUE)).isEqualTo(StillLeadingStatus.LEADING);
+        nanos.addAndGet(LEASE.toNanos() / 2);
+
+        assertThat(isStillLeading(VALUE)).isEqualTo(StillLeadingStatus.LEADING);
+        verify(latestRoundVerifier, times(1)).isLatestRoundAsync(VALUE.getRound());
+    }
+
+    @Test
+    public void verifiesAgainBeforeTheAcceptorsPromiseExpires() {
+        assertThat(isStillLeading(VALUE)).isEqualTo(StillLeadingStatus.LEADING);
+        nanos.addAndGet(LEASE.toNanos() * 9 / 10);
+
+        assertThat(isStillLeading(VALUE)).isEqualTo(StillLeadingStatus.LEADING);
+        verify(latestRoundVerifier, times(2)).isLatestRoundAsync(VALUE.getRound());
+    }
+
+    @Test
+    public void countsLeaseFromTheStartOfVerification() {
+        SettableFuture<PaxosQuorumStatus> slowVerification = SettableFuture.create();
+        when(latestRoundVerifier.isLatestRoundAsync(anyLong()))
+                .thenReturn(slowVerification)
+                .thenReturn(Futures.immediateFuture(PaxosQuorumStatus.QUORUM_AGREED));
+
+        ListenableFuture<StillLeadingStatus> status =
+                electionService.isStillLeading(new PaxosLeadershipToken(VALUE));
+        nanos.addAndGet(LEASE.toNanos() / 2);
+        slowVerification.set(PaxosQuorumStatus.QUORUM_AGREED);
+        assertThat(Futures.getUnchecked(status)).isEqualTo(StillLeadingStatus.LEADING);
+
+        nanos.addAndGet(LEASE.toNanos() / 2);
+        assertThat(isStillLeading(VALUE)).isEqualTo(StillLeadingStatus.LEADING);
+        verify(latestRoundVerifier, times(2)).isLatestRoundAsync(VALUE.getRound());
+    }
+
+    @Test
+    public void doesNotTakeLeaseIfVerificationFails() {
+        when(latestRoundVerifier.isLatestRoundAsync(anyLong()))
+                .thenReturn(Futures.immediateFuture(PaxosQuorumStatus.NO_QUORUM))
+                .thenReturn(Futures.immediateFuture(PaxosQuorumStatus.QUORUM_AGREED));
+
+        assertThat(isStillLeading(VALUE)).isEqualTo(StillLeadingStatus.NO_QUORUM);
+        assertThat(isStillLeading(VALUE)).isEqualTo(StillLeadingStatus.LEADING);
+        verify(latestRoundVerifier, times(2)).isLatestRoundAsync(VALUE.getRound());
+    }
+
+    @Test
+    public void doesNotUseLeaseForAnotherRound() {
+        assertThat(isStillLeading(VALUE)).isEqualTo(StillLeadingStatus.LEADING);
+
+        PaxosValue nextValue = new PaxosValue(LOCAL_UUID, VALUE.getRound() + 1, null);
+        when(knowledge.getGreatestLearnedValue()).thenReturn(Optional.of(nextValue));
+        assertThat(isStillLeading(nextValue)).isEqualTo(StillLeadingStatus.LEADING);
+        verify(latestRoundVerifier).isLatestRoundAsync(nextValue.getRound());
+    }
+
+    @Test
+    public void doesNotUseLeaseOnceRoundIsNoLongerTheLatest() {
+        assertThat(isStillLeading(VALUE)).isEqualTo(StillLeadingStatus.LEADING);
+
+        when(knowledge.getGreatestLearnedValue())
+                .thenReturn(Optional.of(new PaxosValue(UUID.randomUUID().toString(), VALUE.getRound() + 1, null)));
+        assertThat(isStillLeading(VALUE)).isEqualTo(StillLeadingStatus.NOT_LEADING);
+    }
+
+    private StillLeadingStatus isStillLeading(PaxosValue value) {
+        return Futures.getUnchecked(electionService.isStillLeading(new PaxosLeadershipToken(value)));
+    }
+}
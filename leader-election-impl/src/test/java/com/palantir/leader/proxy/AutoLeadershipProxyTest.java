@@ -0,0 +1,115 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.leader.proxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.palantir.common.remoting.ServiceNotAvailableException;
+import com.palantir.leader.LeaderElectionService;
+import com.palantir.leader.LeaderElectionService.LeadershipToken;
+import com.palantir.leader.LeaderElectionService.StillLeadingStatus;
+import com.palantir.leader.NotCurrentLeaderException;
+import com.palantir.leader.PaxosLeadershipToken;
+import com.palantir.processors.AutoLeadershipProxy;
+
+public class AutoLeadershipProxyTest {
+    private final LeadershipToken leadershipToken = mock(PaxosLeadershipToken.class);
+    private final LeaderElectionService leaderElectionService = mock(LeaderElectionService.class);
+    private final TestService delegate = mock(TestService.class);
+
+    @Before
+    public void before() {
+        when(leaderElectionService.getCurrentTokenIfLeading()).thenReturn(Optional.of(leadershipToken));
+        when(leaderElectionService.isStillLeading(leadershipToken)).thenReturn(
+                Futures.immediateFuture(StillLeadingStatus.LEADING));
+    }
+
+    @Test
+    public void usesGeneratedProxyForAnnotatedInterfaces() {
+        assertThat(createProxy()).isInstanceOf(AutoLeadershipProxy_TestService.class);
+    }
+
+    @Test
+    public void forwardsCallsToDelegate() throws Exception {
+        when(delegate.blocking(3)).thenReturn(6L);
+        when(delegate.async("value")).thenReturn(Futures.immediateFuture("async"));
+        TestService proxy = createProxy();
+
+        assertThat(proxy.blocking(3)).isEqualTo(6L);
+        assertThat(Futures.getDone(proxy.async("value"))).isEqualTo("async");
+        proxy.noReturnValue();
+
+        verify(delegate).noReturnValue();
+    }
+
+    @Test
+    public void rethrowsCheckedExceptionsUnchanged() throws Exception {
+        IOException exception = new IOException("test");
+        when(delegate.blocking(1)).thenThrow(exception);
+
+        assertThatThrownBy(() -> createProxy().blocking(1)).isSameAs(exception);
+    }
+
+    @Test
+    public void throwsNotCurrentLeaderExceptionIfDelegateIsNotAvailable() throws Exception {
+        when(delegate.blocking(1)).thenThrow(new ServiceNotAvailableException("not available"));
+
+        assertThatThrownBy(() -> createProxy().blocking(1)).isInstanceOf(NotCurrentLeaderException.class);
+    }
+
+    @Test
+    public void throwsNotCurrentLeaderExceptionIfNoLongerLeading() {
+        TestService proxy = createProxy();
+        when(leaderElectionService.isStillLeading(leadershipToken)).thenReturn(
+                Futures.immediateFuture(StillLeadingStatus.NOT_LEADING));
+
+        assertThatThrownBy(() -> proxy.blocking(1)).isInstanceOf(NotCurrentLeaderException.class);
+    }
+
+    @Test
+    public void closingProxyClosesDelegate() throws IOException {
+        ((Closeable) createProxy()).close();
+
+        verify(delegate).close();
+    }
+
+    private TestService createProxy() {
+        return AwaitingLeadershipProxy.newProxyInstance(TestService.class, () -> delegate, leaderElectionService);
+    }
+
+    @AutoLeadershipProxy
+    public interface TestService extends Closeable {
+        long blocking(int value) throws IOException;
+
+        ListenableFuture<String> async(String value);
+
+        void noReturnValue();
+    }
+}
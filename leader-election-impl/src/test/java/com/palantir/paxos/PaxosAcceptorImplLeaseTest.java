@@ -0,0 +1,90 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.paxos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class PaxosAcceptorImplLeaseTest {
+    private static final Duration LEASE = Duration.ofSeconds(1);
+    private static final PaxosProposalId PROPOSAL_ID = new PaxosProposalId(1, UUID.randomUUID().toString());
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    private final PaxosStateLog<PaxosAcceptorState> log = mock(PaxosStateLog.class);
+
+    @Test
+    public void rejectsAllRoundsForOneLeaseAfterStartup() {
+        PaxosAcceptor acceptor = new PaxosAcceptorImpl(
+                new ConcurrentSkipListMap<>(), log, PaxosAcceptor.NO_LOG_ENTRY, LEASE, nanos::get);
+        assertThat(acceptor.prepare(1, PROPOSAL_ID).isSuccessful()).isFalse();
+
+        nanos.addAndGet(LEASE.toNanos());
+        assertThat(acceptor.prepare(1, PROPOSAL_ID).isSuccessful()).isTrue();
+    }
+
+    @Test
+    public void rejectsLaterRoundsWhileLeaseIsOutstanding() {
+        PaxosAcceptor acceptor = createAcceptor(LEASE);
+        acceptor.getLatestSequencePreparedOrAccepted();
+
+        assertThat(acceptor.prepare(1, PROPOSAL_ID).isSuccessful()).isFalse();
+    }
+
+    @Test
+    public void acceptsLaterRoundsOnceLeaseHasExpired() {
+        PaxosAcceptor acceptor = createAcceptor(LEASE);
+        acceptor.getLatestSequencePreparedOrAccepted();
+
+        nanos.addAndGet(LEASE.toNanos());
+        assertThat(acceptor.prepare(1, PROPOSAL_ID).isSuccessful()).isTrue();
+    }
+
+    @Test
+    public void doesNotRejectRoundsCoveredByTheLease() {
+        PaxosAcceptor acceptor = createAcceptor(LEASE);
+        assertThat(acceptor.prepare(1, PROPOSAL_ID).isSuccessful()).isTrue();
+        acceptor.getLatestSequencePreparedOrAccepted();
+
+        assertThat(acceptor.prepare(1, new PaxosProposalId(2, PROPOSAL_ID.getProposerUUID())).isSuccessful())
+                .isTrue();
+        assertThat(acceptor.prepare(2, PROPOSAL_ID).isSuccessful()).isFalse();
+    }
+
+    @Test
+    public void doesNotPromiseAnythingWithoutLease() {
+        PaxosAcceptor acceptor = createAcceptor(Duration.ZERO);
+        acceptor.getLatestSequencePreparedOrAccepted();
+
+        assertThat(acceptor.prepare(1, PROPOSAL_ID).isSuccessful()).isTrue();
+    }
+
+    private PaxosAcceptor createAcceptor(Duration lease) {
+        PaxosAcceptor acceptor = new PaxosAcceptorImpl(
+                new ConcurrentSkipListMap<>(), log, PaxosAcceptor.NO_LOG_ENTRY, lease, nanos::get);
+        nanos.addAndGet(lease.toNanos());
+        return acceptor;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.paxos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PaxosLearnerImplTest {
+    private static final int PAGE_SIZE = PaxosLearnerImpl.MAX_LEARNED_VALUES_PER_RESPONSE;
+    private static final int NUM_ROUNDS = PAGE_SIZE + 100;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private PaxosLearner learner;
+
+    @Before
+    public void setup() {
+        learner = PaxosLearnerImpl.newLearner(tempFolder.getRoot().getAbsolutePath());
+        LongStream.range(0, NUM_ROUNDS).forEach(round -> learner.learn(round, valueForRound(round)));
+    }
+
+    @Test
+    public void returnsLearnedValuesInBoundedPages() {
+        Collection<PaxosValue> firstPage = learner.getLearnedValuesSince(0);
+        assertThat(rounds(firstPage)).containsExactlyElementsOf(
+                LongStream.range(0, PAGE_SIZE).boxed().collect(Collectors.toList()));
+
+        Collection<PaxosValue> secondPage = learner.getLearnedValuesSince(PAGE_SIZE);
+        assertThat(rounds(secondPage)).containsExactlyElementsOf(
+                LongStream.range(PAGE_SIZE, NUM_ROUNDS).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void returnsNothingBeyondGreatestLearnedValue() {
+        assertThat(learner.getLearnedValuesSince(NUM_ROUNDS)).isEmpty();
+    }
+
+    @Test
+    public void returnsLearnedValuesFromLogAfterRestart() {
+        PaxosLearner restartedLearner = PaxosLearnerImpl.newLearner(tempFolder.getRoot().getAbsolutePath());
+
+        assertThat(restartedLearner.getLearnedValuesSince(NUM_ROUNDS - 10))
+                .containsExactlyElementsOf(LongStream.range(NUM_ROUNDS - 10, NUM_ROUNDS)
+                        .mapToObj(PaxosLearnerImplTest::valueForRound)
+                        .collect(Collectors.toList()));
+    }
+
+    private static PaxosValue valueForRound(long round) {
+        return new PaxosValue("leader", round, new byte[] {(byte) round});
+    }
+
+    private static Collection<Long> rounds(Collection<PaxosValue> values) {
+        return values.stream().map(PaxosValue::getRound).collect(Collectors.toList());
+    }
+}
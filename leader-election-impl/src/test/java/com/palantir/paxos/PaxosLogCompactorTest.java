@@ -0,0 +1,146 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.paxos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.LongStream;
+
+import org.awaitility.Awaitility;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.palantir.leader.PaxosKnowledgeEventRecorder;
+
+public class PaxosLogCompactorTest {
+    private static final long RETAINED_ROUNDS = 10;
+    private static final long NUM_ROUNDS = 5 * RETAINED_ROUNDS;
+    private static final long GREATEST_ROUND = NUM_ROUNDS - 1;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void compactionTruncatesLogAndCachedRounds() {
+        PaxosStateLog<PaxosValue> log = new PaxosStateLogImpl<>(tempFolder.getRoot().getAbsolutePath());
+        ConcurrentSkipListMap<Long, PaxosValue> cachedRounds = new ConcurrentSkipListMap<>();
+        LongStream.range(0, NUM_ROUNDS).forEach(round -> {
+            log.writeRound(round, valueForRound(round));
+            cachedRounds.put(round, valueForRound(round));
+        });
+        PaxosLogCompactor compactor = PaxosLogCompactor.create(log, cachedRounds, Optional.of(RETAINED_ROUNDS));
+
+        compactor.compact(GREATEST_ROUND - RETAINED_ROUNDS);
+
+        assertThat(log.getLeastLogEntry()).isEqualTo(GREATEST_ROUND - RETAINED_ROUNDS + 1);
+        assertThat(log.getGreatestLogEntry()).isEqualTo(GREATEST_ROUND);
+        assertThat(cachedRounds.firstKey()).isEqualTo(GREATEST_ROUND - RETAINED_ROUNDS + 1);
+        assertThat(compactor.isTruncated(GREATEST_ROUND - RETAINED_ROUNDS)).isTrue();
+        assertThat(compactor.isTruncated(GREATEST_ROUND - RETAINED_ROUNDS + 1)).isFalse();
+    }
+
+    @Test
+    public void disabledCompactorNeverTruncates() {
+        PaxosLogCompactor compactor = PaxosLogCompactor.create(
+                new PaxosStateLogImpl<PaxosValue>(tempFolder.getRoot().getAbsolutePath()),
+                new ConcurrentSkipListMap<>(),
+                Optional.empty());
+
+        compactor.roundWritten(Long.MAX_VALUE);
+
+        assertThat(compactor.isTruncated(PaxosAcceptor.NO_LOG_ENTRY)).isFalse();
+    }
+
+    @Test
+    public void learnerKeepsOnlyRecentRounds() {
+        PaxosLearner learner = PaxosLearnerImpl.newLearner(storageParameters(), PaxosKnowledgeEventRecorder.NO_OP);
+        LongStream.range(0, NUM_ROUNDS).forEach(round -> learner.learn(round, valueForRound(round)));
+
+        Awaitility.await()
+                .atMost(5, TimeUnit.SECONDS)
+                .untilAsserted(() -> assertThat(learner.getLearnedValue(0)).isEmpty());
+        assertThat(learner.getLearnedValue(GREATEST_ROUND)).contains(valueForRound(GREATEST_ROUND));
+
+        PaxosLearner restartedLearner =
+                PaxosLearnerImpl.newLearner(storageParameters(), PaxosKnowledgeEventRecorder.NO_OP);
+        assertThat(restartedLearner.getGreatestLearnedValue()).contains(valueForRound(GREATEST_ROUND));
+    }
+
+    @Test
+    public void acceptorRejectsCompactedRounds() {
+        PaxosAcceptor acceptor = PaxosAcceptorImpl.newAcceptor(storageParameters());
+        PaxosProposalId proposalId = new PaxosProposalId(1, UUID.randomUUID().toString());
+        LongStream.range(0, NUM_ROUNDS).forEach(round -> acceptor.prepare(round, proposalId));
+
+        PaxosProposalId laterProposalId = new PaxosProposalId(2, UUID.randomUUID().toString());
+        Awaitility.await()
+                .atMost(5, TimeUnit.SECONDS)
+                .untilAsserted(() -> assertThat(acceptor.prepare(0, laterProposalId).isSuccessful()).isFalse());
+        assertThat(acceptor.prepare(GREATEST_ROUND, laterProposalId).isSuccessful()).isTrue();
+    }
+
+    @Test
+    public void acceptorRejectsRoundsTruncatedWhileProcessingThem() {
+        AtomicBoolean compactOnNextRead = new AtomicBoolean();
+        AtomicReference<PaxosLogCompactor> compactor = new AtomicReference<>();
+        // compacts the round away after the acceptor has found it in memory, but before it reads it
+        ConcurrentSkipListMap<Long, PaxosAcceptorState> state = new ConcurrentSkipListMap<Long, PaxosAcceptorState>() {
+            @Override
+            public PaxosAcceptorState get(Object key) {
+                if (compactOnNextRead.getAndSet(false)) {
+                    compactor.get().compact((Long) key);
+                }
+                return super.get(key);
+            }
+        };
+        PaxosStateLog<PaxosAcceptorState> log = new PaxosStateLogImpl<>(tempFolder.getRoot().getAbsolutePath());
+        compactor.set(PaxosLogCompactor.create(log, state, Optional.of(RETAINED_ROUNDS)));
+        PaxosAcceptor acceptor = new PaxosAcceptorImpl(
+                state, log, PaxosAcceptor.NO_LOG_ENTRY, Duration.ZERO, System::nanoTime, compactor.get());
+
+        PaxosProposalId proposalId = new PaxosProposalId(2, UUID.randomUUID().toString());
+        PaxosProposalId earlierProposalId = new PaxosProposalId(1, UUID.randomUUID().toString());
+        assertThat(acceptor.prepare(0, proposalId).isSuccessful()).isTrue();
+        assertThat(acceptor.prepare(1, proposalId).isSuccessful()).isTrue();
+
+        compactOnNextRead.set(true);
+        assertThat(acceptor.prepare(0, earlierProposalId).isSuccessful()).isFalse();
+
+        compactOnNextRead.set(true);
+        assertThat(acceptor.accept(1, new PaxosProposal(earlierProposalId, valueForRound(1))).isSuccessful())
+                .isFalse();
+    }
+
+    private PaxosStorageParameters storageParameters() {
+        return ImmutablePaxosStorageParameters.builder()
+                .fileBasedLogDirectory(tempFolder.getRoot().getAbsolutePath())
+                .roundsRetainedAfterCompaction(RETAINED_ROUNDS)
+                .build();
+    }
+
+    private static PaxosValue valueForRound(long round) {
+        return new PaxosValue("leader", round, new byte[] {(byte) round});
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.paxos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.palantir.common.streams.KeyedStream;
+
+public class SegmentedPaxosStateLogTest {
+    private static final long SMALL_SEGMENT_BYTES = 1_000;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Path directory;
+    private SegmentedPaxosStateLog<PaxosValue> stateLog;
+
+    @Before
+    public void setup() {
+        directory = tempFolder.getRoot().toPath().resolve("log");
+        stateLog = SegmentedPaxosStateLog.create(directory, SMALL_SEGMENT_BYTES);
+    }
+
+    @After
+    public void tearDown() {
+        stateLog.close();
+    }
+
+    @Test
+    public void readingNonExistentRoundReturnsNull() throws IOException {
+        assertThat(stateLog.readRound(10L)).isNull();
+    }
+
+    @Test
+    public void canWriteAndRetrieveAValue() throws IOException {
+        PaxosValue paxosValue = writeValueForRound(12L);
+        assertThat(readValue(12L)).isEqualTo(paxosValue);
+    }
+
+    @Test
+    public void canWriteAndRetrieveBatch() throws IOException {
+        List<PaxosRound<PaxosValue>> inputs = KeyedStream.of(LongStream.rangeClosed(5L, 10L).boxed())
+                .map(SegmentedPaxosStateLogTest::valueForRound)
+                .map((seq, val) -> ImmutablePaxosRound.<PaxosValue>builder().sequence(seq).value(val).build())
+                .values()
+                .collect(Collectors.toList());
+        stateLog.writeBatchOfRounds(inputs);
+        for (PaxosRound<PaxosValue> round : inputs) {
+            assertThat(readValue(round.sequence())).isEqualTo(round.value());
+        }
+    }
+
+    @Test
+    public void canOverwriteSequences() throws IOException {
+        writeValueForRound(5L);
+        PaxosValue newEntry = writeValueForRound(5L);
+        assertThat(readValue(5L)).isEqualTo(newEntry);
+    }
+
+    @Test
+    public void returnsDefaultValueForExtremesWhenNoEntries() {
+        assertThat(stateLog.getLeastLogEntry()).isEqualTo(PaxosAcceptor.NO_LOG_ENTRY);
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(PaxosAcceptor.NO_LOG_ENTRY);
+    }
+
+    @Test
+    public void canGetExtremeLogEntries() {
+        writeValueForRound(7L);
+        writeValueForRound(5L);
+        writeValueForRound(9L);
+
+        assertThat(stateLog.getLeastLogEntry()).isEqualTo(5L);
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(9L);
+    }
+
+    @Test
+    public void canTruncateInclusive() throws IOException {
+        writeValueForRound(5L);
+        writeValueForRound(7L);
+        writeValueForRound(9L);
+        writeValueForRound(1L);
+
+        stateLog.truncate(7L);
+        assertThat(stateLog.getLeastLogEntry()).isEqualTo(9L);
+        assertThat(stateLog.readRound(5L)).isNull();
+    }
+
+    @Test
+    public void truncationNeverRemovesGreatestEntry() {
+        writeValueForRound(5L);
+        stateLog.truncate(10L);
+
+        assertThat(stateLog.getLeastLogEntry()).isEqualTo(5L);
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(5L);
+    }
+
+    @Test
+    public void rollsSegmentsAndReadsFromSealedSegments() throws IOException {
+        List<PaxosValue> values = writeValuesForRounds(1L, 100L);
+
+        assertThat(segmentFiles()).hasSizeGreaterThan(1);
+        for (PaxosValue value : values) {
+            assertThat(readValue(value.getRound())).isEqualTo(value);
+        }
+    }
+
+    @Test
+    public void truncationDeletesFullyTruncatedSegments() {
+        writeValuesForRounds(1L, 100L);
+        long segmentsBeforeTruncation = segmentFiles().size();
+
+        stateLog.truncate(90L);
+
+        assertThat(segmentFiles().size()).isLessThan(segmentsBeforeTruncation);
+        assertThat(stateLog.getLeastLogEntry()).isEqualTo(91L);
+    }
+
+    @Test
+    public void recoversStateAfterRestart() throws IOException {
+        List<PaxosValue> values = writeValuesForRounds(1L, 100L);
+        stateLog.truncate(50L);
+        stateLog.close();
+
+        stateLog = SegmentedPaxosStateLog.create(directory, SMALL_SEGMENT_BYTES);
+
+        assertThat(stateLog.getLeastLogEntry()).isEqualTo(51L);
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(100L);
+        assertThat(stateLog.readRound(50L)).isNull();
+        assertThat(readValue(75L)).isEqualTo(values.get(74));
+    }
+
+    @Test
+    public void discardsTornRecordAtEndOfLog() throws IOException {
+        PaxosValue value = writeValueForRound(1L);
+        writeValueForRound(2L);
+        stateLog.close();
+        Path segment = segmentFiles().get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.setLength(file.length() - 1);
+        }
+
+        stateLog = SegmentedPaxosStateLog.create(directory, SMALL_SEGMENT_BYTES);
+
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(1L);
+        assertThat(readValue(1L)).isEqualTo(value);
+        PaxosValue rewritten = writeValueForRound(2L);
+        assertThat(readValue(2L)).isEqualTo(rewritten);
+    }
+
+    @Test
+    public void discardsTornRecordWhoseLengthExceedsTheSegment() throws IOException {
+        PaxosValue value = writeValueForRound(1L);
+        stateLog.close();
+        try (RandomAccessFile file = new RandomAccessFile(segmentFiles().get(0).toFile(), "rw")) {
+            file.seek(file.length());
+            file.writeInt(Integer.MAX_VALUE);
+            file.writeByte(0);
+            file.writeLong(2L);
+        }
+
+        stateLog = SegmentedPaxosStateLog.create(directory, SMALL_SEGMENT_BYTES);
+
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(1L);
+        assertThat(readValue(1L)).isEqualTo(value);
+    }
+
+    @Test
+    public void discardsZeroFilledTailOfLog() throws IOException {
+        writeValueForRound(1L);
+        stateLog.close();
+        try (RandomAccessFile file = new RandomAccessFile(segmentFiles().get(0).toFile(), "rw")) {
+            file.setLength(file.length() + 100);
+        }
+
+        stateLog = SegmentedPaxosStateLog.create(directory, SMALL_SEGMENT_BYTES);
+
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(1L);
+        PaxosValue rewritten = writeValueForRound(2L);
+        assertThat(readValue(2L)).isEqualTo(rewritten);
+    }
+
+    @Test
+    public void failsToRecoverFromCorruptionBeforeTheEndOfTheLog() throws IOException {
+        writeValueForRound(1L);
+        writeValueForRound(2L);
+        stateLog.close();
+        try (RandomAccessFile file = new RandomAccessFile(segmentFiles().get(0).toFile(), "rw")) {
+            // a byte in the payload of the first record
+            long position = 20;
+            file.seek(position);
+            int original = file.read();
+            file.seek(position);
+            file.write(original ^ 0xFF);
+        }
+
+        assertThatThrownBy(() -> SegmentedPaxosStateLog.create(directory, SMALL_SEGMENT_BYTES))
+                .hasCauseInstanceOf(PaxosStateLog.CorruptLogFileException.class);
+    }
+
+    @Test
+    public void detectsCorruptRecords() throws IOException {
+        writeValueForRound(1L);
+        Path segment = segmentFiles().get(0);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            long lastByte = file.length() - 1;
+            file.seek(lastByte);
+            int original = file.read();
+            file.seek(lastByte);
+            file.write(original ^ 0xFF);
+        }
+
+        assertThatThrownBy(() -> stateLog.readRound(1L)).isInstanceOf(PaxosStateLog.CorruptLogFileException.class);
+    }
+
+    @Test
+    public void migratesFromLegacyLog() throws IOException {
+        String legacyDirectory = tempFolder.newFolder("legacy").getPath();
+        PaxosStateLog<PaxosValue> legacyLog = new PaxosStateLogImpl<>(legacyDirectory);
+        List<PaxosValue> values = LongStream.rangeClosed(3L, 8L)
+                .mapToObj(SegmentedPaxosStateLogTest::valueForRound)
+                .collect(Collectors.toList());
+        values.forEach(value -> legacyLog.writeRound(value.getRound(), value));
+
+        try (SegmentedPaxosStateLog<PaxosValue> migrated =
+                SegmentedPaxosStateLog.createMigratingFromLegacy(legacyDirectory, PaxosValue.BYTES_HYDRATOR)) {
+            assertThat(migrated.getLeastLogEntry()).isEqualTo(3L);
+            assertThat(migrated.getGreatestLogEntry()).isEqualTo(8L);
+            for (PaxosValue value : values) {
+                assertThat(PaxosValue.BYTES_HYDRATOR.hydrateFromBytes(migrated.readRound(value.getRound())))
+                        .isEqualTo(value);
+            }
+            migrated.writeRound(9L, valueForRound(9L));
+        }
+
+        try (SegmentedPaxosStateLog<PaxosValue> reopened =
+                SegmentedPaxosStateLog.createMigratingFromLegacy(legacyDirectory, PaxosValue.BYTES_HYDRATOR)) {
+            assertThat(reopened.getGreatestLogEntry()).isEqualTo(9L);
+        }
+    }
+
+    @Test
+    public void migrationFailsInsteadOfSkippingUnreadableRounds() throws IOException {
+        String legacyDirectory = tempFolder.newFolder("legacy").getPath();
+        PaxosStateLog<PaxosValue> legacyLog = new PaxosStateLogImpl<>(legacyDirectory);
+        LongStream.rangeClosed(3L, 8L).forEach(round -> legacyLog.writeRound(round, valueForRound(round)));
+        Files.write(Paths.get(legacyDirectory, "5"), new byte[] {1, 2, 3});
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            assertThatThrownBy(() -> SegmentedPaxosStateLog.createMigratingFromLegacy(
+                    legacyDirectory, PaxosValue.BYTES_HYDRATOR))
+                    .isInstanceOf(UncheckedIOException.class);
+        }
+    }
+
+    @Test
+    public void readsRangesAcrossSegmentsInOrder() throws IOException {
+        List<PaxosValue> values = writeValuesForRounds(1L, 50L);
+        PaxosValue overwritten = writeValueForRound(10L);
+        assertThat(segmentFiles()).hasSizeGreaterThan(2);
+
+        NavigableMap<Long, byte[]> rounds = stateLog.readRounds(5L, 40L, 20);
+        assertThat(rounds.keySet()).containsExactlyElementsOf(
+                LongStream.rangeClosed(5L, 24L).boxed().collect(Collectors.toList()));
+        assertThat(PaxosValue.BYTES_HYDRATOR.hydrateFromBytes(rounds.get(10L))).isEqualTo(overwritten);
+        assertThat(PaxosValue.BYTES_HYDRATOR.hydrateFromBytes(rounds.get(24L))).isEqualTo(values.get(23));
+    }
+
+    @Test
+    public void rangeReadsSkipTruncatedRounds() throws IOException {
+        writeValuesForRounds(1L, 30L);
+        stateLog.truncate(20L);
+
+        assertThat(stateLog.readRounds(1L, 30L, 100).keySet()).allMatch(seq -> seq > 20L);
+    }
+
+    private PaxosValue readValue(long round) throws IOException {
+        return PaxosValue.BYTES_HYDRATOR.hydrateFromBytes(stateLog.readRound(round));
+    }
+
+    private List<PaxosValue> writeValuesForRounds(long firstInclusive, long lastInclusive) {
+        return LongStream.rangeClosed(firstInclusive, lastInclusive)
+                .mapToObj(this::writeValueForRound)
+                .collect(Collectors.toList());
+    }
+
+    private PaxosValue writeValueForRound(long round) {
+        PaxosValue paxosValue = valueForRound(round);
+        stateLog.writeRound(round, paxosValue);
+        return paxosValue;
+    }
+
+    private List<Path> segmentFiles() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static PaxosValue valueForRound(long round) {
+        byte[] bytes = new byte[16];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return new PaxosValue("someLeader", round, bytes);
+    }
+}
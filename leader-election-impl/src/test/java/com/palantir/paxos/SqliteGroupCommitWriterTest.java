@@ -0,0 +1,100 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.paxos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.palantir.tritium.metrics.registry.DefaultTaggedMetricRegistry;
+import com.palantir.tritium.metrics.registry.MetricName;
+import com.palantir.tritium.metrics.registry.TaggedMetricRegistry;
+
+public class SqliteGroupCommitWriterTest {
+    private static final int NUM_ROUNDS = 100;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final TaggedMetricRegistry metrics = new DefaultTaggedMetricRegistry();
+
+    private SqliteGroupCommitWriter writer;
+    private PaxosStateLog<PaxosValue> firstLog;
+    private PaxosStateLog<PaxosValue> secondLog;
+
+    @Before
+    public void setup() {
+        Supplier<Connection> connSupplier = SqliteConnections
+                .createSqliteDatabase(tempFolder.getRoot().toPath().resolve("test.db").toString());
+        writer = SqliteGroupCommitWriter.create(connSupplier, metrics);
+        firstLog = SqlitePaxosStateLog.create("first", connSupplier, writer);
+        secondLog = SqlitePaxosStateLog.create("second", connSupplier, writer);
+    }
+
+    @After
+    public void tearDown() {
+        writer.close();
+    }
+
+    @Test
+    public void concurrentWritesToDifferentLogsAreAllDurable() throws IOException {
+        List<CompletableFuture<Void>> writes = LongStream.range(0, NUM_ROUNDS)
+                .mapToObj(seq -> CompletableFuture.runAsync(() -> {
+                    firstLog.writeRound(seq, valueForRound(seq));
+                    secondLog.writeRound(seq, valueForRound(seq));
+                }))
+                .collect(Collectors.toList());
+        writes.forEach(CompletableFuture::join);
+
+        for (long seq = 0; seq < NUM_ROUNDS; seq++) {
+            assertThat(PaxosValue.BYTES_HYDRATOR.hydrateFromBytes(firstLog.readRound(seq)).getRound()).isEqualTo(seq);
+            assertThat(PaxosValue.BYTES_HYDRATOR.hydrateFromBytes(secondLog.readRound(seq)).getRound()).isEqualTo(seq);
+        }
+        long commits = metrics.histogram(MetricName.builder().safeName("paxos.sqlite.group-commit.size").build())
+                .getCount();
+        assertThat(commits).isBetween(1L, 2L * NUM_ROUNDS);
+    }
+
+    @Test
+    public void laterWriteToSameRoundWins() throws IOException {
+        firstLog.writeRound(1L, valueForRound(1L));
+        PaxosValue newValue = valueForRound(1L);
+        firstLog.writeRound(1L, newValue);
+
+        assertThat(PaxosValue.BYTES_HYDRATOR.hydrateFromBytes(firstLog.readRound(1L))).isEqualTo(newValue);
+    }
+
+    private static PaxosValue valueForRound(long round) {
+        byte[] bytes = new byte[16];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return new PaxosValue("someLeader", round, bytes);
+    }
+}
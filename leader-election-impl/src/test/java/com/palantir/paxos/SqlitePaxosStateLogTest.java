@@ -136,6 +136,14 @@ public class SqlitePaxosStateLogTest {
         assertThat(otherLogWithSameNamespace.readRound(1L)).isEqualTo(stateLog.readRound(1L));
     }
 
+    @Test
+    public void canReadRangesOfRounds() throws IOException {
+        LongStream.of(1L, 3L, 4L, 8L, 9L, 12L).forEach(this::writeValueForRound);
+
+        assertThat(stateLog.readRounds(2L, 10L, 3).keySet()).containsExactly(3L, 4L, 8L);
+        assertThat(stateLog.readRounds(5L, 20L, 10).keySet()).containsExactly(8L, 9L, 12L);
+    }
+
     private PaxosValue writeValueForRound(long round) {
         PaxosValue paxosValue = valueForRound(round);
         stateLog.writeRound(round, paxosValue);
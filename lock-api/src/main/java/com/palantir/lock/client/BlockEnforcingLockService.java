@@ -47,16 +47,21 @@ import com.palantir.logsafe.exceptions.SafeIllegalStateException;
  */
 final class BlockEnforcingLockService {
     private final NamespacedConjureTimelockService namespacedConjureTimelockService;
+    private final LockRequestBatcher lockRequestBatcher;
     private final RemoteTimeoutRetryer timeoutRetryer;
 
     private BlockEnforcingLockService(NamespacedConjureTimelockService namespacedConjureTimelockService,
+            LockRequestBatcher lockRequestBatcher,
             RemoteTimeoutRetryer timeoutRetryer) {
         this.namespacedConjureTimelockService = namespacedConjureTimelockService;
+        this.lockRequestBatcher = lockRequestBatcher;
         this.timeoutRetryer = timeoutRetryer;
     }
 
-    static BlockEnforcingLockService create(NamespacedConjureTimelockService namespacedConjureTimelockService) {
-        return new BlockEnforcingLockService(namespacedConjureTimelockService, RemoteTimeoutRetryer.createDefault());
+    static BlockEnforcingLockService create(NamespacedConjureTimelockService namespacedConjureTimelockService,
+            LockRequestBatcher lockRequestBatcher) {
+        return new BlockEnforcingLockService(
+                namespacedConjureTimelockService, lockRequestBatcher, RemoteTimeoutRetryer.createDefault());
     }
 
     LockResponse lock(LockRequest request) {
@@ -86,7 +91,7 @@ final class BlockEnforcingLockService {
     }
 
     private LockResponse performSingleLockRequest(ConjureLockRequest request) {
-        return namespacedConjureTimelockService
+        return lockRequestBatcher
                 .lock(request)
                 .accept(ToLeasedLockResponse.INSTANCE);
     }
@@ -16,13 +16,20 @@
 
 package com.palantir.lock.client;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Sets;
+import com.palantir.atlasdb.autobatch.Autobatchers;
+import com.palantir.atlasdb.autobatch.BatchElement;
+import com.palantir.atlasdb.autobatch.DisruptorAutobatcher;
+import com.palantir.atlasdb.futures.AtlasFutures;
 import com.palantir.atlasdb.timelock.api.ConjureLockToken;
 import com.palantir.atlasdb.timelock.api.ConjureRefreshLocksRequest;
 import com.palantir.atlasdb.timelock.api.ConjureRefreshLocksResponse;
@@ -41,11 +48,13 @@ import com.palantir.lock.v2.WaitForLocksRequest;
 import com.palantir.lock.v2.WaitForLocksResponse;
 import com.palantir.logsafe.Preconditions;
 
-class LockLeaseService {
+class LockLeaseService implements AutoCloseable {
     private final NamespacedConjureTimelockService delegate;
     private final UUID clientId;
     private final CoalescingSupplier<LeaderTime> time;
+    private final LockRequestBatcher lockRequestBatcher;
     private final BlockEnforcingLockService lockService;
+    private final DisruptorAutobatcher<Set<ConjureLockToken>, Set<ConjureLockToken>> unlocker;
 
     @VisibleForTesting
     LockLeaseService(
@@ -54,7 +63,11 @@ class LockLeaseService {
         this.delegate = delegate;
         this.clientId = clientId;
         this.time = new CoalescingSupplier<>(delegate::leaderTime);
-        this.lockService = BlockEnforcingLockService.create(delegate);
+        this.lockRequestBatcher = LockRequestBatcher.create(delegate);
+        this.lockService = BlockEnforcingLockService.create(delegate, lockRequestBatcher);
+        this.unlocker = Autobatchers.independent(unlockConsumer(delegate))
+                .safeLoggablePurpose("lock-lease-service-unlock")
+                .build();
     }
 
     static LockLeaseService create(NamespacedConjureTimelockService conjureTimelock) {
@@ -139,13 +152,45 @@ class LockLeaseService {
         Set<LeasedLockToken> leasedLockTokens = leasedTokens(tokens);
         leasedLockTokens.forEach(LeasedLockToken::invalidate);
 
-        Set<ConjureLockToken> unlocked =
-                delegate.unlock(ConjureUnlockRequest.of(serverTokens(leasedLockTokens))).getTokens();
+        Set<ConjureLockToken> unlocked = AtlasFutures.getUnchecked(unlocker.apply(serverTokens(leasedLockTokens)));
         return leasedLockTokens.stream()
                 .filter(leasedLockToken -> unlocked.contains(leasedLockToken.serverToken()))
                 .collect(Collectors.toSet());
     }
 
+    @Override
+    public void close() {
+        unlocker.close();
+        lockRequestBatcher.close();
+    }
+
+    /**
+     * Unlocks the union of all tokens in the batch in a single call. Each caller is told about the tokens it asked to
+     * unlock that were unlocked; if the same token is unlocked by several concurrent callers, only the first is told
+     * it was unlocked, as would have been the case had the calls been made separately.
+     */
+    private static Consumer<List<BatchElement<Set<ConjureLockToken>, Set<ConjureLockToken>>>> unlockConsumer(
+            NamespacedConjureTimelockService delegate) {
+        return batch -> {
+            try {
+                Set<ConjureLockToken> allTokens = batch.stream()
+                        .map(BatchElement::argument)
+                        .flatMap(Set::stream)
+                        .collect(Collectors.toSet());
+                Set<ConjureLockToken> unlocked = new HashSet<>(
+                        delegate.unlock(ConjureUnlockRequest.of(allTokens)).getTokens());
+                for (BatchElement<Set<ConjureLockToken>, Set<ConjureLockToken>> element : batch) {
+                    Set<ConjureLockToken> unlockedForElement = element.argument().stream()
+                            .filter(unlocked::remove)
+                            .collect(Collectors.toSet());
+                    element.result().set(unlockedForElement);
+                }
+            } catch (Throwable t) {
+                batch.forEach(element -> element.result().setException(t));
+            }
+        };
+    }
+
     private Set<LeasedLockToken> refreshTokens(Set<LeasedLockToken> leasedTokens) {
         if (leasedTokens.isEmpty()) {
             return leasedTokens;
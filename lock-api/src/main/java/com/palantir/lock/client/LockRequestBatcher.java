@@ -0,0 +1,123 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.lock.client;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableMap;
+import com.palantir.atlasdb.autobatch.Autobatchers;
+import com.palantir.atlasdb.autobatch.BatchElement;
+import com.palantir.atlasdb.autobatch.DisruptorAutobatcher;
+import com.palantir.atlasdb.futures.AtlasFutures;
+import com.palantir.atlasdb.timelock.api.ConjureLockBatchRequest;
+import com.palantir.atlasdb.timelock.api.ConjureLockRequest;
+import com.palantir.atlasdb.timelock.api.ConjureLockResponse;
+import com.palantir.conjure.java.api.errors.UnknownRemoteException;
+import com.palantir.logsafe.SafeArg;
+
+/**
+ * Coalesces concurrent lock requests into lock batch calls, so that a burst of lock requests from many threads
+ * costs a handful of round trips to TimeLock rather than one each.
+ *
+ * Batches are sent from the autobatcher's handler thread, so requests accumulate while a batch call is in flight.
+ * Requests are grouped by their exact acquire timeout, and groups with shorter timeouts are sent first. The server
+ * only waits a short time for the requests in a batch; requests that have not completed by then, or that failed, are
+ * left out of the response. Each of those, like every request of a batch call that failed as a whole, is then sent
+ * to the lock endpoint on its own from the caller's thread. As the server identifies lock requests by request id, a
+ * request that is still in progress is not acquired twice; its caller simply waits for it, without holding up the
+ * other requests of the batch, and granted locks are always returned to the caller that requested them.
+ *
+ * If the server does not have the lock batch endpoint, batching is switched off and every request is sent on its
+ * own, as before.
+ */
+final class LockRequestBatcher implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(LockRequestBatcher.class);
+
+    private final NamespacedConjureTimelockService delegate;
+    private final DisruptorAutobatcher<ConjureLockRequest, Optional<ConjureLockResponse>> autobatcher;
+    private volatile boolean batchingSupported = true;
+
+    private LockRequestBatcher(NamespacedConjureTimelockService delegate) {
+        this.delegate = delegate;
+        this.autobatcher = Autobatchers.<ConjureLockRequest, Optional<ConjureLockResponse>>independent(this::lockBatch)
+                .safeLoggablePurpose("lock-request-batcher")
+                .build();
+    }
+
+    static LockRequestBatcher create(NamespacedConjureTimelockService delegate) {
+        return new LockRequestBatcher(delegate);
+    }
+
+    ConjureLockResponse lock(ConjureLockRequest request) {
+        if (!batchingSupported) {
+            return delegate.lock(request);
+        }
+        return AtlasFutures.getUnchecked(autobatcher.apply(request))
+                .orElseGet(() -> delegate.lock(request));
+    }
+
+    @Override
+    public void close() {
+        autobatcher.close();
+    }
+
+    private void lockBatch(List<BatchElement<ConjureLockRequest, Optional<ConjureLockResponse>>> batch) {
+        Map<Integer, List<BatchElement<ConjureLockRequest, Optional<ConjureLockResponse>>>> groups = batch.stream()
+                .collect(Collectors.groupingBy(
+                        element -> element.argument().getAcquireTimeoutMs(), TreeMap::new, Collectors.toList()));
+        groups.values().forEach(this::lockGroup);
+    }
+
+    private void lockGroup(List<BatchElement<ConjureLockRequest, Optional<ConjureLockResponse>>> group) {
+        Map<UUID, ConjureLockResponse> responses;
+        try {
+            responses = batchingSupported ? sendBatch(group) : ImmutableMap.of();
+        } catch (Throwable t) {
+            log.info("Lock batch call failed; sending its requests individually",
+                    SafeArg.of("numRequests", group.size()), t);
+            responses = ImmutableMap.of();
+        }
+        for (BatchElement<ConjureLockRequest, Optional<ConjureLockResponse>> element : group) {
+            element.result().set(Optional.ofNullable(responses.get(element.argument().getRequestId())));
+        }
+    }
+
+    private Map<UUID, ConjureLockResponse> sendBatch(
+            List<BatchElement<ConjureLockRequest, Optional<ConjureLockResponse>>> group) {
+        List<ConjureLockRequest> requests = group.stream()
+                .map(BatchElement::argument)
+                .collect(Collectors.toList());
+        try {
+            return delegate.lockBatch(ConjureLockBatchRequest.of(requests)).getResponses();
+        } catch (UnknownRemoteException e) {
+            if (e.getStatus() == 404) {
+                log.info("TimeLock does not support lock batch calls; lock requests will be sent individually");
+                batchingSupported = false;
+            }
+            throw e;
+        }
+    }
+}
@@ -18,6 +18,8 @@ package com.palantir.lock.client;
 
 import com.palantir.atlasdb.timelock.api.ConjureGetFreshTimestampsRequest;
 import com.palantir.atlasdb.timelock.api.ConjureGetFreshTimestampsResponse;
+import com.palantir.atlasdb.timelock.api.ConjureLockBatchRequest;
+import com.palantir.atlasdb.timelock.api.ConjureLockBatchResponse;
 import com.palantir.atlasdb.timelock.api.ConjureLockRequest;
 import com.palantir.atlasdb.timelock.api.ConjureLockResponse;
 import com.palantir.atlasdb.timelock.api.ConjureRefreshLocksRequest;
@@ -57,6 +59,10 @@ public class NamespacedConjureTimelockService {
         return conjureTimelockService.lock(AUTH_HEADER, namespace, request);
     }
 
+    public ConjureLockBatchResponse lockBatch(ConjureLockBatchRequest request) {
+        return conjureTimelockService.lockBatch(AUTH_HEADER, namespace, request);
+    }
+
     public ConjureWaitForLocksResponse waitForLocks(ConjureLockRequest request) {
         return conjureTimelockService.waitForLocks(AUTH_HEADER, namespace, request);
     }
@@ -127,5 +127,6 @@ public final class RemoteTimelockServiceAdapter implements TimelockService, Auto
     @Override
     public void close() {
         transactionStarter.close();
+        lockLeaseService.close();
     }
 }
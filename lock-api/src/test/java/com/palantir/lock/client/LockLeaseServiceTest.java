@@ -27,7 +27,9 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -36,6 +38,9 @@ import org.mockito.junit.MockitoJUnitRunner;
 
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableSet;
+import com.palantir.atlasdb.timelock.api.ConjureLockBatchRequest;
+import com.palantir.atlasdb.timelock.api.ConjureLockBatchResponse;
+import com.palantir.atlasdb.timelock.api.ConjureLockRequest;
 import com.palantir.atlasdb.timelock.api.ConjureLockResponse;
 import com.palantir.atlasdb.timelock.api.ConjureLockToken;
 import com.palantir.atlasdb.timelock.api.ConjureRefreshLocksRequest;
@@ -84,15 +89,19 @@ public class LockLeaseServiceTest {
         lockLeaseService = new LockLeaseService(timelock, SERVICE_ID);
     }
 
+    @After
+    public void after() {
+        lockLeaseService.close();
+    }
+
     @Test
     public void lockResponseHasCorrectLeasedLock() {
         Lease lease = getLease();
-        when(timelock.lock(any()))
-                .thenReturn(ConjureLockResponse.successful(SuccessfulLockResponse.of(LOCK_TOKEN, lease)));
+        respondToLockRequestsWith(ConjureLockResponse.successful(SuccessfulLockResponse.of(LOCK_TOKEN, lease)));
 
         LockResponse clientResponse = lockLeaseService.lock(lockRequest);
 
-        verify(timelock).lock(any());
+        verify(timelock).lockBatch(any());
         LeasedLockToken leasedLockToken = (LeasedLockToken) clientResponse.getToken();
         assertThat(leasedLockToken.serverToken()).isEqualTo(LOCK_TOKEN);
         assertThat(leasedLockToken.getLease()).isEqualTo(lease);
@@ -100,7 +109,7 @@ public class LockLeaseServiceTest {
 
     @Test
     public void shouldHandleUnsuccessfulLockResponses() {
-        when(timelock.lock(any())).thenReturn(ConjureLockResponse.unsuccessful(UnsuccessfulLockResponse.of()));
+        respondToLockRequestsWith(ConjureLockResponse.unsuccessful(UnsuccessfulLockResponse.of()));
 
         LockResponse clientResponse = lockLeaseService.lock(lockRequest);
         assertThat(clientResponse.wasSuccessful()).isFalse();
@@ -123,8 +132,7 @@ public class LockLeaseServiceTest {
 
     @Test
     public void returnedTokenShouldHaveCorrectServerToken() {
-        when(timelock.lock(any())).thenReturn(
-                ConjureLockResponse.successful(SuccessfulLockResponse.of(LOCK_TOKEN, getLease())));
+        respondToLockRequestsWith(ConjureLockResponse.successful(SuccessfulLockResponse.of(LOCK_TOKEN, getLease())));
 
         LockResponse lockResponse = lockLeaseService.lock(lockRequest);
         LeasedLockToken leasedToken = (LeasedLockToken) lockResponse.getToken();
@@ -133,8 +141,7 @@ public class LockLeaseServiceTest {
 
     @Test
     public void leasedTokenShouldHaveValidLeaseForTheLeasePeriod() {
-        when(timelock.lock(any())).thenReturn(
-                ConjureLockResponse.successful(SuccessfulLockResponse.of(LOCK_TOKEN, getLease())));
+        respondToLockRequestsWith(ConjureLockResponse.successful(SuccessfulLockResponse.of(LOCK_TOKEN, getLease())));
 
         LockResponse lockResponse = lockLeaseService.lock(lockRequest);
         assertValid(lockResponse.getToken());
@@ -196,6 +203,14 @@ public class LockLeaseServiceTest {
         assertThat(refreshedLeasedLockToken).isEqualTo(leasedLockToken);
     }
 
+    private void respondToLockRequestsWith(ConjureLockResponse response) {
+        when(timelock.lockBatch(any())).thenAnswer(inv -> {
+            ConjureLockBatchRequest request = inv.getArgument(0);
+            return ConjureLockBatchResponse.of(request.getRequests().stream()
+                    .collect(Collectors.toMap(ConjureLockRequest::getRequestId, unused -> response)));
+        });
+    }
+
     private ConjureStartTransactionsResponse startTransactionsResponseWith(ConjureLockToken lockToken, Lease lease) {
         return ConjureStartTransactionsResponse.builder()
                 .immutableTimestamp(LockImmutableTimestampResponse.of(1L,
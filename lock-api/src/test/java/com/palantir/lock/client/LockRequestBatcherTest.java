@@ -0,0 +1,142 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.palantir.lock.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.palantir.atlasdb.timelock.api.ConjureLockBatchRequest;
+import com.palantir.atlasdb.timelock.api.ConjureLockBatchResponse;
+import com.palantir.atlasdb.timelock.api.ConjureLockRequest;
+import com.palantir.atlasdb.timelock.api.ConjureLockResponse;
+import com.palantir.atlasdb.timelock.api.UnsuccessfulLockResponse;
+import com.palantir.conjure.java.api.errors.UnknownRemoteException;
+
+public class LockRequestBatcherTest {
+    private static final ConjureLockResponse RESPONSE = ConjureLockResponse.unsuccessful(UnsuccessfulLockResponse.of());
+    private static final ConjureLockResponse INDIVIDUAL_RESPONSE =
+            ConjureLockResponse.unsuccessful(UnsuccessfulLockResponse.of());
+
+    private final NamespacedConjureTimelockService timelock = mock(NamespacedConjureTimelockService.class);
+    private final LockRequestBatcher batcher = LockRequestBatcher.create(timelock);
+
+    @After
+    public void after() {
+        batcher.close();
+    }
+
+    @Test
+    public void everyRequestReceivesItsResponse() {
+        when(timelock.lockBatch(any())).thenAnswer(inv -> {
+            ConjureLockBatchRequest request = inv.getArgument(0);
+            return ConjureLockBatchResponse.of(request.getRequests().stream()
+                    .collect(Collectors.toMap(ConjureLockRequest::getRequestId, unused -> RESPONSE)));
+        });
+
+        List<CompletableFuture<ConjureLockResponse>> responses = IntStream.range(0, 100)
+                .mapToObj(unused -> CompletableFuture.supplyAsync(() -> batcher.lock(lockRequest(10))))
+                .collect(Collectors.toList());
+
+        responses.forEach(response -> assertThat(response.join()).isSameAs(RESPONSE));
+        verify(timelock, never()).lock(any());
+    }
+
+    @Test
+    public void onlyRequestsWithTheSameTimeoutAreBatchedTogether() {
+        when(timelock.lockBatch(any())).thenAnswer(inv -> {
+            ConjureLockBatchRequest request = inv.getArgument(0);
+            assertThat(request.getRequests().stream().map(ConjureLockRequest::getAcquireTimeoutMs).distinct())
+                    .hasSize(1);
+            return ConjureLockBatchResponse.of(request.getRequests().stream()
+                    .collect(Collectors.toMap(ConjureLockRequest::getRequestId, unused -> RESPONSE)));
+        });
+
+        List<CompletableFuture<ConjureLockResponse>> responses = IntStream.range(0, 100)
+                .mapToObj(index -> CompletableFuture.supplyAsync(() -> batcher.lock(lockRequest(index % 3))))
+                .collect(Collectors.toList());
+
+        responses.forEach(response -> assertThat(response.join()).isSameAs(RESPONSE));
+    }
+
+    @Test
+    public void requestsMissingFromTheResponseAreSentIndividually() {
+        when(timelock.lockBatch(any())).thenReturn(ConjureLockBatchResponse.of(ImmutableMap.of()));
+        when(timelock.lock(any())).thenReturn(INDIVIDUAL_RESPONSE);
+
+        ConjureLockRequest request = lockRequest(10);
+        assertThat(batcher.lock(request)).isSameAs(INDIVIDUAL_RESPONSE);
+        verify(timelock).lock(request);
+    }
+
+    @Test
+    public void requestsOfAFailedBatchAreSentIndividually() {
+        when(timelock.lockBatch(any())).thenThrow(new RuntimeException("boom"));
+        when(timelock.lock(any())).thenReturn(INDIVIDUAL_RESPONSE);
+
+        assertThat(batcher.lock(lockRequest(10))).isSameAs(INDIVIDUAL_RESPONSE);
+        assertThat(batcher.lock(lockRequest(10))).isSameAs(INDIVIDUAL_RESPONSE);
+        verify(timelock, times(2)).lockBatch(any());
+    }
+
+    @Test
+    public void individualFailuresArePropagated() {
+        RuntimeException failure = new RuntimeException("boom");
+        when(timelock.lockBatch(any())).thenReturn(ConjureLockBatchResponse.of(ImmutableMap.of()));
+        when(timelock.lock(any())).thenThrow(failure);
+
+        assertThatThrownBy(() -> batcher.lock(lockRequest(10))).isEqualTo(failure);
+    }
+
+    @Test
+    public void stopsBatchingIfServerDoesNotSupportLockBatch() {
+        when(timelock.lockBatch(any())).thenThrow(new UnknownRemoteException(404, ""));
+        when(timelock.lock(any())).thenReturn(INDIVIDUAL_RESPONSE);
+
+        assertThat(batcher.lock(lockRequest(10))).isSameAs(INDIVIDUAL_RESPONSE);
+        assertThat(batcher.lock(lockRequest(10))).isSameAs(INDIVIDUAL_RESPONSE);
+        verify(timelock, times(1)).lockBatch(any());
+        verify(timelock, times(2)).lock(any());
+    }
+
+    private static ConjureLockRequest lockRequest(int acquireTimeoutMs) {
+        return ConjureLockRequest.builder()
+                .requestId(UUID.randomUUID())
+                .lockDescriptors(ImmutableSet.of())
+                .acquireTimeoutMs(acquireTimeoutMs)
+                .clientDescription(Optional.empty())
+                .build();
+    }
+}
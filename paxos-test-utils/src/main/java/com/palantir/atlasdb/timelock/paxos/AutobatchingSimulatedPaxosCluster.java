@@ -0,0 +1,139 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.timelock.paxos;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.IntStream;
+
+import org.apache.commons.io.FileUtils;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.palantir.atlasdb.util.MetricsManagers;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.paxos.PaxosProposer;
+import com.palantir.paxos.PaxosProposerImpl;
+import com.palantir.paxos.SimulatedPaxosNetwork;
+
+/**
+ * The timelock counterpart of {@link com.palantir.paxos.SimulatedPaxosCluster}: every node has the batch acceptor and
+ * learner of a {@link LocalPaxosComponents}, and proposes through the autobatching acceptor and learner network
+ * clients, which reach the other nodes over the links of a {@link SimulatedPaxosNetwork}.
+ */
+public final class AutobatchingSimulatedPaxosCluster implements Closeable {
+    private final SimulatedPaxosNetwork network;
+    private final List<LocalPaxosComponents> components;
+    private final List<AutobatchingPaxosAcceptorNetworkClientFactory> acceptorFactories;
+    private final List<AutobatchingPaxosLearnerNetworkClientFactory> learnerFactories;
+    private final ExecutorService executor;
+    private final Path logDirectory;
+
+    private AutobatchingSimulatedPaxosCluster(
+            SimulatedPaxosNetwork network,
+            List<LocalPaxosComponents> components,
+            ExecutorService executor,
+            Path logDirectory) {
+        this.network = network;
+        this.components = components;
+        this.executor = executor;
+        this.logDirectory = logDirectory;
+        this.acceptorFactories = IntStream.range(0, components.size())
+                .mapToObj(this::createAcceptorFactory)
+                .collect(ImmutableList.toImmutableList());
+        this.learnerFactories = IntStream.range(0, components.size())
+                .mapToObj(this::createLearnerFactory)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public static AutobatchingSimulatedPaxosCluster create(int numNodes, SimulatedPaxosNetwork network)
+            throws IOException {
+        Preconditions.checkArgument(numNodes > 0, "A cluster needs at least one node",
+                SafeArg.of("numNodes", numNodes));
+        Path logDirectory = Files.createTempDirectory("autobatching-paxos-simulation");
+        List<LocalPaxosComponents> components = IntStream.range(0, numNodes)
+                .mapToObj(node -> new LocalPaxosComponents(
+                        TimelockPaxosMetrics.of(PaxosUseCase.TIMESTAMP, MetricsManagers.createForTests()),
+                        PaxosUseCase.TIMESTAMP,
+                        logDirectory.resolve(Integer.toString(node)),
+                        UUID.randomUUID(),
+                        true))
+                .collect(ImmutableList.toImmutableList());
+        return new AutobatchingSimulatedPaxosCluster(
+                network,
+                components,
+                PTExecutors.newCachedThreadPool("autobatching-paxos-simulation"),
+                logDirectory);
+    }
+
+    public int numNodes() {
+        return components.size();
+    }
+
+    public int quorumSize() {
+        return numNodes() / 2 + 1;
+    }
+
+    public SimulatedPaxosNetwork network() {
+        return network;
+    }
+
+    /**
+     * A proposer on the given node for the given client. Proposers on the same node share that node's autobatchers,
+     * so concurrent proposals from them, whether for one client or for several, are coalesced into batch calls.
+     */
+    public PaxosProposer proposer(int node, Client client) {
+        return PaxosProposerImpl.newProposer(
+                acceptorFactories.get(node).paxosAcceptorForClient(client),
+                learnerFactories.get(node).paxosLearnerForClient(client),
+                UUID.randomUUID());
+    }
+
+    @Override
+    public void close() throws IOException {
+        acceptorFactories.forEach(AutobatchingPaxosAcceptorNetworkClientFactory::close);
+        learnerFactories.forEach(AutobatchingPaxosLearnerNetworkClientFactory::close);
+        executor.shutdownNow();
+        FileUtils.deleteDirectory(logDirectory.toFile());
+    }
+
+    private AutobatchingPaxosAcceptorNetworkClientFactory createAcceptorFactory(int node) {
+        List<BatchPaxosAcceptor> acceptors = IntStream.range(0, numNodes())
+                .mapToObj(target -> network.link(
+                        BatchPaxosAcceptor.class, components.get(target).batchAcceptor(), node, target))
+                .collect(ImmutableList.toImmutableList());
+        return AutobatchingPaxosAcceptorNetworkClientFactory.create(
+                acceptors, Maps.toMap(acceptors, $ -> executor), quorumSize());
+    }
+
+    private AutobatchingPaxosLearnerNetworkClientFactory createLearnerFactory(int node) {
+        List<BatchPaxosLearner> remotes = IntStream.range(0, numNodes())
+                .filter(target -> target != node)
+                .mapToObj(target -> network.link(
+                        BatchPaxosLearner.class, components.get(target).batchLearner(), node, target))
+                .collect(ImmutableList.toImmutableList());
+        return AutobatchingPaxosLearnerNetworkClientFactory.create(
+                LocalAndRemotes.of(components.get(node).batchLearner(), remotes), executor, quorumSize());
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.paxos;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.IntStream;
+
+import org.apache.commons.io.FileUtils;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+
+/**
+ * A Paxos cluster running entirely in this process: every node has a {@link PaxosAcceptorImpl}, a
+ * {@link PaxosLearnerImpl} and a {@link PaxosProposerImpl}, with state logs in a temporary directory. Each proposer
+ * talks to the other nodes' acceptors and learners through single leader network clients, over the links of a
+ * {@link SimulatedPaxosNetwork}.
+ */
+public final class SimulatedPaxosCluster implements Closeable {
+    private final SimulatedPaxosNetwork network;
+    private final List<PaxosAcceptor> acceptors;
+    private final List<PaxosLearner> learners;
+    private final List<PaxosProposer> proposers;
+    private final ExecutorService executor;
+    private final Path logDirectory;
+
+    private SimulatedPaxosCluster(
+            SimulatedPaxosNetwork network,
+            List<PaxosAcceptor> acceptors,
+            List<PaxosLearner> learners,
+            ExecutorService executor,
+            Path logDirectory) {
+        this.network = network;
+        this.acceptors = acceptors;
+        this.learners = learners;
+        this.executor = executor;
+        this.logDirectory = logDirectory;
+        this.proposers = IntStream.range(0, acceptors.size())
+                .mapToObj(this::createProposer)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    public static SimulatedPaxosCluster create(int numNodes, SimulatedPaxosNetwork network) throws IOException {
+        Preconditions.checkArgument(numNodes > 0, "A cluster needs at least one node",
+                SafeArg.of("numNodes", numNodes));
+        Path logDirectory = Files.createTempDirectory("paxos-simulation");
+        List<PaxosAcceptor> acceptors = IntStream.range(0, numNodes)
+                .mapToObj(node -> PaxosAcceptorImpl.newAcceptor(nodeDirectory(logDirectory, "acceptor", node)))
+                .collect(ImmutableList.toImmutableList());
+        List<PaxosLearner> learners = IntStream.range(0, numNodes)
+                .mapToObj(node -> PaxosLearnerImpl.newLearner(nodeDirectory(logDirectory, "learner", node)))
+                .collect(ImmutableList.toImmutableList());
+        return new SimulatedPaxosCluster(
+                network, acceptors, learners, PTExecutors.newCachedThreadPool("paxos-simulation"), logDirectory);
+    }
+
+    public int numNodes() {
+        return acceptors.size();
+    }
+
+    public int quorumSize() {
+        return numNodes() / 2 + 1;
+    }
+
+    public SimulatedPaxosNetwork network() {
+        return network;
+    }
+
+    public PaxosProposer proposer(int node) {
+        return proposers.get(node);
+    }
+
+    /**
+     * The acceptor on the given node, accessed locally rather than over the simulated network.
+     */
+    public PaxosAcceptor acceptor(int node) {
+        return acceptors.get(node);
+    }
+
+    /**
+     * The learner on the given node, accessed locally rather than over the simulated network.
+     */
+    public PaxosLearner learner(int node) {
+        return learners.get(node);
+    }
+
+    @Override
+    public void close() throws IOException {
+        executor.shutdownNow();
+        FileUtils.deleteDirectory(logDirectory.toFile());
+    }
+
+    private PaxosProposer createProposer(int node) {
+        List<PaxosAcceptor> acceptorsFromNode = IntStream.range(0, numNodes())
+                .mapToObj(target -> network.link(PaxosAcceptor.class, acceptors.get(target), node, target))
+                .collect(ImmutableList.toImmutableList());
+        List<PaxosLearner> remoteLearners = IntStream.range(0, numNodes())
+                .filter(target -> target != node)
+                .mapToObj(target -> network.link(PaxosLearner.class, learners.get(target), node, target))
+                .collect(ImmutableList.toImmutableList());
+        PaxosLearner localLearner = learners.get(node);
+
+        PaxosAcceptorNetworkClient acceptorClient = new SingleLeaderAcceptorNetworkClient(
+                acceptorsFromNode,
+                quorumSize(),
+                Maps.toMap(acceptorsFromNode, $ -> executor),
+                true);
+        PaxosLearnerNetworkClient learnerClient = new SingleLeaderLearnerNetworkClient(
+                localLearner,
+                remoteLearners,
+                quorumSize(),
+                Maps.toMap(ImmutableList.<PaxosLearner>builder().add(localLearner).addAll(remoteLearners).build(),
+                        $ -> executor),
+                true);
+        return PaxosProposerImpl.newProposer(acceptorClient, learnerClient, UUID.randomUUID());
+    }
+
+    private static String nodeDirectory(Path logDirectory, String role, int node) {
+        return logDirectory.resolve(role).resolve(Integer.toString(node)).toString();
+    }
+}
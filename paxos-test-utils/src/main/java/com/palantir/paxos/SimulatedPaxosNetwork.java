@@ -0,0 +1,191 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.paxos;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.reflect.AbstractInvocationHandler;
+import com.google.common.reflect.Reflection;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.exceptions.SafeRuntimeException;
+
+/**
+ * An in-process network connecting the nodes of a simulated Paxos cluster. Every call from one node to another goes
+ * through a link that delays it, may lose either the request or the response, and fails outright while the two nodes
+ * are partitioned from each other. Calls from a node to itself never touch the network.
+ *
+ * Each directed link draws its faults from its own {@link Random}, seeded from the network seed and the two node
+ * indices, so the sequence of delays and drops seen on a link is reproducible from run to run even though calls on
+ * different links interleave nondeterministically.
+ */
+public final class SimulatedPaxosNetwork {
+    private final long seed;
+    private final Duration latency;
+    private final Duration jitter;
+    private final Set<Link> partitionedLinks = ConcurrentHashMap.newKeySet();
+
+    private volatile double dropProbability;
+
+    /**
+     * @param seed seed for the per-link sources of randomness
+     * @param latency round trip time of every remote call
+     * @param jitter upper bound of a uniformly distributed delay added on top of the latency
+     * @param dropProbability probability that a remote call is lost, split evenly between losing the request (the
+     * callee never sees it) and losing the response (the callee acts on it, but the caller sees a failure)
+     */
+    public SimulatedPaxosNetwork(long seed, Duration latency, Duration jitter, double dropProbability) {
+        Preconditions.checkArgument(!latency.isNegative(), "Latency must not be negative");
+        Preconditions.checkArgument(!jitter.isNegative(), "Jitter must not be negative");
+        this.seed = seed;
+        this.latency = latency;
+        this.jitter = jitter;
+        setDropProbability(dropProbability);
+    }
+
+    public static SimulatedPaxosNetwork reliable(long seed) {
+        return new SimulatedPaxosNetwork(seed, Duration.ZERO, Duration.ZERO, 0.0);
+    }
+
+    /**
+     * Returns a view of {@code target}, which lives on node {@code to}, as seen from node {@code from}.
+     */
+    public <T> T link(Class<T> type, T target, int from, int to) {
+        if (from == to) {
+            return target;
+        }
+        Link link = new Link(from, to);
+        return Reflection.newProxy(type, new LinkInvocationHandler(target, link, new Random(link.seed(seed))));
+    }
+
+    public void setDropProbability(double dropProbability) {
+        Preconditions.checkArgument(dropProbability >= 0.0 && dropProbability <= 1.0,
+                "Drop probability must be between 0 and 1",
+                SafeArg.of("dropProbability", dropProbability));
+        this.dropProbability = dropProbability;
+    }
+
+    /**
+     * Cuts every link between a node in {@code side} and a node in {@code otherSide}, in both directions.
+     */
+    public void partition(Collection<Integer> side, Collection<Integer> otherSide) {
+        for (int node : side) {
+            for (int otherNode : otherSide) {
+                partitionedLinks.add(new Link(node, otherNode));
+                partitionedLinks.add(new Link(otherNode, node));
+            }
+        }
+    }
+
+    public void heal() {
+        partitionedLinks.clear();
+    }
+
+    private final class LinkInvocationHandler extends AbstractInvocationHandler {
+        private final Object target;
+        private final Link link;
+        private final Random random;
+
+        private LinkInvocationHandler(Object target, Link link, Random random) {
+            this.target = target;
+            this.link = link;
+            this.random = random;
+        }
+
+        @Override
+        protected Object handleInvocation(Object proxy, Method method, Object[] args) throws Throwable {
+            // always draw the same number of values per call, so that one call's faults don't shift the next call's
+            double dropRoll = random.nextDouble();
+            double jitterRoll = random.nextDouble();
+
+            if (partitionedLinks.contains(link)) {
+                throw failure("Simulated network partition");
+            }
+            sleep(latency.toNanos() + (long) (jitterRoll * jitter.toNanos()));
+
+            double currentDropProbability = dropProbability;
+            if (dropRoll < currentDropProbability / 2) {
+                throw failure("Simulated loss of request");
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (dropRoll < currentDropProbability) {
+                throw failure("Simulated loss of response");
+            }
+            return result;
+        }
+
+        private SafeRuntimeException failure(String message) {
+            return new SafeRuntimeException(message, SafeArg.of("from", link.from), SafeArg.of("to", link.to));
+        }
+
+        private void sleep(long nanos) {
+            if (nanos <= 0) {
+                return;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw failure("Interrupted while in flight");
+            }
+        }
+    }
+
+    private static final class Link {
+        private final int from;
+        private final int to;
+
+        private Link(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        private long seed(long networkSeed) {
+            return networkSeed * 31 * 31 + from * 31 + to;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (other == null || getClass() != other.getClass()) {
+                return false;
+            }
+            Link link = (Link) other;
+            return from == link.from && to == link.to;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(from, to);
+        }
+    }
+}
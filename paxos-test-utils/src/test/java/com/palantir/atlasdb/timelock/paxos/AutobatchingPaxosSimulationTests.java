@@ -0,0 +1,74 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.timelock.paxos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.palantir.paxos.PaxosRoundFailureException;
+import com.palantir.paxos.SimulatedPaxosNetwork;
+
+public class AutobatchingPaxosSimulationTests {
+    private static final int NUM_NODES = 5;
+    private static final Client CLIENT_1 = Client.of("client1");
+    private static final Client CLIENT_2 = Client.of("client2");
+    private static final byte[] FIRST_VALUE = {1};
+    private static final byte[] SECOND_VALUE = {2};
+
+    private AutobatchingSimulatedPaxosCluster cluster;
+
+    @Before
+    public void setUp() throws IOException {
+        cluster = AutobatchingSimulatedPaxosCluster.create(NUM_NODES, SimulatedPaxosNetwork.reliable(42L));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        cluster.close();
+    }
+
+    @Test
+    public void laterProposerAdoptsChosenValue() throws PaxosRoundFailureException {
+        assertThat(cluster.proposer(0, CLIENT_1).propose(0, FIRST_VALUE)).isEqualTo(FIRST_VALUE);
+        assertThat(cluster.proposer(1, CLIENT_1).propose(0, SECOND_VALUE)).isEqualTo(FIRST_VALUE);
+    }
+
+    @Test
+    public void clientsReachConsensusIndependently() throws PaxosRoundFailureException {
+        assertThat(cluster.proposer(0, CLIENT_1).propose(0, FIRST_VALUE)).isEqualTo(FIRST_VALUE);
+        assertThat(cluster.proposer(1, CLIENT_2).propose(0, SECOND_VALUE)).isEqualTo(SECOND_VALUE);
+    }
+
+    @Test
+    public void onlyMajoritySideOfPartitionMakesProgress() throws PaxosRoundFailureException {
+        cluster.network().partition(ImmutableList.of(0, 1), ImmutableList.of(2, 3, 4));
+
+        assertThatThrownBy(() -> cluster.proposer(0, CLIENT_1).propose(0, FIRST_VALUE))
+                .isInstanceOf(PaxosRoundFailureException.class);
+        assertThat(cluster.proposer(2, CLIENT_1).propose(0, SECOND_VALUE)).isEqualTo(SECOND_VALUE);
+
+        cluster.network().heal();
+        assertThat(cluster.proposer(0, CLIENT_1).propose(0, FIRST_VALUE)).isEqualTo(SECOND_VALUE);
+    }
+}
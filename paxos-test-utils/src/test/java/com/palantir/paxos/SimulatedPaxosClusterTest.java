@@ -0,0 +1,106 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.paxos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.awaitility.Awaitility;
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class SimulatedPaxosClusterTest {
+    private static final long SEED = 42L;
+    private static final byte[] FIRST_VALUE = {1};
+    private static final byte[] SECOND_VALUE = {2};
+
+    private SimulatedPaxosCluster cluster;
+
+    @After
+    public void tearDown() throws IOException {
+        cluster.close();
+    }
+
+    @Test
+    public void allLearnersLearnProposedValue() throws Exception {
+        cluster = SimulatedPaxosCluster.create(3, SimulatedPaxosNetwork.reliable(SEED));
+
+        assertThat(cluster.proposer(0).propose(0, FIRST_VALUE)).isEqualTo(FIRST_VALUE);
+
+        IntStream.range(0, cluster.numNodes()).forEach(node -> awaitLearnedValue(node, 0, FIRST_VALUE));
+    }
+
+    @Test
+    public void laterProposerAdoptsChosenValue() throws Exception {
+        cluster = SimulatedPaxosCluster.create(3, SimulatedPaxosNetwork.reliable(SEED));
+
+        cluster.proposer(0).propose(0, FIRST_VALUE);
+
+        assertThat(cluster.proposer(1).propose(0, SECOND_VALUE)).isEqualTo(FIRST_VALUE);
+    }
+
+    @Test
+    public void onlyMajoritySideOfPartitionMakesProgress() throws Exception {
+        cluster = SimulatedPaxosCluster.create(5, SimulatedPaxosNetwork.reliable(SEED));
+        cluster.network().partition(ImmutableList.of(0, 1), ImmutableList.of(2, 3, 4));
+
+        assertThatThrownBy(() -> cluster.proposer(0).propose(0, FIRST_VALUE))
+                .isInstanceOf(PaxosRoundFailureException.class);
+        assertThat(cluster.proposer(2).propose(0, SECOND_VALUE)).isEqualTo(SECOND_VALUE);
+
+        cluster.network().heal();
+        assertThat(cluster.proposer(0).propose(0, FIRST_VALUE)).isEqualTo(SECOND_VALUE);
+    }
+
+    @Test
+    public void proposersAgreeDespiteLostMessages() throws Exception {
+        SimulatedPaxosNetwork network = new SimulatedPaxosNetwork(SEED, Duration.ZERO, Duration.ofMillis(1), 0.2);
+        cluster = SimulatedPaxosCluster.create(3, network);
+
+        for (long seq = 0; seq < 20; seq++) {
+            byte[] firstChosen = proposeUntilSuccessful(0, seq, FIRST_VALUE);
+            byte[] secondChosen = proposeUntilSuccessful(1, seq, SECOND_VALUE);
+            assertThat(secondChosen).isEqualTo(firstChosen);
+        }
+    }
+
+    private byte[] proposeUntilSuccessful(int node, long seq, byte[] value) {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            try {
+                return cluster.proposer(node).propose(seq, value);
+            } catch (PaxosRoundFailureException e) {
+                // lost too many messages for this round; try again
+            }
+        }
+        throw new AssertionError("Could not get a value chosen for sequence " + seq);
+    }
+
+    private void awaitLearnedValue(int node, long seq, byte[] expected) {
+        Awaitility.await()
+                .atMost(5, TimeUnit.SECONDS)
+                .untilAsserted(() -> assertThat(cluster.learner(node).getLearnedValue(seq))
+                        .map(PaxosValue::getData)
+                        .contains(expected));
+    }
+}
@@ -67,6 +67,7 @@ public interface Dependencies {
         Factories.LeaderPingerFactoryContainer leaderPingerFactory();
         com.palantir.atlasdb.timelock.paxos.NetworkClientFactories networkClientFactories();
         Supplier<PaxosRuntimeConfiguration> runtime();
+        Duration leaderLeaseDuration();
         AutobatchingLeadershipObserverFactory leadershipObserverFactory();
         Factories.PaxosLatestRoundVerifierFactory latestRoundVerifierFactory();
     }
@@ -77,6 +78,7 @@ public interface Dependencies {
         TimelockPaxosMetrics metrics();
         com.palantir.paxos.LeaderPinger leaderPinger();
         Supplier<PaxosRuntimeConfiguration> runtime();
+        Duration leaderLeaseDuration();
         PaxosLeadershipEventRecorder eventRecorder();
         PaxosLearner localLearner();
         com.palantir.atlasdb.timelock.paxos.NetworkClientFactories networkClientFactories();
@@ -55,6 +55,7 @@ public class LeaderElectionServiceFactory {
                         dependencies.metrics(),
                         uninstrumentedPaxosProposer))
                 .leaderAddressCacheTtl(Duration.ofSeconds(1))
+                .leaderLeaseDuration(dependencies.leaderLeaseDuration())
                 .build());
     }
 
@@ -63,6 +63,10 @@ public class LeadershipComponents {
         Closeable closeableInstance = (Closeable) instance;
         closer.register(closeableInstance);
 
+        // Tritium instruments the proxy reflectively even when it is a generated AutoLeadershipProxy, which costs one
+        // Method.invoke per request, exactly as before generated proxies existed. We accept that to keep per-method
+        // timers and failure meters identical across both kinds of proxy; the generated proxy still removes the
+        // second reflective layer. The *Instrumented variants of AwaitingLeadershipProxyBenchmark measure the cost.
         return context.leadershipMetrics().instrument(clazz, instance);
     }
 
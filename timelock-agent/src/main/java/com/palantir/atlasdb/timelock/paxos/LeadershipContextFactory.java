@@ -57,7 +57,13 @@ public abstract class LeadershipContextFactory implements
                 useCase(),
                 install().dataDirectory(),
                 leaderUuid(),
-                install().install().paxos().canCreateNewClients());
+                install().install().paxos().canCreateNewClients(),
+                leaderLeaseDuration());
+    }
+
+    @Value.Derived
+    public Duration leaderLeaseDuration() {
+        return install().install().paxos().leaderLeaseDuration();
     }
 
     @Value.Derived
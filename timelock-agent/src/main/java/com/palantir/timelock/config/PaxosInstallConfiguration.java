@@ -16,13 +16,16 @@
 package com.palantir.timelock.config;
 
 import java.io.File;
+import java.time.Duration;
 
 import org.immutables.value.Value;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
 
 @JsonDeserialize(as = ImmutablePaxosInstallConfiguration.class)
@@ -67,6 +70,31 @@ public interface PaxosInstallConfiguration {
         return PaxosLeaderMode.SINGLE_LEADER;
     }
 
+    /**
+     * If positive, leadership acceptors promise a leader that verified its leadership against them not to prepare a
+     * later round for this long, so that the leader can skip quorum verification for most of that time. Every node of
+     * the cluster must be configured with the same value. Zero, the default, disables leader leases.
+     */
+    @JsonProperty("leader-lease-duration-in-ms")
+    @Value.Default
+    default long leaderLeaseDurationMs() {
+        return 0L;
+    }
+
+    @JsonIgnore
+    @Value.Derived
+    @Value.Auxiliary
+    default Duration leaderLeaseDuration() {
+        return Duration.ofMillis(leaderLeaseDurationMs());
+    }
+
+    @Value.Check
+    default void checkLeaderLeaseDurationIsNotNegative() {
+        Preconditions.checkArgument(leaderLeaseDurationMs() >= 0,
+                "Leader lease duration must not be negative",
+                SafeArg.of("leaderLeaseDurationMs", leaderLeaseDurationMs()));
+    }
+
     @Value.Check
     default void checkLeaderModeIsNotInAutoMigrationMode() {
         Preconditions.checkState(
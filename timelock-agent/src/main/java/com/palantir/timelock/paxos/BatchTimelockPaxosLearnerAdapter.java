@@ -33,6 +33,7 @@ import com.palantir.atlasdb.timelock.paxos.WithSeq;
 import com.palantir.logsafe.Preconditions;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.paxos.PaxosLearner;
+import com.palantir.paxos.PaxosLearnerImpl;
 import com.palantir.paxos.PaxosValue;
 
 public class BatchTimelockPaxosLearnerAdapter implements PaxosLearner {
@@ -76,14 +77,29 @@ public class BatchTimelockPaxosLearnerAdapter implements PaxosLearner {
         return Optional.of(Iterables.getOnlyElement(result));
     }
 
+    /**
+     * Learners return values since a round a page at a time, smallest rounds first, so this keeps fetching pages until
+     * one comes back short; only then is the greatest value of the last non-empty page the greatest learned value.
+     */
     @Override
     public Optional<PaxosValue> getGreatestLearnedValue() {
-        Set<PaxosValue> result = rpcClient
-                .getLearnedValuesSince(paxosUseCase, ImmutableMap.of(client, lastKnownSequence.get()))
-                .get(client);
-        Optional<PaxosValue> greatestIfExists = result.stream().max(Comparator.comparingLong(PaxosValue::getRound));
-        greatestIfExists.ifPresent(paxosValue -> updateLastKnownSequence(paxosValue.getRound()));
-        return greatestIfExists;
+        Optional<PaxosValue> greatest = Optional.empty();
+        long nextSequence = lastKnownSequence.get();
+        for (;;) {
+            Set<PaxosValue> page = rpcClient
+                    .getLearnedValuesSince(paxosUseCase, ImmutableMap.of(client, nextSequence))
+                    .get(client);
+            Optional<PaxosValue> greatestInPage = page.stream().max(Comparator.comparingLong(PaxosValue::getRound));
+            if (greatestInPage.isPresent()) {
+                greatest = greatestInPage;
+                updateLastKnownSequence(greatestInPage.get().getRound());
+            }
+            if (page.size() < PaxosLearnerImpl.MAX_LEARNED_VALUES_PER_RESPONSE
+                    || greatest.get().getRound() == Long.MAX_VALUE) {
+                return greatest;
+            }
+            nextSequence = greatest.get().getRound() + 1;
+        }
     }
 
     @Override
@@ -70,6 +70,16 @@ public class PaxosInstallConfigurationTest {
                 .isNewService(false));
     }
 
+    @Test
+    public void throwsIfLeaderLeaseDurationIsNegative() {
+        File mockFile = getMockFileWith(true, false);
+
+        assertFailsToBuildConfiguration(ImmutablePaxosInstallConfiguration.builder()
+                .dataDirectory(mockFile)
+                .isNewService(false)
+                .leaderLeaseDurationMs(-1));
+    }
+
     private File getMockFileWith(boolean isDirectory, boolean canCreateDirectory) {
         File mockFile = mock(File.class);
         when(mockFile.mkdirs()).thenReturn(canCreateDirectory);
@@ -0,0 +1,82 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.timelock.paxos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSetMultimap;
+import com.palantir.atlasdb.timelock.paxos.BatchPaxosLearnerRpcClient;
+import com.palantir.atlasdb.timelock.paxos.Client;
+import com.palantir.atlasdb.timelock.paxos.PaxosUseCase;
+import com.palantir.paxos.PaxosLearner;
+import com.palantir.paxos.PaxosLearnerImpl;
+import com.palantir.paxos.PaxosValue;
+
+public class BatchTimelockPaxosLearnerAdapterTest {
+    private static final int PAGE_SIZE = PaxosLearnerImpl.MAX_LEARNED_VALUES_PER_RESPONSE;
+    private static final Client CLIENT = PaxosUseCase.PSEUDO_LEADERSHIP_CLIENT;
+
+    private final BatchPaxosLearnerRpcClient rpcClient = mock(BatchPaxosLearnerRpcClient.class);
+    private final PaxosLearner learner = BatchTimelockPaxosLearnerAdapter.singleLeader(rpcClient);
+
+    @Test
+    public void greatestLearnedValuePagesPastFullPages() {
+        long greatestRound = 2 * PAGE_SIZE + 10;
+        learnRoundsUpTo(greatestRound);
+
+        assertThat(learner.getGreatestLearnedValue()).map(PaxosValue::getRound).contains(greatestRound);
+        verify(rpcClient, times(3)).getLearnedValuesSince(any(), anyMap());
+    }
+
+    @Test
+    public void greatestLearnedValueFetchesOnePageWhenCaughtUp() {
+        learnRoundsUpTo(10);
+
+        assertThat(learner.getGreatestLearnedValue()).map(PaxosValue::getRound).contains(10L);
+        assertThat(learner.getGreatestLearnedValue()).map(PaxosValue::getRound).contains(10L);
+        verify(rpcClient, times(2)).getLearnedValuesSince(any(), anyMap());
+    }
+
+    @Test
+    public void greatestLearnedValueIsEmptyIfNothingWasLearned() {
+        learnRoundsUpTo(-1);
+
+        assertThat(learner.getGreatestLearnedValue()).isEmpty();
+    }
+
+    private void learnRoundsUpTo(long greatestRound) {
+        when(rpcClient.getLearnedValuesSince(any(), anyMap())).thenAnswer(invocation -> {
+            Map<Client, Long> seqLowerBounds = invocation.getArgument(1);
+            long from = Math.max(seqLowerBounds.get(CLIENT), 0);
+            ImmutableSetMultimap.Builder<Client, PaxosValue> page = ImmutableSetMultimap.builder();
+            LongStream.rangeClosed(from, Math.min(greatestRound, from + PAGE_SIZE - 1))
+                    .forEach(round -> page.put(CLIENT, new PaxosValue("leader", round, new byte[0])));
+            return page.build();
+        });
+    }
+}
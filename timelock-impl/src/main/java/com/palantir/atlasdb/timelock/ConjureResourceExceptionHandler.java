@@ -23,6 +23,7 @@ import com.google.common.util.concurrent.FluentFuture;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.atlasdb.autobatch.AutobatcherOverloadedException;
 import com.palantir.atlasdb.http.RedirectRetryTargeter;
 import com.palantir.conjure.java.api.errors.QosException;
 import com.palantir.leader.NotCurrentLeaderException;
@@ -52,6 +53,9 @@ public class ConjureResourceExceptionHandler {
                 }, MoreExecutors.directExecutor())
                 .catching(TooManyRequestsException.class, tooManyRequests -> {
                     throw QosException.throttle();
+                }, MoreExecutors.directExecutor())
+                .catching(AutobatcherOverloadedException.class, overloaded -> {
+                    throw QosException.throttle();
                 }, MoreExecutors.directExecutor());
     }
 }
@@ -16,9 +16,18 @@
 
 package com.palantir.atlasdb.timelock;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.OptionalLong;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -30,6 +39,8 @@ import com.palantir.atlasdb.futures.AtlasFutures;
 import com.palantir.atlasdb.http.RedirectRetryTargeter;
 import com.palantir.atlasdb.timelock.api.ConjureGetFreshTimestampsRequest;
 import com.palantir.atlasdb.timelock.api.ConjureGetFreshTimestampsResponse;
+import com.palantir.atlasdb.timelock.api.ConjureLockBatchRequest;
+import com.palantir.atlasdb.timelock.api.ConjureLockBatchResponse;
 import com.palantir.atlasdb.timelock.api.ConjureLockDescriptor;
 import com.palantir.atlasdb.timelock.api.ConjureLockRequest;
 import com.palantir.atlasdb.timelock.api.ConjureLockResponse;
@@ -48,6 +59,8 @@ import com.palantir.atlasdb.timelock.api.GetCommitTimestampsResponse;
 import com.palantir.atlasdb.timelock.api.SuccessfulLockResponse;
 import com.palantir.atlasdb.timelock.api.UndertowConjureTimelockService;
 import com.palantir.atlasdb.timelock.api.UnsuccessfulLockResponse;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.conjure.java.undertow.lib.UndertowService;
 import com.palantir.lock.ByteArrayLockDescriptor;
 import com.palantir.lock.LockDescriptor;
@@ -67,6 +80,15 @@ import com.palantir.timestamp.TimestampRange;
 import com.palantir.tokens.auth.AuthHeader;
 
 public final class ConjureTimelockResource implements UndertowConjureTimelockService {
+    /**
+     * How long a lock batch call waits for its requests before responding with those that have completed.
+     */
+    @VisibleForTesting
+    static final Duration LOCK_BATCH_MAX_WAIT = Duration.ofMillis(50);
+
+    private static final ScheduledExecutorService lockBatchTimeoutScheduler =
+            PTExecutors.newSingleThreadScheduledExecutor(new NamedThreadFactory("conjure-lock-batch-timeout", true));
+
     private final ConjureResourceExceptionHandler exceptionHandler;
     private final Function<String, AsyncTimelockService> timelockServices;
 
@@ -135,20 +157,70 @@ public final class ConjureTimelockResource implements UndertowConjureTimelockSer
     @Override
     public ListenableFuture<ConjureLockResponse> lock(
             AuthHeader authHeader, String namespace, ConjureLockRequest request) {
+        return handleExceptions(() -> lock(forNamespace(namespace), request));
+    }
+
+    /**
+     * Submits every request of the batch, then responds once they have all completed, or after
+     * {@link #LOCK_BATCH_MAX_WAIT}, whichever comes first. Only requests that completed successfully (whether they
+     * acquired their locks or timed out) are included in the response; the others stay in progress, and their result
+     * can be retrieved by sending the same request to the lock endpoint, which is idempotent by request id.
+     */
+    @Override
+    public ListenableFuture<ConjureLockBatchResponse> lockBatch(
+            AuthHeader authHeader, String namespace, ConjureLockBatchRequest request) {
         return handleExceptions(() -> {
-            IdentifiedLockRequest lockRequest = ImmutableIdentifiedLockRequest.builder()
-                    .lockDescriptors(fromConjureLockDescriptors(request.getLockDescriptors()))
-                    .clientDescription(request.getClientDescription())
-                    .requestId(request.getRequestId())
-                    .acquireTimeoutMs(request.getAcquireTimeoutMs())
-                    .build();
-            ListenableFuture<LockResponseV2> tokenFuture = forNamespace(namespace).lock(lockRequest);
-            return Futures.transform(tokenFuture, token -> token.accept(Visitor.of(success ->
-                    ConjureLockResponse.successful(
-                            SuccessfulLockResponse.of(
-                                    ConjureLockToken.of(success.getToken().getRequestId()), success.getLease())),
-                    failure -> ConjureLockResponse.unsuccessful(UnsuccessfulLockResponse.of()))), MoreExecutors.directExecutor());
+            AsyncTimelockService timelockService = forNamespace(namespace);
+            Map<UUID, ListenableFuture<ConjureLockResponse>> responseFutures = new LinkedHashMap<>();
+            for (ConjureLockRequest lockRequest : request.getRequests()) {
+                responseFutures.put(lockRequest.getRequestId(), lock(timelockService, lockRequest));
+            }
+            ListenableFuture<Void> allCompleted = Futures.nonCancellationPropagating(
+                    Futures.whenAllComplete(responseFutures.values())
+                            .call(() -> (Void) null, MoreExecutors.directExecutor()));
+            ListenableFuture<Void> allCompletedOrTimedOut = Futures.catching(
+                    Futures.withTimeout(allCompleted, LOCK_BATCH_MAX_WAIT.toNanos(), TimeUnit.NANOSECONDS,
+                            lockBatchTimeoutScheduler),
+                    TimeoutException.class,
+                    timeout -> null,
+                    MoreExecutors.directExecutor());
+            return Futures.transform(
+                    allCompletedOrTimedOut,
+                    unused -> ConjureLockBatchResponse.of(completedResponses(responseFutures)),
+                    MoreExecutors.directExecutor());
+        });
+    }
+
+    private static Map<UUID, ConjureLockResponse> completedResponses(
+            Map<UUID, ListenableFuture<ConjureLockResponse>> responseFutures) {
+        Map<UUID, ConjureLockResponse> responses = new HashMap<>(responseFutures.size());
+        responseFutures.forEach((requestId, responseFuture) -> {
+            if (responseFuture.isDone()) {
+                try {
+                    responses.put(requestId, Futures.getDone(responseFuture));
+                } catch (ExecutionException | RuntimeException e) {
+                    // left out, so that the client sends this request on its own and sees the failure there
+                }
+            }
         });
+        return responses;
+    }
+
+    private static ListenableFuture<ConjureLockResponse> lock(
+            AsyncTimelockService timelockService, ConjureLockRequest request) {
+        IdentifiedLockRequest lockRequest = ImmutableIdentifiedLockRequest.builder()
+                .lockDescriptors(fromConjureLockDescriptors(request.getLockDescriptors()))
+                .clientDescription(request.getClientDescription())
+                .requestId(request.getRequestId())
+                .acquireTimeoutMs(request.getAcquireTimeoutMs())
+                .build();
+        ListenableFuture<LockResponseV2> tokenFuture = timelockService.lock(lockRequest);
+        return Futures.transform(tokenFuture, token -> token.accept(Visitor.of(success ->
+                ConjureLockResponse.successful(
+                        SuccessfulLockResponse.of(
+                                ConjureLockToken.of(success.getToken().getRequestId()), success.getLease())),
+                failure -> ConjureLockResponse.unsuccessful(UnsuccessfulLockResponse.of()))),
+                MoreExecutors.directExecutor());
     }
 
     @Override
@@ -262,6 +334,12 @@ public final class ConjureTimelockResource implements UndertowConjureTimelockSer
             return unwrap(resource.lock(authHeader, namespace, request));
         }
 
+        @Override
+        public ConjureLockBatchResponse lockBatch(AuthHeader authHeader, String namespace,
+                ConjureLockBatchRequest request) {
+            return unwrap(resource.lockBatch(authHeader, namespace, request));
+        }
+
         @Override
         public ConjureWaitForLocksResponse waitForLocks(AuthHeader authHeader, String namespace,
                 ConjureLockRequest request) {
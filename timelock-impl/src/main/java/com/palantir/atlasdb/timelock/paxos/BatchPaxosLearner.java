@@ -49,12 +49,14 @@ public interface BatchPaxosLearner {
     SetMultimap<Client, PaxosValue> getLearnedValues(Set<WithSeq<Client>> clientAndSeqs);
 
     /**
-     * Batch counterpart to {@link PaxosLearner#getLearnedValuesSince}. For a given {@link Client}, returns all learnt
-     * values since the minimum provided seq-th round (inclusive).
+     * Batch counterpart to {@link PaxosLearner#getLearnedValuesSince}. For a given {@link Client}, returns learnt
+     * values since the minimum provided seq-th round (inclusive). Like its counterpart, this may return only a bounded
+     * page of the values with the smallest rounds; a {@link Client} with no values returned has none to return.
      * <p>
      * @param seqLowerBoundsByClient for each {@link Client}, the lower bound for the seq-th paxos round to fetch all
      * learnt paxos values since that paxos round.
-     * @return for each {@link Client}, all learnt {@link PaxosValue}'s past the given lower bound for the round
+     * @return for each {@link Client}, a page of the learnt {@link PaxosValue}'s past the given lower bound for the
+     * round
      */
     SetMultimap<Client, PaxosValue> getLearnedValuesSince(Map<Client, Long> seqLowerBoundsByClient);
 
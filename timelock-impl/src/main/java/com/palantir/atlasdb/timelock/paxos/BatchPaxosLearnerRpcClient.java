@@ -70,12 +70,14 @@ public interface BatchPaxosLearnerRpcClient {
             Set<WithSeq<Client>> clientAndSeqs);
 
     /**
-     * Batch counterpart to {@link PaxosLearner#getLearnedValuesSince}. For a given {@link Client}, returns all learnt
-     * values since the minimum provided seq-th round (inclusive).
+     * Batch counterpart to {@link PaxosLearner#getLearnedValuesSince}. For a given {@link Client}, returns a page of
+     * learnt values since the provided seq-th round (inclusive): those with the smallest rounds, at most
+     * {@link com.palantir.paxos.PaxosLearnerImpl#MAX_LEARNED_VALUES_PER_RESPONSE} of them. Callers wanting every value
+     * ask again from the round after the greatest one returned, until a page comes back short.
      * <p>
-     * @param seqLowerBoundsByClient for each {@link Client}, the lower bound for the seq-th paxos round to fetch all
+     * @param seqLowerBoundsByClient for each {@link Client}, the lower bound for the seq-th paxos round to fetch
      * learnt paxos values since that paxos round.
-     * @return for each {@link Client}, all learnt {@link PaxosValue}'s past the given lower bound for the round
+     * @return for each {@link Client}, a page of learnt {@link PaxosValue}s at or past the given lower bound
      */
     @POST
     @Path("learned-values-since")
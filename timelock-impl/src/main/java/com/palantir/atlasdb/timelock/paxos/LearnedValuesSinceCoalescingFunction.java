@@ -18,21 +18,29 @@ package com.palantir.atlasdb.timelock.paxos;
 
 import static java.util.stream.Collectors.toMap;
 
-import static com.google.common.collect.ImmutableSortedMap.toImmutableSortedMap;
-
 import java.util.Collection;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.SetMultimap;
 import com.palantir.atlasdb.autobatch.CoalescingRequestFunction;
 import com.palantir.common.streams.KeyedStream;
 import com.palantir.paxos.PaxosUpdate;
 import com.palantir.paxos.PaxosValue;
 
+/**
+ * Coalesces requests for a client into a single remote request from the smallest sequence asked for. Remote learners
+ * return values in bounded pages, so a page fetched from the smallest sequence may end before the sequence another
+ * caller asked for; such callers get a page of their own, fetched from their sequence. A caller therefore only
+ * receives an empty update once the remote has nothing at or after its sequence, which is how callers paging through
+ * learned values know they have reached the last page.
+ */
 final class LearnedValuesSinceCoalescingFunction
         implements CoalescingRequestFunction<WithSeq<Client>, PaxosUpdate> {
 
@@ -44,32 +52,44 @@ final class LearnedValuesSinceCoalescingFunction
 
     @Override
     public Map<WithSeq<Client>, PaxosUpdate> apply(Set<WithSeq<Client>> request) {
-        Map<Client, Long> remoteRequest = request.stream()
-                .collect(toMap(WithSeq::value, WithSeq::seq, Math::min));
+        Map<Client, NavigableSet<Long>> requestedSeqsByClient = new HashMap<>();
+        request.forEach(clientWithSeq -> requestedSeqsByClient
+                .computeIfAbsent(clientWithSeq.value(), $ -> new TreeSet<>())
+                .add(clientWithSeq.seq()));
 
-        SetMultimap<Client, PaxosValue> learnedValuesSince = delegate.getLearnedValuesSince(remoteRequest);
-
-        Map<Client, ImmutableSortedMap<Long, PaxosValue>> results = KeyedStream.stream(learnedValuesSince.asMap())
-                .map(LearnedValuesSinceCoalescingFunction::toNavigableMapBySeq)
+        Map<Client, NavigableMap<Long, PaxosValue>> results = new HashMap<>();
+        Map<Client, Long> remoteRequest = KeyedStream.stream(requestedSeqsByClient)
+                .map(NavigableSet::first)
                 .collectToMap();
+        while (!remoteRequest.isEmpty()) {
+            SetMultimap<Client, PaxosValue> page = delegate.getLearnedValuesSince(remoteRequest);
+            Map<Client, Long> nextRequest = new HashMap<>();
+            for (Client client : remoteRequest.keySet()) {
+                Collection<PaxosValue> values = page.get(client);
+                if (values.isEmpty()) {
+                    continue;
+                }
+                NavigableMap<Long, PaxosValue> valuesBySeq = results.computeIfAbsent(client, $ -> new TreeMap<>());
+                values.forEach(value -> valuesBySeq.put(value.getRound(), value));
 
-        return KeyedStream.of(request)
-                .map(clientWithSeq -> results.getOrDefault(clientWithSeq.value(), ImmutableSortedMap.of()))
-                .map(LearnedValuesSinceCoalescingFunction::getPaxosValuesSinceSeq)
-                .map(values -> new PaxosUpdate(ImmutableList.copyOf(values)))
-                .collectToMap();
+                long greatestReturned = values.stream().mapToLong(PaxosValue::getRound).max().getAsLong();
+                Long nextUnservedSeq = requestedSeqsByClient.get(client).higher(greatestReturned);
+                if (nextUnservedSeq != null) {
+                    nextRequest.put(client, nextUnservedSeq);
+                }
+            }
+            remoteRequest = nextRequest;
+        }
+
+        return request.stream().collect(toMap(
+                clientWithSeq -> clientWithSeq,
+                clientWithSeq -> new PaxosUpdate(ImmutableList.copyOf(getPaxosValuesSinceSeq(
+                        clientWithSeq, results.getOrDefault(clientWithSeq.value(), new TreeMap<>()))))));
     }
 
     private static Collection<PaxosValue> getPaxosValuesSinceSeq(
             WithSeq<Client> clientWithSeq,
-            ImmutableSortedMap<Long, PaxosValue> paxosValuesByRound) {
-        return paxosValuesByRound.tailMap(clientWithSeq.seq()).values();
-    }
-
-    private static ImmutableSortedMap<Long, PaxosValue> toNavigableMapBySeq(Collection<PaxosValue> values) {
-        return KeyedStream.of(values)
-                .mapKeys(PaxosValue::getRound)
-                .entries()
-                .collect(toImmutableSortedMap(Comparator.naturalOrder(), Map.Entry::getKey, Map.Entry::getValue));
+            NavigableMap<Long, PaxosValue> paxosValuesByRound) {
+        return paxosValuesByRound.tailMap(clientWithSeq.seq(), true).values();
     }
 }
@@ -18,7 +18,9 @@ package com.palantir.atlasdb.timelock.paxos;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
@@ -32,6 +34,7 @@ import com.palantir.leader.LocalPingableLeader;
 import com.palantir.leader.PaxosKnowledgeEventRecorder;
 import com.palantir.leader.PaxosLeaderElectionEventRecorder;
 import com.palantir.leader.PingableLeader;
+import com.palantir.logsafe.Preconditions;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.exceptions.SafeIllegalStateException;
 import com.palantir.paxos.ImmutablePaxosStorageParameters;
@@ -51,12 +54,29 @@ public class LocalPaxosComponents {
     private final Supplier<BatchPaxosLearner> memoizedBatchLearner;
     private final Supplier<BatchPingableLeader> memoizedBatchPingableLeader;
     private final boolean canCreateNewClients;
+    private final Duration leaderLeaseDuration;
 
     LocalPaxosComponents(TimelockPaxosMetrics metrics,
             PaxosUseCase paxosUseCase,
             Path baseLogDirectory,
             UUID leaderUuid,
             boolean canCreateNewClients) {
+        this(metrics, paxosUseCase, baseLogDirectory, leaderUuid, canCreateNewClients, Duration.ZERO);
+    }
+
+    /**
+     * @param leaderLeaseDuration how long acceptors promise a leader not to prepare later rounds; see
+     * {@link PaxosAcceptorImpl#newAcceptor(String, Duration)}. Only leadership acceptors may hold leases, as they
+     * would otherwise hold up every new timestamp bound.
+     */
+    LocalPaxosComponents(TimelockPaxosMetrics metrics,
+            PaxosUseCase paxosUseCase,
+            Path baseLogDirectory,
+            UUID leaderUuid,
+            boolean canCreateNewClients,
+            Duration leaderLeaseDuration) {
+        Preconditions.checkArgument(paxosUseCase != PaxosUseCase.TIMESTAMP || leaderLeaseDuration.isZero(),
+                "Timestamp acceptors cannot hold leader leases");
         this.metrics = metrics;
         this.paxosUseCase = paxosUseCase;
         this.baseLogDirectory = baseLogDirectory;
@@ -65,6 +85,7 @@ public class LocalPaxosComponents {
         this.memoizedBatchLearner = Suppliers.memoize(this::createBatchLearner);
         this.memoizedBatchPingableLeader = Suppliers.memoize(this::createBatchPingableLeader);
         this.canCreateNewClients = canCreateNewClients;
+        this.leaderLeaseDuration = leaderLeaseDuration;
     }
 
     public PaxosAcceptor acceptor(Client client) {
@@ -113,6 +134,7 @@ public class LocalPaxosComponents {
                 ImmutablePaxosStorageParameters.builder()
                         .fileBasedLogDirectory(learnerLogDir.toString())
                         .databaseNamespace(learnerNamespace)
+                        .roundsRetainedAfterCompaction(roundsRetainedAfterCompaction())
                         .build(),
                 PaxosKnowledgeEventRecorder.NO_OP);
 
@@ -123,7 +145,9 @@ public class LocalPaxosComponents {
                 ImmutablePaxosStorageParameters.builder()
                         .fileBasedLogDirectory(acceptorLogDir.toString())
                         .databaseNamespace(acceptorNamespace)
-                        .build());
+                        .roundsRetainedAfterCompaction(roundsRetainedAfterCompaction())
+                        .build(),
+                leaderLeaseDuration);
 
         PingableLeader localPingableLeader = new LocalPingableLeader(learner, leaderUuid);
 
@@ -134,6 +158,15 @@ public class LocalPaxosComponents {
                 .build();
     }
 
+    /**
+     * Only the timestamp logs are compacted, as nothing reads back rounds far behind the latest timestamp bound.
+     */
+    private Optional<Long> roundsRetainedAfterCompaction() {
+        return paxosUseCase == PaxosUseCase.TIMESTAMP
+                ? Optional.of(PaxosTimeLockConstants.TIMESTAMP_PAXOS_ROUNDS_RETAINED_AFTER_COMPACTION)
+                : Optional.empty();
+    }
+
     private boolean clientDirectoryDoesNotExist(Path clientDirectory) {
         return !clientDirectory.toFile().exists();
     }
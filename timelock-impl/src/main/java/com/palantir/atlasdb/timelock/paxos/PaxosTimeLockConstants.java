@@ -32,6 +32,9 @@ public final class PaxosTimeLockConstants {
 
     public static final boolean CANCEL_REMAINING_CALLS = false;
 
+    // Only the latest bound matters, and PaxosTimestampBoundStore never looks more than two rounds back
+    public static final long TIMESTAMP_PAXOS_ROUNDS_RETAINED_AFTER_COMPACTION = 10_000;
+
     private PaxosTimeLockConstants() {
     }
 }
@@ -18,11 +18,15 @@ package com.palantir.atlasdb.timelock;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.when;
 
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 
 import org.junit.Before;
@@ -32,17 +36,26 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.net.HostAndPort;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.palantir.atlasdb.http.RedirectRetryTargeter;
+import com.palantir.atlasdb.timelock.api.ConjureLockBatchRequest;
+import com.palantir.atlasdb.timelock.api.ConjureLockBatchResponse;
+import com.palantir.atlasdb.timelock.api.ConjureLockRequest;
+import com.palantir.atlasdb.timelock.api.ConjureLockResponse;
 import com.palantir.atlasdb.timelock.api.ConjureTimelockService;
+import com.palantir.atlasdb.timelock.api.UnsuccessfulLockResponse;
 import com.palantir.conjure.java.api.errors.QosException;
 import com.palantir.leader.NotCurrentLeaderException;
+import com.palantir.lock.client.IdentifiedLockRequest;
 import com.palantir.lock.impl.TooManyRequestsException;
 import com.palantir.lock.remoting.BlockingTimeoutException;
 import com.palantir.lock.v2.LeaderTime;
+import com.palantir.lock.v2.LockResponseV2;
 import com.palantir.tokens.auth.AuthHeader;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -67,7 +80,7 @@ public class ConjureTimelockResourceTest {
     public void before() {
         resource = new ConjureTimelockResource(TARGETER, unused -> timelockService);
         service = ConjureTimelockResource.jersey(TARGETER, unused -> timelockService);
-        when(timelockService.leaderTime()).thenReturn(Futures.immediateFuture(leaderTime));
+        lenient().when(timelockService.leaderTime()).thenReturn(Futures.immediateFuture(leaderTime));
     }
 
     @Test
@@ -128,6 +141,38 @@ public class ConjureTimelockResourceTest {
         });
     }
 
+    @Test
+    public void lockBatchRespondsWithCompletedRequestsOnly() {
+        ConjureLockRequest completed = lockRequest();
+        ConjureLockRequest pending = lockRequest();
+        ConjureLockRequest failed = lockRequest();
+        when(timelockService.lock(any())).thenAnswer(invocation -> {
+            UUID requestId = invocation.<IdentifiedLockRequest>getArgument(0).getRequestId();
+            if (requestId.equals(completed.getRequestId())) {
+                return Futures.immediateFuture(LockResponseV2.timedOut());
+            } else if (requestId.equals(pending.getRequestId())) {
+                return SettableFuture.create();
+            }
+            return Futures.immediateFailedFuture(new IllegalStateException());
+        });
+
+        ConjureLockBatchResponse response = Futures.getUnchecked(resource.lockBatch(
+                AUTH_HEADER, NAMESPACE, ConjureLockBatchRequest.of(ImmutableList.of(completed, pending, failed))));
+
+        assertThat(response.getResponses()).containsOnlyKeys(completed.getRequestId());
+        assertThat(response.getResponses().get(completed.getRequestId()))
+                .isEqualTo(ConjureLockResponse.unsuccessful(UnsuccessfulLockResponse.of()));
+    }
+
+    private static ConjureLockRequest lockRequest() {
+        return ConjureLockRequest.builder()
+                .requestId(UUID.randomUUID())
+                .lockDescriptors(ImmutableSet.of())
+                .acquireTimeoutMs(1_000)
+                .clientDescription(Optional.empty())
+                .build();
+    }
+
     private static void assertQosExceptionThrownBy(ListenableFuture<?> future, AssertVisitor visitor) {
         try {
             Futures.getDone(future);
@@ -101,6 +101,33 @@ public class LearnedValuesSinceCoalescingFunctionTests {
                 .doesNotContain(WithSeq.of(CLIENT_3, 1));
     }
 
+    @Test
+    public void fetchesAnotherPageForCallersAheadOfTheFirstPage() {
+        PaxosValue paxosValue1 = paxosValue(10);
+        PaxosValue paxosValue2 = paxosValue(11);
+        PaxosValue paxosValue3 = paxosValue(600);
+
+        when(remote.getLearnedValuesSince(ImmutableMap.of(CLIENT_1, 10L)))
+                .thenReturn(ImmutableSetMultimap.of(CLIENT_1, paxosValue1, CLIENT_1, paxosValue2));
+        when(remote.getLearnedValuesSince(ImmutableMap.of(CLIENT_1, 600L)))
+                .thenReturn(ImmutableSetMultimap.of(CLIENT_1, paxosValue3));
+        when(remote.getLearnedValuesSince(ImmutableMap.of(CLIENT_1, 700L)))
+                .thenReturn(ImmutableSetMultimap.of());
+
+        LearnedValuesSinceCoalescingFunction function = new LearnedValuesSinceCoalescingFunction(remote);
+        Map<WithSeq<Client>, PaxosUpdate> result = function.apply(ImmutableSet.of(
+                WithSeq.of(CLIENT_1, 10),
+                WithSeq.of(CLIENT_1, 600),
+                WithSeq.of(CLIENT_1, 700)));
+
+        assertThat(result.get(WithSeq.of(CLIENT_1, 10)).getValues())
+                .containsExactly(paxosValue1, paxosValue2, paxosValue3);
+        assertThat(result.get(WithSeq.of(CLIENT_1, 600)).getValues()).containsExactly(paxosValue3);
+        assertThat(result.get(WithSeq.of(CLIENT_1, 700)).getValues())
+                .as("an empty update means the remote has nothing at or after the requested sequence")
+                .isEmpty();
+    }
+
     private static PaxosValue paxosValue(long round) {
         return new PaxosValue(UUID.randomUUID().toString(), round, new byte[] {0});
     }
@@ -22,6 +22,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.UUID;
 
 import org.junit.Before;
@@ -115,4 +116,32 @@ public class LocalPaxosComponentsTest {
                 false);
         assertThat(rejectingComponents.learner(CLIENT)).isNotNull();
     }
+
+    @Test
+    public void leadershipAcceptorsHoldLeaderLeases() {
+        LocalPaxosComponents leadershipComponents = new LocalPaxosComponents(
+                TimelockPaxosMetrics.of(PaxosUseCase.LEADER_FOR_ALL_CLIENTS, MetricsManagers.createForTests()),
+                PaxosUseCase.LEADER_FOR_ALL_CLIENTS,
+                logDirectory,
+                UUID.randomUUID(),
+                true,
+                Duration.ofMinutes(1));
+        PaxosAcceptor acceptor = leadershipComponents.acceptor(PaxosUseCase.PSEUDO_LEADERSHIP_CLIENT);
+
+        assertThat(acceptor.prepare(PAXOS_ROUND_ONE, PAXOS_PROPOSAL.getProposalId()).isSuccessful())
+                .as("a restarted acceptor waits out any lease it may have granted before it restarted")
+                .isFalse();
+    }
+
+    @Test
+    public void timestampAcceptorsCannotHoldLeaderLeases() {
+        assertThatThrownBy(() -> new LocalPaxosComponents(
+                TimelockPaxosMetrics.of(PaxosUseCase.TIMESTAMP, MetricsManagers.createForTests()),
+                PaxosUseCase.TIMESTAMP,
+                logDirectory,
+                UUID.randomUUID(),
+                true,
+                Duration.ofSeconds(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
 }
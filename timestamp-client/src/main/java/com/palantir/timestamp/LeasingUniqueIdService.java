@@ -0,0 +1,133 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.timestamp;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.common.base.Throwables;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+
+/**
+ * Hands out unique, strictly increasing identifiers backed by leases of timestamps from a {@link TimestampService}.
+ *
+ * A block of timestamps is leased from the delegate and identifiers are served from it locally; once half of the
+ * current lease has been used, the next lease is requested in the background, so callers only block on the delegate
+ * if they exhaust a lease faster than its successor can be fetched.
+ *
+ * Identifiers are unique across all clients of the same timestamp service, but they are NOT fresh timestamps: an
+ * identifier may be lower than a timestamp another client obtained earlier. This must therefore never be used where a
+ * timestamp is required for correctness, e.g. as a transaction start or commit timestamp.
+ */
+@ThreadSafe
+public final class LeasingUniqueIdService {
+    private static final ListeningExecutorService leaseRefiller = MoreExecutors.listeningDecorator(
+            PTExecutors.newCachedThreadPool(new NamedThreadFactory("unique-id-lease-refill", true)));
+
+    private final TimestampService delegate;
+    private final ListeningExecutorService executor;
+    private final int leaseSize;
+
+    private volatile Lease currentLease = new Lease(0, -1);
+
+    @GuardedBy("this")
+    private ListenableFuture<TimestampRange> nextLease;
+
+    private LeasingUniqueIdService(TimestampService delegate, ListeningExecutorService executor, int leaseSize) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.leaseSize = leaseSize;
+    }
+
+    /**
+     * Creates a service leasing blocks of {@code leaseSize} timestamps at a time. Note that the delegate may grant
+     * fewer timestamps than requested, in which case leases are used up sooner, and the next one is requested once
+     * half of what was actually granted has been used.
+     */
+    public static LeasingUniqueIdService create(TimestampService delegate, int leaseSize) {
+        Preconditions.checkArgument(leaseSize > 0, "Lease size must be positive",
+                SafeArg.of("leaseSize", leaseSize));
+        return new LeasingUniqueIdService(delegate, leaseRefiller, leaseSize);
+    }
+
+    public long getUniqueId() {
+        while (true) {
+            Lease lease = currentLease;
+            long id = lease.next.getAndIncrement();
+            if (id <= lease.upperBoundInclusive) {
+                if (id == lease.refillAt) {
+                    requestNextLease();
+                }
+                return id;
+            }
+            replaceExhaustedLease(lease);
+        }
+    }
+
+    private synchronized void requestNextLease() {
+        if (nextLease == null) {
+            nextLease = executor.submit(() -> delegate.getFreshTimestamps(leaseSize));
+        }
+    }
+
+    private synchronized void replaceExhaustedLease(Lease exhausted) {
+        if (currentLease != exhausted) {
+            return;
+        }
+        ListenableFuture<TimestampRange> pending = nextLease;
+        nextLease = null;
+        TimestampRange range = pending == null ? delegate.getFreshTimestamps(leaseSize) : await(pending);
+        currentLease = new Lease(range.getLowerBound(), range.getUpperBound());
+    }
+
+    private static TimestampRange await(ListenableFuture<TimestampRange> pending) {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwables.throwIfUncheckedException(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static final class Lease {
+        private final AtomicLong next;
+        private final long upperBoundInclusive;
+        /**
+         * Halfway through the timestamps actually granted, which may be fewer than were requested. Every identifier in
+         * the lease is handed out exactly once, so exactly one caller sees this one.
+         */
+        private final long refillAt;
+
+        private Lease(long lowerBoundInclusive, long upperBoundInclusive) {
+            this.next = new AtomicLong(lowerBoundInclusive);
+            this.upperBoundInclusive = upperBoundInclusive;
+            this.refillAt = lowerBoundInclusive + (upperBoundInclusive - lowerBoundInclusive) / 2;
+        }
+    }
+}
@@ -83,6 +83,14 @@ public final class RequestBatchingTimestampService implements CloseableTimestamp
         }
     }
 
+    /**
+     * Returns a service handing out unique identifiers from blocks of {@code leaseSize} timestamps leased through this
+     * service, for callers that need uniqueness but not freshness. See {@link LeasingUniqueIdService}.
+     */
+    public LeasingUniqueIdService createUniqueIdService(int leaseSize) {
+        return LeasingUniqueIdService.create(this, leaseSize);
+    }
+
     public static RequestBatchingTimestampService create(TimestampService untimedDelegate) {
         TimestampService delegate = TimingProxy.newProxyInstance(TimestampService.class, untimedDelegate, timer);
         DisruptorAutobatcher<Integer, TimestampRange> autobatcher = Autobatchers.independent(consumer(delegate))
@@ -0,0 +1,168 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.timestamp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+import com.palantir.common.concurrent.PTExecutors;
+
+public class LeasingUniqueIdServiceTest {
+    private static final int LEASE_SIZE = 100;
+
+    private final TimestampService delegate = spy(new CountingTimestampService());
+    private final LeasingUniqueIdService uniqueIds = LeasingUniqueIdService.create(delegate, LEASE_SIZE);
+
+    @Test
+    public void handsOutIncreasingIdsFromLeases() {
+        List<Long> ids = LongStream.range(0, 10 * LEASE_SIZE)
+                .map(unused -> uniqueIds.getUniqueId())
+                .boxed()
+                .collect(Collectors.toList());
+
+        assertThat(ids).doesNotHaveDuplicates().isSorted();
+        assertThat(ids.get(0)).isEqualTo(1L);
+        verify(delegate, atMost(11)).getFreshTimestamps(LEASE_SIZE);
+    }
+
+    @Test
+    public void idsAreUniqueUnderConcurrentUse() throws Exception {
+        int numThreads = 8;
+        int idsPerThread = 10 * LEASE_SIZE;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = PTExecutors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<?>> futures = IntStream.range(0, numThreads)
+                    .mapToObj(unused -> executor.submit(() -> {
+                        for (int i = 0; i < idsPerThread; i++) {
+                            assertThat(ids.add(uniqueIds.getUniqueId())).isTrue();
+                        }
+                    }))
+                    .collect(Collectors.toList());
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(ids).hasSize(numThreads * idsPerThread);
+    }
+
+    @Test
+    public void handlesShortLeases() {
+        TimestampService shortLeases = new CountingTimestampService() {
+            @Override
+            public TimestampRange getFreshTimestamps(int numTimestampsRequested) {
+                return super.getFreshTimestamps(1);
+            }
+        };
+        LeasingUniqueIdService service = LeasingUniqueIdService.create(shortLeases, LEASE_SIZE);
+
+        assertThat(LongStream.range(0, 5).map(unused -> service.getUniqueId()).toArray())
+                .doesNotHaveDuplicates()
+                .isSorted();
+    }
+
+    @Test
+    public void refillsShortLeasesInTheBackground() {
+        TimestampService shortLeases = spy(new ShortLeasingTimestampService());
+        LeasingUniqueIdService service = LeasingUniqueIdService.create(shortLeases, LEASE_SIZE);
+
+        LongStream.range(0, ShortLeasingTimestampService.GRANTED_LEASE_SIZE / 2 + 1)
+                .forEach(unused -> service.getUniqueId());
+
+        verify(shortLeases, timeout(5_000).times(2)).getFreshTimestamps(LEASE_SIZE);
+    }
+
+    @Test
+    public void propagatesFailuresAndRecovers() {
+        TimestampService failing = mock(TimestampService.class);
+        RuntimeException failure = new IllegalStateException("timelock unavailable");
+        when(failing.getFreshTimestamps(anyInt()))
+                .thenThrow(failure)
+                .thenReturn(TimestampRange.createInclusiveRange(5, 6));
+        LeasingUniqueIdService service = LeasingUniqueIdService.create(failing, 2);
+
+        assertThatThrownBy(service::getUniqueId).isEqualTo(failure);
+        assertThat(service.getUniqueId()).isEqualTo(5L);
+    }
+
+    @Test
+    public void leaseSizeMustBePositive() {
+        assertThatThrownBy(() -> LeasingUniqueIdService.create(delegate, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void requestBatchingServiceLeasesThroughItself() {
+        RequestBatchingTimestampService batching = RequestBatchingTimestampService.create(delegate);
+        try {
+            LeasingUniqueIdService service = batching.createUniqueIdService(LEASE_SIZE);
+            assertThat(service.getUniqueId()).isEqualTo(1L);
+            assertThat(service.getUniqueId()).isEqualTo(2L);
+            verify(delegate).getFreshTimestamps(LEASE_SIZE);
+        } finally {
+            batching.close();
+        }
+    }
+
+    private static class CountingTimestampService implements TimestampService {
+        private final AtomicLong counter = new AtomicLong(0);
+
+        @Override
+        public long getFreshTimestamp() {
+            return counter.incrementAndGet();
+        }
+
+        @Override
+        public TimestampRange getFreshTimestamps(int numTimestampsRequested) {
+            long upper = counter.addAndGet(numTimestampsRequested);
+            return TimestampRange.createInclusiveRange(upper - numTimestampsRequested + 1, upper);
+        }
+    }
+
+    private static class ShortLeasingTimestampService extends CountingTimestampService {
+        private static final int GRANTED_LEASE_SIZE = LEASE_SIZE / 10;
+
+        @Override
+        public TimestampRange getFreshTimestamps(int numTimestampsRequested) {
+            return super.getFreshTimestamps(GRANTED_LEASE_SIZE);
+        }
+    }
+}
@@ -59,4 +59,11 @@ public final class DebugLogger {
         logger.trace("Stored; upper limit is now {}.", SafeArg.of("newLimit", newLimit));
     }
 
+    public static void failedToExtendUpperLimitInBackground(long currentLimit, Throwable throwable) {
+        logger.info("Failed to extend the upper limit in the background; it will be extended synchronously once"
+                        + " the current limit of {} is reached.",
+                SafeArg.of("currentLimit", currentLimit),
+                throwable);
+    }
+
 }
@@ -36,7 +36,7 @@ public class PersistentTimestamp {
 
     public void increaseTo(long newTimestamp) {
         timestamp.increaseTo(newTimestamp);
-        upperLimit.increaseToAtLeast(newTimestamp);
+        upperLimit.fastForwardTo(newTimestamp);
     }
 
     public long getUpperLimitTimestampToHandOutInclusive() {
@@ -15,6 +15,9 @@
  */
 package com.palantir.timestamp;
 
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
 import javax.annotation.concurrent.ThreadSafe;
 
 import org.slf4j.Logger;
@@ -24,6 +27,8 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.palantir.async.initializer.AsyncInitializer;
 import com.palantir.atlasdb.AtlasDbConstants;
+import com.palantir.common.concurrent.NamedThreadFactory;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.logsafe.SafeArg;
 
 @ThreadSafe
@@ -49,7 +54,17 @@ public class PersistentTimestampServiceImpl implements PersistentTimestampServic
     private static final Logger log = LoggerFactory.getLogger(PersistentTimestampServiceImpl.class);
     private static final int MAX_TIMESTAMPS_PER_REQUEST = 10_000;
 
+    /**
+     * Fraction of the timestamp buffer that may be handed out before the upper limit is extended in the background.
+     */
+    public static final double DEFAULT_BOUND_EXTENSION_THRESHOLD = 0.5;
+
+    private static final ExecutorService BOUND_EXTENSION_EXECUTOR = PTExecutors.newCachedThreadPool(
+            new NamedThreadFactory("timestamp-bound-extension", true));
+
     private ErrorCheckingTimestampBoundStore store;
+    private double boundExtensionThreshold;
+    private Duration boundExtensionLeadTime;
     private PersistentTimestamp timestamp;
     private final InitializingWrapper wrapper = new InitializingWrapper();
 
@@ -67,7 +82,22 @@ public class PersistentTimestampServiceImpl implements PersistentTimestampServic
 
     public static PersistentTimestampService create(ErrorCheckingTimestampBoundStore store,
             boolean initializeAsync) {
-        PersistentTimestampServiceImpl service = new PersistentTimestampServiceImpl(store);
+        return create(store, initializeAsync, DEFAULT_BOUND_EXTENSION_THRESHOLD,
+                PersistentUpperLimit.DEFAULT_EXTENSION_LEAD_TIME);
+    }
+
+    /**
+     * @param boundExtensionThreshold fraction of the timestamp buffer that may be handed out before the upper limit
+     *        is extended in the background; 1.0 only extends the limit once it has been exhausted
+     * @param boundExtensionLeadTime how long before the upper limit is expected to be exhausted, at the observed
+     *        allocation rate, it is extended in the background
+     */
+    public static PersistentTimestampService create(ErrorCheckingTimestampBoundStore store,
+            boolean initializeAsync,
+            double boundExtensionThreshold,
+            Duration boundExtensionLeadTime) {
+        PersistentTimestampServiceImpl service = new PersistentTimestampServiceImpl(
+                store, boundExtensionThreshold, boundExtensionLeadTime);
         service.wrapper.initialize(initializeAsync);
         return service.wrapper.isInitialized() ? service : service.wrapper;
     }
@@ -77,13 +107,19 @@ public class PersistentTimestampServiceImpl implements PersistentTimestampServic
         this.timestamp = timestamp;
     }
 
-    private PersistentTimestampServiceImpl(ErrorCheckingTimestampBoundStore store) {
+    private PersistentTimestampServiceImpl(
+            ErrorCheckingTimestampBoundStore store,
+            double boundExtensionThreshold,
+            Duration boundExtensionLeadTime) {
         this.store = store;
+        this.boundExtensionThreshold = boundExtensionThreshold;
+        this.boundExtensionLeadTime = boundExtensionLeadTime;
     }
 
     private void tryInitialize() {
         long latestTimestamp = store.getUpperLimit();
-        PersistentUpperLimit upperLimit = new PersistentUpperLimit(store);
+        PersistentUpperLimit upperLimit = new PersistentUpperLimit(
+                store, BOUND_EXTENSION_EXECUTOR, boundExtensionThreshold, boundExtensionLeadTime);
         timestamp = new PersistentTimestamp(upperLimit, latestTimestamp);
     }
 
@@ -15,8 +15,28 @@
  */
 package com.palantir.timestamp;
 
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
 import com.google.common.annotations.VisibleForTesting;
+import com.palantir.logsafe.Preconditions;
 
+/**
+ * Tracks the highest timestamp that may be handed out, persisting increases to a {@link TimestampBoundStore}.
+ * The limit is never more than {@link #BUFFER} above the highest timestamp handed out or fast-forwarded to.
+ *
+ * When constructed with an extension executor, the limit is also extended in the background before it is exhausted,
+ * so that in steady state requests for timestamps never wait for the bound to be persisted. The limit is extended
+ * once the remaining headroom drops below the larger of the configured fraction of {@link #BUFFER} and the number of
+ * timestamps expected to be handed out within the extension lead time at the observed allocation rate. Fast-forwards
+ * are not counted towards the allocation rate.
+ */
 public class PersistentUpperLimit {
 
     /**
@@ -26,12 +46,65 @@ public class PersistentUpperLimit {
     @VisibleForTesting
     static final long BUFFER = 1_000_000;
 
-    private volatile long currentLimit;
+    @VisibleForTesting
+    static final long MAX_HEADROOM = 9 * BUFFER / 10;
+
+    public static final Duration DEFAULT_EXTENSION_LEAD_TIME = Duration.ofSeconds(10);
+
     private final TimestampBoundStore store;
+    @Nullable
+    private final Executor extensionExecutor;
+    private final long minHeadroom;
+    private final long extensionLeadNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicBoolean extensionInProgress = new AtomicBoolean(false);
+
+    private volatile long currentLimit;
+    private volatile long extensionHeadroom;
+
+    @GuardedBy("this")
+    private long lastExtensionNanos;
+    @GuardedBy("this")
+    private long lastExtensionHandedOut;
 
     public PersistentUpperLimit(TimestampBoundStore boundStore) {
+        this(boundStore, null, 1.0, DEFAULT_EXTENSION_LEAD_TIME, System::nanoTime);
+    }
+
+    /**
+     * @param extensionExecutor executor on which the limit is extended in the background
+     * @param extensionThreshold fraction of the buffer that may be handed out before the limit is extended in the
+     *        background; must be in (0, 1]
+     * @param extensionLeadTime how long before the limit is expected to be exhausted it should be extended in the
+     *        background, at the observed allocation rate; must not be negative
+     */
+    public PersistentUpperLimit(
+            TimestampBoundStore boundStore,
+            Executor extensionExecutor,
+            double extensionThreshold,
+            Duration extensionLeadTime) {
+        this(boundStore, extensionExecutor, extensionThreshold, extensionLeadTime, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    PersistentUpperLimit(
+            TimestampBoundStore boundStore,
+            @Nullable Executor extensionExecutor,
+            double extensionThreshold,
+            Duration extensionLeadTime,
+            LongSupplier nanoClock) {
+        Preconditions.checkArgument(extensionThreshold > 0 && extensionThreshold <= 1,
+                "Extension threshold must be in (0, 1]");
+        Preconditions.checkArgument(!extensionLeadTime.isNegative(), "Extension lead time must not be negative");
         this.store = boundStore;
+        this.extensionExecutor = extensionExecutor;
+        this.minHeadroom = (long) (BUFFER * (1 - extensionThreshold));
+        this.extensionLeadNanos = extensionLeadTime.toNanos();
+        this.nanoClock = nanoClock;
         this.currentLimit = boundStore.getUpperLimit();
+        this.extensionHeadroom = minHeadroom;
+        this.lastExtensionNanos = nanoClock.getAsLong();
+        this.lastExtensionHandedOut = currentLimit;
     }
 
     public long get() {
@@ -41,7 +114,22 @@ public class PersistentUpperLimit {
     public void increaseToAtLeast(long newLimit) {
         if (newLimit > currentLimit) {
             updateLimit(newLimit);
+        } else if (extensionExecutor != null && currentLimit - newLimit < extensionHeadroom) {
+            extendInBackground(newLimit);
+        }
+    }
+
+    /**
+     * Like {@link #increaseToAtLeast(long)}, but for a fast-forward: the jump is not counted towards the allocation
+     * rate used to decide when to extend the limit in the background.
+     */
+    public synchronized void fastForwardTo(long newLimit) {
+        if (newLimit > currentLimit) {
+            storeAndSetLimit(Math.addExact(newLimit, BUFFER));
         }
+
+        lastExtensionNanos = nanoClock.getAsLong();
+        lastExtensionHandedOut = Math.max(lastExtensionHandedOut, newLimit);
     }
 
     private synchronized void updateLimit(long newLimit) {
@@ -49,9 +137,63 @@ public class PersistentUpperLimit {
             return;
         }
 
-        long newLimitWithBuffer = Math.addExact(newLimit, BUFFER);
-        storeUpperLimit(newLimitWithBuffer);
-        currentLimit = newLimitWithBuffer;
+        extendFrom(newLimit);
+    }
+
+    private void extendInBackground(long handedOutUpTo) {
+        if (!extensionInProgress.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            extensionExecutor.execute(() -> {
+                try {
+                    extendFrom(handedOutUpTo);
+                } catch (Throwable t) {
+                    // the next request to exhaust the limit will retry synchronously, and surface any failure
+                    DebugLogger.failedToExtendUpperLimitInBackground(currentLimit, t);
+                } finally {
+                    extensionInProgress.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            extensionInProgress.set(false);
+        }
+    }
+
+    private synchronized void extendFrom(long handedOutUpTo) {
+        long newLimitWithBuffer = Math.addExact(handedOutUpTo, BUFFER);
+        if (currentLimit >= newLimitWithBuffer) {
+            return;
+        }
+
+        if (extensionExecutor != null) {
+            updateExtensionHeadroom(handedOutUpTo);
+        }
+        storeAndSetLimit(newLimitWithBuffer);
+    }
+
+    @GuardedBy("this")
+    private void updateExtensionHeadroom(long handedOutUpTo) {
+        long now = nanoClock.getAsLong();
+        long elapsedNanos = now - lastExtensionNanos;
+        long allocated = handedOutUpTo - lastExtensionHandedOut;
+        if (elapsedNanos <= 0 || allocated <= 0) {
+            // a stale background extension, or no time has passed; nothing new to learn about the allocation rate
+            return;
+        }
+
+        double allocatedPerNano = (double) allocated / elapsedNanos;
+        long leadHeadroom = (long) (allocatedPerNano * extensionLeadNanos);
+        extensionHeadroom = Math.max(minHeadroom, Math.min(MAX_HEADROOM, leadHeadroom));
+        lastExtensionNanos = now;
+        lastExtensionHandedOut = handedOutUpTo;
+    }
+
+    @GuardedBy("this")
+    private void storeAndSetLimit(long newLimit) {
+        storeUpperLimit(newLimit);
+        currentLimit = newLimit;
     }
 
     private void storeUpperLimit(long upperLimit) {
@@ -72,6 +72,7 @@ public class PersistentTimestampTests {
         timestamp.increaseTo(newMinimum);
 
         assertThat(timestamp.incrementBy(1).getLowerBound(), is(newMinimum + 1L));
+        verify(upperLimit).fastForwardTo(newMinimum);
         verify(upperLimit).increaseToAtLeast(longThat(is(greaterThan(newMinimum))));
     }
 
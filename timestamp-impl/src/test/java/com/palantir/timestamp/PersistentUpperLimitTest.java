@@ -19,17 +19,23 @@ import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import com.google.common.util.concurrent.MoreExecutors;
+
 public class PersistentUpperLimitTest {
     private static final long TIMESTAMP = 12345L;
     private static final long INITIAL_UPPER_LIMIT = 10L;
@@ -41,6 +47,7 @@ public class PersistentUpperLimitTest {
     @Rule
     public ExpectedException exception = ExpectedException.none();
     private final TimestampAllocationFailures allocationFailures = mock(TimestampAllocationFailures.class);
+    private final AtomicLong nanoTime = new AtomicLong();
 
     @Before
     public void setup() {
@@ -119,4 +126,78 @@ public class PersistentUpperLimitTest {
         assertThat(upperLimit.get(), is(INITIAL_UPPER_LIMIT));
     }
 
+    @Test
+    public void shouldExtendInBackgroundOnceThresholdOfBufferIsHandedOut() {
+        PersistentUpperLimit proactiveLimit = proactiveUpperLimit();
+        proactiveLimit.increaseToAtLeast(INITIAL_UPPER_LIMIT + 1);
+        verify(boundStore).storeUpperLimit(INITIAL_UPPER_LIMIT + 1 + BUFFER);
+
+        proactiveLimit.increaseToAtLeast(INITIAL_UPPER_LIMIT + BUFFER / 4);
+        verify(boundStore, times(1)).storeUpperLimit(anyLong());
+
+        proactiveLimit.increaseToAtLeast(INITIAL_UPPER_LIMIT + 3 * BUFFER / 4);
+        verify(boundStore).storeUpperLimit(INITIAL_UPPER_LIMIT + 3 * BUFFER / 4 + BUFFER);
+        assertThat(proactiveLimit.get(), is(INITIAL_UPPER_LIMIT + 3 * BUFFER / 4 + BUFFER));
+    }
+
+    @Test
+    public void shouldExtendEarlierWhenAllocationRateIsHigh() {
+        PersistentUpperLimit proactiveLimit = proactiveUpperLimit();
+        nanoTime.addAndGet(1);
+        proactiveLimit.increaseToAtLeast(TIMESTAMP);
+        assertThat(proactiveLimit.get(), is(TIMESTAMP + BUFFER));
+
+        proactiveLimit.increaseToAtLeast(TIMESTAMP + BUFFER / 5);
+        assertThat(proactiveLimit.get(), is(TIMESTAMP + BUFFER / 5 + BUFFER));
+    }
+
+    @Test
+    public void shouldNotExtendEarlierWhenAllocationRateIsLow() {
+        PersistentUpperLimit proactiveLimit = proactiveUpperLimit();
+        nanoTime.addAndGet(TimeUnit.HOURS.toNanos(1));
+        proactiveLimit.increaseToAtLeast(TIMESTAMP);
+
+        proactiveLimit.increaseToAtLeast(TIMESTAMP + BUFFER / 5);
+        assertThat(proactiveLimit.get(), is(TIMESTAMP + BUFFER));
+    }
+
+    @Test
+    public void shouldFastForwardWithBuffer() {
+        upperLimit.fastForwardTo(TIMESTAMP);
+
+        assertThat(upperLimit.get(), is(TIMESTAMP + BUFFER));
+        verify(boundStore).storeUpperLimit(TIMESTAMP + BUFFER);
+    }
+
+    @Test
+    public void shouldNotCountFastForwardsTowardsAllocationRate() {
+        PersistentUpperLimit proactiveLimit = proactiveUpperLimit();
+        nanoTime.addAndGet(TimeUnit.HOURS.toNanos(1));
+        proactiveLimit.increaseToAtLeast(INITIAL_UPPER_LIMIT + 1);
+
+        nanoTime.addAndGet(1);
+        long fastForwardedTo = INITIAL_UPPER_LIMIT + 10_000 * BUFFER;
+        proactiveLimit.fastForwardTo(fastForwardedTo);
+        nanoTime.addAndGet(TimeUnit.HOURS.toNanos(1));
+        proactiveLimit.increaseToAtLeast(fastForwardedTo + BUFFER + 1);
+        assertThat(proactiveLimit.get(), is(fastForwardedTo + 2 * BUFFER + 1));
+
+        proactiveLimit.increaseToAtLeast(fastForwardedTo + BUFFER + 1 + BUFFER / 5);
+        assertThat(proactiveLimit.get(), is(fastForwardedTo + 2 * BUFFER + 1));
+    }
+
+    @Test
+    public void shouldNotThrowIfBackgroundExtensionFails() {
+        doNothing().doThrow(RuntimeException.class).when(boundStore).storeUpperLimit(anyLong());
+        PersistentUpperLimit proactiveLimit = proactiveUpperLimit();
+        proactiveLimit.increaseToAtLeast(INITIAL_UPPER_LIMIT + 1);
+
+        proactiveLimit.increaseToAtLeast(INITIAL_UPPER_LIMIT + 3 * BUFFER / 4);
+        assertThat(proactiveLimit.get(), is(INITIAL_UPPER_LIMIT + 1 + BUFFER));
+    }
+
+    private PersistentUpperLimit proactiveUpperLimit() {
+        return new PersistentUpperLimit(boundStore, MoreExecutors.directExecutor(), 0.5,
+                PersistentUpperLimit.DEFAULT_EXTENSION_LEAD_TIME, nanoTime::get);
+    }
 }